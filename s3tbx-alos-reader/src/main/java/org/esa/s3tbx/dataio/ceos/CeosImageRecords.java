@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s3tbx.dataio.ceos;
+
+import org.esa.s3tbx.dataio.ceos.records.ImageRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides access to the image records of a CEOS image file.
+ * <p>
+ * The image records have a fixed length and follow each other directly, starting with the given first record.
+ * The scan start times of all records are read when the instance is created. The image data is read with
+ * positional reads, which do not change any state, so that different threads can read different lines at the
+ * same time without locking.
+ */
+public class CeosImageRecords {
+
+    private static final int SCAN_START_TIME_OFFSET = 20;
+    private static final int SCAN_START_TIME_LENGTH = 6;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long firstRecordPos;
+    private final int recordLength;
+    private final long imageDataOffset;
+    private final int[] scanStartTimeMillisAtDay;
+    private final short[] scanStartTimeMicros;
+
+    /**
+     * Creates the image records and reads the scan start times of all records.
+     *
+     * @param imageFile   the image file
+     * @param firstRecord the first image record of the file
+     * @param numRecords  the number of image records
+     *
+     * @throws IOException                if the file cannot be read
+     * @throws IllegalCeosFormatException if the file is shorter than its image records
+     */
+    public CeosImageRecords(final File imageFile, final ImageRecord firstRecord, final int numRecords) throws
+                                                                                                      IOException,
+                                                                                                      IllegalCeosFormatException {
+        firstRecordPos = firstRecord.getStartPos();
+        recordLength = firstRecord.getRecordLength();
+        imageDataOffset = firstRecord.getImageDataStart() - firstRecordPos;
+        scanStartTimeMillisAtDay = new int[numRecords];
+        scanStartTimeMicros = new short[numRecords];
+        file = new RandomAccessFile(imageFile, "r");
+        channel = file.getChannel();
+        try {
+            final ByteBuffer buffer = ByteBuffer.allocate(SCAN_START_TIME_LENGTH).order(ByteOrder.BIG_ENDIAN);
+            for (int line = 0; line < numRecords; line++) {
+                buffer.clear();
+                read(buffer, getRecordPos(line) + SCAN_START_TIME_OFFSET);
+                scanStartTimeMillisAtDay[line] = buffer.getInt(0);
+                scanStartTimeMicros[line] = buffer.getShort(4);
+            }
+        } catch (IOException | IllegalCeosFormatException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int getNumRecords() {
+        return scanStartTimeMillisAtDay.length;
+    }
+
+    public int getScanStartTimeMillisAtDay(final int line) {
+        return scanStartTimeMillisAtDay[line];
+    }
+
+    public short getScanStartTimeMicros(final int line) {
+        return scanStartTimeMicros[line];
+    }
+
+    /**
+     * Reads image data of a line.
+     *
+     * @param line   the line, the index of the image record
+     * @param offset the offset of the first byte to read, relative to the start of the image data of the line
+     * @param data   the array receiving the image data, it is filled completely
+     *
+     * @throws IOException                if the data cannot be read
+     * @throws IllegalCeosFormatException if the file ends before the requested data
+     */
+    public void readImageData(final int line, final int offset, final byte[] data) throws IOException,
+                                                                                         IllegalCeosFormatException {
+        if (line < 0 || line >= getNumRecords()) {
+            throw new IllegalArgumentException("Line " + line + " out of range [0, " + getNumRecords() + ")");
+        }
+        read(ByteBuffer.wrap(data), getRecordPos(line) + imageDataOffset + offset);
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private long getRecordPos(final int line) {
+        return firstRecordPos + (long) recordLength * line;
+    }
+
+    private void read(final ByteBuffer buffer, final long pos) throws IOException, IllegalCeosFormatException {
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pos + length - buffer.remaining()) < 0) {
+                final String message = String.format("Expected bytes to read %d, but only found %d",
+                                                     length, length - buffer.remaining());
+                throw new IllegalCeosFormatException(message, pos);
+            }
+        }
+    }
+}
@@ -18,12 +18,14 @@ package org.esa.s3tbx.dataio.ceos.avnir2;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s3tbx.dataio.ceos.CeosFileReader;
+import org.esa.s3tbx.dataio.ceos.CeosImageRecords;
 import org.esa.s3tbx.dataio.ceos.IllegalCeosFormatException;
 import org.esa.s3tbx.dataio.ceos.avnir2.records.Avnir2ImageFDR;
 import org.esa.s3tbx.dataio.ceos.records.ImageRecord;
 import org.esa.snap.core.datamodel.ProductData;
 
 import javax.imageio.stream.ImageInputStream;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -35,21 +37,22 @@ import java.io.IOException;
 class Avnir2ImageFile {
 
     public final Avnir2ImageFDR _imageFDR;
-    public final ImageRecord[] _imageRecords;
-    private CeosFileReader _ceosReader;
+    public final ImageRecord _firstImageRecord;
+    private CeosImageRecords _imageRecords;
     private final int _imageNumber;
-    private int _imageRecordLength;
-    private long _startPosImageRecords;
 
-    public Avnir2ImageFile(final ImageInputStream imageStream) throws IOException,
+    public Avnir2ImageFile(final ImageInputStream imageStream, final File imageFile) throws IOException,
                                                                       IllegalCeosFormatException {
-        _ceosReader = new CeosFileReader(imageStream);
-        _imageFDR = new Avnir2ImageFDR(_ceosReader);
-        _imageRecords = new ImageRecord[_imageFDR.getNumLinesPerBand()];
-        _imageRecords[0] = new ImageRecord(_ceosReader);
-        _imageRecordLength = _imageRecords[0].getRecordLength();
-        _startPosImageRecords = _imageRecords[0].getStartPos();
-        _imageNumber = _imageRecords[0].getImageNumber();
+        // the headers are read from the stream, the image data with positional reads
+        final CeosFileReader ceosReader = new CeosFileReader(imageStream);
+        try {
+            _imageFDR = new Avnir2ImageFDR(ceosReader);
+            _firstImageRecord = new ImageRecord(ceosReader);
+        } finally {
+            ceosReader.close();
+        }
+        _imageNumber = _firstImageRecord.getImageNumber();
+        _imageRecords = new CeosImageRecords(imageFile, _firstImageRecord, _imageFDR.getNumLinesPerBand());
     }
 
     public String getBandName() throws IOException,
@@ -119,12 +122,12 @@ class Avnir2ImageFile {
 
     public int getTotalMillisInDayOfLine(final int y) throws IOException,
                                                              IllegalCeosFormatException {
-        return getImageRecord(y).getScanStartTimeMillisAtDay();
+        return _imageRecords.getScanStartTimeMillisAtDay(y);
     }
 
     public int getMicrosecondsOfLine(final int y) throws IOException,
                                                          IllegalCeosFormatException {
-        return getImageRecord(y).getScanStartTimeMicros();
+        return _imageRecords.getScanStartTimeMicros(y);
     }
 
 
@@ -166,20 +169,7 @@ class Avnir2ImageFile {
 
     private void readSourceLine(final int y, final int sourceOffsetX, final byte[] srcLine) throws IOException,
                                                                                                    IllegalCeosFormatException {
-        synchronized (_ceosReader) {
-            final ImageRecord imageRecord = getImageRecord(y);
-            _ceosReader.seek(imageRecord.getImageDataStart() + sourceOffsetX);
-            _ceosReader.readB1(srcLine);
-        }
-    }
-
-    private ImageRecord getImageRecord(final int line) throws IOException,
-                                                              IllegalCeosFormatException {
-        if (_imageRecords[line] == null) {
-            _ceosReader.seek(_imageRecordLength * line + _startPosImageRecords);
-            _imageRecords[line] = new ImageRecord(_ceosReader);
-        }
-        return _imageRecords[line];
+        _imageRecords.readImageData(y, sourceOffsetX, srcLine);
     }
 
     private void copyLine(final byte[] srcLine, final byte[] destLine,
@@ -194,7 +184,7 @@ class Avnir2ImageFile {
     }
 
     public void close() throws IOException {
-        _ceosReader.close();
-        _ceosReader = null;
+        _imageRecords.close();
+        _imageRecords = null;
     }
 }
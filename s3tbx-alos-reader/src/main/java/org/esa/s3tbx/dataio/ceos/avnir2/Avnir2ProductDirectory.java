@@ -94,7 +94,8 @@ class Avnir2ProductDirectory {
         final String[] imageFileNames = volumeDirectoryFile.getImageFileNames();
         imageFiles = new Avnir2ImageFile[imageFileNames.length];
         for (int i = 0; i < imageFiles.length; i++) {
-            imageFiles[i] = new Avnir2ImageFile(createInputStream(imageFileNames[i]));
+            imageFiles[i] = new Avnir2ImageFile(createInputStream(imageFileNames[i]),
+                                                new File(baseDir, imageFileNames[i]));
         }
 
         sceneWidth = imageFiles[0].getRasterWidth();
@@ -17,11 +17,13 @@ package org.esa.s3tbx.dataio.ceos.prism;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s3tbx.dataio.ceos.CeosFileReader;
+import org.esa.s3tbx.dataio.ceos.CeosImageRecords;
 import org.esa.s3tbx.dataio.ceos.IllegalCeosFormatException;
 import org.esa.s3tbx.dataio.ceos.prism.records.ImageFileDescriptorRecord;
 import org.esa.s3tbx.dataio.ceos.records.ImageRecord;
 
 import javax.imageio.stream.ImageInputStream;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -33,25 +35,26 @@ import java.io.IOException;
 class PrismImageFile {
 
     public final ImageFileDescriptorRecord _imageFileDescriptorRecord;
-    public final ImageRecord[] _imageRecords;
+    public final ImageRecord _firstImageRecord;
     private final int _height;
     private final int _width;
-    private CeosFileReader _ceosReader;
+    private CeosImageRecords _imageRecords;
     private final int _imageNumber;
-    private int _imageRecordLength;
-    private long _startPosImageRecords;
 
-    public PrismImageFile(final ImageInputStream imageStream) throws IOException,
+    public PrismImageFile(final ImageInputStream imageStream, final File imageFile) throws IOException,
             IllegalCeosFormatException {
-        _ceosReader = new CeosFileReader(imageStream);
-        _imageFileDescriptorRecord = new ImageFileDescriptorRecord(_ceosReader);
-        _width = _imageFileDescriptorRecord.getNumImagePixelsPerLine();
-        _height = _imageFileDescriptorRecord.getNumLinesPerBand();
-        _imageRecords = new ImageRecord[_height];
-        _imageRecords[0] = new ImageRecord(_ceosReader);
-        _imageRecordLength = _imageRecords[0].getRecordLength();
-        _startPosImageRecords = _imageRecords[0].getStartPos();
-        _imageNumber = _imageRecords[0].getImageNumber();
+        // the headers are read from the stream, the image data with positional reads
+        final CeosFileReader ceosReader = new CeosFileReader(imageStream);
+        try {
+            _imageFileDescriptorRecord = new ImageFileDescriptorRecord(ceosReader);
+            _width = _imageFileDescriptorRecord.getNumImagePixelsPerLine();
+            _height = _imageFileDescriptorRecord.getNumLinesPerBand();
+            _firstImageRecord = new ImageRecord(ceosReader);
+        } finally {
+            ceosReader.close();
+        }
+        _imageNumber = _firstImageRecord.getImageNumber();
+        _imageRecords = new CeosImageRecords(imageFile, _firstImageRecord, _height);
     }
 
     void readBandRasterData(final int sourceOffsetX, final int sourceOffsetY,
@@ -96,20 +99,7 @@ class PrismImageFile {
 
     private void readSourceLine(final int y, final int sourceOffsetX, final byte[] srcLine) throws IOException,
             IllegalCeosFormatException {
-        synchronized (_ceosReader) {
-            final ImageRecord imageRecord = getImageRecord(y);
-            _ceosReader.seek(imageRecord.getImageDataStart() + sourceOffsetX);
-            _ceosReader.readB1(srcLine);
-        }
-    }
-
-    private ImageRecord getImageRecord(final int line) throws IOException,
-            IllegalCeosFormatException {
-        if (_imageRecords[line] == null) {
-            _ceosReader.seek(_imageRecordLength * line + _startPosImageRecords);
-            _imageRecords[line] = new ImageRecord(_ceosReader);
-        }
-        return _imageRecords[line];
+        _imageRecords.readImageData(y, sourceOffsetX, srcLine);
     }
 
     private void copyLine(final byte[] srcLine, final byte[] destLine, final int sourceStepX) {
@@ -123,8 +113,8 @@ class PrismImageFile {
     }
 
     public void close() throws IOException {
-        _ceosReader.close();
-        _ceosReader = null;
+        _imageRecords.close();
+        _imageRecords = null;
     }
 
     public int getHeight() {
@@ -152,10 +142,10 @@ class PrismImageFile {
     }
 
     public int getTotalMillisInDayOfLine(int y) throws IOException, IllegalCeosFormatException {
-        return getImageRecord(y).getScanStartTimeMillisAtDay();
+        return _imageRecords.getScanStartTimeMillisAtDay(y);
     }
 
     public int getMicrosecondsOfLine(final int y) throws IOException, IllegalCeosFormatException {
-        return getImageRecord(y).getScanStartTimeMicros();
+        return _imageRecords.getScanStartTimeMicros(y);
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s3tbx.dataio.ceos;
+
+import org.esa.s3tbx.dataio.ceos.records.ImageRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.stream.FileImageInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CeosImageRecordsTest {
+
+    private static final int HEADER_LENGTH = 100;
+    private static final int NUM_PIXELS = 50;
+    private static final int RECORD_LENGTH = 34 + NUM_PIXELS + 6;
+    private static final int NUM_RECORDS = 8;
+
+    private File _file;
+
+    @Before
+    public void setUp() throws Exception {
+        _file = File.createTempFile("CeosImageRecordsTest", ".dat");
+        try (DataOutputStream os = new DataOutputStream(new FileOutputStream(_file))) {
+            os.write(new byte[HEADER_LENGTH]);
+            for (int line = 0; line < NUM_RECORDS; line++) {
+                os.writeInt(line + 2); // recordNumber // B4
+                os.write(new byte[4]); // record subtypes and type code // 4 * B1
+                os.writeInt(RECORD_LENGTH); // recordLength // B4
+                os.writeInt(line + 1); // prefixDataLineNumber // B4
+                os.writeInt(3); // imageNumber // B4
+                os.writeInt(1000 * line); // scanStartTimeMillisAtDay // B4
+                os.writeShort(10 * line); // scanStartTimeMicros // B2
+                os.writeInt(0); // numLeftDummyPixels // B4
+                os.writeInt(0); // numRightDummyPixels // B4
+                os.write(createLine(line));
+                os.write(new byte[RECORD_LENGTH - 34 - NUM_PIXELS]);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (_file != null && !_file.delete()) {
+            _file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testReadImageData() throws IOException,
+                                           IllegalCeosFormatException {
+        final CeosImageRecords records = createImageRecords(NUM_RECORDS);
+        try {
+            assertEquals(NUM_RECORDS, records.getNumRecords());
+            for (int line = NUM_RECORDS - 1; line >= 0; line--) {
+                final byte[] data = new byte[NUM_PIXELS - 7];
+                records.readImageData(line, 7, data);
+
+                final byte[] expected = new byte[data.length];
+                System.arraycopy(createLine(line), 7, expected, 0, expected.length);
+                assertArrayEquals(expected, data);
+            }
+        } finally {
+            records.close();
+        }
+    }
+
+    @Test
+    public void testScanStartTimes() throws IOException,
+                                            IllegalCeosFormatException {
+        final CeosImageRecords records = createImageRecords(NUM_RECORDS);
+        try {
+            for (int line = 0; line < NUM_RECORDS; line++) {
+                assertEquals(1000 * line, records.getScanStartTimeMillisAtDay(line));
+                assertEquals(10 * line, records.getScanStartTimeMicros(line));
+            }
+        } finally {
+            records.close();
+        }
+    }
+
+    @Test
+    public void testTooManyRecords() throws IOException {
+        try {
+            createImageRecords(NUM_RECORDS + 1);
+            fail("IllegalCeosFormatException expected");
+        } catch (IllegalCeosFormatException expected) {
+            // ok
+        }
+    }
+
+    private CeosImageRecords createImageRecords(int numRecords) throws IOException,
+                                                                      IllegalCeosFormatException {
+        final CeosFileReader reader = new CeosFileReader(new FileImageInputStream(_file));
+        final ImageRecord firstRecord;
+        try {
+            firstRecord = new ImageRecord(reader, HEADER_LENGTH);
+        } finally {
+            reader.close();
+        }
+        return new CeosImageRecords(_file, firstRecord, numRecords);
+    }
+
+    private static byte[] createLine(int line) {
+        final byte[] data = new byte[NUM_PIXELS];
+        for (int x = 0; x < data.length; x++) {
+            data[x] = (byte) (line * 31 + x);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s3tbx.dataio.avhrr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only, memory-mapped view of a sequence of fixed size records in a file, e.g. the scan line records
+ * of an AVHRR product.
+ * <p>
+ * All accessors read at absolute positions and do not change any state, so that different threads can read
+ * different records concurrently without locking. Values are read in big endian byte order.
+ */
+public final class MappedRecords {
+
+    private final int recordSize;
+    private final int recordCount;
+    private final int recordsPerBuffer;
+    private final ByteBuffer[] buffers;
+
+    /**
+     * Maps the records.
+     *
+     * @param file                the file
+     * @param firstRecordPosition the position of the first record in the file
+     * @param recordSize          the size of a record in bytes
+     * @param recordCount         the number of records, the records must be contained in the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedRecords(File file, long firstRecordPosition, int recordSize, int recordCount) throws IOException {
+        if (recordSize <= 0 || recordCount < 0) {
+            throw new IllegalArgumentException("Illegal record layout: " + recordCount + " records of " +
+                                               recordSize + " bytes");
+        }
+        this.recordSize = recordSize;
+        this.recordCount = recordCount;
+        // a single buffer can map at most Integer.MAX_VALUE bytes
+        recordsPerBuffer = Math.max(1, Math.min(recordCount, Integer.MAX_VALUE / recordSize));
+        buffers = new ByteBuffer[(recordCount + recordsPerBuffer - 1) / recordsPerBuffer];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            final long requiredSize = firstRecordPosition + (long) recordSize * recordCount;
+            if (channel.size() < requiredSize) {
+                throw new IOException("File '" + file + "' is too short, expected at least " +
+                                      requiredSize + " bytes");
+            }
+            for (int i = 0; i < buffers.length; i++) {
+                final int count = Math.min(recordsPerBuffer, recordCount - i * recordsPerBuffer);
+                final long position = firstRecordPosition + (long) i * recordsPerBuffer * recordSize;
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * recordSize)
+                        .order(ByteOrder.BIG_ENDIAN);
+            }
+        }
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public byte getByte(int record, int offset) {
+        return getBuffer(record).get(getPosition(record, offset));
+    }
+
+    public short getShort(int record, int offset) {
+        return getBuffer(record).getShort(getPosition(record, offset));
+    }
+
+    public int getUnsignedShort(int record, int offset) {
+        return getShort(record, offset) & 0xffff;
+    }
+
+    public int getInt(int record, int offset) {
+        return getBuffer(record).getInt(getPosition(record, offset));
+    }
+
+    /**
+     * Returns a view of a single record. The view has its own position and limit, its position 0 is the start of
+     * the record and its capacity is the record size.
+     *
+     * @param record the record index
+     * @return the read-only view of the record
+     */
+    public ByteBuffer getRecord(int record) {
+        final ByteBuffer buffer = getBuffer(record).duplicate();
+        final int position = getPosition(record, 0);
+        buffer.limit(position + recordSize);
+        buffer.position(position);
+        return buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private ByteBuffer getBuffer(int record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("Record index " + record + " out of range [0, " + recordCount + ")");
+        }
+        return buffers[record / recordsPerBuffer];
+    }
+
+    private int getPosition(int record, int offset) {
+        return (record % recordsPerBuffer) * recordSize + offset;
+    }
+}
@@ -19,11 +19,25 @@ package org.esa.s3tbx.dataio.avhrr.calibration;
 /**
  * A calibrator is used to compute geo-physical values from AVHRR measurement counts.
  */
-abstract public class AbstractCalibrator implements Calibrator {
+abstract public class AbstractCalibrator implements Calibrator, Cloneable {
 	
     protected final int channel;
 
     protected AbstractCalibrator(int channel) {
         this.channel = channel;
     }
+
+    /**
+     * Creates a copy of this calibrator. The calibration data processed by the copy do not affect this calibrator,
+     * so that copies can be used to calibrate different scan lines concurrently.
+     *
+     * @return the copy
+     */
+    public AbstractCalibrator copy() {
+        try {
+            return (AbstractCalibrator) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
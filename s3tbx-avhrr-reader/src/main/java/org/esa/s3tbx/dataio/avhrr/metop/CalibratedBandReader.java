@@ -21,16 +21,22 @@ package org.esa.s3tbx.dataio.avhrr.metop;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
 import org.esa.s3tbx.dataio.avhrr.AvhrrFile;
+import org.esa.s3tbx.dataio.avhrr.MappedRecords;
 import org.esa.s3tbx.dataio.avhrr.calibration.RadianceCalibrator;
 import org.esa.snap.core.datamodel.ProductData;
 
 import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.text.MessageFormat;
 
 /**
  * Reads radiances from the METOP prodcuts and transforms them into
  * a reflectance factor or a temperature.
+ * <p>
+ * The radiances are stored as 16 bit values and the calibration is the same for all scan lines, so the calibrated
+ * values of all radiances are tabulated once.
  *
  * @author marcoz
  * @version $Revision: 1.1.1.1 $ $Date: 2007/03/22 11:12:51 $
@@ -39,10 +45,18 @@ class CalibratedBandReader extends PlainBandReader {
 
     private final RadianceCalibrator calibrator;
 
+    // calibrated values indexed by the stored radiance minus Short.MIN_VALUE
+    private final float[] calibrationTable;
+
     public CalibratedBandReader(int channel, MetopFile metopFile,
                                 ImageInputStream inputStream, RadianceCalibrator radianceCalibrator) {
         super(channel, metopFile, inputStream);
         calibrator = radianceCalibrator;
+        final float scalingFactor = (float) super.getScalingFactor();
+        calibrationTable = new float[1 << 16];
+        for (int radiance = Short.MIN_VALUE; radiance <= Short.MAX_VALUE; radiance++) {
+            calibrationTable[radiance - Short.MIN_VALUE] = calibrator.calibrate(radiance * scalingFactor);
+        }
     }
 
     @Override
@@ -97,7 +111,7 @@ class CalibratedBandReader extends PlainBandReader {
         AvhrrFile.RawCoordinates rawCoord = metopFile.getRawCoordinates(sourceOffsetX, sourceOffsetY,
                                                                         sourceWidth, sourceHeight);
         final float[] targetData = (float[]) destBuffer.getElems();
-        final float scalingFactor = (float) super.getScalingFactor();
+        final MappedRecords mdrRecords = metopFile.getMdrRecords();
 
         pm.beginTask(MessageFormat.format("Reading AVHRR band ''{0}''...", getBandName()), rawCoord.maxY - rawCoord.minY);
 
@@ -108,16 +122,12 @@ class CalibratedBandReader extends PlainBandReader {
             }
 
             if (hasData(sourceY)) {
-                final int dataOffset = getDataOffset(sourceOffsetX, sourceY);
-                synchronized (inputStream) {
-                    final short[] radianceScanLine = new short[metopFile.getProductWidth()];
-                    inputStream.seek(dataOffset);
-                    inputStream.readFully(radianceScanLine, 0, sourceWidth);
-
-                    for (int sourceX = 0; sourceX <= sourceWidth - 1; sourceX++) {
-                        targetData[targetIdx] = calibrator.calibrate(radianceScanLine[sourceX] * scalingFactor);
-                        targetIdx += rawCoord.targetIncrement;
-                    }
+                final ByteBuffer mdr = mdrRecords.getRecord(sourceY);
+                mdr.position(getDataOffset(sourceOffsetX));
+                final ShortBuffer radianceScanLine = mdr.asShortBuffer();
+                for (int sourceX = 0; sourceX <= sourceWidth - 1; sourceX++) {
+                    targetData[targetIdx] = calibrationTable[radianceScanLine.get(sourceX) - Short.MIN_VALUE];
+                    targetIdx += rawCoord.targetIncrement;
                 }
             } else {
                 for (int sourceX = rawCoord.minX; sourceX <= rawCoord.maxX; sourceX += sourceStepX) {
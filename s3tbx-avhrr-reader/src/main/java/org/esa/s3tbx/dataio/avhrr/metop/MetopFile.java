@@ -23,6 +23,7 @@ import org.esa.s3tbx.dataio.avhrr.AvhrrFile;
 import org.esa.s3tbx.dataio.avhrr.BandReader;
 import org.esa.s3tbx.dataio.avhrr.FlagReader;
 import org.esa.s3tbx.dataio.avhrr.HeaderUtil;
+import org.esa.s3tbx.dataio.avhrr.MappedRecords;
 import org.esa.s3tbx.dataio.avhrr.calibration.Radiance2TemperatureCalibrator;
 import org.esa.s3tbx.dataio.avhrr.calibration.RadianceCalibrator;
 import org.esa.snap.core.datamodel.MetadataElement;
@@ -76,6 +77,10 @@ class MetopFile extends AvhrrFile {
 
     private ImageInputStream inputStream;
 
+    private final File file;
+
+    private MappedRecords mdrRecords;
+
     private GenericRecordHeader mphrHeader;
 
     private AsciiRecord mainProductHeaderRecord;
@@ -97,8 +102,9 @@ class MetopFile extends AvhrrFile {
     private MetadataElement geadrMetadata;
     private MetadataElement readerInfo;
 
-    public MetopFile(ImageInputStream imageInputStream) {
+    public MetopFile(ImageInputStream imageInputStream, File file) {
         this.inputStream = imageInputStream;
+        this.file = file;
         readerInfo = new MetadataElement("READER_INFO");
     }
 
@@ -200,6 +206,7 @@ class MetopFile extends AvhrrFile {
         }
         productHeight = mainProductHeaderRecord.getIntValue("TOTAL_MDR");
         int toSkip = checkMdrs(navSampleRate);
+        mdrRecords = new MappedRecords(file, firstMdrOffset, mdrSize, productHeight);
         analyzeFrameIndicator();
 
         readerInfo.addAttribute(HeaderUtil.createAttribute("TRIM_BOTTOM", toSkip, "pixel", "Number of lines cut from the end of the product to match the tie-points."));
@@ -355,17 +362,19 @@ class MetopFile extends AvhrrFile {
         return AvhrrConstants.TP_SUB_SAMPLING_X;
     }
 
-    int readFrameIndicator(int rawY) throws IOException {
-        int flagOffset = getScanLineOffset(rawY) + FRAME_INDICATOR_OFFSET + 1;
+    int readFrameIndicator(int rawY) {
+        int flagOffset = FRAME_INDICATOR_OFFSET + 1;
         if (numNavPoints == LOW_PRECISION_TIE_POINT_WIDTH) {
             flagOffset = flagOffset - TIE_POINT_DIFFERENCE;
         }
-        byte flag;
-        synchronized (inputStream) {
-            inputStream.seek(flagOffset);
-            flag = inputStream.readByte();
-        }
-        return flag;
+        return mdrRecords.getByte(rawY, flagOffset);
+    }
+
+    /**
+     * @return the memory-mapped MDRs, one per scan line
+     */
+    MappedRecords getMdrRecords() {
+        return mdrRecords;
     }
 
     public static boolean canOpenFile(File file) throws IOException {
@@ -475,6 +484,7 @@ class MetopFile extends AvhrrFile {
 
     @Override
     public void dispose() throws IOException {
+        mdrRecords = null;
         if (inputStream != null) {
             inputStream.close();
             inputStream = null;
@@ -63,7 +63,7 @@ public class MetopReader extends AvhrrReader implements AvhrrConstants {
 
         try {
             ImageInputStream imageInputStream = new FileImageInputStream(dataFile);
-            avhrrFile = new MetopFile(imageInputStream);
+            avhrrFile = new MetopFile(imageInputStream, dataFile);
             avhrrFile.readHeader();
             createProduct();
         } catch (IOException e) {
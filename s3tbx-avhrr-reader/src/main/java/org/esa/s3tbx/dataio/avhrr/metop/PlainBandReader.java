@@ -22,10 +22,12 @@ import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
 import org.esa.s3tbx.dataio.avhrr.AvhrrFile;
 import org.esa.s3tbx.dataio.avhrr.BandReader;
+import org.esa.s3tbx.dataio.avhrr.MappedRecords;
 import org.esa.snap.core.datamodel.ProductData;
 
 import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.MessageFormat;
 
 /**
@@ -104,6 +106,7 @@ class PlainBandReader implements BandReader {
         AvhrrFile.RawCoordinates rawCoord = metopFile.getRawCoordinates(
                 sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
         final short[] targetData = (short[]) destBuffer.getElems();
+        final MappedRecords mdrRecords = metopFile.getMdrRecords();
 
         pm.beginTask(MessageFormat.format("Reading AVHRR band ''{0}''...", getBandName()),
                      rawCoord.maxY - rawCoord.minY);
@@ -115,11 +118,9 @@ class PlainBandReader implements BandReader {
             }
 
             if (hasData(sourceY)) {
-                final int dataOffset = getDataOffset(sourceOffsetX, sourceY);
-                synchronized (inputStream) {
-                    inputStream.seek(dataOffset);
-                    inputStream.readFully(targetData, targetIdx, sourceWidth);
-                }
+                final ByteBuffer mdr = mdrRecords.getRecord(sourceY);
+                mdr.position(getDataOffset(sourceOffsetX));
+                mdr.asShortBuffer().get(targetData, targetIdx, sourceWidth);
                 targetIdx += sourceWidth;
             } else {
                 for (int sourceX = rawCoord.minX; sourceX <= rawCoord.maxX; sourceX += sourceStepX) {
@@ -133,9 +134,11 @@ class PlainBandReader implements BandReader {
 
     }
 
-    protected int getDataOffset(int sourceOffsetX, int sourceY) {
-        return metopFile.getScanLineOffset(sourceY)
-                + 24
+    /**
+     * @return the offset of the first pixel to read within the MDR of a scan line
+     */
+    protected int getDataOffset(int sourceOffsetX) {
+        return 24
                 + (AvhrrConstants.RAW_SCENE_RASTER_WIDTH * AvhrrConstants.CH_DATASET_INDEXES[channel] * 2)
                 + ((metopFile.getNumTrimX() + sourceOffsetX) * 2);
     }
@@ -145,7 +148,7 @@ class PlainBandReader implements BandReader {
                 || channel == AvhrrConstants.CH_3A;
     }
 
-    protected boolean hasData(int rawY) throws IOException {
+    protected boolean hasData(int rawY) {
         if (channel != AvhrrConstants.CH_3A && channel != AvhrrConstants.CH_3B) {
             return true;
         }
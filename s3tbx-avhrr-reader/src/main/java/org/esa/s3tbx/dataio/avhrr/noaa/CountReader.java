@@ -16,35 +16,50 @@
 
 package org.esa.s3tbx.dataio.avhrr.noaa;
 
-import com.bc.ceres.binio.CompoundData;
-import com.bc.ceres.binio.SequenceData;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
 import org.esa.s3tbx.dataio.avhrr.AvhrrFile;
 import org.esa.s3tbx.dataio.avhrr.BandReader;
-import org.esa.s3tbx.dataio.avhrr.calibration.Calibrator;
+import org.esa.s3tbx.dataio.avhrr.MappedRecords;
+import org.esa.s3tbx.dataio.avhrr.calibration.AbstractCalibrator;
 import org.esa.snap.core.datamodel.ProductData;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
+/**
+ * Reads the counts of a channel from the memory-mapped data records and calibrates them.
+ * <p>
+ * Counts are 10 bit values, so the calibration of a scan line is a table of 1024 values, which is filled on demand.
+ * If the calibration does not depend on the scan line, a single table is used for all lines. Scan lines can be read
+ * concurrently.
+ */
 abstract class CountReader implements BandReader {
 
-    protected final Calibrator calibrator;
-
-    protected final int[] calibrationData;
+    private static final int COUNT_RANGE = 1024;
 
-    protected final int[] lineOfCounts;
+    protected final AbstractCalibrator calibrator;
 
     protected final int channel;
 
     protected final KlmAvhrrFile noaaFile;
 
-    public CountReader(int channel, KlmAvhrrFile noaaFile, Calibrator calibrator, int dataWidth) {
+    private final int dataWidth;
+
+    // the calibrated values of all counts, if the calibration does not depend on the scan line
+    private volatile float[] constantTable;
+
+    // scan lines before the first one with valid calibration data have no calibration
+    private int firstCalibratedLine;
+
+    private volatile boolean calibratorInitialized;
+
+    public CountReader(int channel, KlmAvhrrFile noaaFile, AbstractCalibrator calibrator, int dataWidth) {
         this.channel = channel;
         this.noaaFile = noaaFile;
         this.calibrator = calibrator;
-        calibrationData = new int[AvhrrConstants.CALIB_COEFF_LENGTH];
-        lineOfCounts = new int[dataWidth];
+        this.dataWidth = dataWidth;
     }
 
     @Override
@@ -73,7 +88,7 @@ abstract class CountReader implements BandReader {
     }
 
     @Override
-    public synchronized void readBandRasterData(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
+    public void readBandRasterData(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
                                    int sourceStepX, int sourceStepY, ProductData destBuffer, ProgressMonitor pm) throws
                                                                                                                  IOException {
 
@@ -82,6 +97,13 @@ abstract class CountReader implements BandReader {
 
         final float[] targetData = (float[]) destBuffer.getElems();
 
+        initCalibration();
+        final float[] constantTable = this.constantTable;
+        final LineCalibration lineCalibration = constantTable == null ? new LineCalibration(calibrator.copy()) : null;
+        final MappedRecords dataRecords = noaaFile.getDataRecords();
+        final int[] calibrationData = new int[AvhrrConstants.CALIB_COEFF_LENGTH];
+        final int[] lineOfCounts = new int[dataWidth];
+
         int targetIdx = rawCoord.targetStart;
         pm.beginTask("Reading AVHRR band '" + getBandName() + "'...", rawCoord.maxY - rawCoord.minY);
         try {
@@ -90,18 +112,21 @@ abstract class CountReader implements BandReader {
                     break;
                 }
 
-                boolean validData = hasData(rawY);
+                boolean validData = rawY >= firstCalibratedLine && hasData(rawY);
                 if (validData) {
-                    if (calibrator.requiresCalibrationData()) {
-                        readCalibrationCoefficients(rawY, calibrationData);
-                        validData = calibrator.processCalibrationData(calibrationData);
+                    final ByteBuffer dataRecord = dataRecords.getRecord(rawY);
+                    if (lineCalibration != null) {
+                        readCalibrationCoefficients(dataRecord, calibrationData);
+                        validData = lineCalibration.setCalibrationData(calibrationData);
                     }
                     if (validData) {
-                        readData(rawY);
-                        validData = containsValidCounts();
+                        readData(dataRecord, lineOfCounts);
+                        validData = containsValidCounts(lineOfCounts);
                         if (validData) {
                             for (int sourceX = rawCoord.minX; sourceX <= rawCoord.maxX; sourceX += sourceStepX) {
-                                targetData[targetIdx] = calibrator.calibrate(lineOfCounts[sourceX]);
+                                final int counts = lineOfCounts[sourceX];
+                                targetData[targetIdx] = constantTable != null ? constantTable[counts] :
+                                                        lineCalibration.calibrate(counts);
                                 targetIdx += rawCoord.targetIncrement;
                             }
                         }
@@ -120,7 +145,46 @@ abstract class CountReader implements BandReader {
         }
     }
 
-    private boolean hasData(int rawY) throws IOException {
+    /**
+     * Calibrators which need calibration data only once take them from the first scan line with valid data.
+     * Afterwards, and for calibrators not needing calibration data at all, the calibration is the same for all
+     * following scan lines and is tabulated.
+     */
+    private void initCalibration() {
+        if (calibratorInitialized) {
+            return;
+        }
+        synchronized (calibrator) {
+            if (calibratorInitialized) {
+                return;
+            }
+            if (calibrator.requiresCalibrationData()) {
+                final MappedRecords dataRecords = noaaFile.getDataRecords();
+                final int[] calibrationData = new int[AvhrrConstants.CALIB_COEFF_LENGTH];
+                for (int rawY = 0; rawY < noaaFile.getProductHeight(); rawY++) {
+                    if (hasData(rawY)) {
+                        readCalibrationCoefficients(dataRecords.getRecord(rawY), calibrationData);
+                        if (calibrator.processCalibrationData(calibrationData)) {
+                            if (!calibrator.requiresCalibrationData()) {
+                                firstCalibratedLine = rawY;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!calibrator.requiresCalibrationData()) {
+                final float[] table = new float[COUNT_RANGE];
+                for (int counts = 0; counts < COUNT_RANGE; counts++) {
+                    table[counts] = calibrator.calibrate(counts);
+                }
+                constantTable = table;
+            }
+            calibratorInitialized = true;
+        }
+    }
+
+    private boolean hasData(int rawY) {
         if (channel != AvhrrConstants.CH_3A && channel != AvhrrConstants.CH_3B) {
             return true;
         }
@@ -130,22 +194,65 @@ abstract class CountReader implements BandReader {
                || (channel3ab == 0 && channel == AvhrrConstants.CH_3B);
     }
 
-    private boolean containsValidCounts() {
+    private static boolean containsValidCounts(int[] lineOfCounts) {
         for (final int i : lineOfCounts) {
-            if (i <= 0 || i >= 1024) {
+            if (i <= 0 || i >= COUNT_RANGE) {
                 return false;
             }
         }
         return true;
     }
 
-    private void readCalibrationCoefficients(int rawY, int[] calibCoeff) throws IOException {
-        CompoundData dataRecord = noaaFile.getDataRecord(rawY);
-        SequenceData calibration_coefficients = dataRecord.getSequence("CALIBRATION_COEFFICIENTS");
+    private static void readCalibrationCoefficients(ByteBuffer dataRecord, int[] calibCoeff) {
         for (int i = 0; i < calibCoeff.length; i++) {
-            calibCoeff[i] = calibration_coefficients.getInt(i);
+            calibCoeff[i] = dataRecord.getInt(KlmTypes.CALIBRATION_COEFFICIENTS_OFFSET + 4 * i);
         }
     }
 
-    protected abstract void readData(int rawY) throws IOException;
+    /**
+     * Extracts the counts of the channel from a data record.
+     *
+     * @param dataRecord   the data record of the scan line
+     * @param lineOfCounts the counts, one per pixel
+     */
+    protected abstract void readData(ByteBuffer dataRecord, int[] lineOfCounts);
+
+    /**
+     * The calibration of the scan lines read by a single call, using its own copy of the calibrator. The table
+     * of calibrated counts is kept as long as the calibration data do not change.
+     */
+    private static final class LineCalibration {
+
+        private final AbstractCalibrator calibrator;
+        private final float[] values;
+        // the line number for which values[counts] is computed
+        private final int[] valueLines;
+        private int[] lastCalibrationData;
+        private boolean lastValid;
+        private int line;
+
+        private LineCalibration(AbstractCalibrator calibrator) {
+            this.calibrator = calibrator;
+            values = new float[COUNT_RANGE];
+            valueLines = new int[COUNT_RANGE];
+        }
+
+        boolean setCalibrationData(int[] calibrationData) {
+            if (lastCalibrationData != null && Arrays.equals(calibrationData, lastCalibrationData)) {
+                return lastValid;
+            }
+            lastCalibrationData = calibrationData.clone();
+            line++;
+            lastValid = calibrator.processCalibrationData(calibrationData);
+            return lastValid;
+        }
+
+        float calibrate(int counts) {
+            if (valueLines[counts] != line) {
+                values[counts] = calibrator.calibrate(counts);
+                valueLines[counts] = line;
+            }
+            return values[counts];
+        }
+    }
 }
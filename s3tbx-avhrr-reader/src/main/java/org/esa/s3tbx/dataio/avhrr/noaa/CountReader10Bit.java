@@ -16,12 +16,10 @@
 
 package org.esa.s3tbx.dataio.avhrr.noaa;
 
-import com.bc.ceres.binio.CompoundData;
-import com.bc.ceres.binio.SequenceData;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
-import org.esa.s3tbx.dataio.avhrr.calibration.Calibrator;
+import org.esa.s3tbx.dataio.avhrr.calibration.AbstractCalibrator;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 class CountReader10Bit extends CountReader {
@@ -31,42 +29,32 @@ class CountReader10Bit extends CountReader {
     private static final int[][] INCREMENT = {{1, 2, 2}, {2, 1, 2}, {2, 2, 1}, {1, 2, 2}, {2, 1, 2}};
     private static final int[][] SHIFT = {{20, 0, 10}, {10, 20, 0}, {0, 10, 20}, {20, 0, 10}, {10, 20, 0}};
 
-    private int[] scanLineBuffer;
     private final int elementCount;
 
-    public CountReader10Bit(int channel, KlmAvhrrFile noaaFile, Calibrator calibrator, int elementCount, int dataWidth) {
+    public CountReader10Bit(int channel, KlmAvhrrFile noaaFile, AbstractCalibrator calibrator, int elementCount, int dataWidth) {
     	super(channel, noaaFile, calibrator, dataWidth);
         this.elementCount = elementCount;
-        scanLineBuffer = new int[elementCount];
     }
 
     @Override
-    protected void readData(int rawY) throws IOException {
-        CompoundData dataRecord = noaaFile.getDataRecord(rawY);
-        SequenceData avhrr_sensor_data = dataRecord.getSequence("AVHRR_SENSOR_DATA");
-        for (int i = 0; i < scanLineBuffer.length; i++) {
-            scanLineBuffer[i] = avhrr_sensor_data.getInt(i);
-        }
-        extractCounts(scanLineBuffer);
-    }
-
-    private void extractCounts(int[] rawData) {
+    protected void readData(ByteBuffer dataRecord, int[] lineOfCounts) {
         int j = 0;
         int bandNo = AvhrrConstants.CH_DATASET_INDEXES[channel];
         int indexRaw = FIRST[bandNo];
         for (int i = 0; i < lineOfCounts.length; i++) {
-            lineOfCounts[i] = (rawData[indexRaw] & (TEN_BITS << SHIFT[bandNo][j])) >> SHIFT[bandNo][j];
+            final int rawValue = dataRecord.getInt(KlmTypes.AVHRR_SENSOR_DATA_OFFSET + 4 * indexRaw);
+            lineOfCounts[i] = (rawValue & (TEN_BITS << SHIFT[bandNo][j])) >> SHIFT[bandNo][j];
             indexRaw += INCREMENT[bandNo][j];
             j = j == 2 ? 0 : j + 1;
         }
     }
 
     /**
-     * The same as {@link #extractCounts(int[])}  but better readable ;-)
+     * The same as {@link #readData(ByteBuffer, int[])}  but better readable ;-)
      * However this method documents much more clearly the algorithm used for the 10-bit decoding.
      * Although this method is unused, DO NOT REMOVE IT!
      */
-    private void extractCountsSlowButSimple(int[] rawData) {
+    private void extractCountsSlowButSimple(int[] rawData, int[] lineOfCounts) {
         int bandNo = AvhrrConstants.CH_DATASET_INDEXES[channel];
         int indexInBand = 0;
         int bandNum = 0;
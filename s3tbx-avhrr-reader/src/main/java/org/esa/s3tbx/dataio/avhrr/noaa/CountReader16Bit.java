@@ -16,36 +16,22 @@
 
 package org.esa.s3tbx.dataio.avhrr.noaa;
 
-import com.bc.ceres.binio.CompoundData;
-import com.bc.ceres.binio.SequenceData;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
-import org.esa.s3tbx.dataio.avhrr.calibration.Calibrator;
+import org.esa.s3tbx.dataio.avhrr.calibration.AbstractCalibrator;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 class CountReader16Bit extends CountReader {
-    private short[] scanLineBuffer;
 
-    public CountReader16Bit(int channel, KlmAvhrrFile noaaFile, Calibrator calibrator, int elementCount, int dataWidth) {
+    public CountReader16Bit(int channel, KlmAvhrrFile noaaFile, AbstractCalibrator calibrator, int elementCount, int dataWidth) {
     	super(channel, noaaFile, calibrator, dataWidth);
-        scanLineBuffer = new short[elementCount];
     }
 
     @Override
-    protected void readData(int rawY) throws IOException {
-        CompoundData dataRecord = noaaFile.getDataRecord(rawY);
-        SequenceData avhrr_sensor_data = dataRecord.getSequence("AVHRR_SENSOR_DATA");
-        for (int i = 0; i < scanLineBuffer.length; i++) {
-            scanLineBuffer[i] = avhrr_sensor_data.getShort(i);
-        }
-
-        extractCounts(scanLineBuffer);
-    }
-
-    private void extractCounts(short[] rawData) {
+    protected void readData(ByteBuffer dataRecord, int[] lineOfCounts) {
         int indexRaw = AvhrrConstants.CH_DATASET_INDEXES[channel];
         for (int i = 0; i < lineOfCounts.length; i++) {
-            lineOfCounts[i] = rawData[indexRaw];
+            lineOfCounts[i] = dataRecord.getShort(KlmTypes.AVHRR_SENSOR_DATA_OFFSET + 2 * indexRaw);
             indexRaw += 5;
         }
     }
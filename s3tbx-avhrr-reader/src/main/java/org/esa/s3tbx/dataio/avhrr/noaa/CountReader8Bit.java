@@ -16,36 +16,23 @@
 
 package org.esa.s3tbx.dataio.avhrr.noaa;
 
-import com.bc.ceres.binio.CompoundData;
-import com.bc.ceres.binio.SequenceData;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
-import org.esa.s3tbx.dataio.avhrr.calibration.Calibrator;
+import org.esa.s3tbx.dataio.avhrr.calibration.AbstractCalibrator;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 class CountReader8Bit extends CountReader {
-    private byte[] scanLineBuffer;
 
-    public CountReader8Bit(int channel, KlmAvhrrFile noaaFile, Calibrator calibrator, int elementCount, int dataWidth) {
+    public CountReader8Bit(int channel, KlmAvhrrFile noaaFile, AbstractCalibrator calibrator, int elementCount, int dataWidth) {
     	super(channel, noaaFile, calibrator, dataWidth);
-        scanLineBuffer = new byte[elementCount];
     }
 
     @Override
-    protected void readData(int rawY) throws IOException {
-        CompoundData dataRecord = noaaFile.getDataRecord(rawY);
-        SequenceData avhrr_sensor_data = dataRecord.getSequence("AVHRR_SENSOR_DATA");
-        for (int i = 0; i < scanLineBuffer.length; i++) {
-            scanLineBuffer[i] = avhrr_sensor_data.getByte(i);
-        }
-        extractCounts(scanLineBuffer);
-    }
-
-    private void extractCounts(byte[] rawData) {
-        int indexRaw = AvhrrConstants.CH_DATASET_INDEXES[channel];
+    protected void readData(ByteBuffer dataRecord, int[] lineOfCounts) {
+        int indexRaw = KlmTypes.AVHRR_SENSOR_DATA_OFFSET + AvhrrConstants.CH_DATASET_INDEXES[channel];
         for (int i = 0; i < lineOfCounts.length; i++) {
-            lineOfCounts[i] = ((int) rawData[indexRaw]) & 0xff;
+            lineOfCounts[i] = ((int) dataRecord.get(indexRaw)) & 0xff;
             indexRaw += 5;
         }
     }
@@ -21,6 +21,7 @@ import com.bc.ceres.core.Assert;
 import org.esa.s3tbx.dataio.avhrr.AvhrrConstants;
 import org.esa.s3tbx.dataio.avhrr.AvhrrFile;
 import org.esa.s3tbx.dataio.avhrr.BandReader;
+import org.esa.s3tbx.dataio.avhrr.MappedRecords;
 import org.esa.s3tbx.dataio.avhrr.calibration.IrRadianceCalibrator;
 import org.esa.s3tbx.dataio.avhrr.calibration.IrTemperatureCalibrator;
 import org.esa.s3tbx.dataio.avhrr.calibration.ReflectanceFactorCalibrator;
@@ -41,6 +42,7 @@ public class KlmAvhrrFile extends AvhrrFile implements AvhrrConstants {
     private final File file;
     private CompoundData noaaData;
     private DataContext context;
+    private MappedRecords dataRecords;
     private boolean hasCloudBand = false;
     private ProductFormat productFormat;
     private boolean hasArsHeader;
@@ -81,6 +83,8 @@ public class KlmAvhrrFile extends AvhrrFile implements AvhrrConstants {
         DataFormat dataFormat = new DataFormat(type, ByteOrder.BIG_ENDIAN);
         context = dataFormat.createContext(file, "r");
         noaaData = context.getData();
+        final long firstDataRecordPosition = (hasArsHeader ? AvhrrConstants.ARS_LENGTH : 0) + blockSize;
+        dataRecords = new MappedRecords(file, firstDataRecordPosition, blockSize, dataRecordCount);
         int tpSubsampling = productFormat.getProductDimension().getTpSubsampling();
         int toSkip = (dataRecordCount % tpSubsampling) - 1;
         if (toSkip < 0) {
@@ -96,8 +100,15 @@ public class KlmAvhrrFile extends AvhrrFile implements AvhrrConstants {
         analyzeScanLineBitfield();
     }
 
-    int getScanlineBitfield(int yIndex) throws IOException {
-        return getDataRecord(yIndex).getInt("SCANLINE_BIT_FIELD");
+    int getScanlineBitfield(int yIndex) {
+        return dataRecords.getUnsignedShort(yIndex, KlmTypes.SCANLINE_BIT_FIELD_OFFSET);
+    }
+
+    /**
+     * @return the memory-mapped data records, one per scan line
+     */
+    MappedRecords getDataRecords() {
+        return dataRecords;
     }
 
     private void analyzeScanLineBitfield() throws IOException {
@@ -314,6 +325,7 @@ public class KlmAvhrrFile extends AvhrrFile implements AvhrrConstants {
 
     @Override
     public void dispose() {
+        dataRecords = null;
         if (context != null) {
             context.dispose();
             context = null;
@@ -278,6 +278,11 @@ class KlmTypes {
         );
     }
 
+    // byte offsets of the members of a data record which are read directly from the mapped records
+    static final int SCANLINE_BIT_FIELD_OFFSET = 12;
+    static final int CALIBRATION_COEFFICIENTS_OFFSET = 48;
+    static final int AVHRR_SENSOR_DATA_OFFSET = 1264;
+
     private static CompoundType getDataRecordType(ProductFormat productFormat) {
         int endFillBytes = productFormat.getBlockSize() - 14 - 10 - 16 - 8 -
                            (INT.getSize() * AvhrrConstants.CALIB_COEFF_LENGTH) -
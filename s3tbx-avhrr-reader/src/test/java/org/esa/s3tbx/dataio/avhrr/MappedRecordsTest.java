@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.s3tbx.dataio.avhrr;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MappedRecordsTest {
+
+    private static final int HEADER_SIZE = 7;
+    private static final int RECORD_SIZE = 12;
+    private static final int RECORD_COUNT = 5;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("records", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.write(new byte[HEADER_SIZE]);
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                out.writeShort(0xff00 + i);
+                out.writeShort(-i);
+                out.writeInt(1000 * i);
+                out.writeInt(-1000 * i);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testValueAccess() throws IOException {
+        final MappedRecords records = new MappedRecords(file, HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+        assertEquals(RECORD_SIZE, records.getRecordSize());
+        assertEquals(RECORD_COUNT, records.getRecordCount());
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            assertEquals(0xff00 + i, records.getUnsignedShort(i, 0));
+            assertEquals((byte) 0xff, records.getByte(i, 0));
+            assertEquals(-i, records.getShort(i, 2));
+            assertEquals(1000 * i, records.getInt(i, 4));
+            assertEquals(-1000 * i, records.getInt(i, 8));
+        }
+    }
+
+    @Test
+    public void testRecordView() throws IOException {
+        final MappedRecords records = new MappedRecords(file, HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+        final ByteBuffer record = records.getRecord(3);
+        assertEquals(RECORD_SIZE, record.capacity());
+        assertEquals(0, record.position());
+        assertEquals(-3, record.getShort(2));
+        assertEquals(3000, record.getInt(4));
+
+        // changing the position of a view does not affect other views
+        record.position(8);
+        assertEquals(-3000, record.getInt());
+        assertEquals(0, records.getRecord(3).position());
+    }
+
+    @Test
+    public void testIllegalAccess() throws IOException {
+        final MappedRecords records = new MappedRecords(file, HEADER_SIZE, RECORD_SIZE, RECORD_COUNT);
+        try {
+            records.getRecord(RECORD_COUNT);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // ok
+        }
+        try {
+            new MappedRecords(file, HEADER_SIZE, RECORD_SIZE, RECORD_COUNT + 1);
+            fail();
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.esa.s3tbx.c2rcc;
 import org.esa.s3tbx.c2rcc.ancillary.AtmosphericAuxdata;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.ConstantTimeCoding;
+import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.RasterDataNode;
@@ -34,6 +35,17 @@ public class C2rccCommons {
         }
     }
 
+    /**
+     * Returns the earliest and the latest time of the product as modified julian dates, taken from the time coding
+     * at the centres of the first and the last pixel.
+     */
+    public static double[] getMjdRange(Product product, TimeCoding timeCoding) {
+        final double firstMJD = timeCoding.getMJD(new PixelPos(0.5, 0.5));
+        final double lastMJD = timeCoding.getMJD(new PixelPos(product.getSceneRasterWidth() - 0.5,
+                                                              product.getSceneRasterHeight() - 0.5));
+        return new double[]{Math.min(firstMJD, lastMJD), Math.max(firstMJD, lastMJD)};
+    }
+
     public static void ensureTimeInformation(Product product, ProductData.UTC startTime, ProductData.UTC endTime, TimeCoding timeCoding) {
         if(product.getStartTime() == null) {
             product.setStartTime(startTime);
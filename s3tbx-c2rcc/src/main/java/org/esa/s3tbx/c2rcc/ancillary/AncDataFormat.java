@@ -1,13 +1,15 @@
 package org.esa.s3tbx.c2rcc.ancillary;
 
+import java.util.function.Supplier;
+
 class AncDataFormat {
 
     private final String[] filenameSuffix;
     private final String bandName;
     private final double defaultValue;
-    private final InterpolationBorderComputer borderComputer;
+    private final Supplier<InterpolationBorderComputer> borderComputer;
 
-    public AncDataFormat(String[] filenameSuffix, String bandName, double defaultValue, InterpolationBorderComputer borderComputer) {
+    public AncDataFormat(String[] filenameSuffix, String bandName, double defaultValue, Supplier<InterpolationBorderComputer> borderComputer) {
         this.filenameSuffix = filenameSuffix;
         this.bandName = bandName;
         this.defaultValue = defaultValue;
@@ -30,7 +32,10 @@ class AncDataFormat {
         return defaultValue;
     }
 
+    /**
+     * Returns a new border computer; they are stateful and must not be shared between threads.
+     */
     public InterpolationBorderComputer getInterpolationBorderComputer() {
-        return borderComputer;
+        return borderComputer.get();
     }
 }
@@ -20,12 +20,29 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
+/**
+ * Downloads ancillary files from the OBPG server. The server can be replaced, e.g. by a local stand-in,
+ * by the system properties {@value #PROPERTY_DOWNLOAD_URL} and {@value #PROPERTY_SEARCH_URL}.
+ */
 class AncDownloader {
 
+    static final String PROPERTY_DOWNLOAD_URL = "s3tbx.c2rcc.ancillary.downloadUrl";
+    static final String PROPERTY_SEARCH_URL = "s3tbx.c2rcc.ancillary.searchUrl";
     private static final String DOWNLOAD_URL = "https://oceandata.sci.gsfc.nasa.gov/cgi/getfile/";
     private static final String SEARCH_URL = "https://oceandata.sci.gsfc.nasa.gov/search/file_search.cgi";
     private static final Logger LOGGER = SystemUtils.LOG;
 
+    private final String downloadUrl;
+    private final String searchUrl;
+
+    AncDownloader() {
+        this(System.getProperty(PROPERTY_DOWNLOAD_URL, DOWNLOAD_URL), System.getProperty(PROPERTY_SEARCH_URL, SEARCH_URL));
+    }
+
+    AncDownloader(String downloadUrl, String searchUrl) {
+        this.downloadUrl = downloadUrl;
+        this.searchUrl = searchUrl;
+    }
 
     public File download(File[] destFiles) throws IOException {
         String searchPattern = extractPrefix(destFiles[0]) + "*";
@@ -34,7 +51,7 @@ class AncDownloader {
         for (File destFile : destFiles) {
             final String fileName = destFile.getName();
             if (StringUtils.contains(downloadableFiles, fileName)) {
-                final String downloadUri = DOWNLOAD_URL + fileName;
+                final String downloadUri = downloadUrl + fileName;
                 final File downloadedFile = downloadFileTo(destFile, downloadUri);
                 if (downloadedFile.isFile()) {
                     return downloadedFile;
@@ -96,7 +113,7 @@ class AncDownloader {
         }
     }
 
-    private static String[] getDownloadableFiles(String searchPattern) throws IOException {
+    private String[] getDownloadableFiles(String searchPattern) throws IOException {
         List<NameValuePair> urlParameters = new ArrayList<>();
         //        urlParameters.add(new BasicNameValuePair("subID", ""));
         urlParameters.add(new BasicNameValuePair("std_only", "1"));
@@ -115,7 +132,7 @@ class AncDownloader {
         //        urlParameters.add(new BasicNameValuePair(".cgifields", "sensor"));
         //        urlParameters.add(new BasicNameValuePair(".cgifields", "cksum"));
 
-        final HttpPost post = new HttpPost(SEARCH_URL);
+        final HttpPost post = new HttpPost(searchUrl);
         post.setHeader("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/44.0.2403.157 Safari/537.36");
         //        post.setHeader("User-Agent", USER_AGENT);
 
@@ -128,7 +145,6 @@ class AncDownloader {
         post.setHeader("Content-Type", "application/x-www-form-urlencoded");
         post.setHeader("Cookie",
                        "fsr.r=%7B%22d%22%3A90%2C%22i%22%3A%22d445cf0-83722180-13f0-4007-9efbe%22%2C%22e%22%3A1439906531011%7D; _ga=GA1.2.1089912019.1438162152");
-        post.setHeader("Host", "oceandata.sci.gsfc.nasa.gov");
         post.setHeader("Origin", "https://oceandata.sci.gsfc.nasa.gov");
         post.setHeader("Referer", "https://oceandata.sci.gsfc.nasa.gov/search/file_search.cgi");
         post.setHeader("Upgrade-Insecure-Requests", "1");
@@ -1,66 +1,263 @@
 package org.esa.s3tbx.c2rcc.ancillary;
 
 import org.esa.snap.core.dataio.ProductIO;
+import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.SystemUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
 
+/**
+ * Provides the ancillary products stored below a repository root, downloading them if necessary.
+ * <p>
+ * The repository is thread-safe. Loaded products are kept in a cache which is bounded by the size of their raster
+ * data; when the bound is exceeded, the least recently used products which are not {@link #release(Product) leased}
+ * anymore are disposed. Products which are loaded concurrently by several threads are only read once.
+ * <p>
+ * Repositories obtained by {@link #getShared(File)} are shared within the process, so subsequent products of a
+ * batch reuse the ancillary products loaded before. The following system properties configure the shared
+ * repositories:
+ * <ul>
+ * <li>{@value #PROPERTY_CACHE_SIZE}: the cache size in MB (default {@value #DEFAULT_CACHE_SIZE_MB})</li>
+ * <li>{@value #PROPERTY_MIRROR_DIR}: a local directory which is searched before downloading, either with the
+ * same {@code year/doy} layout as the repository or containing the files directly</li>
+ * <li>{@value #PROPERTY_PREFETCH_COUNT}: the number of neighbouring intervals which are loaded in the
+ * background in addition to the ones covering the product (default {@value #DEFAULT_PREFETCH_COUNT})</li>
+ * </ul>
+ */
 class AncRepository {
 
+    static final String PROPERTY_CACHE_SIZE = "s3tbx.c2rcc.ancillary.cacheSize";
+    static final String PROPERTY_MIRROR_DIR = "s3tbx.c2rcc.ancillary.mirrorDir";
+    static final String PROPERTY_PREFETCH_COUNT = "s3tbx.c2rcc.ancillary.prefetchCount";
+    static final int DEFAULT_CACHE_SIZE_MB = 256;
+    static final int DEFAULT_PREFETCH_COUNT = 1;
+
+    private static final Map<File, AncRepository> SHARED_REPOSITORIES = new ConcurrentHashMap<>();
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        final Thread thread = new Thread(r, "C2RCC ancillary prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final File repsitoryRoot;
     private final AncDownloader ancDownloader;
-    private final Map<String, Product> productMap;
+    private final File mirrorDir;
+    private final long maxCacheSize;
+    private final boolean shared;
+    private final LinkedHashMap<String, CacheEntry> productMap;
+    private final Map<String, FutureTask<File>> downloadTasks;
+    private final Map<String, FutureTask<Product>> loadingTasks;
+    private long cacheSize;
 
     public AncRepository(File repsitoryRoot) {
         this(repsitoryRoot, null);
     }
 
     public AncRepository(File repsitoryRoot, AncDownloader ancDownloader) {
+        this(repsitoryRoot, ancDownloader, null, DEFAULT_CACHE_SIZE_MB * 1024L * 1024L, false);
+    }
+
+    AncRepository(File repsitoryRoot, AncDownloader ancDownloader, File mirrorDir, long maxCacheSize, boolean shared) {
         this.repsitoryRoot = repsitoryRoot;
         this.ancDownloader = ancDownloader;
-        productMap = new HashMap<>();
+        this.mirrorDir = mirrorDir;
+        this.maxCacheSize = maxCacheSize;
+        this.shared = shared;
+        productMap = new LinkedHashMap<>(16, 0.75f, true);
+        downloadTasks = new ConcurrentHashMap<>();
+        loadingTasks = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the process-wide repository for the given root, which downloads missing products.
+     * Calling {@link #dispose()} on it has no effect.
+     */
+    static AncRepository getShared(File repositoryRoot) {
+        return SHARED_REPOSITORIES.computeIfAbsent(repositoryRoot.getAbsoluteFile(), root -> {
+            final String mirrorPath = System.getProperty(PROPERTY_MIRROR_DIR);
+            final File mirror = mirrorPath != null ? new File(mirrorPath) : null;
+            final long cacheSize = Long.getLong(PROPERTY_CACHE_SIZE, DEFAULT_CACHE_SIZE_MB) * 1024L * 1024L;
+            return new AncRepository(root, new AncDownloader(), mirror, cacheSize, true);
+        });
+    }
+
+    static int getPrefetchCount() {
+        return Integer.getInteger(PROPERTY_PREFETCH_COUNT, DEFAULT_PREFETCH_COUNT);
     }
 
+    /**
+     * Returns the first available product of the given alternative filenames, or {@code null} if none is available.
+     * The returned product is leased to the caller and is not disposed by the cache until it is
+     * {@link #release(Product) released}.
+     */
     public Product getProduct(String[] filenames) throws IOException {
-        Product product;
-        product = findProductInMap(filenames);
-        if (product != null) {
-            return product;
-        }
         final File[] productFiles = createProductFiles(filenames);
-        product = findProductInArchive(productFiles);
-        if (product != null) {
-            return product;
+        while (true) {
+            Product product = leaseCachedProduct(filenames);
+            if (product != null) {
+                return product;
+            }
+            if (load(filenames, productFiles) == null) {
+                return null;
+            }
+            // the product has been loaded; lease it in the next iteration, unless it has already been evicted again
         }
-        if (ancDownloader == null) {
-            return null;
+    }
+
+    /**
+     * Gives back a product obtained by {@link #getProduct(String[])}, so that it can be evicted from the cache.
+     */
+    public synchronized void release(Product product) {
+        for (CacheEntry entry : productMap.values()) {
+            if (entry.product == product) {
+                entry.leases = Math.max(0, entry.leases - 1);
+                break;
+            }
+        }
+        evict(null);
+    }
+
+    /**
+     * Loads the products needed for the given time range and the given number of neighbouring intervals in the
+     * background, so that they are available when {@link #getProduct(String[])} is called.
+     *
+     * @return the background tasks, which never fail
+     */
+    List<Future<?>> prefetch(AncDataFormat format, double startMJD, double endMJD, int neighbourCount) {
+        final List<Future<?>> tasks = new ArrayList<>();
+        for (String prefix : getFilePrefixes(format.getInterpolationBorderComputer(), startMJD, endMJD, neighbourCount)) {
+            final String[] filenames = format.getFilenames(prefix);
+            tasks.add(PREFETCH_EXECUTOR.submit(() -> {
+                try {
+                    if (!isCached(filenames)) {
+                        load(filenames, createProductFiles(filenames));
+                    }
+                } catch (Exception e) {
+                    SystemUtils.LOG.log(Level.FINE, "Unable to prefetch ancillary product " + filenames[0], e);
+                }
+            }));
+        }
+        return tasks;
+    }
+
+    static Set<String> getFilePrefixes(InterpolationBorderComputer ibc, double startMJD, double endMJD, int neighbourCount) {
+        ibc.setInterpolationTimeMJD(startMJD);
+        final double interval = ibc.getEndBorderTimeMJD() - ibc.getStartBorderTimeMDJ();
+        double time = ibc.getStartBorderTimeMDJ() - neighbourCount * interval;
+        final double lastTime = endMJD + neighbourCount * interval;
+        final Set<String> prefixes = new LinkedHashSet<>();
+        while (time <= lastTime) {
+            // half an interval ahead, to be safely inside of it
+            ibc.setInterpolationTimeMJD(time + 0.5 * interval);
+            prefixes.add(ibc.getStartAncFilePrefix());
+            prefixes.add(ibc.getEndAncFilePrefix());
+            time = ibc.getEndBorderTimeMJD();
         }
-        File productFile = ancDownloader.download(productFiles);
+        return prefixes;
+    }
+
+    private Product load(String[] filenames, File[] productFiles) throws IOException {
+        File productFile = findProductFile(productFiles);
         if (productFile == null) {
+            if (ancDownloader == null) {
+                return null;
+            }
+            productFile = runOnce(downloadTasks, filenames[0], () -> ancDownloader.download(productFiles));
+            if (productFile == null) {
+                return null;
+            }
+        }
+        // the cache key, which is the same for all alternative locations of the file
+        final String filename = productFile.getName();
+        final File file = productFile;
+        return runOnce(loadingTasks, filename, () -> loadProduct(filename, file));
+    }
+
+    /**
+     * Runs the task unless a task with the same key is already running, in which case its result is awaited.
+     */
+    private static <T> T runOnce(Map<String, FutureTask<T>> tasks, String key, Callable<T> callable) throws IOException {
+        final FutureTask<T> task = new FutureTask<>(callable);
+        FutureTask<T> runningTask = tasks.putIfAbsent(key, task);
+        if (runningTask == null) {
+            runningTask = task;
+            try {
+                task.run();
+            } finally {
+                tasks.remove(key, task);
+            }
+        }
+        try {
+            return runningTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading ancillary product " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to load ancillary product " + key, e.getCause());
+        }
+    }
+
+    private Product loadProduct(String filename, File productFile) throws IOException {
+        // a load which has finished just before this one was started has already cached the product
+        synchronized (this) {
+            final CacheEntry entry = productMap.get(filename);
+            if (entry != null) {
+                return entry.product;
+            }
+        }
+        final Product product = readProduct(productFile);
+        if (product == null) {
             return null;
         }
-        return loadProduct(productFile);
+        return addToCache(filename, product);
     }
 
-    private Product findProductInArchive(File[] productFiles) throws IOException {
+    Product readProduct(File productFile) throws IOException {
+        return ProductIO.readProduct(productFile);
+    }
+
+    private File findProductFile(File[] productFiles) {
         for (File productFile : productFiles) {
             if (productFile.exists()) {
-                return loadProduct(productFile);
+                return productFile;
             }
         }
-        return null;
-    }
-
-    private Product loadProduct(File productFile) throws IOException {
-        final String filename = productFile.getName();
-        final Product product = ProductIO.readProduct(productFile);
-        if (product != null) {
-            productMap.put(filename, product);
+        if (mirrorDir != null) {
+            for (File productFile : productFiles) {
+                final File doyPath = productFile.getParentFile();
+                final File mirrorFile = new File(new File(new File(mirrorDir, doyPath.getParentFile().getName()), doyPath.getName()),
+                                                 productFile.getName());
+                if (mirrorFile.exists()) {
+                    return mirrorFile;
+                }
+                final File flatMirrorFile = new File(mirrorDir, productFile.getName());
+                if (flatMirrorFile.exists()) {
+                    return flatMirrorFile;
+                }
+            }
         }
-        return product;
+        return null;
     }
 
     private File[] createProductFiles(String[] filenames) {
@@ -79,18 +276,101 @@ class AncRepository {
         return productFiles;
     }
 
-    private Product findProductInMap(String[] filenames) {
+    private synchronized Product leaseCachedProduct(String[] filenames) {
         for (String filename : filenames) {
-            if (productMap.containsKey(filename)) {
-                return productMap.get(filename);
+            final CacheEntry entry = productMap.get(filename);
+            if (entry != null) {
+                entry.leases++;
+                return entry.product;
             }
         }
         return null;
     }
 
-    public void dispose() {
-        for (Product product : productMap.values()) {
+    private synchronized boolean isCached(String[] filenames) {
+        for (String filename : filenames) {
+            if (productMap.containsKey(filename)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a product to the cache, unless a product of the same file is cached already. In that case the given
+     * product is disposed, because the cached one may be leased, and the cached one is returned.
+     */
+    private synchronized Product addToCache(String filename, Product product) {
+        final CacheEntry cached = productMap.get(filename);
+        if (cached != null) {
             product.dispose();
+            return cached.product;
+        }
+        final CacheEntry entry = new CacheEntry(product, estimateSize(product));
+        productMap.put(filename, entry);
+        cacheSize += entry.size;
+        // the new product is needed right now, so it is kept even if it exceeds the cache size on its own
+        evict(entry);
+        return product;
+    }
+
+    synchronized long getCacheSize() {
+        return cacheSize;
+    }
+
+    synchronized int getCachedProductCount() {
+        return productMap.size();
+    }
+
+    synchronized int getLeaseCount(String filename) {
+        final CacheEntry entry = productMap.get(filename);
+        return entry != null ? entry.leases : 0;
+    }
+
+    private void evict(CacheEntry keep) {
+        final Iterator<CacheEntry> iterator = productMap.values().iterator();
+        while (cacheSize > maxCacheSize && iterator.hasNext()) {
+            final CacheEntry entry = iterator.next();
+            if (entry.leases == 0 && entry != keep) {
+                iterator.remove();
+                cacheSize -= entry.size;
+                entry.product.dispose();
+            }
+        }
+    }
+
+    private static long estimateSize(Product product) {
+        long size = 0;
+        for (Band band : product.getBands()) {
+            size += (long) band.getRasterWidth() * band.getRasterHeight() * ProductData.getElemSize(band.getDataType());
+        }
+        return size;
+    }
+
+    public void dispose() {
+        if (shared) {
+            return;
+        }
+        final List<CacheEntry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(productMap.values());
+            productMap.clear();
+            cacheSize = 0;
+        }
+        for (CacheEntry entry : entries) {
+            entry.product.dispose();
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final Product product;
+        private final long size;
+        private int leases;
+
+        private CacheEntry(Product product, long size) {
+            this.product = product;
+            this.size = size;
         }
     }
-}
\ No newline at end of file
+}
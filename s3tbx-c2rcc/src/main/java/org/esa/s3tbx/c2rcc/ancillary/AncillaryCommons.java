@@ -14,7 +14,7 @@ class AncillaryCommons {
                         "_MET_NCEPN_6h.hdf",
                         "_MET_NCEPN_6h.hdf.bz2",
                 },
-                "press", pressure_default, new InterpolationBorderComputer6H());
+                "press", pressure_default, InterpolationBorderComputer6H::new);
     }
 
     static AncDataFormat createOzoneFormat(final double ozone_default) {
@@ -29,7 +29,7 @@ class AncillaryCommons {
                         "_O3_AURAOMI_24h.hdf",
                         "_O3_AURAOMI_24h.hdf.bz2",
                 },
-                "ozone", ozone_default, new InterpolationBorderComputer24H());
+                "ozone", ozone_default, InterpolationBorderComputer24H::new);
     }
 
     static String convertToFileNamePräfix(double borderFileTimeMJD) {
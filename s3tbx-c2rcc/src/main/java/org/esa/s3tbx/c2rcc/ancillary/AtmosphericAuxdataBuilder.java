@@ -22,6 +22,9 @@ public class AtmosphericAuxdataBuilder {
 
     private double ozone = 330;
     private double surfacePressure = 1000;
+    private boolean useGriddedLookup;
+    private double startMJD = Double.NaN;
+    private double endMJD = Double.NaN;
 
     public void useAtmosphericAuxDataPath(String atmosphericAuxDataPath) {
         this.atmosphericAuxDataPath = atmosphericAuxDataPath;
@@ -51,6 +54,28 @@ public class AtmosphericAuxdataBuilder {
         this.surfPressureRaster = surfPressureRaster;
     }
 
+    /**
+     * Sets the time range the auxdata is requested for. The ancillary products of this range are loaded in the
+     * background when the ancillary data path is used.
+     *
+     * @param startMJD the first time the auxdata is requested for
+     * @param endMJD   the last time the auxdata is requested for
+     */
+    public void setTimeRange(double startMJD, double endMJD) {
+        this.startMJD = startMJD;
+        this.endMJD = endMJD;
+    }
+
+    /**
+     * Serves ozone and surface pressure of ancillary products or of the ancillary data path from lat/lon grids
+     * which are precomputed once for the {@link #setTimeRange(double, double) time range}, instead of looking up
+     * the products for each pixel. Has no effect if the auxdata is taken from rasters of the source product or is
+     * constant.
+     */
+    public void useGriddedLookup() {
+        this.useGriddedLookup = true;
+    }
+
     public AtmosphericAuxdata create() throws Exception {
         AtmosphericAuxdata auxdata;
         if (ozoneRaster != null && surfPressureRaster != null) {
@@ -66,13 +91,27 @@ public class AtmosphericAuxdataBuilder {
                                                            ncepStartProduct, ncepEndProduct, "press", surfacePressure);
                 }
             } else {
-                final AncDownloader ancDownloader = new AncDownloader();
-                final AncRepository ancRepository = new AncRepository(new File(atmosphericAuxDataPath), ancDownloader);
+                final AncRepository ancRepository = AncRepository.getShared(new File(atmosphericAuxDataPath));
                 AncDataFormat ozoneFormat = AncillaryCommons.createOzoneFormat(ozone);
                 AncDataFormat pressureFormat = AncillaryCommons.createPressureFormat(surfacePressure);
+                if (hasTimeRange()) {
+                    final int prefetchCount = AncRepository.getPrefetchCount();
+                    ancRepository.prefetch(ozoneFormat, startMJD, endMJD, prefetchCount);
+                    ancRepository.prefetch(pressureFormat, startMJD, endMJD, prefetchCount);
+                }
                 auxdata = new AtmosphericAuxdataDynamic(ancRepository, ozoneFormat, pressureFormat);
             }
+            if (useGriddedLookup && !(auxdata instanceof ConstantAtmosphericAuxdata)) {
+                if (!hasTimeRange()) {
+                    throw new IllegalStateException("The time range must be set for the gridded lookup of atmospheric auxdata");
+                }
+                auxdata = new GriddedAtmosphericAuxdata(auxdata, startMJD, endMJD, GriddedAtmosphericAuxdata.DEFAULT_RESOLUTION);
+            }
         }
         return auxdata;
     }
+
+    private boolean hasTimeRange() {
+        return !Double.isNaN(startMJD) && !Double.isNaN(endMJD);
+    }
 }
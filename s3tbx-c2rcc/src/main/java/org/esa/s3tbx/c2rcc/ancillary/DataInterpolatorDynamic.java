@@ -1,7 +1,11 @@
 package org.esa.s3tbx.c2rcc.ancillary;
 
+import org.esa.snap.core.datamodel.Product;
+
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 class DataInterpolatorDynamic extends DataInterpolator {
@@ -10,6 +14,7 @@ class DataInterpolatorDynamic extends DataInterpolator {
     private final AncRepository ancRepository;
     private final InterpolationBorderComputer ibc;
     private final AncDataFormat ancDataFormat;
+    private final List<Product> leasedProducts;
 
     private double currentBorderTime = Double.NaN;
     private DataInterpolatorStatic currentDataInterpolator;
@@ -20,6 +25,7 @@ class DataInterpolatorDynamic extends DataInterpolator {
         this.ancRepository = ancRepository;
 
         interpolatorMap = new HashMap<>();
+        leasedProducts = new ArrayList<>();
     }
 
     @Override
@@ -40,11 +46,13 @@ class DataInterpolatorDynamic extends DataInterpolator {
         }
         final String[] startFilenames = ancDataFormat.getFilenames(ibc.getStartAncFilePrefix());
         final String[] endFilenames = ancDataFormat.getFilenames(ibc.getEndAncFilePrefix());
+        final Product startProduct = leaseProduct(startFilenames);
+        final Product endProduct = leaseProduct(endFilenames);
         currentDataInterpolator = new DataInterpolatorStatic
                     (
                                 startBorderTimeMDJ, ibc.getEndBorderTimeMJD(),
-                                ancRepository.getProduct(startFilenames),
-                                ancRepository.getProduct(endFilenames),
+                                startProduct,
+                                endProduct,
                                 ancDataFormat.getBandName(),
                                 ancDataFormat.getDefaultValue()
                     );
@@ -53,11 +61,24 @@ class DataInterpolatorDynamic extends DataInterpolator {
         return currentDataInterpolator.getValue(timeMJD, lat, lon);
     }
 
+    private Product leaseProduct(String[] filenames) throws IOException {
+        final Product product = ancRepository.getProduct(filenames);
+        if (product != null) {
+            leasedProducts.add(product);
+        }
+        return product;
+    }
+
     @Override
-    void dispose() {
-        for (DataInterpolatorStatic dataInterpolatorStatic : interpolatorMap.values()) {
-            dataInterpolatorStatic.dispose();
+    synchronized void dispose() {
+        // the products, including their geo-codings, are owned by the repository
+        interpolatorMap.clear();
+        currentDataInterpolator = null;
+        currentBorderTime = Double.NaN;
+        for (Product product : leasedProducts) {
+            ancRepository.release(product);
         }
+        leasedProducts.clear();
         ancRepository.dispose();
     }
 
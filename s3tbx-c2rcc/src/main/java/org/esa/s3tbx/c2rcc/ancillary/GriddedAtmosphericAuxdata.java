@@ -0,0 +1,129 @@
+package org.esa.s3tbx.c2rcc.ancillary;
+
+/**
+ * Serves ozone and surface pressure from global lat/lon grids which are sampled once from another
+ * {@link AtmosphericAuxdata} at the start and the end time of a product. Lookups are bilinear in space and
+ * linear in time and only access primitive arrays, so no geo-coding or band access happens per pixel.
+ * <p>
+ * The ancillary sources are given on 1 degree grids and vary slowly, so a grid of the same resolution keeps the
+ * values of the source, but they are smoothed by the bilinear interpolation instead of taken from the nearest cell.
+ */
+class GriddedAtmosphericAuxdata implements AtmosphericAuxdata {
+
+    static final double DEFAULT_RESOLUTION = 1.0;
+
+    private final AtmosphericAuxdata source;
+    private final Grid ozoneGrid;
+    private final Grid pressureGrid;
+
+    /**
+     * @param source     the auxdata to sample the grids from
+     * @param startMJD   the first time the auxdata is requested for
+     * @param endMJD     the last time the auxdata is requested for
+     * @param resolution the grid resolution in degrees
+     * @throws Exception if the source auxdata cannot be read
+     */
+    GriddedAtmosphericAuxdata(AtmosphericAuxdata source, double startMJD, double endMJD, double resolution) throws Exception {
+        this.source = source;
+        ozoneGrid = new Grid(startMJD, endMJD, resolution);
+        pressureGrid = new Grid(startMJD, endMJD, resolution);
+        for (int y = 0; y < ozoneGrid.height; y++) {
+            final double lat = ozoneGrid.getLat(y);
+            for (int x = 0; x < ozoneGrid.width; x++) {
+                final double lon = ozoneGrid.getLon(x);
+                final int index = y * ozoneGrid.width + x;
+                ozoneGrid.startValues[index] = source.getOzone(startMJD, -1, -1, lat, lon);
+                ozoneGrid.endValues[index] = source.getOzone(endMJD, -1, -1, lat, lon);
+                pressureGrid.startValues[index] = source.getSurfacePressure(startMJD, -1, -1, lat, lon);
+                pressureGrid.endValues[index] = source.getSurfacePressure(endMJD, -1, -1, lat, lon);
+            }
+        }
+    }
+
+    @Override
+    public double getOzone(double mjd, int x, int y, double lat, double lon) {
+        return ozoneGrid.getValue(mjd, lat, lon);
+    }
+
+    @Override
+    public double getSurfacePressure(double mjd, int x, int y, double lat, double lon) {
+        return pressureGrid.getValue(mjd, lat, lon);
+    }
+
+    @Override
+    public void dispose() {
+        source.dispose();
+    }
+
+    static class Grid {
+
+        private final double startMJD;
+        private final double endMJD;
+        private final double resolution;
+        private final int width;
+        private final int height;
+        private final double[] startValues;
+        private final double[] endValues;
+
+        Grid(double startMJD, double endMJD, double resolution) {
+            this.startMJD = startMJD;
+            this.endMJD = endMJD;
+            this.resolution = resolution;
+            width = (int) Math.round(360.0 / resolution);
+            height = (int) Math.round(180.0 / resolution);
+            startValues = new double[width * height];
+            endValues = new double[width * height];
+        }
+
+        double getLat(int y) {
+            return -90.0 + (y + 0.5) * resolution;
+        }
+
+        double getLon(int x) {
+            return -180.0 + (x + 0.5) * resolution;
+        }
+
+        double getValue(double mjd, double lat, double lon) {
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                return Double.NaN;
+            }
+            final double fx = (lon + 180.0) / resolution - 0.5;
+            final double fy = (lat + 90.0) / resolution - 0.5;
+
+            int y0;
+            double wy;
+            if (fy <= 0.0) {
+                y0 = 0;
+                wy = 0.0;
+            } else if (fy >= height - 1) {
+                y0 = height - 2;
+                wy = 1.0;
+            } else {
+                y0 = (int) fy;
+                wy = fy - y0;
+            }
+            final double fxFloor = Math.floor(fx);
+            final double wx = fx - fxFloor;
+            final int x0 = Math.floorMod((int) fxFloor, width);
+            final int x1 = x0 + 1 < width ? x0 + 1 : 0;
+
+            final int i00 = y0 * width + x0;
+            final int i01 = y0 * width + x1;
+            final int i10 = i00 + width;
+            final int i11 = i01 + width;
+
+            final double startValue = bilinear(startValues, i00, i01, i10, i11, wx, wy);
+            if (endMJD == startMJD) {
+                return startValue;
+            }
+            final double endValue = bilinear(endValues, i00, i01, i10, i11, wx, wy);
+            return startValue + (mjd - startMJD) / (endMJD - startMJD) * (endValue - startValue);
+        }
+
+        private static double bilinear(double[] values, int i00, int i01, int i10, int i11, double wx, double wy) {
+            final double v0 = values[i00] + wx * (values[i01] - values[i00]);
+            final double v1 = values[i10] + wx * (values[i11] - values[i10]);
+            return v0 + wy * (v1 - v0);
+        }
+    }
+}
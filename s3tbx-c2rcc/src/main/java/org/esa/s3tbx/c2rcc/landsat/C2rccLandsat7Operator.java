@@ -255,6 +255,11 @@ public class C2rccLandsat7Operator extends PixelOperator implements C2rccConfigu
             "If the auxiliary data is not available at this path, the data will automatically be downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(description = "Path to an alternative set of neuronal nets. Use this to replace the standard set of neuronal nets.",
             label = "Alternative NN Path")
     private String alternativeNNPath;
@@ -1091,6 +1096,11 @@ public class C2rccLandsat7Operator extends PixelOperator implements C2rccConfigu
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         try {
             atmosphericAuxdata = auxdataBuilder.create();
         } catch (Exception e) {
@@ -286,6 +286,11 @@ public class C2rccMerisOperator extends PixelOperator implements C2rccConfigurab
             "If the auxiliary data is not available at this path, the data will automatically be downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(description = "Path to an alternative set of neuronal nets. Use this to replace the standard set of neuronal nets.",
             label = "Alternative NN Path")
     private String alternativeNNPath;
@@ -1102,6 +1107,11 @@ public class C2rccMerisOperator extends PixelOperator implements C2rccConfigurab
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         if (useEcmwfAuxData) {
             auxdataBuilder.useAtmosphericRaster(sourceProduct.getRasterDataNode(RASTER_NAME_OZONE),
                                                 sourceProduct.getRasterDataNode(RASTER_NAME_ATM_PRESS));
@@ -270,6 +270,11 @@ public class C2rccMeris4Operator extends PixelOperator implements C2rccConfigura
             "If the auxiliary data is not available at this path, the data will automatically be downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(description = "Path to an alternative set of neuronal nets. Use this to replace the standard " +
             "set of neuronal nets with the ones in the given directory.",
             label = "Alternative NN Path")
@@ -1068,6 +1073,11 @@ public class C2rccMeris4Operator extends PixelOperator implements C2rccConfigura
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         if (useEcmwfAuxData) {
             String toDopsenExpr = String.format("%1$s < 1 ? %1$s * 46698 : %1$s", RASTER_NAME_TOTAL_OZONE);
             VirtualBand ozoneInDu = new VirtualBand("__ozone_in_du_",
@@ -147,6 +147,11 @@ public class C2rccModisOperator extends PixelOperator implements C2rccConfigurab
             "If the auxiliary data needed for interpolation is not available in this path, the data will automatically downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(defaultValue = "false", label = "Output TOSA reflectances")
     private boolean outputRtosa;
 
@@ -438,6 +443,11 @@ public class C2rccModisOperator extends PixelOperator implements C2rccConfigurab
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         try {
             atmosphericAuxdata = auxdataBuilder.create();
         } catch (Exception e) {
@@ -1,5 +1,7 @@
 package org.esa.s3tbx.c2rcc.olci;
 
+import org.esa.s3tbx.c2rcc.util.BatchedNeuralNet;
+import org.esa.s3tbx.c2rcc.util.NNUtils;
 import org.esa.snap.core.nn.NNffbpAlphaTabFast;
 import org.esa.snap.core.util.BitSetter;
 
@@ -13,6 +15,9 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
 
 import static java.lang.Math.PI;
 import static java.lang.Math.abs;
@@ -23,9 +28,6 @@ import static java.lang.Math.max;
 import static java.lang.Math.pow;
 import static java.lang.Math.sin;
 import static java.lang.Math.toRadians;
-import static org.esa.s3tbx.c2rcc.util.ArrayMath.a_abs;
-import static org.esa.s3tbx.c2rcc.util.ArrayMath.a_exp;
-import static org.esa.s3tbx.c2rcc.util.ArrayMath.a_sumx;
 
 /**
  * @author Roland Doerffer
@@ -115,7 +117,10 @@ public class C2rccOlciAlgorithm {
     private final ThreadLocal<NNffbpAlphaTabFast> nn_iop_unciop; // IOPs (5) -> uncertainties of IOPs (5)
     private final ThreadLocal<NNffbpAlphaTabFast> nn_iop_uncsumiop_unckd; // IOPs (5) -> unc_adg, unc_atot, unc_btot, unc_kd489, unc_kdmin
     private final ThreadLocal<NNffbpAlphaTabFast> nn_rw_rwnorm; // Rw (10) -> Rwn (10)
+    private final BatchedNeuralNet[] batchedNets = new BatchedNeuralNet[10]; // the same nets, indexed by IDX_*
     private final ArrayList<String> nnNames;
+    private long estimatedMultiplyAdds;
+    private final ThreadLocal<TileWorkspace> tileWorkspace = ThreadLocal.withInitial(TileWorkspace::new);
     private double salinity = 35.0;
     private double temperature = 15.0;
 
@@ -136,13 +141,22 @@ public class C2rccOlciAlgorithm {
     private boolean deriveRwFromPathAndTransmittance;
 
     C2rccOlciAlgorithm(final String[] nnFilePaths, final boolean loadFromResources) throws IOException {
+        this(nnFilePaths, loadFromResources, null);
+    }
+
+    /**
+     * @param requiredNets flags indexed like {@code nnFilePaths} which tell which nets are needed for the requested
+     *                     outputs, or {@code null} if all nets shall be loaded. Nets which are not required are
+     *                     neither loaded nor evaluated, and the flags depending on them are not set.
+     */
+    C2rccOlciAlgorithm(final String[] nnFilePaths, final boolean loadFromResources, boolean[] requiredNets) throws IOException {
         nnNames = new ArrayList<>();
 
         // rtosa auto NN
-        nn_rtosa_aann = nnhs(nnFilePaths[IDX_rtosa_aann], loadFromResources);
+        nn_rtosa_aann = nnhs(nnFilePaths, IDX_rtosa_aann, loadFromResources, requiredNets);
 
         // rtosa-rw NN
-        nn_rtosa_rw = nnhs(nnFilePaths[IDX_rtosa_rw], loadFromResources);
+        nn_rtosa_rw = nnhs(nnFilePaths, IDX_rtosa_rw, loadFromResources, requiredNets);
 
         // rtosa - rpath NN
         //ThreadLocal<NNffbpAlphaTabFast> rpath_nn9 = nnhs("meris/richard_atmo_invers29_press_20150125/rtoa_rpath_nn2/31x77x57x37_2388.6.net");
@@ -151,27 +165,27 @@ public class C2rccOlciAlgorithm {
         //ThreadLocal<NNffbpAlphaTabFast> inv_trans_nn = nnhs("meris/richard_atmo_invers29_press_20150125/rtoa_trans_nn2/31x77x57x37_37087.4.net");
 
         // rw-IOP inverse NN
-        nn_rw_iop = nnhs(nnFilePaths[IDX_rw_iop], loadFromResources);
+        nn_rw_iop = nnhs(nnFilePaths, IDX_rw_iop, loadFromResources, requiredNets);
 
         // IOP-rw forward NN
         //ThreadLocal<NNffbpAlphaTabFast> for_nn9b = nnhs("coastcolour_wat_20140318/for_meris_logrw_logiop_20140318_p5_fl/17x97x47_335.3.net"); //only 10 MERIS bands
-        nn_iop_rw = nnhs(nnFilePaths[IDX_iop_rw], loadFromResources); //only 10 MERIS bands
+        nn_iop_rw = nnhs(nnFilePaths, IDX_iop_rw, loadFromResources, requiredNets); //only 10 MERIS bands
 
         // rw-kd NN, output are kdmin and kd449
         //ThreadLocal<NNffbpAlphaTabFast> kd2_nn7 = nnhs("coastcolour_wat_20140318/inv_meris_kd/97x77x7_232.4.net");
-        nn_rw_kd = nnhs(nnFilePaths[IDX_rw_kd], loadFromResources);
+        nn_rw_kd = nnhs(nnFilePaths, IDX_rw_kd, loadFromResources, requiredNets);
 
         // uncertainty NN for IOPs after bias corretion
         //ThreadLocal<NNffbpAlphaTabFast> unc_biasc_nn1 = nnhs("../nets/coastcolour_wat_20140318/uncertain_log_abs_biasc_iop/17x77x37_11486.7.net");
-        nn_iop_unciop = nnhs(nnFilePaths[IDX_iop_unciop], loadFromResources);
+        nn_iop_unciop = nnhs(nnFilePaths, IDX_iop_unciop, loadFromResources, requiredNets);
         // uncertainty for atot, adg, btot and kd
         //ThreadLocal<NNffbpAlphaTabFast> unc_biasc_atotkd_nn = nnhs("../nets/coastcolour_wat_20140318/uncertain_log_abs_tot_kd/17x77x37_9113.1.net");
-        nn_iop_uncsumiop_unckd = nnhs(nnFilePaths[IDX_iop_uncsumiop_unckd], loadFromResources);
+        nn_iop_uncsumiop_unckd = nnhs(nnFilePaths, IDX_iop_uncsumiop_unckd, loadFromResources, requiredNets);
 
         // todo RD20151007
-        nn_rw_rwnorm = nnhs(nnFilePaths[IDX_rw_rwnorm], loadFromResources);
-        nn_rtosa_trans = nnhs(nnFilePaths[IDX_rtosa_trans], loadFromResources);
-        nn_rtosa_rpath = nnhs(nnFilePaths[IDX_rtosa_rpath], loadFromResources);
+        nn_rw_rwnorm = nnhs(nnFilePaths, IDX_rw_rwnorm, loadFromResources, requiredNets);
+        nn_rtosa_trans = nnhs(nnFilePaths, IDX_rtosa_trans, loadFromResources, requiredNets);
+        nn_rtosa_rpath = nnhs(nnFilePaths, IDX_rtosa_rpath, loadFromResources, requiredNets);
     }
 
     public void setThresh_absd_log_rtosa(double thresh_absd_log_rtosa) {
@@ -247,6 +261,143 @@ public class C2rccOlciAlgorithm {
                                boolean validPixel,
                                double atm_press,
                                double ozone) {
+        final Workspace ws = new Workspace();
+        processPixel(toa_rad, solflux, sun_zeni, sun_azi, view_zeni, view_azi, dem_alt, validPixel, atm_press, ozone, ws);
+        return ws.toResult();
+    }
+
+    /**
+     * Processes all pixels of a tile. The input samples are read from the given {@link TileInput} and the results
+     * are written directly into the sample arrays of the {@link TileOutput}. Instead of evaluating the neural nets
+     * pixel by pixel, the inputs of each net are collected for all valid pixels of the tile and the net is evaluated
+     * for all of them at once by a {@link BatchedNeuralNet}. The results are identical to the ones of
+     * {@link #processPixel(double[], double[], double, double, double, double, double, boolean, double, double, Workspace)}.
+     *
+     * @param input  the input samples of the tile
+     * @param output the target sample arrays, arrays which are {@code null} are not written
+     */
+    public void processTile(TileInput input, TileOutput output) {
+        final TileWorkspace tws = tileWorkspace.get();
+        final Workspace[] ws = tws.workspaces(input.pixelCount);
+        final int bandCount = input.toa_rad.length;
+        final int[] validPixels = tws.validPixels;
+        int count = 0;
+        for (int i = 0; i < input.pixelCount; i++) {
+            final double[] toa_rad = ws[i].buffer(Workspace.TOA_RAD, bandCount);
+            final double[] solflux = ws[i].buffer(Workspace.SOLFLUX, bandCount);
+            for (int b = 0; b < bandCount; b++) {
+                toa_rad[b] = input.toa_rad[b][i];
+                solflux[b] = input.solflux[b][i];
+            }
+            prepare(toa_rad, solflux,
+                    input.sun_zeni[i], input.sun_azi[i], input.view_zeni[i], input.view_azi[i],
+                    input.dem_alt[i], input.valid[i], input.atm_press[i], input.ozone[i], ws[i]);
+            if (input.valid[i]) {
+                validPixels[count++] = i;
+            }
+        }
+
+        if (count > 0) {
+            tws.gather(ws, count, w -> w.nn_in);
+            final double[][] log_rtosa_aann = tws.calc(batchedNets[IDX_rtosa_aann], count);
+            final double[][] log_rpath_nn = isRpathRequired() ? tws.calc(batchedNets[IDX_rtosa_rpath], count) : null;
+            final double[][] trans_nn = tws.calc(batchedNets[IDX_rtosa_trans], count);
+            final double[][] log_rw = deriveRwFromPathAndTransmittance ? null : tws.calc(batchedNets[IDX_rtosa_rw], count);
+            for (int p = 0; p < count; p++) {
+                applyAtmosphereNets(tws.pixel(log_rtosa_aann, p), tws.pixel(log_rpath_nn, p),
+                                    tws.pixel(trans_nn, p), tws.pixel(log_rw, p), ws[validPixels[p]]);
+            }
+
+            tws.gather(ws, count, w -> w.nn_in_inv);
+            final double[][] log_rwn = outputRwn ? tws.calc(batchedNets[IDX_rw_rwnorm], count) : null;
+            final double[][] log_iops_nn1 = tws.calc(batchedNets[IDX_rw_iop], count);
+            final double[][] log_kd2_nn = isKdRequired() ? tws.calc(batchedNets[IDX_rw_kd], count) : null;
+            for (int p = 0; p < count; p++) {
+                applyWaterNets(tws.pixel(log_rwn, p), tws.pixel(log_iops_nn1, p), tws.pixel(log_kd2_nn, p),
+                               ws[validPixels[p]]);
+            }
+
+            final double[][] log_rw_nn2;
+            if (batchedNets[IDX_iop_rw] != null) {
+                tws.gather(ws, count, w -> w.nn_in_for);
+                log_rw_nn2 = tws.calc(batchedNets[IDX_iop_rw], count);
+            } else {
+                log_rw_nn2 = null;
+            }
+            tws.gather(ws, count, w -> w.log_iops);
+            final double[][] diff_log_abs_iop = outputUncertainties ? tws.calc(batchedNets[IDX_iop_unciop], count) : null;
+            final double[][] diff_log_abs_combi_kd = outputUncertainties ? tws.calc(batchedNets[IDX_iop_uncsumiop_unckd], count) : null;
+            for (int p = 0; p < count; p++) {
+                applyIopNets(tws.pixel(log_rw_nn2, p), tws.pixel(diff_log_abs_iop, p),
+                             tws.pixel(diff_log_abs_combi_kd, p), ws[validPixels[p]]);
+            }
+        }
+
+        for (int i = 0; i < input.pixelCount; i++) {
+            ws[i].flags = BitSetter.setFlag(ws[i].flags, FLAG_INDEX_VALID_PE, input.valid[i]);
+            output.set(i, ws[i]);
+        }
+    }
+
+    /**
+     * Processes a single pixel and stores the result in the given workspace. The arrays referenced by the
+     * workspace are only valid until the workspace is used for the next pixel.
+     */
+    public void processPixel(double[] toa_rad,
+                             double[] solflux,
+                             double sun_zeni,
+                             double sun_azi,
+                             double view_zeni,
+                             double view_azi,
+                             double dem_alt,
+                             boolean validPixel,
+                             double atm_press,
+                             double ozone,
+                             Workspace ws) {
+        prepare(toa_rad, solflux, sun_zeni, sun_azi, view_zeni, view_azi, dem_alt, validPixel, atm_press, ozone, ws);
+        if (validPixel) {
+            final double[] nn_in = ws.nn_in;
+            applyAtmosphereNets(nn_rtosa_aann != null ? nn_rtosa_aann.get().calc(nn_in) : null,
+                                isRpathRequired() ? nn_rtosa_rpath.get().calc(nn_in) : null,
+                                nn_rtosa_trans != null ? nn_rtosa_trans.get().calc(nn_in) : null,
+                                deriveRwFromPathAndTransmittance ? null : nn_rtosa_rw.get().calc(nn_in),
+                                ws);
+            final double[] nn_in_inv = ws.nn_in_inv;
+            applyWaterNets(outputRwn ? nn_rw_rwnorm.get().calc(nn_in_inv) : null,
+                           nn_rw_iop.get().calc(nn_in_inv),
+                           isKdRequired() ? nn_rw_kd.get().calc(nn_in_inv) : null,
+                           ws);
+            final double[] log_iops_nn1 = ws.log_iops;
+            applyIopNets(nn_iop_rw != null ? nn_iop_rw.get().calc(ws.nn_in_for) : null,
+                         outputUncertainties ? nn_iop_unciop.get().calc(log_iops_nn1) : null,
+                         outputUncertainties ? nn_iop_uncsumiop_unckd.get().calc(log_iops_nn1) : null,
+                         ws);
+        }
+        ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_VALID_PE, validPixel);
+    }
+
+    private boolean isRpathRequired() {
+        return outputRpath || deriveRwFromPathAndTransmittance;
+    }
+
+    private boolean isKdRequired() {
+        return outputKd || outputUncertainties;
+    }
+
+    /**
+     * Computes the reflectances and the inputs of the atmosphere nets of a pixel.
+     */
+    private void prepare(double[] toa_rad,
+                         double[] solflux,
+                         double sun_zeni,
+                         double sun_azi,
+                         double view_zeni,
+                         double view_azi,
+                         double dem_alt,
+                         boolean validPixel,
+                         double atm_press,
+                         double ozone,
+                         Workspace ws) {
 
         //  (9.2) compute angles
         double cos_sun = cos(toRadians(sun_zeni));
@@ -267,93 +418,91 @@ public class C2rccOlciAlgorithm {
         double y = sin_view * sin_azi_diff;
         double z = cos_view;
 
-        double[] r_toa = new double[toa_rad.length];
+        double[] r_toa = ws.buffer(Workspace.R_TOA, toa_rad.length);
         for (int i = 0; i < toa_rad.length; i++) {
             // r_toa =toa_rad'./solflux'.*%pi./cos_sun;
             r_toa[i] = PI * toa_rad[i] / solflux[i] / cos_sun;
         }
 
-        double[] r_tosa = new double[0];
-        int flags = 0;
-        double[] rtosa_aann = new double[0];
-        double rtosa_oos = 0;
-        double[] rpath_nn = new double[0];
-        double[] transd_nn = new double[0];
-        double[] transu_nn = new double[0];
-        double[] rwa = new double[0];
-        double[] rwn = new double[0];
-        double[] iops_nn = new double[0];
-        double rwa_oos = 0;
-        double kdmin_nn = 0;
-        double kd489_nn = 0;
-        double unc_iop_abs[] = new double[0];
-        double unc_abs_chl = 0;
-        double unc_abs_adg = 0;
-        double unc_abs_atot = 0;
-        double unc_abs_btot = 0;
-        double unc_abs_kd489 = 0;
-        double unc_abs_kdmin = 0;
-        double unc_abs_tsm = 0;
+        ws.reset();
+        ws.r_toa = r_toa;
+        ws.sun_zeni = sun_zeni;
+        ws.view_zeni = view_zeni;
+        ws.azi_diff_deg = azi_diff_deg;
 
-        if (validPixel) {
-            double[] r_tosa_ur = new double[olciband16_ix.length];
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                r_tosa_ur[i] = r_toa[olciband16_ix[i] - 1]; // -1 because counts in Scilab start at 1 not 0
-            }
+        if (!validPixel) {
+            return;
+        }
 
-            // @todo discuss with Carsten and Roland
-            // (9.3.0) +++ water vapour correction for band 9 +++++ */
-            //X2=rho_900/rho_885;
-            double X2 = r_toa[18] / r_toa[17];
-            double trans708 = h2o_cor_poly[0] + (h2o_cor_poly[1] + (h2o_cor_poly[2] + h2o_cor_poly[3] * X2) * X2) * X2;
-            r_tosa_ur[10] /= trans708;
+        double[] r_tosa_ur = ws.buffer(Workspace.R_TOSA_UR, olciband16_ix.length);
+        for (int i = 0; i < olciband16_ix.length; i++) {
+            r_tosa_ur[i] = r_toa[olciband16_ix[i] - 1]; // -1 because counts in Scilab start at 1 not 0
+        }
 
-            //*** (9.3.1) ozone correction ***/
-            double model_ozone = 0;
+        // @todo discuss with Carsten and Roland
+        // (9.3.0) +++ water vapour correction for band 9 +++++ */
+        //X2=rho_900/rho_885;
+        double X2 = r_toa[18] / r_toa[17];
+        double trans708 = h2o_cor_poly[0] + (h2o_cor_poly[1] + (h2o_cor_poly[2] + h2o_cor_poly[3] * X2) * X2) * X2;
+        r_tosa_ur[10] /= trans708;
 
-            r_tosa = new double[r_tosa_ur.length];
-            double[] log_rtosa = new double[r_tosa_ur.length];
-            for (int i = 0; i < r_tosa_ur.length; i++) {
+        //*** (9.3.1) ozone correction ***/
+        double model_ozone = 0;
 
-                double trans_ozoned = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_sun);
-                double trans_ozoneu = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_view);
-                double trans_ozone = trans_ozoned * trans_ozoneu;
+        // (9.4) )set input to all atmosphere NNs
+        //nn_in=[sun_zeni,x,y,z,temperature, salinity, alti_press, log_rtosa];
+        // log_rtosa is written directly behind the 7 leading inputs
+        double[] r_tosa = ws.buffer(Workspace.R_TOSA, r_tosa_ur.length);
+        double[] nn_in = ws.buffer(Workspace.NN_IN, 7 + r_tosa_ur.length);
+        for (int i = 0; i < r_tosa_ur.length; i++) {
 
-                double r_tosa_oz = r_tosa_ur[i] / trans_ozone;
+            double trans_ozoned = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_sun);
+            double trans_ozoneu = exp(-(absorb_ozon[i] * ozone / 1000.0 - model_ozone) / cos_view);
+            double trans_ozone = trans_ozoned * trans_ozoneu;
 
-                r_tosa[i] = r_tosa_oz;
-                log_rtosa[i] = log(r_tosa[i]);
-            }
+            double r_tosa_oz = r_tosa_ur[i] / trans_ozone;
 
-            // (9.3.2) altitude pressure correction
-            // this is only a very simplified formula, later use more exact one
-            // also for larger lakes the dem_alt presently provideds the altitude of the lake bottom
-            // will be changed later to altitude of the lake surface
-            double alti_press;
-            if (dem_alt > 10.0) {
-                alti_press = atm_press * exp(-dem_alt / 8000.0);
-            } else {
-                alti_press = atm_press;
-            }
+            r_tosa[i] = r_tosa_oz;
+            nn_in[7 + i] = log(r_tosa[i]);
+        }
+        ws.r_tosa = r_tosa;
+
+        // (9.3.2) altitude pressure correction
+        // this is only a very simplified formula, later use more exact one
+        // also for larger lakes the dem_alt presently provideds the altitude of the lake bottom
+        // will be changed later to altitude of the lake surface
+        double alti_press;
+        if (dem_alt > 10.0) {
+            alti_press = atm_press * exp(-dem_alt / 8000.0);
+        } else {
+            alti_press = atm_press;
+        }
 
-            // (9.4) )set input to all atmosphere NNs
-            //nn_in=[sun_zeni,x,y,z,temperature, salinity, alti_press, log_rtosa];
-            double[] nn_in = new double[7 + log_rtosa.length];
-            nn_in[0] = sun_zeni;
-            nn_in[1] = x;
-            nn_in[2] = y;
-            nn_in[3] = z;
-            nn_in[4] = temperature;
-            nn_in[5] = salinity;
-            nn_in[6] = alti_press;
-            System.arraycopy(log_rtosa, 0, nn_in, 7, log_rtosa.length);
+        nn_in[0] = sun_zeni;
+        nn_in[1] = x;
+        nn_in[2] = y;
+        nn_in[3] = z;
+        nn_in[4] = temperature;
+        nn_in[5] = salinity;
+        nn_in[6] = alti_press;
+        ws.nn_in = nn_in;
+    }
 
-            flags = 0;
+    /**
+     * Evaluates the results of the atmosphere nets of a valid pixel and computes the inputs of the water nets.
+     * Outputs of nets which are not used are {@code null}.
+     */
+    private void applyAtmosphereNets(double[] log_rtosa_aann, double[] log_rpath_nn, double[] trans_nn,
+                                     double[] log_rw_nn, Workspace ws) {
+        final double[] nn_in = ws.nn_in;
+        final double[] r_tosa = ws.r_tosa;
 
+        // (9.4.1) - (9.4.3) only if the auto NN is needed for the requested outputs or flags
+        if (log_rtosa_aann != null) {
             // (9.4.1) test if input tosa spectrum is out of range
             // mima=aa_rtosa_nn_bn7_9(5); // minima and maxima of aaNN input
-            double[] mi = nn_rtosa_aann.get().getInmin();
-            double[] ma = nn_rtosa_aann.get().getInmax();
+            double[] mi = batchedNets[IDX_rtosa_aann].getInmin();
+            double[] ma = batchedNets[IDX_rtosa_aann].getInmax();
             boolean rtosa_oor_flag = false; // (ipix)
             // for iv=1:19,// variables
             for (int iv = 0; iv < nn_in.length; iv++) { // variables
@@ -361,27 +510,25 @@ public class C2rccOlciAlgorithm {
                     rtosa_oor_flag = true; // (ipix)
                 }
             }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RTOSA_OOR, rtosa_oor_flag);
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_RTOSA_OOR, rtosa_oor_flag);
 
 
             // (9.4.2) test out of scope spectra with autoassociative neural network
-            rtosa_aann = new double[0];
-            double[] log_rtosa_aann = new double[0];
-            //if (outputRtoaGcAann || outputOos) {
-                log_rtosa_aann = this.nn_rtosa_aann.get().calc(nn_in);
-                rtosa_aann = a_exp(log_rtosa_aann);
-            //}
+            double[] rtosa_aann = ws.exp(Workspace.RTOSA_AANN, log_rtosa_aann);
+            ws.rtosa_aann = rtosa_aann;
             //double[] rtosa_aaNNrat = adiv(rtosa_aann, r_tosa);
             //rtosa_aaNNrat_a(ipix,:)=rtosa_aaNNrat;
-            rtosa_oos = 0;
             //if (outputOos) {
             //    double[] abs_diff_log_rtosa = a_abs(log_rtosa, log_rtosa_aann);
             //    rtosa_oos = a_max(abs_diff_log_rtosa);
             //}
             // RD20161103 changed to sum of differences of bands 9-12
             //if (outputOos) {
-            double[] abs_diff_rtosa = a_abs(r_tosa, rtosa_aann);
-            rtosa_oos = a_sumx(abs_diff_rtosa,12,15);
+            double rtosa_oos = 0.0;
+            for (int i = 12; i < 16; i++) {
+                rtosa_oos = rtosa_oos + abs(r_tosa[i] - rtosa_aann[i]);
+            }
+            ws.rtosa_oos = rtosa_oos;
             //}
 
             // (9.6.1) set rho_toa out of scope flag
@@ -394,151 +541,177 @@ public class C2rccOlciAlgorithm {
             if (rtosa_oos > thresh_absd_log_rtosa) {
                 rtosa_oos_flag = true; // set flag if ratios outside thresholds
             }
-                /*
-        boolean flag_rtosa = false; // (ipix)
-        if (rtosa_aaNNrat_min < thresh_rtosaaaNNrat[0] || rtosa_aaNNrat_max > thresh_rtosaaaNNrat[1]) {
-            flag_rtosa = true; // set flag if difference of band 5 > threshold // (ipix)
+            /*
+    boolean flag_rtosa = false; // (ipix)
+    if (rtosa_aaNNrat_min < thresh_rtosaaaNNrat[0] || rtosa_aaNNrat_max > thresh_rtosaaaNNrat[1]) {
+        flag_rtosa = true; // set flag if difference of band 5 > threshold // (ipix)
+    }
+    */
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_RTOSA_OOS, rtosa_oos_flag);
         }
-        */
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RTOSA_OOS, rtosa_oos_flag);
 
-            // (9.4.4) NN compute rpath from rtosa
-            rpath_nn = new double[0];
-            if (outputRpath || deriveRwFromPathAndTransmittance) {
-                double[] log_rpath_nn = nn_rtosa_rpath.get().calc(nn_in);
-                rpath_nn = a_exp(log_rpath_nn);
-            }
+        // (9.4.4) NN compute rpath from rtosa
+        if (log_rpath_nn != null) {
+            ws.rpath_nn = ws.exp(Workspace.RPATH, log_rpath_nn);
+        }
 
-            // (9.4.5) NN compute transmittance from rtosa
-            transd_nn = new double[0];
-            transu_nn = new double[0];
-            double[] trans_nn = nn_rtosa_trans.get().calc(nn_in);
+        // (9.4.5) NN compute transmittance from rtosa
+        if (trans_nn != null) {
             // cloud flag test @865
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_CLOUD, trans_nn[13] < thresh_cloudTransD);
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_CLOUD, trans_nn[13] < thresh_cloudTransD);
             if (outputTdown || deriveRwFromPathAndTransmittance) {
-                transd_nn = Arrays.copyOfRange(trans_nn, 0, 16);
+                ws.transd_nn = ws.copy(Workspace.TRANSD, trans_nn, 0, 16);
             }
             if (outputTup || deriveRwFromPathAndTransmittance) {
-                transu_nn = Arrays.copyOfRange(trans_nn, 16, 32);
+                ws.transu_nn = ws.copy(Workspace.TRANSU, trans_nn, 16, 32);
             }
+        }
 
-            // (9.4.6)
-            double[] log_rw;
-            if(deriveRwFromPathAndTransmittance) {
-                // needs outputRpath & outputTdown & outputTup
-                log_rw = new double[r_tosa.length];
-                for (int i = 0; i < r_tosa.length; i++) {
-                    log_rw[i] = r_tosa[i] - rpath_nn[i] / (transu_nn[i] * transd_nn[i]);
-                }
-            }else {
-                log_rw = nn_rtosa_rw.get().calc(nn_in);
-            }
-
-            rwa = new double[0];
-            if (outputRwa) {
-                rwa = a_exp(log_rw);
-            }
-
-            // (9.5) water part
-
-            // define input to water NNs
-            //nn_in_inv=[sun_zeni view_zeni azi_diff_deg temperature salinity log_rw(1:10)];
-            double[] nn_in_inv = new double[5 + 12];
-            nn_in_inv[0] = sun_zeni;
-            nn_in_inv[1] = view_zeni;
-            nn_in_inv[2] = azi_diff_deg;
-            nn_in_inv[3] = temperature;
-            nn_in_inv[4] = salinity;
-            System.arraycopy(log_rw, 0, nn_in_inv, 5, 12);
-
-            // (9.5.1)check input to rw -> IOP NN out of range
-            mi = nn_rw_iop.get().getInmin();
-            ma = nn_rw_iop.get().getInmax();
-            boolean rwa_oor_flag = false;
-            for (int iv = 0; iv < nn_in_inv.length; iv++) {
-                if (nn_in_inv[iv] < mi[iv] | nn_in_inv[iv] > ma[iv]) {
-                    rwa_oor_flag = true; // (ipix)
-                }
-            }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RHOW_OOR, rwa_oor_flag);
-
-            // (9.x.x.) NN compute Rwn from Rw
-            rwn = new double[0];
-            if (outputRwn) {
-                double[] log_rwn = nn_rw_rwnorm.get().calc(nn_in_inv);
-                rwn = a_exp(log_rwn);
-            }
-
-            // (9.10.1) NN compute IOPs from rw
-            double[] log_iops_nn1 = nn_rw_iop.get().calc(nn_in_inv);
-            iops_nn = a_exp(log_iops_nn1);
-
-            // (9.14) compute combined IOPs and concentrations
-            // split IOPs
-            double log_conc_ap_nn1 = log_iops_nn1[0];
-            double log_conc_ad_nn1 = log_iops_nn1[1];
-            double log_conc_ag_nn1 = log_iops_nn1[2];
-            double log_conc_bp_nn1 = log_iops_nn1[3];
-            double log_conc_bw_nn1 = log_iops_nn1[4];
-
-            double ap_nn1 = exp(log_conc_ap_nn1);
-            double ad_nn1 = exp(log_conc_ad_nn1);
-            double ag_nn1 = exp(log_conc_ag_nn1);
-            double bp_nn1 = exp(log_conc_bp_nn1);
-            double bw_nn1 = exp(log_conc_bw_nn1);
-
-            // combine IOPs
-            double adg_nn1 = ad_nn1 + ag_nn1;
-            double atot_nn1 = adg_nn1 + ap_nn1;
-            double btot_nn1 = bp_nn1 + bw_nn1;
-
-            // compute concentrations
-            // todo Roland fragen ... CHLfaktor wirklich 21.o oder 20.0 ?
-//        double chl_nn1 = 21.0 * pow(ap_nn1, 1.04);
-//        double tsm_nn1 = btot_nn1 * 1.73;
-
-            // (9.5.4) check if log_IOPs out of range
-            mi = nn_rw_iop.get().getOutmin();
-            ma = nn_rw_iop.get().getOutmax();
-            boolean iop_oor_flag = false;
-            for (int iv = 0; iv < log_iops_nn1.length; iv++) {
-                if (log_iops_nn1[iv] < mi[iv] | log_iops_nn1[iv] > ma[iv]) {
-                    iop_oor_flag = true;
-                }
+        // (9.4.6)
+        double[] log_rw;
+        if(deriveRwFromPathAndTransmittance) {
+            // needs outputRpath & outputTdown & outputTup
+            log_rw = ws.buffer(Workspace.LOG_RW, r_tosa.length);
+            for (int i = 0; i < r_tosa.length; i++) {
+                log_rw[i] = r_tosa[i] - ws.rpath_nn[i] / (ws.transu_nn[i] * ws.transd_nn[i]);
             }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_IOP_OOR, iop_oor_flag);
+        }else {
+            log_rw = ws.copy(Workspace.LOG_RW, log_rw_nn, 0, log_rw_nn.length);
+        }
+        ws.log_rw = log_rw;
+
+        if (outputRwa) {
+            ws.rwa = ws.exp(Workspace.RWA, log_rw);
+        }
 
-            // (9.5.5)check if log_IOPs at limit
-            int firstIopMaxFlagIndex = FLAG_INDEX_APIG_AT_MAX;
-            for (int i = 0; i < log_iops_nn1.length; i++) {
-                final boolean iopAtMax = log_iops_nn1[i] > (ma[i] - log_threshfak_oor);
-                flags = BitSetter.setFlag(flags, i + firstIopMaxFlagIndex, iopAtMax);
+        // (9.5) water part
+
+        // define input to water NNs
+        //nn_in_inv=[sun_zeni view_zeni azi_diff_deg temperature salinity log_rw(1:10)];
+        double[] nn_in_inv = ws.buffer(Workspace.NN_IN_INV, 5 + 12);
+        nn_in_inv[0] = ws.sun_zeni;
+        nn_in_inv[1] = ws.view_zeni;
+        nn_in_inv[2] = ws.azi_diff_deg;
+        nn_in_inv[3] = temperature;
+        nn_in_inv[4] = salinity;
+        System.arraycopy(log_rw, 0, nn_in_inv, 5, 12);
+
+        // (9.5.1)check input to rw -> IOP NN out of range
+        double[] mi = batchedNets[IDX_rw_iop].getInmin();
+        double[] ma = batchedNets[IDX_rw_iop].getInmax();
+        boolean rwa_oor_flag = false;
+        for (int iv = 0; iv < nn_in_inv.length; iv++) {
+            if (nn_in_inv[iv] < mi[iv] | nn_in_inv[iv] > ma[iv]) {
+                rwa_oor_flag = true; // (ipix)
             }
+        }
+        ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_RHOW_OOR, rwa_oor_flag);
+        ws.nn_in_inv = nn_in_inv;
+    }
+
+    /**
+     * Evaluates the results of the water nets of a valid pixel and computes the inputs of the IOP nets.
+     * Outputs of nets which are not used are {@code null}.
+     */
+    private void applyWaterNets(double[] log_rwn, double[] log_iops_nn1, double[] log_kd2_nn, Workspace ws) {
+        // (9.x.x.) NN compute Rwn from Rw
+        if (log_rwn != null) {
+            ws.rwn = ws.exp(Workspace.RWN, log_rwn);
+        }
 
-            int firstIopMinFlagIndex = FLAG_INDEX_APIG_AT_MIN;
-            for (int i = 0; i < log_iops_nn1.length; i++) {
-                final boolean iopAtMin = log_iops_nn1[i] < (mi[i] + log_threshfak_oor);
-                flags = BitSetter.setFlag(flags, i + firstIopMinFlagIndex, iopAtMin);
+        // (9.10.1) NN compute IOPs from rw
+        ws.log_iops = ws.copy(Workspace.LOG_IOPS, log_iops_nn1, 0, log_iops_nn1.length);
+        ws.iops_nn = ws.exp(Workspace.IOPS, log_iops_nn1);
+
+        // (9.5.4) check if log_IOPs out of range
+        double[] mi = batchedNets[IDX_rw_iop].getOutmin();
+        double[] ma = batchedNets[IDX_rw_iop].getOutmax();
+        boolean iop_oor_flag = false;
+        for (int iv = 0; iv < log_iops_nn1.length; iv++) {
+            if (log_iops_nn1[iv] < mi[iv] | log_iops_nn1[iv] > ma[iv]) {
+                iop_oor_flag = true;
             }
+        }
+        ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_IOP_OOR, iop_oor_flag);
+
+        // (9.5.5)check if log_IOPs at limit
+        int firstIopMaxFlagIndex = FLAG_INDEX_APIG_AT_MAX;
+        for (int i = 0; i < log_iops_nn1.length; i++) {
+            final boolean iopAtMax = log_iops_nn1[i] > (ma[i] - log_threshfak_oor);
+            ws.flags = BitSetter.setFlag(ws.flags, i + firstIopMaxFlagIndex, iopAtMax);
+        }
 
+        int firstIopMinFlagIndex = FLAG_INDEX_APIG_AT_MIN;
+        for (int i = 0; i < log_iops_nn1.length; i++) {
+            final boolean iopAtMin = log_iops_nn1[i] < (mi[i] + log_threshfak_oor);
+            ws.flags = BitSetter.setFlag(ws.flags, i + firstIopMinFlagIndex, iopAtMin);
+        }
+
+        if (batchedNets[IDX_iop_rw] != null) {
             // (9.5.6) compute Rw out of scope
             //nn_in_for=[sun_zeni view_zeni azi_diff_deg temperature salinity log_iops_nn1];// input to forward water NN
 
-            double[] nn_in_for = new double[5 + 5];
-            nn_in_for[0] = sun_zeni;
-            nn_in_for[1] = view_zeni;
-            nn_in_for[2] = azi_diff_deg;
+            double[] nn_in_for = ws.buffer(Workspace.NN_IN_FOR, 5 + 5);
+            nn_in_for[0] = ws.sun_zeni;
+            nn_in_for[1] = ws.view_zeni;
+            nn_in_for[2] = ws.azi_diff_deg;
             nn_in_for[3] = temperature;
             nn_in_for[4] = salinity;
             System.arraycopy(log_iops_nn1, 0, nn_in_for, 5, 5);
+            ws.nn_in_for = nn_in_for;
 
             //log_rw_nn2 = nnhs_ff(for_nn9b,nn_in_for); // compute rho_w from IOPs
+        }
 
-            rwa_oos = 0;
-            // RD20161103 no if, because this process should be performed always for the flag
-            //if (outputOos) {
-            double[] log_rw_nn2 = nn_iop_rw.get().calc(nn_in_for);
+        // (9.5.8) NN compute kd from rw
+        double kdmin_nn = 0;
+        double kd489_nn = 0;
+        if (log_kd2_nn != null) {
+            kdmin_nn = exp(log_kd2_nn[0]);
+            kd489_nn = exp(log_kd2_nn[1]);
+            //            double z90max = 1.0 / kdmin_nn;
+
+            // (9.5.9) test if kd is at nn limits
+            mi = batchedNets[IDX_rw_kd].getOutmin();
+            ma = batchedNets[IDX_rw_kd].getOutmax();
+            boolean kdmin_oor_flag = false;
+            if (log_kd2_nn[0] < mi[0] | log_kd2_nn[0] > ma[0]) {
+                kdmin_oor_flag = true;
+            }
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_KDMIN_OOR, kdmin_oor_flag);
+
+            boolean kd489_oor_flag = false;
+            if (log_kd2_nn[1] < mi[1] | log_kd2_nn[1] > ma[1]) {
+                kd489_oor_flag = true;
+            }
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_KD489_OOR, kd489_oor_flag);
+
+            boolean kdmin_at_max_flag = false;
+            if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
+                kdmin_at_max_flag = true;
+            }
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_KDMIN_AT_MAX, kdmin_at_max_flag);
+
+            boolean kd489_at_max_flag = false;
+            if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
+                kd489_at_max_flag = true;
+            }
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_KD489_AT_MAX, kd489_at_max_flag);
+        }
+        ws.kdmin_nn = kdmin_nn;
+        ws.kd489_nn = kd489_nn;
+    }
 
+    /**
+     * Evaluates the results of the nets computed from the IOPs of a valid pixel.
+     * Outputs of nets which are not used are {@code null}.
+     */
+    private void applyIopNets(double[] log_rw_nn2, double[] diff_log_abs_iop, double[] diff_log_abs_combi_kd,
+                              Workspace ws) {
+        // (9.5.6) - (9.5.7) only if the forward NN is needed for the requested outputs or flags
+        // RD20161103 no if, because this process should be performed always for the flag
+        if (log_rw_nn2 != null) {
+            final double[] log_rw = ws.log_rw;
             // (9.5.7) test out of scope of rho_w by combining inverse and forward NN
             //  compute the test and set rw is out of scope flag
             int wvl_442_idx = 2;
@@ -550,99 +723,78 @@ public class C2rccOlciAlgorithm {
             double s2_nn2 = abs(log_rw_nn2[wvl_620_idx] - log_rw_nn2[wvl_560_idx]);
             double s1_test = abs(s1_nn2 - s1_mess); // relative deviation for band ratio 5/2 (diff on log)
             double s2_test = abs(s2_nn2 - s2_mess); // relative deviation for band ratio 6/5 (diff on log)
-            rwa_oos = max(s1_test, s2_test);// maximum deviation output as quality indicator
+            double rwa_oos = max(s1_test, s2_test);// maximum deviation output as quality indicator
+            ws.rwa_oos = rwa_oos;
             boolean rwa_oos_flag = false;
             if (rwa_oos > thresh_rwlogslope) {
                 rwa_oos_flag = true;
             }
-            flags = BitSetter.setFlag(flags, FLAG_INDEX_RHOW_OOS, rwa_oos_flag);
-            //}
-
-            // (9.5.8) NN compute kd from rw
-            kdmin_nn = 0;
-            kd489_nn = 0;
-            if (outputKd || outputUncertainties) {
-                double[] log_kd2_nn = nn_rw_kd.get().calc(nn_in_inv);
-                kdmin_nn = exp(log_kd2_nn[0]);
-                kd489_nn = exp(log_kd2_nn[1]);
-                //            double z90max = 1.0 / kdmin_nn;
-
-                // (9.5.9) test if kd is at nn limits
-                mi = nn_rw_kd.get().getOutmin();
-                ma = nn_rw_kd.get().getOutmax();
-                boolean kdmin_oor_flag = false;
-                if (log_kd2_nn[0] < mi[0] | log_kd2_nn[0] > ma[0]) {
-                    kdmin_oor_flag = true;
-                }
-                flags = BitSetter.setFlag(flags, FLAG_INDEX_KDMIN_OOR, kdmin_oor_flag);
-
-                boolean kd489_oor_flag = false;
-                if (log_kd2_nn[1] < mi[1] | log_kd2_nn[1] > ma[1]) {
-                    kd489_oor_flag = true;
-                }
-                flags = BitSetter.setFlag(flags, FLAG_INDEX_KD489_OOR, kd489_oor_flag);
+            ws.flags = BitSetter.setFlag(ws.flags, FLAG_INDEX_RHOW_OOS, rwa_oos_flag);
+        }
 
-                boolean kdmin_at_max_flag = false;
-                if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
-                    kdmin_at_max_flag = true;
-                }
-                flags = BitSetter.setFlag(flags, FLAG_INDEX_KDMIN_AT_MAX, kdmin_at_max_flag);
+        // (9.6) )NN compute uncertainties
+        if (diff_log_abs_iop != null) {
+            final double[] iops_nn = ws.iops_nn;
 
-                boolean kd489_at_max_flag = false;
-                if (log_kd2_nn[1] > ma[1] - log_threshfak_oor) {
-                    kd489_at_max_flag = true;
-                }
-                flags = BitSetter.setFlag(flags, FLAG_INDEX_KD489_AT_MAX, kd489_at_max_flag);
+            double[] unc_iop_abs = ws.buffer(Workspace.UNC_IOP_ABS, diff_log_abs_iop.length);
+            for (int iv = 0; iv < diff_log_abs_iop.length; iv++) {
+                unc_iop_abs[iv] = iops_nn[iv] * (1.0 - exp(-diff_log_abs_iop[iv]));
             }
+            ws.unc_iop_abs = unc_iop_abs;
 
-            // (9.6) )NN compute uncertainties
-            unc_iop_abs = new double[0];
-            unc_abs_chl = 0;
-            unc_abs_adg = 0;
-            unc_abs_atot = 0;
-            unc_abs_btot = 0;
-            unc_abs_kd489 = 0;
-            unc_abs_kdmin = 0;
-            unc_abs_tsm = 0;
-            if (outputUncertainties) {
-                double[] diff_log_abs_iop = nn_iop_unciop.get().calc(log_iops_nn1);
+            ws.unc_abs_chl = 21.0 * pow(unc_iop_abs[1], 1.04);
 
-                unc_iop_abs = new double[diff_log_abs_iop.length];
-                for (int iv = 0; iv < diff_log_abs_iop.length; iv++) {
-                    unc_iop_abs[iv] = iops_nn[iv] * (1.0 - exp(-diff_log_abs_iop[iv]));
-                }
-
-                unc_abs_chl = 21.0 * pow(unc_iop_abs[1], 1.04);
+            // (9.14) compute combined IOPs
+            double adg_nn1 = iops_nn[1] + iops_nn[2];
+            double atot_nn1 = adg_nn1 + iops_nn[0];
+            double btot_nn1 = iops_nn[3] + iops_nn[4];
 
-                // (9.16) NN compute uncertainties for combined IOPs and kd
-                double[] diff_log_abs_combi_kd = nn_iop_uncsumiop_unckd.get().calc(log_iops_nn1);
-                double diff_log_abs_adg = diff_log_abs_combi_kd[0];
-                double diff_log_abs_atot = diff_log_abs_combi_kd[1];
-                double diff_log_abs_btot = diff_log_abs_combi_kd[2];
-                double diff_log_abs_kd489 = diff_log_abs_combi_kd[3];
+            // (9.16) NN compute uncertainties for combined IOPs and kd
+            double diff_log_abs_adg = diff_log_abs_combi_kd[0];
+            double diff_log_abs_atot = diff_log_abs_combi_kd[1];
+            double diff_log_abs_btot = diff_log_abs_combi_kd[2];
+            double diff_log_abs_kd489 = diff_log_abs_combi_kd[3];
 //                double diff_log_abs_kdmin = diff_log_abs_combi_kd[4];
-                unc_abs_adg = (1.0 - exp(-diff_log_abs_adg)) * adg_nn1;
-                unc_abs_atot = (1.0 - exp(-diff_log_abs_atot)) * atot_nn1;
-                unc_abs_btot = (1.0 - exp(-diff_log_abs_btot)) * btot_nn1;
-                unc_abs_kd489 = (1.0 - exp(-diff_log_abs_kd489)) * kd489_nn;
-                unc_abs_kdmin = (1.0 - exp(-diff_log_abs_kd489)) * kdmin_nn;
-                //        double unc_z90max = abs(z90max - 1.0 / abs(kdmin_nn - unc_abs_kdmin));
-                unc_abs_tsm = 1.73 * unc_abs_btot;
-            }
+            ws.unc_abs_adg = (1.0 - exp(-diff_log_abs_adg)) * adg_nn1;
+            ws.unc_abs_atot = (1.0 - exp(-diff_log_abs_atot)) * atot_nn1;
+            ws.unc_abs_btot = (1.0 - exp(-diff_log_abs_btot)) * btot_nn1;
+            ws.unc_abs_kd489 = (1.0 - exp(-diff_log_abs_kd489)) * ws.kd489_nn;
+            ws.unc_abs_kdmin = (1.0 - exp(-diff_log_abs_kd489)) * ws.kdmin_nn;
+            //        double unc_z90max = abs(z90max - 1.0 / abs(kdmin_nn - unc_abs_kdmin));
+            ws.unc_abs_tsm = 1.73 * ws.unc_abs_btot;
         }
-
-        flags = BitSetter.setFlag(flags, FLAG_INDEX_VALID_PE, validPixel);
-
-        return new Result(r_toa, r_tosa, rtosa_aann, rpath_nn, transd_nn, transu_nn, rwa, rwn, rtosa_oos, rwa_oos,
-                          iops_nn, kd489_nn, kdmin_nn, unc_iop_abs, unc_abs_adg, unc_abs_atot, unc_abs_btot,
-                          unc_abs_chl, unc_abs_tsm, unc_abs_kd489, unc_abs_kdmin, flags);
     }
 
     public String[] getUsedNeuronalNetNames() {
         return nnNames.toArray(new String[nnNames.size()]);
     }
 
-    private ThreadLocal<NNffbpAlphaTabFast> nnhs(String sourcePath, boolean loadFromResource) throws IOException {
+    /**
+     * @return the estimated number of multiply-add operations of all loaded nets for one pixel
+     */
+    public long getEstimatedMultiplyAddsPerPixel() {
+        return estimatedMultiplyAdds;
+    }
+
+    private ThreadLocal<NNffbpAlphaTabFast> nnhs(String[] nnFilePaths, int index, boolean loadFromResource, boolean[] requiredNets) throws IOException {
+        if (requiredNets != null && !requiredNets[index]) {
+            return null;
+        }
+        final String nnCode = readNnCode(nnFilePaths[index], loadFromResource);
+        batchedNets[index] = new BatchedNeuralNet(nnCode);
+        return new ThreadLocal<NNffbpAlphaTabFast>() {
+            @Override
+            protected NNffbpAlphaTabFast initialValue() {
+                try {
+                    return new NNffbpAlphaTabFast(nnCode);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private String readNnCode(String sourcePath, boolean loadFromResource) throws IOException {
 
 //        Files.
 
@@ -663,16 +815,8 @@ public class C2rccOlciAlgorithm {
             nnNames.add(path.toString());
         }
         final String nnCode = readFully(stream);
-        return new ThreadLocal<NNffbpAlphaTabFast>() {
-            @Override
-            protected NNffbpAlphaTabFast initialValue() {
-                try {
-                    return new NNffbpAlphaTabFast(nnCode);
-                } catch (IOException e) {
-                    throw new IllegalStateException(e);
-                }
-            }
-        };
+        estimatedMultiplyAdds += NNUtils.estimateMultiplyAdds(nnCode);
+        return nnCode;
     }
 
     private String readFully(InputStream stream) throws IOException {
@@ -749,4 +893,311 @@ public class C2rccOlciAlgorithm {
         }
     }
 
+    /**
+     * Scratch buffers for processing pixels without allocating a {@link Result} for each of them. The public
+     * fields mirror the ones of {@link Result}; arrays which have not been computed for the last pixel have a
+     * length of zero. A workspace must only be used by one thread at a time.
+     */
+    public static class Workspace {
+
+        private static final double[] EMPTY = new double[0];
+
+        static final int TOA_RAD = 0;
+        static final int SOLFLUX = 1;
+        static final int R_TOA = 2;
+        static final int R_TOSA_UR = 3;
+        static final int R_TOSA = 4;
+        static final int NN_IN = 5;
+        static final int RTOSA_AANN = 6;
+        static final int RPATH = 7;
+        static final int TRANSD = 8;
+        static final int TRANSU = 9;
+        static final int LOG_RW = 10;
+        static final int RWA = 11;
+        static final int RWN = 12;
+        static final int NN_IN_INV = 13;
+        static final int IOPS = 14;
+        static final int NN_IN_FOR = 15;
+        static final int UNC_IOP_ABS = 16;
+        static final int LOG_IOPS = 17;
+
+        private final double[][] buffers = new double[18][];
+
+        // intermediate results passed between the stages of the algorithm
+        double sun_zeni;
+        double view_zeni;
+        double azi_diff_deg;
+        double[] nn_in;
+        double[] log_rw;
+        double[] nn_in_inv;
+        double[] log_iops;
+        double[] nn_in_for;
+
+        public double[] r_toa = EMPTY;
+        public double[] r_tosa = EMPTY;
+        public double[] rtosa_aann = EMPTY;
+        public double rtosa_oos;
+        public double[] rpath_nn = EMPTY;
+        public double[] transd_nn = EMPTY;
+        public double[] transu_nn = EMPTY;
+        public double[] rwa = EMPTY;
+        public double rwa_oos;
+        public double[] rwn = EMPTY;
+        public double[] iops_nn = EMPTY;
+        public double kd489_nn;
+        public double kdmin_nn;
+        public double[] unc_iop_abs = EMPTY;
+        public double unc_abs_adg;
+        public double unc_abs_atot;
+        public double unc_abs_btot;
+        public double unc_abs_chl;
+        public double unc_abs_tsm;
+        public double unc_abs_kd489;
+        public double unc_abs_kdmin;
+        public int flags;
+
+        double[] buffer(int slot, int length) {
+            double[] buffer = buffers[slot];
+            if (buffer == null || buffer.length != length) {
+                buffer = new double[length];
+                buffers[slot] = buffer;
+            }
+            return buffer;
+        }
+
+        double[] exp(int slot, double[] x) {
+            final double[] y = buffer(slot, x.length);
+            for (int i = 0; i < x.length; i++) {
+                y[i] = Math.exp(x[i]);
+            }
+            return y;
+        }
+
+        double[] copy(int slot, double[] x, int from, int to) {
+            final double[] y = buffer(slot, to - from);
+            System.arraycopy(x, from, y, 0, y.length);
+            return y;
+        }
+
+        void reset() {
+            r_toa = EMPTY;
+            r_tosa = EMPTY;
+            rtosa_aann = EMPTY;
+            rtosa_oos = 0;
+            rpath_nn = EMPTY;
+            transd_nn = EMPTY;
+            transu_nn = EMPTY;
+            rwa = EMPTY;
+            rwa_oos = 0;
+            rwn = EMPTY;
+            iops_nn = EMPTY;
+            kd489_nn = 0;
+            kdmin_nn = 0;
+            unc_iop_abs = EMPTY;
+            unc_abs_adg = 0;
+            unc_abs_atot = 0;
+            unc_abs_btot = 0;
+            unc_abs_chl = 0;
+            unc_abs_tsm = 0;
+            unc_abs_kd489 = 0;
+            unc_abs_kdmin = 0;
+            flags = 0;
+        }
+
+        Result toResult() {
+            return new Result(r_toa.clone(), r_tosa.clone(), rtosa_aann.clone(), rpath_nn.clone(), transd_nn.clone(),
+                              transu_nn.clone(), rwa.clone(), rwn.clone(), rtosa_oos, rwa_oos, iops_nn.clone(),
+                              kd489_nn, kdmin_nn, unc_iop_abs.clone(), unc_abs_adg, unc_abs_atot, unc_abs_btot,
+                              unc_abs_chl, unc_abs_tsm, unc_abs_kd489, unc_abs_kdmin, flags);
+        }
+    }
+
+    /**
+     * Scratch buffers of {@link #processTile(TileInput, TileOutput)}: a workspace per pixel, the indices of the
+     * valid pixels, and the inputs and outputs of the batched nets indexed by {@code [input or output][pixel]}.
+     * A tile workspace must only be used by one thread at a time.
+     */
+    static class TileWorkspace {
+
+        private Workspace[] workspaces = new Workspace[0];
+        int[] validPixels = new int[0];
+        private double[][] inputs = new double[0][];
+        private int inputCapacity;
+        private final Map<BatchedNeuralNet, double[][]> outputs = new IdentityHashMap<>();
+        private final Map<double[][], double[]> pixels = new IdentityHashMap<>();
+
+        Workspace[] workspaces(int pixelCount) {
+            if (workspaces.length < pixelCount) {
+                final int oldLength = workspaces.length;
+                workspaces = Arrays.copyOf(workspaces, pixelCount);
+                for (int i = oldLength; i < pixelCount; i++) {
+                    workspaces[i] = new Workspace();
+                }
+                validPixels = new int[pixelCount];
+            }
+            return workspaces;
+        }
+
+        /**
+         * Collects the net inputs of the first {@code count} valid pixels as the columns of the input matrix.
+         */
+        void gather(Workspace[] ws, int count, Function<Workspace, double[]> vector) {
+            final int length = vector.apply(ws[validPixels[0]]).length;
+            if (inputs.length < length || inputCapacity < count) {
+                inputCapacity = Math.max(count, inputCapacity);
+                inputs = new double[Math.max(length, inputs.length)][inputCapacity];
+            }
+            for (int p = 0; p < count; p++) {
+                final double[] x = vector.apply(ws[validPixels[p]]);
+                for (int j = 0; j < length; j++) {
+                    inputs[j][p] = x[j];
+                }
+            }
+        }
+
+        /**
+         * Evaluates a net for the last gathered inputs.
+         *
+         * @return the outputs indexed by {@code [output][pixel]}, or {@code null} if the net is not loaded
+         */
+        double[][] calc(BatchedNeuralNet net, int count) {
+            if (net == null) {
+                return null;
+            }
+            double[][] out = outputs.get(net);
+            if (out == null || out[0].length < count) {
+                out = new double[net.getOutputCount()][count];
+                outputs.put(net, out);
+            }
+            net.calc(inputs, out, count);
+            return out;
+        }
+
+        /**
+         * @return the outputs of one pixel in a buffer which is reused for the same {@code columns},
+         * or {@code null} if {@code columns} is {@code null}
+         */
+        double[] pixel(double[][] columns, int p) {
+            if (columns == null) {
+                return null;
+            }
+            final double[] pixel = pixels.computeIfAbsent(columns, c -> new double[c.length]);
+            for (int i = 0; i < pixel.length; i++) {
+                pixel[i] = columns[i][p];
+            }
+            return pixel;
+        }
+    }
+
+    /**
+     * The input samples of a tile, each array holding the pixels in row-major order.
+     * Spectral inputs are indexed by {@code [band][pixel]}.
+     */
+    public static class TileInput {
+
+        public final int pixelCount;
+        public final double[][] toa_rad;
+        public final double[][] solflux;
+        public final double[] sun_zeni;
+        public final double[] sun_azi;
+        public final double[] view_zeni;
+        public final double[] view_azi;
+        public final double[] dem_alt;
+        public final boolean[] valid;
+        public final double[] atm_press;
+        public final double[] ozone;
+
+        public TileInput(int pixelCount, int bandCount) {
+            this.pixelCount = pixelCount;
+            toa_rad = new double[bandCount][pixelCount];
+            solflux = new double[bandCount][pixelCount];
+            sun_zeni = new double[pixelCount];
+            sun_azi = new double[pixelCount];
+            view_zeni = new double[pixelCount];
+            view_azi = new double[pixelCount];
+            dem_alt = new double[pixelCount];
+            valid = new boolean[pixelCount];
+            atm_press = new double[pixelCount];
+            ozone = new double[pixelCount];
+        }
+    }
+
+    /**
+     * The target sample arrays of a tile, typically the raw data buffers of the target tiles.
+     * Spectral outputs are indexed by {@code [band][pixel]}. Arrays left {@code null} are not written.
+     */
+    public static class TileOutput {
+
+        /**
+         * The index of the target arrays the results of the first input pixel are written to, e.g. the index of
+         * the first pixel of a row if a tile is processed row by row.
+         */
+        public int offset;
+        public float[][] r_toa;
+        public float[][] r_tosa;
+        public float[][] rtosa_aann;
+        public float[][] rpath_nn;
+        public float[][] transd_nn;
+        public float[][] transu_nn;
+        public float[][] rwa;
+        public boolean rwaAsRrs;
+        public float[][] rwn;
+        public float[] rtosa_oos;
+        public float[] rwa_oos;
+        public float[][] iops_nn;
+        public float[] kd489_nn;
+        public float[] kdmin_nn;
+        public float[][] unc_iop_abs;
+        public float[] unc_abs_adg;
+        public float[] unc_abs_atot;
+        public float[] unc_abs_btot;
+        public float[] unc_abs_chl;
+        public float[] unc_abs_tsm;
+        public float[] unc_abs_kd489;
+        public float[] unc_abs_kdmin;
+        public int[] flags;
+
+        void set(int pixel, Workspace ws) {
+            final int i = offset + pixel;
+            set(r_toa, ws.r_toa, i, 1.0);
+            set(r_tosa, ws.r_tosa, i, 1.0);
+            set(rtosa_aann, ws.rtosa_aann, i, 1.0);
+            set(rpath_nn, ws.rpath_nn, i, 1.0);
+            set(transd_nn, ws.transd_nn, i, 1.0);
+            set(transu_nn, ws.transu_nn, i, 1.0);
+            set(rwa, ws.rwa, i, rwaAsRrs ? Math.PI : 1.0);
+            set(rwn, ws.rwn, i, 1.0);
+            set(iops_nn, ws.iops_nn, i, 1.0);
+            set(unc_iop_abs, ws.unc_iop_abs, i, 1.0);
+            set(rtosa_oos, ws.rtosa_oos, i);
+            set(rwa_oos, ws.rwa_oos, i);
+            set(kd489_nn, ws.kd489_nn, i);
+            set(kdmin_nn, ws.kdmin_nn, i);
+            set(unc_abs_adg, ws.unc_abs_adg, i);
+            set(unc_abs_atot, ws.unc_abs_atot, i);
+            set(unc_abs_btot, ws.unc_abs_btot, i);
+            set(unc_abs_chl, ws.unc_abs_chl, i);
+            set(unc_abs_tsm, ws.unc_abs_tsm, i);
+            set(unc_abs_kd489, ws.unc_abs_kd489, i);
+            set(unc_abs_kdmin, ws.unc_abs_kdmin, i);
+            if (flags != null) {
+                flags[i] = ws.flags;
+            }
+        }
+
+        private static void set(float[][] target, double[] values, int i, double divisor) {
+            if (target != null) {
+                final int n = Math.min(target.length, values.length);
+                for (int b = 0; b < n; b++) {
+                    target[b][i] = (float) (divisor == 1.0 ? values[b] : values[b] / divisor);
+                }
+            }
+        }
+
+        private static void set(float[] target, double value, int i) {
+            if (target != null) {
+                target[i] = (float) value;
+            }
+        }
+    }
 }
@@ -5,7 +5,7 @@ import org.esa.s3tbx.c2rcc.C2rccCommons;
 import org.esa.s3tbx.c2rcc.C2rccConfigurable;
 import org.esa.s3tbx.c2rcc.ancillary.AtmosphericAuxdata;
 import org.esa.s3tbx.c2rcc.ancillary.AtmosphericAuxdataBuilder;
-import org.esa.s3tbx.c2rcc.olci.C2rccOlciAlgorithm.Result;
+import org.esa.s3tbx.c2rcc.util.NNDependencyGraph;
 import org.esa.s3tbx.c2rcc.util.NNUtils;
 import org.esa.s3tbx.c2rcc.util.RgbProfiles;
 import org.esa.snap.core.datamodel.Band;
@@ -28,15 +28,10 @@ import org.esa.snap.core.dataop.resamp.Resampling;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
 import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
-import org.esa.snap.core.gpf.pointop.PixelOperator;
-import org.esa.snap.core.gpf.pointop.ProductConfigurer;
-import org.esa.snap.core.gpf.pointop.Sample;
-import org.esa.snap.core.gpf.pointop.SourceSampleConfigurer;
-import org.esa.snap.core.gpf.pointop.TargetSampleConfigurer;
-import org.esa.snap.core.gpf.pointop.WritableSample;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.StringUtils;
 import org.esa.snap.core.util.SystemUtils;
@@ -44,9 +39,11 @@ import org.esa.snap.core.util.converters.BooleanExpressionConverter;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.Map;
 
 import static org.esa.s3tbx.c2rcc.C2rccCommons.addBand;
@@ -103,7 +100,7 @@ import static org.esa.s3tbx.c2rcc.olci.C2rccOlciAlgorithm.olciband21_ix;
         category = "Optical/Thematic Water Processing",
         copyright = "Copyright (C) 2016 by Brockmann Consult",
         description = "Performs atmospheric correction and IOP retrieval with uncertainties on SENTINEL-3 OLCI L1B data products.")
-public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurable {
+public class C2rccOlciOperator extends Operator implements C2rccConfigurable {
     /*
         c2rcc ops have been removed from Graph Builder. In the layer xml they are disabled
         see https://senbox.atlassian.net/browse/SNAP-395
@@ -120,58 +117,13 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
 
     // OLCI sources
     static final int BAND_COUNT = 21;
-    private static final int RADIANCE_START_IX = 0;
-    private static final int SOLAR_FLUX_START_IX = BAND_COUNT;
-    private static final int DEM_ALT_IX = BAND_COUNT * 2;
-    private static final int SUN_ZEN_IX = DEM_ALT_IX + 1;
-    private static final int SUN_AZI_IX = DEM_ALT_IX + 2;
-    private static final int VIEW_ZEN_IX = DEM_ALT_IX + 3;
-    private static final int VIEW_AZI_IX = DEM_ALT_IX + 4;
-    private static final int VALID_PIXEL_IX = DEM_ALT_IX + 5;
-
-    // OLCI targets
-    private static final int BC_16 = olciband16_ix.length; // Band count 16
-    private static final int BC_21 = olciband21_ix.length; // Band count 21
-    private static final int SINGLE_IX = BC_21 + 7 * BC_16;
-
-    private static final int RTOA_IX = 0;
-    private static final int RTOSA_IX = BC_21;
-    private static final int RTOSA_AANN_IX = BC_21 + BC_16;
-    private static final int RPATH_IX = BC_21 + 2 * BC_16;
-    private static final int TDOWN_IX = BC_21 + 3 * BC_16;
-    private static final int TUP_IX = BC_21 + 4 * BC_16;
-    private static final int AC_REFLEC_IX = BC_21 + 5 * BC_16;
-    private static final int RHOWN_IX = BC_21 + 6 * BC_16;
-
-    private static final int OOS_RTOSA_IX = SINGLE_IX;
-    private static final int OOS_AC_REFLEC_IX = SINGLE_IX + 1;
-
-    private static final int IOP_APIG_IX = SINGLE_IX + 2;
-    private static final int IOP_ADET_IX = SINGLE_IX + 3;
-    private static final int IOP_AGELB_IX = SINGLE_IX + 4;
-    private static final int IOP_BPART_IX = SINGLE_IX + 5;
-    private static final int IOP_BWIT_IX = SINGLE_IX + 6;
-    private static final int KD489_IX = SINGLE_IX + 7;
-    private static final int KDMIN_IX = SINGLE_IX + 8;
-    private static final int UNC_APIG_IX = SINGLE_IX + 9;
-    private static final int UNC_ADET_IX = SINGLE_IX + 10;
-    private static final int UNC_AGELB_IX = SINGLE_IX + 11;
-    private static final int UNC_BPART_IX = SINGLE_IX + 12;
-    private static final int UNC_BWIT_IX = SINGLE_IX + 13;
-    private static final int UNC_ADG_IX = SINGLE_IX + 14;
-    private static final int UNC_ATOT_IX = SINGLE_IX + 15;
-    private static final int UNC_BTOT_IX = SINGLE_IX + 16;
-    private static final int UNC_KD489_IX = SINGLE_IX + 17;
-    private static final int UNC_KDMIN_IX = SINGLE_IX + 18;
 
     private static final String PRODUCT_TYPE = "C2RCC_OLCI";
 
-    private static final int C2RCC_FLAGS_IX = SINGLE_IX + 19;
-
     private static final String RADIANCE_BANDNAME_PATTERN = "Oa%02d_radiance";
     private static final String SOLAR_FLUX_BANDNAME_PATTERN = "solar_flux_band_%d";
 
-    private static final String[] c2rccNNResourcePaths = new String[10];
+    static final String[] c2rccNNResourcePaths = new String[10];
 
     static {
         c2rccNNResourcePaths[IDX_iop_rw] = "olci/iop_rw/77x77x77_1798.8.net";
@@ -267,6 +219,11 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
             "If the auxiliary data is not available at this path, the data will automatically be downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(description = "Path to an alternative set of neuronal nets. Use this to replace the standard set of neuronal nets.",
             label = "Alternative NN Path")
     private String alternativeNNPath;
@@ -317,11 +274,17 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
     @Parameter(defaultValue = "true", label = "Output uncertainties")
     private boolean outputUncertainties;
 
+    @Parameter(defaultValue = "true", label = "Compute NN based quality flags",
+            description = "Compute the flags Rtosa_OOS, Rtosa_OOR, Cloud_risk and Rhow_OOS. If disabled, the neural nets " +
+                    "only needed for these flags are neither loaded nor evaluated, which speeds up the processing.")
+    private boolean computeNnQualityFlags;
+
     private C2rccOlciAlgorithm algorithm;
     private AtmosphericAuxdata atmosphericAuxdata;
     private boolean useSnapDem;
     private ElevationModel elevationModel;
     private TimeCoding timeCoding;
+    private VirtualBand validPixelBand;
 
     public static boolean isValidInput(Product product) {
         for (int i = 1; i <= BAND_COUNT; i++) {
@@ -446,6 +409,10 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         this.outputUncertainties = outputUncertainties;
     }
 
+    public void setComputeNnQualityFlags(boolean computeNnQualityFlags) {
+        this.computeNnQualityFlags = computeNnQualityFlags;
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -456,245 +423,83 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
     }
 
     @Override
-    protected void computePixel(int x, int y, Sample[] sourceSamples, WritableSample[] targetSamples) {
-        final double[] radiances = new double[BAND_COUNT];
-        final double[] solflux = new double[BAND_COUNT];
-        for (int i = 0; i < BAND_COUNT; i++) {
-            radiances[i] = sourceSamples[i].getDouble();
-            Sample solFluxSample = sourceSamples[i + SOLAR_FLUX_START_IX];
-            solflux[i] = solFluxSample.getNode().isPixelValid(x, y) ? solFluxSample.getDouble() : Double.NaN;
-        }
-
-        final PixelPos pixelPos = new PixelPos(x + 0.5f, y + 0.5f);
-        final double mjd = timeCoding.getMJD(pixelPos);
-
-        GeoPos geoPos = sourceProduct.getSceneGeoCoding().getGeoPos(pixelPos, null);
-        double lat = geoPos.getLat();
-        double lon = geoPos.getLon();
-        double atmPress = fetchSurfacePressure(atmosphericAuxdata, mjd, x, y, lat, lon);
-        double ozone = fetchOzone(atmosphericAuxdata, mjd, x, y, lat, lon);
-        final double altitude;
-        if (useSnapDem) {
-            try {
-                altitude = elevationModel.getElevation(geoPos);
-            } catch (Exception e) {
-                throw new OperatorException("Unable to compute altitude.", e);
-            }
-        } else {
-            altitude = sourceSamples[DEM_ALT_IX].getDouble();
-        }
-
-        Result result = algorithm.processPixel(x, y, lat, lon,
-                                               radiances,
-                                               solflux,
-                                               sourceSamples[SUN_ZEN_IX].getDouble(),
-                                               sourceSamples[SUN_AZI_IX].getDouble(),
-                                               sourceSamples[VIEW_ZEN_IX].getDouble(),
-                                               sourceSamples[VIEW_AZI_IX].getDouble(),
-                                               altitude,
-                                               sourceSamples[VALID_PIXEL_IX].getBoolean(),
-                                               atmPress,
-                                               ozone);
-
-        if (outputRtoa) {
-            for (int i = 0; i < result.r_toa.length; i++) {
-                targetSamples[RTOA_IX + i].set(result.r_toa[i]);
-            }
-        }
-
-        if (outputRtosaGc) {
-            for (int i = 0; i < result.r_tosa.length; i++) {
-                targetSamples[RTOSA_IX + i].set(result.r_tosa[i]);
-            }
-        }
-
-        if (outputRtosaGcAann) {
-            for (int i = 0; i < result.rtosa_aann.length; i++) {
-                targetSamples[RTOSA_AANN_IX + i].set(result.rtosa_aann[i]);
-            }
-        }
-
-        if (outputRpath) {
-            for (int i = 0; i < result.rpath_nn.length; i++) {
-                targetSamples[RPATH_IX + i].set(result.rpath_nn[i]);
-            }
-        }
-
-        if (outputTdown) {
-            for (int i = 0; i < result.transd_nn.length; i++) {
-                targetSamples[TDOWN_IX + i].set(result.transd_nn[i]);
-            }
-        }
-
-        if (outputTup) {
-            for (int i = 0; i < result.transu_nn.length; i++) {
-                targetSamples[TUP_IX + i].set(result.transu_nn[i]);
-            }
-        }
-
-        if (outputAcReflectance) {
-            for (int i = 0; i < result.rwa.length; i++) {
-                targetSamples[AC_REFLEC_IX + i].set(outputAsRrs ? result.rwa[i] / Math.PI : result.rwa[i]);
-            }
-        }
-
-        if (outputRhown) {
-            for (int i = 0; i < result.rwn.length; i++) {
-                targetSamples[RHOWN_IX + i].set(result.rwn[i]);
-            }
-        }
-
-        if (outputOos) {
-            targetSamples[OOS_RTOSA_IX].set(result.rtosa_oos);
-            targetSamples[OOS_AC_REFLEC_IX].set(result.rwa_oos);
-        }
-
-        for (int i = 0; i < result.iops_nn.length; i++) {
-            targetSamples[IOP_APIG_IX + i].set(result.iops_nn[i]);
-        }
-
-        if (outputKd) {
-            targetSamples[KD489_IX].set(result.kd489_nn);
-            targetSamples[KDMIN_IX].set(result.kdmin_nn);
-        }
-
-        if (outputUncertainties) {
-            for (int i = 0; i < result.unc_iop_abs.length; i++) {
-                targetSamples[UNC_APIG_IX + i].set(result.unc_iop_abs[i]);
-            }
-            targetSamples[UNC_ADG_IX].set(result.unc_abs_adg);
-            targetSamples[UNC_ATOT_IX].set(result.unc_abs_atot);
-            targetSamples[UNC_BTOT_IX].set(result.unc_abs_btot);
-            if (outputKd) {
-                targetSamples[UNC_KD489_IX].set(result.unc_abs_kd489);
-                targetSamples[UNC_KDMIN_IX].set(result.unc_abs_kdmin);
-            }
-        }
-
-        targetSamples[C2RCC_FLAGS_IX].set(result.flags);
+    public void initialize() throws OperatorException {
+        prepareInputs();
+        final Product targetProduct = new Product(getId(), getClass().getName(),
+                                                  sourceProduct.getSceneRasterWidth(),
+                                                  sourceProduct.getSceneRasterHeight());
+        ProductUtils.copyTimeInformation(sourceProduct, targetProduct);
+        ProductUtils.copyGeoCoding(sourceProduct, targetProduct);
+        ProductUtils.copyMetadata(sourceProduct, targetProduct);
+        configureTargetProduct(targetProduct);
+        setTargetProduct(targetProduct);
     }
 
     @Override
-    protected void configureSourceSamples(SourceSampleConfigurer sc) throws OperatorException {
+    public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
+        final Tile[] radianceTiles = new Tile[BAND_COUNT];
+        final Tile[] solarFluxTiles = new Tile[BAND_COUNT];
         for (int i = 0; i < BAND_COUNT; i++) {
-            sc.defineSample(i + RADIANCE_START_IX, getRadianceBandName(i + 1));
-            sc.defineSample(i + SOLAR_FLUX_START_IX, getSolarFluxBandname(i + 1));
-        }
-        if (!useSnapDem) {
-            sc.defineSample(DEM_ALT_IX, RASTER_NAME_ALTITUDE);
+            radianceTiles[i] = getSourceTile(sourceProduct.getBand(getRadianceBandName(i + 1)), targetRectangle);
+            solarFluxTiles[i] = getSourceTile(sourceProduct.getBand(getSolarFluxBandname(i + 1)), targetRectangle);
         }
-        sc.defineSample(SUN_ZEN_IX, RASTER_NAME_SUN_ZENITH);
-        sc.defineSample(SUN_AZI_IX, RASTER_NAME_SUN_AZIMUTH);
-        sc.defineSample(VIEW_ZEN_IX, RASTER_NAME_VIEWING_ZENITH);
-        sc.defineSample(VIEW_AZI_IX, RASTER_NAME_VIEWING_AZIMUTH);
-        if (StringUtils.isNotNullAndNotEmpty(validPixelExpression)) {
-            sc.defineComputedSample(VALID_PIXEL_IX, ProductData.TYPE_UINT8, validPixelExpression);
-        } else {
-            sc.defineComputedSample(VALID_PIXEL_IX, ProductData.TYPE_UINT8, "true");
-        }
-
-    }
-
-    @Override
-    protected void configureTargetSamples(TargetSampleConfigurer tsc) throws OperatorException {
-
-        if (outputRtoa) {
-            for (int i = 0; i < olciband21_ix.length; i++) {
-                tsc.defineSample(RTOA_IX + i, "rtoa_" + olciband21_ix[i]);
-            }
-        }
-
-        if (outputRtosaGc) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(RTOSA_IX + i, "rtosa_gc_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputRtosaGcAann) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(RTOSA_AANN_IX + i, "rtosagc_aann_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputRpath) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(RPATH_IX + i, "rpath_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputTdown) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(TDOWN_IX + i, "tdown_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputTup) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(TUP_IX + i, "tup_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputAcReflectance) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                if (outputAsRrs) {
-                    tsc.defineSample(AC_REFLEC_IX + i, "rrs_" + olciband16_ix[i]);
-                } else {
-                    tsc.defineSample(AC_REFLEC_IX + i, "rhow_" + olciband16_ix[i]);
+        final Tile altitudeTile = useSnapDem ? null : getSourceTile(sourceProduct.getRasterDataNode(RASTER_NAME_ALTITUDE), targetRectangle);
+        final Tile sunZenithTile = getSourceTile(sourceProduct.getRasterDataNode(RASTER_NAME_SUN_ZENITH), targetRectangle);
+        final Tile sunAzimuthTile = getSourceTile(sourceProduct.getRasterDataNode(RASTER_NAME_SUN_AZIMUTH), targetRectangle);
+        final Tile viewZenithTile = getSourceTile(sourceProduct.getRasterDataNode(RASTER_NAME_VIEWING_ZENITH), targetRectangle);
+        final Tile viewAzimuthTile = getSourceTile(sourceProduct.getRasterDataNode(RASTER_NAME_VIEWING_AZIMUTH), targetRectangle);
+        final Tile validPixelTile = getSourceTile(validPixelBand, targetRectangle);
+
+        // the tile is processed row by row, so that the input samples of a whole tile are not held in memory
+        final TargetTiles target = new TargetTiles(targetTiles);
+        final C2rccOlciAlgorithm.TileInput input = new C2rccOlciAlgorithm.TileInput(targetRectangle.width, BAND_COUNT);
+        final PixelPos pixelPos = new PixelPos();
+        final GeoPos geoPos = new GeoPos();
+        pm.beginTask("Computing C2RCC", targetRectangle.height);
+        try {
+            for (int y = targetRectangle.y; y < targetRectangle.y + targetRectangle.height; y++) {
+                checkForCancellation();
+                for (int i = 0; i < targetRectangle.width; i++) {
+                    final int x = targetRectangle.x + i;
+                    for (int b = 0; b < BAND_COUNT; b++) {
+                        input.toa_rad[b][i] = radianceTiles[b].getSampleDouble(x, y);
+                        input.solflux[b][i] = solarFluxTiles[b].isSampleValid(x, y) ? solarFluxTiles[b].getSampleDouble(x, y) : Double.NaN;
+                    }
+
+                    pixelPos.setLocation(x + 0.5f, y + 0.5f);
+                    final double mjd = timeCoding.getMJD(pixelPos);
+                    sourceProduct.getSceneGeoCoding().getGeoPos(pixelPos, geoPos);
+                    final double lat = geoPos.getLat();
+                    final double lon = geoPos.getLon();
+                    input.atm_press[i] = fetchSurfacePressure(atmosphericAuxdata, mjd, x, y, lat, lon);
+                    input.ozone[i] = fetchOzone(atmosphericAuxdata, mjd, x, y, lat, lon);
+                    if (useSnapDem) {
+                        try {
+                            input.dem_alt[i] = elevationModel.getElevation(geoPos);
+                        } catch (Exception e) {
+                            throw new OperatorException("Unable to compute altitude.", e);
+                        }
+                    } else {
+                        input.dem_alt[i] = altitudeTile.getSampleDouble(x, y);
+                    }
+
+                    input.sun_zeni[i] = sunZenithTile.getSampleDouble(x, y);
+                    input.sun_azi[i] = sunAzimuthTile.getSampleDouble(x, y);
+                    input.view_zeni[i] = viewZenithTile.getSampleDouble(x, y);
+                    input.view_azi[i] = viewAzimuthTile.getSampleDouble(x, y);
+                    input.valid[i] = validPixelTile.getSampleBoolean(x, y);
                 }
+                target.output.offset = (y - targetRectangle.y) * targetRectangle.width;
+                algorithm.processTile(input, target.output);
+                pm.worked(1);
             }
+            target.write();
+        } finally {
+            pm.done();
         }
-
-        if (outputRhown) {
-            for (int i = 0; i < olciband16_ix.length; i++) {
-                tsc.defineSample(RHOWN_IX + i, "rhown_" + olciband16_ix[i]);
-            }
-        }
-
-        if (outputOos) {
-            tsc.defineSample(OOS_RTOSA_IX, "oos_rtosa");
-            if (outputAsRrs) {
-                tsc.defineSample(OOS_AC_REFLEC_IX, "oos_rrs");
-            } else {
-                tsc.defineSample(OOS_AC_REFLEC_IX, "oos_rhow");
-            }
-        }
-
-        tsc.defineSample(IOP_APIG_IX, "iop_apig");
-        tsc.defineSample(IOP_ADET_IX, "iop_adet");
-        tsc.defineSample(IOP_AGELB_IX, "iop_agelb");
-        tsc.defineSample(IOP_BPART_IX, "iop_bpart");
-        tsc.defineSample(IOP_BWIT_IX, "iop_bwit");
-
-        if (outputKd) {
-            tsc.defineSample(KD489_IX, "kd489");
-            tsc.defineSample(KDMIN_IX, "kdmin");
-        }
-
-        if (outputUncertainties) {
-            tsc.defineSample(UNC_APIG_IX, "unc_apig");
-            tsc.defineSample(UNC_ADET_IX, "unc_adet");
-            tsc.defineSample(UNC_AGELB_IX, "unc_agelb");
-            tsc.defineSample(UNC_BPART_IX, "unc_bpart");
-            tsc.defineSample(UNC_BWIT_IX, "unc_bwit");
-
-            tsc.defineSample(UNC_ADG_IX, "unc_adg");
-            tsc.defineSample(UNC_ATOT_IX, "unc_atot");
-            tsc.defineSample(UNC_BTOT_IX, "unc_btot");
-            if (outputKd) {
-                tsc.defineSample(UNC_KD489_IX, "unc_kd489");
-                tsc.defineSample(UNC_KDMIN_IX, "unc_kdmin");
-            }
-        }
-
-        tsc.defineSample(C2RCC_FLAGS_IX, "c2rcc_flags");
     }
 
-    @Override
-    protected void configureTargetProduct(ProductConfigurer productConfigurer) {
-        super.configureTargetProduct(productConfigurer);
-        productConfigurer.copyMetadata();
-
-        final Product targetProduct = productConfigurer.getTargetProduct();
+    private void configureTargetProduct(Product targetProduct) {
         targetProduct.setProductType(PRODUCT_TYPE);
         C2rccCommons.ensureTimeInformation(targetProduct, sourceProduct.getStartTime(), sourceProduct.getEndTime(), timeCoding);
 
@@ -944,8 +749,7 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         targetProduct.setAutoGrouping(autoGrouping.toString());
     }
 
-    @Override
-    protected void prepareInputs() throws OperatorException {
+    private void prepareInputs() throws OperatorException {
         for (int i = 1; i <= BAND_COUNT; i++) {
             assertSourceBand(getRadianceBandName(i));
             assertSourceBand(getSolarFluxBandname(i));
@@ -965,6 +769,13 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         assertSourceRaster(RASTER_NAME_VIEWING_ZENITH);
         assertSourceRaster(RASTER_NAME_VIEWING_AZIMUTH);
         timeCoding = C2rccCommons.getTimeCoding(sourceProduct);
+
+        final String validExpression = StringUtils.isNotNullAndNotEmpty(validPixelExpression) ? validPixelExpression : "true";
+        validPixelBand = new VirtualBand("__valid_pixel_", ProductData.TYPE_UINT8,
+                                         sourceProduct.getSceneRasterWidth(),
+                                         sourceProduct.getSceneRasterHeight(),
+                                         validExpression);
+        validPixelBand.setOwner(sourceProduct);
     }
 
     @Override
@@ -989,7 +800,9 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
             } else {
                 nnFilePaths = NNUtils.getNNFilePaths(Paths.get(alternativeNNPath), NNUtils.ALTERNATIVE_NET_DIR_NAMES);
             }
-            algorithm = new C2rccOlciAlgorithm(nnFilePaths, loadFromResources);
+            final NNDependencyGraph nnGraph = createNNDependencyGraph();
+            algorithm = new C2rccOlciAlgorithm(nnFilePaths, loadFromResources, nnGraph.getRequiredNets());
+            logNNUsage(nnGraph);
 
             algorithm.setTemperature(temperature);
             algorithm.setSalinity(salinity);
@@ -1019,6 +832,64 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         }
     }
 
+    NNDependencyGraph createNNDependencyGraph() {
+        final NNDependencyGraph graph = new NNDependencyGraph(NNUtils.ALTERNATIVE_NET_DIR_NAMES);
+        final int[] rwNets = deriveRwFromPathAndTransmittance
+                ? new int[]{IDX_rtosa_rpath, IDX_rtosa_trans}
+                : new int[]{IDX_rtosa_rw};
+        graph.require("iop_*", rwNets);
+        graph.require("iop_*", IDX_rw_iop);
+        graph.require("c2rcc_flags.Iop_OOR, *_at_max, *_at_min", rwNets);
+        graph.require("c2rcc_flags.Iop_OOR, *_at_max, *_at_min", IDX_rw_iop);
+        if (outputRtosaGcAann) {
+            graph.require("rtosagc_aann_*", IDX_rtosa_aann);
+        }
+        if (outputRpath) {
+            graph.require("rpath_*", IDX_rtosa_rpath);
+        }
+        if (outputTdown) {
+            graph.require("tdown_*", IDX_rtosa_trans);
+        }
+        if (outputTup) {
+            graph.require("tup_*", IDX_rtosa_trans);
+        }
+        if (outputAcReflectance) {
+            graph.require(outputAsRrs ? "rrs_*" : "rhow_*", rwNets);
+        }
+        if (outputRhown) {
+            graph.require("rhown_*", rwNets);
+            graph.require("rhown_*", IDX_rw_rwnorm);
+        }
+        if (outputOos) {
+            graph.require("oos_rtosa", IDX_rtosa_aann);
+            graph.require(outputAsRrs ? "oos_rrs" : "oos_rhow", rwNets);
+            graph.require(outputAsRrs ? "oos_rrs" : "oos_rhow", IDX_rw_iop, IDX_iop_rw);
+        }
+        if (outputKd || outputUncertainties) {
+            graph.require(outputKd ? "kd489, kdmin" : "unc_*", rwNets);
+            graph.require(outputKd ? "kd489, kdmin" : "unc_*", IDX_rw_kd);
+        }
+        if (outputUncertainties) {
+            graph.require("unc_*", IDX_rw_iop, IDX_iop_unciop, IDX_iop_uncsumiop_unckd);
+        }
+        if (computeNnQualityFlags) {
+            graph.require("c2rcc_flags.Rtosa_OOS, Rtosa_OOR", IDX_rtosa_aann);
+            graph.require("c2rcc_flags.Cloud_risk", IDX_rtosa_trans);
+            graph.require("c2rcc_flags.Rhow_OOS", rwNets);
+            graph.require("c2rcc_flags.Rhow_OOS", IDX_rw_iop, IDX_iop_rw);
+        }
+        return graph;
+    }
+
+    private void logNNUsage(NNDependencyGraph nnGraph) {
+        final String[] unusedNetNames = nnGraph.getUnusedNetNames();
+        getLogger().info(String.format("C2RCC OLCI uses %d of %d neural nets, estimated %d multiply-adds per pixel%s\n%s",
+                                       algorithm.getUsedNeuronalNetNames().length, NNUtils.ALTERNATIVE_NET_DIR_NAMES.length,
+                                       algorithm.getEstimatedMultiplyAddsPerPixel(),
+                                       unusedNetNames.length > 0 ? ", skipped: " + String.join(", ", unusedNetNames) : "",
+                                       nnGraph.describe()));
+    }
+
     private static String getRadianceBandName(int index) {
         return String.format(RADIANCE_BANDNAME_PATTERN, index);
     }
@@ -1062,6 +933,11 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         if (useEcmwfAuxData) {
             VirtualBand ozoneInDu = new VirtualBand("__ozone_in_du_",
                     ProductData.TYPE_FLOAT32,
@@ -1092,6 +968,77 @@ public class C2rccOlciOperator extends PixelOperator implements C2rccConfigurabl
         }
     }
 
+    /**
+     * The raw samples of the target tiles of a tile stack, handed to the algorithm as {@link C2rccOlciAlgorithm.TileOutput}.
+     * Bands which are not part of the target product are left {@code null} in the output.
+     */
+    private class TargetTiles {
+
+        final C2rccOlciAlgorithm.TileOutput output = new C2rccOlciAlgorithm.TileOutput();
+        private final Map<Band, Tile> targetTiles;
+        private final Map<Tile, ProductData> rawSamples = new HashMap<>();
+
+        TargetTiles(Map<Band, Tile> targetTiles) {
+            this.targetTiles = targetTiles;
+            output.r_toa = getSamples("rtoa_", olciband21_ix);
+            output.r_tosa = getSamples("rtosa_gc_", olciband16_ix);
+            output.rtosa_aann = getSamples("rtosagc_aann_", olciband16_ix);
+            output.rpath_nn = getSamples("rpath_", olciband16_ix);
+            output.transd_nn = getSamples("tdown_", olciband16_ix);
+            output.transu_nn = getSamples("tup_", olciband16_ix);
+            output.rwa = getSamples(outputAsRrs ? "rrs_" : "rhow_", olciband16_ix);
+            output.rwaAsRrs = outputAsRrs;
+            output.rwn = getSamples("rhown_", olciband16_ix);
+            output.rtosa_oos = (float[]) getSamples("oos_rtosa");
+            output.rwa_oos = (float[]) getSamples(outputAsRrs ? "oos_rrs" : "oos_rhow");
+            output.iops_nn = getSamples("iop_apig", "iop_adet", "iop_agelb", "iop_bpart", "iop_bwit");
+            output.kd489_nn = (float[]) getSamples("kd489");
+            output.kdmin_nn = (float[]) getSamples("kdmin");
+            output.unc_iop_abs = getSamples("unc_apig", "unc_adet", "unc_agelb", "unc_bpart", "unc_bwit");
+            output.unc_abs_adg = (float[]) getSamples("unc_adg");
+            output.unc_abs_atot = (float[]) getSamples("unc_atot");
+            output.unc_abs_btot = (float[]) getSamples("unc_btot");
+            output.unc_abs_kd489 = (float[]) getSamples("unc_kd489");
+            output.unc_abs_kdmin = (float[]) getSamples("unc_kdmin");
+            output.flags = (int[]) getSamples("c2rcc_flags");
+        }
+
+        void write() {
+            for (Map.Entry<Tile, ProductData> entry : rawSamples.entrySet()) {
+                entry.getKey().setRawSamples(entry.getValue());
+            }
+        }
+
+        private float[][] getSamples(String prefix, int[] bandIndexes) {
+            final String[] bandNames = new String[bandIndexes.length];
+            for (int i = 0; i < bandIndexes.length; i++) {
+                bandNames[i] = prefix + bandIndexes[i];
+            }
+            return getSamples(bandNames);
+        }
+
+        private float[][] getSamples(String... bandNames) {
+            final float[][] samples = new float[bandNames.length][];
+            for (int i = 0; i < bandNames.length; i++) {
+                samples[i] = (float[]) getSamples(bandNames[i]);
+                if (samples[i] == null) {
+                    return null;
+                }
+            }
+            return samples;
+        }
+
+        private Object getSamples(String bandName) {
+            final Tile tile = targetTiles.get(getTargetProduct().getBand(bandName));
+            if (tile == null) {
+                return null;
+            }
+            final ProductData data = tile.getRawSamples();
+            rawSamples.put(tile, data);
+            return data.getElems();
+        }
+    }
+
     public static class Spi extends OperatorSpi {
         static {
             RgbProfiles.installRgbProfiles("C2RCC_OLCI",
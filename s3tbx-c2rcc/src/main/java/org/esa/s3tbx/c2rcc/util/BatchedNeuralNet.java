@@ -0,0 +1,261 @@
+package org.esa.s3tbx.c2rcc.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * A feed-forward back-propagation neural net which evaluates many pixels at once.
+ * <p>
+ * It reads the same {@code *.net} files as {@link org.esa.snap.core.nn.NNffbpAlphaTabFast} and uses the same
+ * tabulated sigmoid activation, including its saturation at the ends of the table, so both yield the same
+ * results. Instead of a matrix-vector product per pixel each layer is computed as a matrix-matrix product over
+ * a block of pixels. The weights of a layer are stored in one contiguous row-major array and the inner loop runs
+ * over the pixels of the block, which keeps the working set in the cache and allows the JIT to vectorise it.
+ * <p>
+ * Instances are immutable and can be shared between threads; the per-thread activation buffers are looked up
+ * once per call of {@link #calc(double[][], double[][], int)}.
+ * <p>
+ * It is used by {@link org.esa.s3tbx.c2rcc.olci.C2rccOlciAlgorithm#processTile} for the rows of the OLCI
+ * operator's tiles. The algorithms of the other sensors still evaluate their nets per pixel, because their
+ * operators are {@code PixelOperator}s which pass one pixel at a time.
+ */
+public class BatchedNeuralNet {
+
+    /**
+     * Number of pixels evaluated together in the inner loops.
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    private static final int NUM_ALPHA = 100000;
+    private static final double ALPHA_START = -10.0;
+    private static final double ALPHA_END = 10.0;
+    private static final double DELTA_ALPHA = (ALPHA_END - ALPHA_START) / (NUM_ALPHA - 1.0);
+    private static final double REC_DELTA_ALPHA = 1.0 / DELTA_ALPHA;
+    private static final double[] ALPHA_TAB = createAlphaTab();
+
+    private final double[] inmin;
+    private final double[] inmax;
+    private final double[] outmin;
+    private final double[] outmax;
+    private final int[] size;
+    private final double[][] bias;
+    private final double[][] wgt;
+    private final ThreadLocal<double[][]> activations;
+
+    public BatchedNeuralNet(String nnCode) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(nnCode))) {
+            String line = reader.readLine();
+            while (line != null && !line.startsWith("#")) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                throw new IOException("Invalid neural net: input and output ranges not found");
+            }
+
+            final int numIn = Integer.parseInt(nextLine(reader));
+            inmin = new double[numIn];
+            inmax = new double[numIn];
+            readRanges(reader, inmin, inmax);
+            final int numOut = Integer.parseInt(nextLine(reader));
+            outmin = new double[numOut];
+            outmax = new double[numOut];
+            readRanges(reader, outmin, outmax);
+
+            line = nextLine(reader);
+            while (!line.startsWith("#planes=")) {
+                line = nextLine(reader);
+            }
+            final String[] planeTokens = line.substring("#planes=".length()).trim().split("\\s+");
+            final int numPlanes = Integer.parseInt(planeTokens[0]);
+            size = new int[numPlanes];
+            for (int pl = 0; pl < numPlanes; pl++) {
+                size[pl] = Integer.parseInt(planeTokens[pl + 1]);
+            }
+            if (size[0] != numIn || size[numPlanes - 1] != numOut) {
+                throw new IOException("Invalid neural net: plane sizes do not match the number of inputs and outputs");
+            }
+
+            bias = new double[numPlanes - 1][];
+            for (int pl = 0; pl < numPlanes - 1; pl++) {
+                expectSection(reader, "bias");
+                bias[pl] = readValues(reader, size[pl + 1]);
+            }
+            wgt = new double[numPlanes - 1][];
+            for (int pl = 0; pl < numPlanes - 1; pl++) {
+                expectSection(reader, "wgt");
+                // row-major: one row of size[pl] input weights for each of the size[pl + 1] neurons
+                wgt[pl] = readValues(reader, size[pl] * size[pl + 1]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid neural net: " + e.getMessage(), e);
+        }
+
+        activations = ThreadLocal.withInitial(() -> {
+            final double[][] act = new double[size.length][];
+            for (int pl = 0; pl < size.length; pl++) {
+                act[pl] = new double[size[pl] * BLOCK_SIZE];
+            }
+            return act;
+        });
+    }
+
+    public int getInputCount() {
+        return size[0];
+    }
+
+    public int getOutputCount() {
+        return size[size.length - 1];
+    }
+
+    public double[] getInmin() {
+        return inmin;
+    }
+
+    public double[] getInmax() {
+        return inmax;
+    }
+
+    public double[] getOutmin() {
+        return outmin;
+    }
+
+    public double[] getOutmax() {
+        return outmax;
+    }
+
+    /**
+     * Evaluates the net for {@code count} pixels.
+     *
+     * @param in    the inputs, indexed by {@code [input][pixel]}
+     * @param out   receives the outputs, indexed by {@code [output][pixel]}
+     * @param count the number of pixels to evaluate
+     */
+    public void calc(double[][] in, double[][] out, int count) {
+        final double[][] act = activations.get();
+        final int lastPlane = size.length - 1;
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+            final int n = Math.min(BLOCK_SIZE, count - start);
+
+            final double[] act0 = act[0];
+            for (int j = 0; j < size[0]; j++) {
+                final double[] x = in[j];
+                final double min = inmin[j];
+                final double range = inmax[j] - inmin[j];
+                final int offset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    act0[offset + p] = (x[start + p] - min) / range;
+                }
+            }
+
+            for (int pl = 0; pl < lastPlane; pl++) {
+                computePlane(act[pl], size[pl], act[pl + 1], size[pl + 1], wgt[pl], bias[pl], n);
+            }
+
+            final double[] actN = act[lastPlane];
+            for (int i = 0; i < size[lastPlane]; i++) {
+                final double[] y = out[i];
+                final double min = outmin[i];
+                final double range = outmax[i] - outmin[i];
+                final int offset = i * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    y[start + p] = actN[offset + p] * range + min;
+                }
+            }
+        }
+    }
+
+    /**
+     * Convenience method evaluating a single pixel. Prefer {@link #calc(double[][], double[][], int)}.
+     */
+    public double[] calc(double[] in) {
+        final double[][] inColumns = new double[in.length][1];
+        for (int j = 0; j < in.length; j++) {
+            inColumns[j][0] = in[j];
+        }
+        final double[][] outColumns = new double[getOutputCount()][1];
+        calc(inColumns, outColumns, 1);
+        final double[] out = new double[outColumns.length];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = outColumns[i][0];
+        }
+        return out;
+    }
+
+    private static void computePlane(double[] a, int numIn, double[] b, int numOut, double[] w, double[] bias, int n) {
+        for (int i = 0; i < numOut; i++) {
+            final int bOffset = i * BLOCK_SIZE;
+            final double bi = bias[i];
+            for (int p = 0; p < n; p++) {
+                b[bOffset + p] = bi;
+            }
+            final int wOffset = i * numIn;
+            for (int j = 0; j < numIn; j++) {
+                final double wij = w[wOffset + j];
+                final int aOffset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    b[bOffset + p] += wij * a[aOffset + p];
+                }
+            }
+            for (int p = 0; p < n; p++) {
+                b[bOffset + p] = activation(b[bOffset + p]);
+            }
+        }
+    }
+
+    private static double activation(double x) {
+        final int index = (int) ((x - ALPHA_START) * REC_DELTA_ALPHA);
+        if (index < 0) {
+            return ALPHA_TAB[0];
+        }
+        if (index >= NUM_ALPHA) {
+            return ALPHA_TAB[NUM_ALPHA - 1];
+        }
+        return ALPHA_TAB[index];
+    }
+
+    private static double[] createAlphaTab() {
+        final double[] tab = new double[NUM_ALPHA];
+        double sum = ALPHA_START + 0.5 * DELTA_ALPHA;
+        for (int i = 0; i < NUM_ALPHA; i++) {
+            tab[i] = 1.0 / (1.0 + Math.exp(-sum));
+            sum += DELTA_ALPHA;
+        }
+        return tab;
+    }
+
+    private static void readRanges(BufferedReader reader, double[] min, double[] max) throws IOException {
+        for (int i = 0; i < min.length; i++) {
+            final String[] tokens = nextLine(reader).split("\\s+");
+            min[i] = Double.parseDouble(tokens[0]);
+            max[i] = Double.parseDouble(tokens[1]);
+        }
+    }
+
+    private static void expectSection(BufferedReader reader, String name) throws IOException {
+        final String line = nextLine(reader);
+        if (!line.startsWith(name)) {
+            throw new IOException("Invalid neural net: expected section '" + name + "' but found '" + line + "'");
+        }
+    }
+
+    private static double[] readValues(BufferedReader reader, int count) throws IOException {
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Double.parseDouble(nextLine(reader));
+        }
+        return values;
+    }
+
+    private static String nextLine(BufferedReader reader) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Invalid neural net: unexpected end of data");
+            }
+            line = line.trim();
+        } while (line.isEmpty());
+        return line;
+    }
+}
@@ -0,0 +1,77 @@
+package org.esa.s3tbx.c2rcc.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records which neural nets are needed to compute the requested output bands and flags of a C2RCC operator.
+ * Nets which are not required by any output need neither be loaded nor evaluated.
+ */
+public class NNDependencyGraph {
+
+    private final String[] netNames;
+    private final Map<String, BitSet> outputs;
+
+    /**
+     * @param netNames the names of the nets, indexed like the net paths given to the algorithm
+     */
+    public NNDependencyGraph(String[] netNames) {
+        this.netNames = netNames;
+        outputs = new LinkedHashMap<>();
+    }
+
+    /**
+     * Declares that the given output needs the given nets. Calling this method for the same output twice
+     * adds the nets to the ones already declared.
+     */
+    public void require(String output, int... netIndices) {
+        final BitSet nets = outputs.computeIfAbsent(output, k -> new BitSet(netNames.length));
+        for (int netIndex : netIndices) {
+            nets.set(netIndex);
+        }
+    }
+
+    public boolean[] getRequiredNets() {
+        final BitSet all = new BitSet(netNames.length);
+        for (BitSet nets : outputs.values()) {
+            all.or(nets);
+        }
+        final boolean[] required = new boolean[netNames.length];
+        for (int i = 0; i < required.length; i++) {
+            required[i] = all.get(i);
+        }
+        return required;
+    }
+
+    public String[] getUnusedNetNames() {
+        final boolean[] required = getRequiredNets();
+        final List<String> unused = new ArrayList<>();
+        for (int i = 0; i < required.length; i++) {
+            if (!required[i]) {
+                unused.add(netNames[i]);
+            }
+        }
+        return unused.toArray(new String[0]);
+    }
+
+    /**
+     * Returns a human readable description of the graph, one line per output.
+     */
+    public String describe() {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, BitSet> entry : outputs.entrySet()) {
+            sb.append("  ").append(entry.getKey()).append(" <- ");
+            final BitSet nets = entry.getValue();
+            boolean first = true;
+            for (int i = nets.nextSetBit(0); i >= 0; i = nets.nextSetBit(i + 1)) {
+                sb.append(first ? "" : ", ").append(netNames[i]);
+                first = false;
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
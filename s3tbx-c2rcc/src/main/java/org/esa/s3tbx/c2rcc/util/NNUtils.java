@@ -63,6 +63,30 @@ public class NNUtils {
         return pathsList.toArray(new String[pathsList.size()]);
     }
 
+    /**
+     * Estimates the evaluation cost of a neural net as the number of multiply-add operations per input vector,
+     * derived from the plane sizes given in the {@code #planes=} line of the net code.
+     *
+     * @param nnCode the content of a {@code *.net} file
+     * @return the number of weights of the net, or 0 if the plane sizes cannot be found
+     */
+    public static long estimateMultiplyAdds(String nnCode) {
+        final int start = nnCode.indexOf("#planes=");
+        if (start < 0) {
+            return 0;
+        }
+        int end = nnCode.indexOf('\n', start);
+        if (end < 0) {
+            end = nnCode.length();
+        }
+        final String[] tokens = nnCode.substring(start + "#planes=".length(), end).trim().split("\\s+");
+        long count = 0;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            count += Long.parseLong(tokens[i]) * Long.parseLong(tokens[i + 1]);
+        }
+        return count;
+    }
+
     private static String getIgnoreCase(HashSet<String> dirNames, String alternativeNetDirName) {
         return dirNames.stream().filter(dirName -> dirName.equalsIgnoreCase(alternativeNetDirName)).findFirst().orElse(null);
     }
@@ -152,6 +152,11 @@ public class C2rccViirsOperator extends PixelOperator implements C2rccConfigurab
             "path, the data will automatically downloaded.")
     private String atmosphericAuxDataPath;
 
+    @Parameter(defaultValue = "false", label = "Use gridded atmospheric auxdata",
+            description = "If selected, ozone and air pressure of the auxiliary products are sampled once on a 1 degree grid and " +
+                    "interpolated bilinearly for each pixel instead of being looked up for each pixel.")
+    private boolean useGriddedAuxdata;
+
     @Parameter(defaultValue = "false", label = "Output TOSA reflectances")
     private boolean outputRtosa;
 
@@ -396,6 +401,11 @@ public class C2rccViirsOperator extends PixelOperator implements C2rccConfigurab
         auxdataBuilder.useAtmosphericAuxDataPath(atmosphericAuxDataPath);
         auxdataBuilder.useTomsomiProducts(tomsomiStartProduct, tomsomiEndProduct);
         auxdataBuilder.useNcepProducts(ncepStartProduct, ncepEndProduct);
+        final double[] mjdRange = C2rccCommons.getMjdRange(sourceProduct, timeCoding);
+        auxdataBuilder.setTimeRange(mjdRange[0], mjdRange[1]);
+        if (useGriddedAuxdata) {
+            auxdataBuilder.useGriddedLookup();
+        }
         try {
             atmosphericAuxdata = auxdataBuilder.create();
         } catch (Exception e) {
@@ -0,0 +1,196 @@
+package org.esa.s3tbx.c2rcc.ancillary;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AncRepositoryTest {
+
+    // each test product has one band of 10 x 10 float values
+    private static final long PRODUCT_SIZE = 400;
+
+    private File repositoryRoot;
+
+    @Before
+    public void setUp() throws Exception {
+        repositoryRoot = new File(System.getProperty("java.io.tmpdir"), "AncRepositoryTest_" + System.nanoTime());
+        for (String filename : new String[]{"N200136500_a.hdf", "N200136506_a.hdf", "N200136512_a.hdf"}) {
+            final File doyDir = new File(new File(repositoryRoot, "2001"), "365");
+            assertTrue(doyDir.isDirectory() || doyDir.mkdirs());
+            assertTrue(new File(doyDir, filename).createNewFile());
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteTree(repositoryRoot);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedProductIsEvicted() throws Exception {
+        final TestRepository repository = new TestRepository(repositoryRoot, 2 * PRODUCT_SIZE);
+
+        final Product p00 = repository.getProduct(new String[]{"N200136500_a.hdf"});
+        final Product p06 = repository.getProduct(new String[]{"N200136506_a.hdf"});
+        repository.release(p00);
+        repository.release(p06);
+        // use p00 again, so that p06 is the least recently used one
+        repository.release(repository.getProduct(new String[]{"N200136500_a.hdf"}));
+        final Product p12 = repository.getProduct(new String[]{"N200136512_a.hdf"});
+
+        assertEquals(2, repository.getCachedProductCount());
+        assertEquals(2 * PRODUCT_SIZE, repository.getCacheSize());
+        assertFalse(repository.isDisposed(p00));
+        assertTrue(repository.isDisposed(p06));
+        assertFalse(repository.isDisposed(p12));
+        assertEquals(3, repository.readCount.get());
+    }
+
+    @Test
+    public void testLeasedProductsAreNotEvicted() throws Exception {
+        final TestRepository repository = new TestRepository(repositoryRoot, PRODUCT_SIZE);
+
+        final Product p00 = repository.getProduct(new String[]{"N200136500_a.hdf"});
+        final Product p06 = repository.getProduct(new String[]{"N200136506_a.hdf"});
+
+        assertEquals(2, repository.getCachedProductCount());
+        assertFalse(repository.isDisposed(p00));
+        assertFalse(repository.isDisposed(p06));
+
+        repository.release(p00);
+        assertEquals(1, repository.getCachedProductCount());
+        assertTrue(repository.isDisposed(p00));
+    }
+
+    @Test
+    public void testConcurrentRequestsReadProductOnce() throws Exception {
+        final TestRepository repository = new TestRepository(repositoryRoot, 10 * PRODUCT_SIZE);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?>[] futures = new Future[16];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> repository.getProduct(new String[]{"N200136506_a.hdf"}));
+            }
+            final Object first = futures[0].get();
+            for (Future<?> future : futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, repository.readCount.get());
+    }
+
+    @Test
+    public void testConcurrentPrefetchAndGetProduct() throws Exception {
+        final TestRepository repository = new TestRepository(repositoryRoot, PRODUCT_SIZE);
+        final AncDataFormat format = new AncDataFormat(new String[]{"_a.hdf"}, "ozone", 0.0, InterpolationBorderComputer6H::new);
+        // the interval between N200136506 and N200136512
+        final double startMJD = ProductData.UTC.parse("31-DEC-2001 07:00:00").getMJD();
+        final double endMJD = ProductData.UTC.parse("31-DEC-2001 08:00:00").getMJD();
+
+        for (int i = 0; i < 50; i++) {
+            final List<Future<?>> prefetchTasks = repository.prefetch(format, startMJD, endMJD, 0);
+            final Product p06 = repository.getProduct(new String[]{"N200136506_a.hdf"});
+            final Product p12 = repository.getProduct(new String[]{"N200136512_a.hdf"});
+            for (Future<?> task : prefetchTasks) {
+                task.get();
+            }
+            assertEquals(1, repository.getLeaseCount("N200136506_a.hdf"));
+            assertEquals(1, repository.getLeaseCount("N200136512_a.hdf"));
+
+            repository.release(p06);
+            repository.release(p12);
+            // p06 is evicted, so it is loaded again by the next prefetch or request
+            assertEquals(1, repository.getCachedProductCount());
+            assertEquals(0, repository.getLeaseCount("N200136512_a.hdf"));
+            assertTrue(repository.isDisposed(p06));
+            // every product read but not cached has been disposed, including the ones read twice
+            assertEquals(repository.readCount.get() - 1, repository.disposeCount.get());
+        }
+    }
+
+    @Test
+    public void testMissingProduct() throws Exception {
+        final TestRepository repository = new TestRepository(repositoryRoot, PRODUCT_SIZE);
+
+        assertNull(repository.getProduct(new String[]{"N200136518_a.hdf"}));
+        assertEquals(0, repository.getCachedProductCount());
+    }
+
+    @Test
+    public void testProductsAreFoundInMirror() throws Exception {
+        final File mirror = new File(repositoryRoot, "mirror");
+        assertTrue(mirror.mkdirs());
+        assertTrue(new File(mirror, "N200136518_a.hdf").createNewFile());
+        final TestRepository repository = new TestRepository(repositoryRoot, mirror, PRODUCT_SIZE);
+
+        assertNotNull(repository.getProduct(new String[]{"N200136518_a.hdf"}));
+    }
+
+    @Test
+    public void testGetFilePrefixes() throws Exception {
+        final double startMJD = ProductData.UTC.parse("01-JAN-2000 10:00:00").getMJD();
+        final double endMJD = ProductData.UTC.parse("01-JAN-2000 10:30:00").getMJD();
+
+        final Set<String> prefixes6H = AncRepository.getFilePrefixes(new InterpolationBorderComputer6H(), startMJD, endMJD, 0);
+        assertArrayEquals(new String[]{"N200000106", "N200000112"}, prefixes6H.toArray());
+
+        final Set<String> prefixes6HNeighbours = AncRepository.getFilePrefixes(new InterpolationBorderComputer6H(), startMJD, endMJD, 1);
+        assertArrayEquals(new String[]{"N200000100", "N200000106", "N200000112", "N200000118"}, prefixes6HNeighbours.toArray());
+
+        final Set<String> prefixes24H = AncRepository.getFilePrefixes(new InterpolationBorderComputer24H(), startMJD, endMJD, 1);
+        assertArrayEquals(new String[]{"N199936400", "N199936500", "N200000100", "N200000200"}, prefixes24H.toArray());
+    }
+
+    private static class TestRepository extends AncRepository {
+
+        private final AtomicInteger readCount = new AtomicInteger();
+        private final AtomicInteger disposeCount = new AtomicInteger();
+        private final Set<Product> disposedProducts = ConcurrentHashMap.newKeySet();
+
+        private TestRepository(File root, long maxCacheSize) {
+            this(root, null, maxCacheSize);
+        }
+
+        private TestRepository(File root, File mirror, long maxCacheSize) {
+            super(root, null, mirror, maxCacheSize, false);
+        }
+
+        @Override
+        Product readProduct(File productFile) throws IOException {
+            readCount.incrementAndGet();
+            final Product product = new Product(productFile.getName(), "ANC", 10, 10) {
+                @Override
+                public void dispose() {
+                    if (disposedProducts.add(this)) {
+                        disposeCount.incrementAndGet();
+                    }
+                    super.dispose();
+                }
+            };
+            product.addBand(new Band("ozone", ProductData.TYPE_FLOAT32, 10, 10));
+            return product;
+        }
+
+        private boolean isDisposed(Product product) {
+            return disposedProducts.contains(product);
+        }
+    }
+}
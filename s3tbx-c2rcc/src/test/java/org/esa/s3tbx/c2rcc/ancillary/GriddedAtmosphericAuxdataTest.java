@@ -0,0 +1,54 @@
+package org.esa.s3tbx.c2rcc.ancillary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GriddedAtmosphericAuxdataTest {
+
+    @Test
+    public void testValuesOfLinearFieldAreReproduced() throws Exception {
+        GriddedAtmosphericAuxdata auxdata = new GriddedAtmosphericAuxdata(new LinearAuxdata(), 100.0, 100.5, 1.0);
+
+        assertEquals(300.0 + 2 * 43.3 + 12.6, auxdata.getOzone(100.0, -1, -1, 43.3, 12.6), 1.0e-8);
+        assertEquals(300.0 + 2 * 43.3 + 12.6 + 10.0, auxdata.getOzone(100.5, -1, -1, 43.3, 12.6), 1.0e-8);
+        assertEquals(300.0 + 2 * -12.7 + 101.1 + 5.0, auxdata.getOzone(100.25, -1, -1, -12.7, 101.1), 1.0e-8);
+
+        assertEquals(1000.0 - 0.5 * 43.3, auxdata.getSurfacePressure(100.0, -1, -1, 43.3, 12.6), 1.0e-8);
+        assertEquals(1000.0 - 0.5 * 43.3 - 4.0, auxdata.getSurfacePressure(100.5, -1, -1, 43.3, 12.6), 1.0e-8);
+    }
+
+    @Test
+    public void testBorders() throws Exception {
+        GriddedAtmosphericAuxdata auxdata = new GriddedAtmosphericAuxdata(new LinearAuxdata(), 100.0, 100.0, 1.0);
+
+        // latitudes beyond the outermost cell centres are clamped
+        assertEquals(300.0 + 2 * 89.5 + 10.0, auxdata.getOzone(100.0, -1, -1, 90.0, 10.0), 1.0e-8);
+        assertEquals(300.0 + 2 * -89.5 + 10.0, auxdata.getOzone(100.0, -1, -1, -90.0, 10.0), 1.0e-8);
+        // longitudes are interpolated across the anti-meridian
+        final double atEast = auxdata.getOzone(100.0, -1, -1, 0.5, 179.5);
+        final double atWest = auxdata.getOzone(100.0, -1, -1, 0.5, -179.5);
+        final double across = auxdata.getOzone(100.0, -1, -1, 0.5, 180.0);
+        assertEquals(0.5 * (atEast + atWest), across, 1.0e-8);
+        assertEquals(0.5 * (atEast + atWest), auxdata.getOzone(100.0, -1, -1, 0.5, -180.0), 1.0e-8);
+
+        assertTrue(Double.isNaN(auxdata.getOzone(100.0, -1, -1, Double.NaN, 10.0)));
+    }
+
+    private static class LinearAuxdata implements AtmosphericAuxdata {
+
+        @Override
+        public double getOzone(double mjd, int x, int y, double lat, double lon) {
+            return 300.0 + 2 * lat + lon + (mjd - 100.0) * 20.0;
+        }
+
+        @Override
+        public double getSurfacePressure(double mjd, int x, int y, double lat, double lon) {
+            return 1000.0 - 0.5 * lat - (mjd - 100.0) * 8.0;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package org.esa.s3tbx.c2rcc.olci;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class C2rccOlciAlgorithmTest {
+
+    private static final double[] TOA_RAD = {
+            62.2, 58.4, 52.1, 41.7, 35.5, 26.3, 17.9, 14.8, 14.2, 13.9, 12.1,
+            9.1, 3.2, 4.1, 6.3, 8.8, 6.1, 5.7, 4.8, 2.1, 3.9
+    };
+
+    // results of the per-pixel processing the tile processing replaces, pixel 1 is invalid
+    private static final int[] EXPECTED_FLAGS = {-2147450879, 0, -2147450879};
+    private static final float[][] EXPECTED_R_TOA = {
+            {0.17529742f, 0.16349795f, 0.14490072f, 0.115218185f, 0.097450495f, 0.07172994f, 0.04850705f,
+                    0.03985093f, 0.037993357f, 0.036956776f, 0.03196994f, 0.023894168f, 0.0083504785f, 0.010633413f,
+                    0.016239516f, 0.022546293f, 0.015534531f, 0.014428953f, 0.012078371f, 0.0052530193f, 0.009698221f},
+            {0.18702981f, 0.1744406f, 0.1545987f, 0.12292956f, 0.1039727f, 0.07653071f, 0.05175355f,
+                    0.042518094f, 0.040536195f, 0.03943024f, 0.034109637f, 0.025493369f, 0.008909363f, 0.01134509f,
+                    0.017326403f, 0.024055282f, 0.016574234f, 0.01539466f, 0.012886758f, 0.005604596f, 0.010347309f},
+            {0.19920838f, 0.18579942f, 0.16466549f, 0.1309342f, 0.11074296f, 0.08151406f, 0.055123515f,
+                    0.045286685f, 0.043175735f, 0.04199776f, 0.036330707f, 0.027153386f, 0.009489502f, 0.012083833f,
+                    0.018454622f, 0.025621656f, 0.017653475f, 0.016397092f, 0.013725887f, 0.0059695425f, 0.01102108f}
+    };
+    private static final float[][] EXPECTED_RWA = {
+            {0.014045322f, 0.015820155f, 0.02084103f, 0.03129761f, 0.035055112f, 0.041085657f, 0.021277579f,
+                    0.013151559f, 0.012126689f, 0.011892442f, 0.0078879325f, 0.0021926227f, 0.0024451164f,
+                    9.763529E-4f, 8.158105E-4f, 1.4588867E-4f},
+            null,
+            {0.023628253f, 0.026353998f, 0.033142176f, 0.0449985f, 0.04599987f, 0.046843607f, 0.019739097f,
+                    0.01179948f, 0.010856293f, 0.010544667f, 0.006694983f, 0.0018272793f, 0.0020297612f,
+                    8.0470083E-4f, 6.729285E-4f, 1.1995253E-4f}
+    };
+    private static final float[][] EXPECTED_IOPS = {
+            {0.1998402f, 0.20169397f, 0.2358926f, 1.5856875f, 3.706896f},
+            null,
+            {0.11924337f, 0.13300443f, 0.10489486f, 1.8155417f, 3.773391f}
+    };
+    private static final float[][] EXPECTED_UNC_IOPS = {
+            {0.024099953f, 0.026051732f, 0.05187138f, 0.73836285f, 1.3222024f},
+            null,
+            {0.01435118f, 0.016335167f, 0.020680396f, 0.6985391f, 1.1642151f}
+    };
+    // rtosa, rtosa_aann, rpath, tdown, tup and rwn of the sixth of the 16 bands
+    private static final float[][] EXPECTED_BAND_5 = {
+            {0.07800421f, 0.0781916f, 0.052866567f, 0.9453085f, 0.95401394f, 0.034389548f},
+            null,
+            {0.088825986f, 0.088973895f, 0.05895341f, 0.9313983f, 0.94638246f, 0.038641457f}
+    };
+    // rtosa_oos, rwa_oos, kd489, kdmin, unc_adg, unc_atot, unc_btot, unc_chl, unc_tsm, unc_kd489 and unc_kdmin
+    private static final float[][] EXPECTED_SINGLE = {
+            {7.0393103E-4f, 0.02512109f, 0.5979343f, 0.44373897f, 0.07395128f, 0.08926386f, 1.2959957f,
+                    0.47281292f, 2.2420726f, 0.059262954f, 0.04398022f},
+            null,
+            {8.26979E-4f, 0.061503638f, 0.39794394f, 0.3336695f, 0.034338925f, 0.039843358f, 1.0274167f,
+                    0.2909831f, 1.777431f, 0.030804392f, 0.02582898f}
+    };
+
+    @Test
+    public void testProcessTile() throws Exception {
+        final C2rccOlciAlgorithm algo = createAlgorithmWithAllOutputs();
+        final int pixelCount = 3;
+        final C2rccOlciAlgorithm.TileInput input = createTileInput(0, pixelCount);
+        final C2rccOlciAlgorithm.TileOutput output = createTileOutput(pixelCount);
+
+        algo.processTile(input, output);
+
+        for (int i = 0; i < pixelCount; i++) {
+            assertEquals(EXPECTED_FLAGS[i], output.flags[i]);
+            assertSamples(EXPECTED_R_TOA[i], output.r_toa, i);
+            if (!input.valid[i]) {
+                // the AC and IOP outputs of invalid pixels are not written
+                assertEquals(0.0f, output.rwa[0][i], 0.0f);
+                assertEquals(0.0f, output.iops_nn[0][i], 0.0f);
+                continue;
+            }
+            assertSamples(EXPECTED_RWA[i], output.rwa, i);
+            assertSamples(EXPECTED_IOPS[i], output.iops_nn, i);
+            assertSamples(EXPECTED_UNC_IOPS[i], output.unc_iop_abs, i);
+            assertSample(EXPECTED_BAND_5[i][0], output.r_tosa[5][i]);
+            assertSample(EXPECTED_BAND_5[i][1], output.rtosa_aann[5][i]);
+            assertSample(EXPECTED_BAND_5[i][2], output.rpath_nn[5][i]);
+            assertSample(EXPECTED_BAND_5[i][3], output.transd_nn[5][i]);
+            assertSample(EXPECTED_BAND_5[i][4], output.transu_nn[5][i]);
+            assertSample(EXPECTED_BAND_5[i][5], output.rwn[5][i]);
+            assertSample(EXPECTED_SINGLE[i][0], output.rtosa_oos[i]);
+            assertSample(EXPECTED_SINGLE[i][1], output.rwa_oos[i]);
+            assertSample(EXPECTED_SINGLE[i][2], output.kd489_nn[i]);
+            assertSample(EXPECTED_SINGLE[i][3], output.kdmin_nn[i]);
+            assertSample(EXPECTED_SINGLE[i][4], output.unc_abs_adg[i]);
+            assertSample(EXPECTED_SINGLE[i][5], output.unc_abs_atot[i]);
+            assertSample(EXPECTED_SINGLE[i][6], output.unc_abs_btot[i]);
+            assertSample(EXPECTED_SINGLE[i][7], output.unc_abs_chl[i]);
+            assertSample(EXPECTED_SINGLE[i][8], output.unc_abs_tsm[i]);
+            assertSample(EXPECTED_SINGLE[i][9], output.unc_abs_kd489[i]);
+            assertSample(EXPECTED_SINGLE[i][10], output.unc_abs_kdmin[i]);
+        }
+    }
+
+    @Test
+    public void testProcessTile_rowByRow() throws Exception {
+        final C2rccOlciAlgorithm algo = createAlgorithmWithAllOutputs();
+        // a tile of one column and three rows, processed like the operator does
+        final C2rccOlciAlgorithm.TileOutput output = new C2rccOlciAlgorithm.TileOutput();
+        output.rwa = new float[16][3];
+        output.rwaAsRrs = true;
+        output.flags = new int[3];
+        for (int row = 0; row < 3; row++) {
+            output.offset = row;
+            algo.processTile(createTileInput(row, 1), output);
+        }
+
+        assertArrayEquals(EXPECTED_FLAGS, output.flags);
+        assertEquals(0.0f, output.rwa[0][1], 0.0f);
+        for (int i : new int[]{0, 2}) {
+            for (int b = 0; b < EXPECTED_RWA[i].length; b++) {
+                assertSample((float) (EXPECTED_RWA[i][b] / Math.PI), output.rwa[b][i]);
+            }
+        }
+    }
+
+    @Test
+    public void testProcessTile_equalsProcessPixel() throws Exception {
+        final C2rccOlciAlgorithm algo = createAlgorithmWithAllOutputs();
+        final int pixelCount = 3;
+        final C2rccOlciAlgorithm.TileInput input = createTileInput(0, pixelCount);
+        final C2rccOlciAlgorithm.TileOutput output = createTileOutput(pixelCount);
+        algo.processTile(input, output);
+
+        final C2rccOlciAlgorithm.TileOutput expected = createTileOutput(pixelCount);
+        final C2rccOlciAlgorithm.Workspace ws = new C2rccOlciAlgorithm.Workspace();
+        final double[] toa_rad = new double[TOA_RAD.length];
+        final double[] solflux = new double[TOA_RAD.length];
+        for (int i = 0; i < pixelCount; i++) {
+            for (int b = 0; b < toa_rad.length; b++) {
+                toa_rad[b] = input.toa_rad[b][i];
+                solflux[b] = input.solflux[b][i];
+            }
+            algo.processPixel(toa_rad, solflux, input.sun_zeni[i], input.sun_azi[i], input.view_zeni[i],
+                              input.view_azi[i], input.dem_alt[i], input.valid[i], input.atm_press[i],
+                              input.ozone[i], ws);
+            expected.set(i, ws);
+        }
+
+        // the batched nets yield the same results as the per-pixel nets
+        assertArrayEquals(expected.flags, output.flags);
+        assertArrayEquals(expected.rtosa_oos, output.rtosa_oos, 0.0f);
+        assertArrayEquals(expected.kdmin_nn, output.kdmin_nn, 0.0f);
+        assertArrayEquals(expected.unc_abs_kd489, output.unc_abs_kd489, 0.0f);
+        for (int b = 0; b < 16; b++) {
+            assertArrayEquals(expected.rwa[b], output.rwa[b], 0.0f);
+            assertArrayEquals(expected.rwn[b], output.rwn[b], 0.0f);
+        }
+        for (int b = 0; b < 5; b++) {
+            assertArrayEquals(expected.iops_nn[b], output.iops_nn[b], 0.0f);
+            assertArrayEquals(expected.unc_iop_abs[b], output.unc_iop_abs[b], 0.0f);
+        }
+    }
+
+    @Test
+    public void testProcessPixel_invalidPixel() throws Exception {
+        C2rccOlciAlgorithm algo = new C2rccOlciAlgorithm(C2rccOlciOperator.c2rccNNResourcePaths, true);
+        algo.setOutputRhow(true);
+        double[] solflux = new double[TOA_RAD.length];
+        java.util.Arrays.fill(solflux, 1500.0);
+        C2rccOlciAlgorithm.Result result = algo.processPixel(0, 0, 50.0, 10.0, TOA_RAD, solflux,
+                                                             42.0, 120.0, 20.0, 100.0, 0.0, false, 1013.2, 330.0);
+        assertEquals(TOA_RAD.length, result.r_toa.length);
+        assertEquals(0, result.rwa.length);
+        assertEquals(0, result.iops_nn.length);
+        assertEquals(0, result.flags);
+    }
+
+    @Test
+    public void testNNDependencyGraph_iopsOnly() throws Exception {
+        C2rccOlciOperator operator = new C2rccOlciOperator();
+        operator.setParameterDefaultValues();
+        operator.setOutputAcReflec(false);
+        operator.setOutputRhown(false);
+        operator.setOutputKd(false);
+        operator.setOutputUncertainties(false);
+        operator.setComputeNnQualityFlags(false);
+
+        boolean[] requiredNets = operator.createNNDependencyGraph().getRequiredNets();
+        for (int i = 0; i < requiredNets.length; i++) {
+            boolean expected = i == C2rccOlciAlgorithm.IDX_rtosa_rw || i == C2rccOlciAlgorithm.IDX_rw_iop;
+            assertEquals("net " + i, expected, requiredNets[i]);
+        }
+
+        operator.setComputeNnQualityFlags(true);
+        requiredNets = operator.createNNDependencyGraph().getRequiredNets();
+        assertTrue(requiredNets[C2rccOlciAlgorithm.IDX_rtosa_aann]);
+        assertTrue(requiredNets[C2rccOlciAlgorithm.IDX_rtosa_trans]);
+        assertTrue(requiredNets[C2rccOlciAlgorithm.IDX_iop_rw]);
+        assertFalse(requiredNets[C2rccOlciAlgorithm.IDX_rw_kd]);
+        assertFalse(requiredNets[C2rccOlciAlgorithm.IDX_rw_rwnorm]);
+    }
+
+    @Test
+    public void testProcessPixel_withRequiredNetsOnly() throws Exception {
+        boolean[] requiredNets = new boolean[10];
+        requiredNets[C2rccOlciAlgorithm.IDX_rtosa_rw] = true;
+        requiredNets[C2rccOlciAlgorithm.IDX_rw_iop] = true;
+        C2rccOlciAlgorithm reduced = new C2rccOlciAlgorithm(C2rccOlciOperator.c2rccNNResourcePaths, true, requiredNets);
+        C2rccOlciAlgorithm full = new C2rccOlciAlgorithm(C2rccOlciOperator.c2rccNNResourcePaths, true);
+        assertEquals(2, reduced.getUsedNeuronalNetNames().length);
+        assertTrue(reduced.getEstimatedMultiplyAddsPerPixel() < full.getEstimatedMultiplyAddsPerPixel());
+
+        double[] solflux = new double[TOA_RAD.length];
+        java.util.Arrays.fill(solflux, 1500.0);
+        C2rccOlciAlgorithm.Result expected = full.processPixel(0, 0, 50.0, 10.0, TOA_RAD, solflux,
+                                                               42.0, 120.0, 20.0, 100.0, 0.0, true, 1013.2, 330.0);
+        C2rccOlciAlgorithm.Result actual = reduced.processPixel(0, 0, 50.0, 10.0, TOA_RAD, solflux,
+                                                                42.0, 120.0, 20.0, 100.0, 0.0, true, 1013.2, 330.0);
+        assertArrayEquals(expected.iops_nn, actual.iops_nn, 0.0);
+        assertEquals(0, actual.rtosa_aann.length);
+        int nnFlagsMask = 1 << C2rccOlciAlgorithm.FLAG_INDEX_RTOSA_OOS | 1 << C2rccOlciAlgorithm.FLAG_INDEX_RTOSA_OOR
+                          | 1 << C2rccOlciAlgorithm.FLAG_INDEX_CLOUD | 1 << C2rccOlciAlgorithm.FLAG_INDEX_RHOW_OOS;
+        assertEquals(0, actual.flags & nnFlagsMask);
+        assertEquals(expected.flags & ~nnFlagsMask, actual.flags);
+    }
+
+    private static C2rccOlciAlgorithm createAlgorithmWithAllOutputs() throws Exception {
+        final C2rccOlciAlgorithm algo = new C2rccOlciAlgorithm(C2rccOlciOperator.c2rccNNResourcePaths, true);
+        algo.setOutputRhow(true);
+        algo.setOutputRtoaGcAann(true);
+        algo.setOutputRpath(true);
+        algo.setOutputTdown(true);
+        algo.setOutputTup(true);
+        algo.setOutputRhown(true);
+        algo.setOutputOos(true);
+        algo.setOutputKd(true);
+        algo.setOutputUncertainties(true);
+        return algo;
+    }
+
+    private static C2rccOlciAlgorithm.TileInput createTileInput(int firstPixel, int pixelCount) {
+        final int bandCount = TOA_RAD.length;
+        final C2rccOlciAlgorithm.TileInput input = new C2rccOlciAlgorithm.TileInput(pixelCount, bandCount);
+        for (int i = 0; i < pixelCount; i++) {
+            final int pixel = firstPixel + i;
+            for (int b = 0; b < bandCount; b++) {
+                input.toa_rad[b][i] = TOA_RAD[b] * (1.0 + 0.05 * pixel);
+                input.solflux[b][i] = 1500.0 + 10 * b;
+            }
+            input.sun_zeni[i] = 42.0 + pixel;
+            input.sun_azi[i] = 120.0;
+            input.view_zeni[i] = 20.0 + pixel;
+            input.view_azi[i] = 100.0;
+            input.dem_alt[i] = pixel == 2 ? 250.0 : 0.0;
+            input.valid[i] = pixel != 1;
+            input.atm_press[i] = 1013.2;
+            input.ozone[i] = 330.0;
+        }
+        return input;
+    }
+
+    private static C2rccOlciAlgorithm.TileOutput createTileOutput(int pixelCount) {
+        final C2rccOlciAlgorithm.TileOutput output = new C2rccOlciAlgorithm.TileOutput();
+        output.r_toa = new float[TOA_RAD.length][pixelCount];
+        output.r_tosa = new float[16][pixelCount];
+        output.rtosa_aann = new float[16][pixelCount];
+        output.rpath_nn = new float[16][pixelCount];
+        output.transd_nn = new float[16][pixelCount];
+        output.transu_nn = new float[16][pixelCount];
+        output.rwa = new float[16][pixelCount];
+        output.rwn = new float[16][pixelCount];
+        output.rtosa_oos = new float[pixelCount];
+        output.rwa_oos = new float[pixelCount];
+        output.iops_nn = new float[5][pixelCount];
+        output.kd489_nn = new float[pixelCount];
+        output.kdmin_nn = new float[pixelCount];
+        output.unc_iop_abs = new float[5][pixelCount];
+        output.unc_abs_adg = new float[pixelCount];
+        output.unc_abs_atot = new float[pixelCount];
+        output.unc_abs_btot = new float[pixelCount];
+        output.unc_abs_chl = new float[pixelCount];
+        output.unc_abs_tsm = new float[pixelCount];
+        output.unc_abs_kd489 = new float[pixelCount];
+        output.unc_abs_kdmin = new float[pixelCount];
+        output.flags = new int[pixelCount];
+        return output;
+    }
+
+    private static void assertSamples(float[] expected, float[][] actual, int pixel) {
+        for (int b = 0; b < expected.length; b++) {
+            assertSample(expected[b], actual[b][pixel]);
+        }
+    }
+
+    private static void assertSample(float expected, float actual) {
+        // allows for the last bit of the exponential and trigonometric functions to differ between platforms
+        assertEquals(expected, actual, 1.0e-6f * Math.abs(expected));
+    }
+}
@@ -0,0 +1,80 @@
+package org.esa.s3tbx.c2rcc.util;
+
+import org.esa.snap.core.nn.NNffbpAlphaTabFast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-pixel {@link NNffbpAlphaTabFast} with the {@link BatchedNeuralNet} on one row of pixels.
+ * Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchedNeuralNetBenchmark {
+
+    @Param({
+            "/auxdata/nets/olci/rtosa_rw/33x23x13_2131677.4.net",
+            "/auxdata/nets/olci/rw_iop/37x37x37_596495.4.net",
+            "/auxdata/nets/olci/rtosa_trans/57x57x57_369970.5.net"
+    })
+    public String netResource;
+
+    @Param({"1217"})
+    public int rowLength;
+
+    private NNffbpAlphaTabFast perPixelNet;
+    private BatchedNeuralNet batchedNet;
+    private double[][] in;
+    private double[][] out;
+    private double[] pixelIn;
+
+    @Setup
+    public void setUp() throws Exception {
+        final String nnCode = BatchedNeuralNetTest.readNet(netResource);
+        perPixelNet = new NNffbpAlphaTabFast(nnCode);
+        batchedNet = new BatchedNeuralNet(nnCode);
+        in = BatchedNeuralNetTest.createInputs(batchedNet, rowLength, new Random(42));
+        out = new double[batchedNet.getOutputCount()][rowLength];
+        pixelIn = new double[batchedNet.getInputCount()];
+    }
+
+    @Benchmark
+    public void perPixel(Blackhole blackhole) {
+        for (int p = 0; p < rowLength; p++) {
+            for (int j = 0; j < pixelIn.length; j++) {
+                pixelIn[j] = in[j][p];
+            }
+            blackhole.consume(perPixelNet.calc(pixelIn));
+        }
+    }
+
+    @Benchmark
+    public double[][] batched() {
+        batchedNet.calc(in, out, rowLength);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchedNeuralNetBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package org.esa.s3tbx.c2rcc.util;
+
+import org.esa.snap.core.nn.NNffbpAlphaTabFast;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BatchedNeuralNetTest {
+
+    static final String NET_RESOURCE = "/auxdata/nets/olci/rtosa_rw/33x23x13_2131677.4.net";
+
+    private String nnCode;
+
+    @Before
+    public void setUp() throws Exception {
+        nnCode = readNet(NET_RESOURCE);
+    }
+
+    @Test
+    public void testDimensions() throws Exception {
+        BatchedNeuralNet net = new BatchedNeuralNet(nnCode);
+        NNffbpAlphaTabFast reference = new NNffbpAlphaTabFast(nnCode);
+        assertEquals(reference.getInmin().length, net.getInputCount());
+        assertEquals(reference.getOutmin().length, net.getOutputCount());
+        assertArrayEquals(reference.getInmin(), net.getInmin(), 0.0);
+        assertArrayEquals(reference.getInmax(), net.getInmax(), 0.0);
+        assertArrayEquals(reference.getOutmin(), net.getOutmin(), 0.0);
+        assertArrayEquals(reference.getOutmax(), net.getOutmax(), 0.0);
+    }
+
+    @Test
+    public void testCalc_matchesPerPixelNet() throws Exception {
+        BatchedNeuralNet net = new BatchedNeuralNet(nnCode);
+        NNffbpAlphaTabFast reference = new NNffbpAlphaTabFast(nnCode);
+
+        // more than two blocks and a partial one
+        final int count = 2 * BatchedNeuralNet.BLOCK_SIZE + 17;
+        final double[][] in = createInputs(net, count, new Random(42));
+        final double[][] out = new double[net.getOutputCount()][count];
+        net.calc(in, out, count);
+
+        final double[] pixelIn = new double[net.getInputCount()];
+        for (int p = 0; p < count; p++) {
+            for (int j = 0; j < pixelIn.length; j++) {
+                pixelIn[j] = in[j][p];
+            }
+            final double[] expected = reference.calc(pixelIn);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals("pixel " + p + ", output " + i, expected[i], out[i][p], 1.0e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testCalc_singlePixelEqualsBatch() throws Exception {
+        BatchedNeuralNet net = new BatchedNeuralNet(nnCode);
+        final int count = 5;
+        final double[][] in = createInputs(net, count, new Random(7));
+        final double[][] out = new double[net.getOutputCount()][count];
+        net.calc(in, out, count);
+
+        final double[] pixelIn = new double[net.getInputCount()];
+        for (int j = 0; j < pixelIn.length; j++) {
+            pixelIn[j] = in[j][3];
+        }
+        final double[] pixelOut = net.calc(pixelIn);
+        for (int i = 0; i < pixelOut.length; i++) {
+            assertEquals(out[i][3], pixelOut[i], 0.0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidNet() throws Exception {
+        new BatchedNeuralNet("no neural net\n");
+    }
+
+    static double[][] createInputs(BatchedNeuralNet net, int count, Random random) {
+        final double[][] in = new double[net.getInputCount()][count];
+        for (int j = 0; j < in.length; j++) {
+            final double min = net.getInmin()[j];
+            final double max = net.getInmax()[j];
+            for (int p = 0; p < count; p++) {
+                in[j][p] = min + random.nextDouble() * (max - min);
+            }
+        }
+        return in;
+    }
+
+    static String readNet(String resource) throws IOException {
+        try (InputStream stream = BatchedNeuralNetTest.class.getResourceAsStream(resource)) {
+            assertNotNull("resource not found: " + resource, stream);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+            return reader.lines().collect(Collectors.joining("\n", "", "\n"));
+        }
+    }
+}
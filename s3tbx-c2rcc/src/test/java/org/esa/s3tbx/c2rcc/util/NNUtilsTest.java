@@ -78,4 +78,10 @@ public class NNUtilsTest {
             assertTrue(nnFilePaths[i].contains(sep + nameWithUpperCase + sep));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEstimateMultiplyAdds() {
+        assertEquals(12 * 31 + 31 * 71 + 71 * 5, NNUtils.estimateMultiplyAdds("#\n$\n#planes=4 12 31 71 5\nbias 1 31\n"));
+        assertEquals(0, NNUtils.estimateMultiplyAdds("no planes"));
+    }
+}
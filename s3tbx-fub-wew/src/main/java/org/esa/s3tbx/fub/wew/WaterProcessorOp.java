@@ -17,17 +17,14 @@ import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.ProductNode;
 import org.esa.snap.core.datamodel.ProductNodeGroup;
 import org.esa.snap.core.datamodel.RasterDataNode;
+import org.esa.snap.core.datamodel.VirtualBand;
+import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
 import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
-import org.esa.snap.core.gpf.pointop.PixelOperator;
-import org.esa.snap.core.gpf.pointop.ProductConfigurer;
-import org.esa.snap.core.gpf.pointop.Sample;
-import org.esa.snap.core.gpf.pointop.SourceSampleConfigurer;
-import org.esa.snap.core.gpf.pointop.TargetSampleConfigurer;
-import org.esa.snap.core.gpf.pointop.WritableSample;
 import org.esa.snap.core.image.VirtualBandOpImage;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.StringUtils;
@@ -36,21 +33,21 @@ import org.esa.snap.dataio.envisat.EnvisatConstants;
 import javax.media.jai.PlanarImage;
 import javax.media.jai.operator.ConstantDescriptor;
 import java.awt.Color;
+import java.awt.Rectangle;
 import java.awt.image.Raster;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static org.esa.s3tbx.fub.wew.WaterProcessorOpConstant.SOURCE_SAMPLE_VALID_MASK;
-
 @OperatorMetadata(alias = "FUB.Water", authors = "Thomas Schroeder, Michael Schaale",
         copyright = "Institute for Space Sciences (WeW), Freie Universitaet Berlin",
         category = "Optical/Thematic Water Processing",
         version = "4.0.1",
         description = "MERIS FUB-CSIRO Coastal Water Processor to retrieve case II water properties and atmospheric properties")
-public class WaterProcessorOp extends PixelOperator {
+public class WaterProcessorOp extends Operator {
 
     private float[] solarFlux;
 
@@ -86,7 +83,14 @@ public class WaterProcessorOp extends PixelOperator {
             defaultValue = "not l1_flags.GLINT_RISK and not l1_flags.BRIGHT and not l1_flags.INVALID " + WaterProcessorOpConstant.SUSPECT_EXPRESSION_TERM,
             label = "Use valid pixel expression")
     private String expression;
+
+    @Parameter(description = "Expert parameter. Evaluates the neural networks in float instead of double precision. " +
+                             "This is faster, but the results deviate slightly from the double precision results.",
+            defaultValue = "false", label = "Evaluate neural networks in float precision")
+    private boolean useFloatPrecision;
     private Sensor sensor;
+    private double[] exO3;
+    private VirtualBand validPixelBand;
 
     private static FlagCoding createResultFlagCoding() {
         FlagCoding resultFlagCoding = new FlagCoding(WaterProcessorOpConstant.result_flags_name);
@@ -101,8 +105,18 @@ public class WaterProcessorOp extends PixelOperator {
     }
 
     @Override
-    protected void prepareInputs() throws OperatorException {
-        super.prepareInputs();
+    public void initialize() throws OperatorException {
+        prepareInputs();
+        final Product targetProduct = new Product(getId(), getClass().getName(),
+                                                  sourceProduct.getSceneRasterWidth(),
+                                                  sourceProduct.getSceneRasterHeight());
+        ProductUtils.copyTimeInformation(sourceProduct, targetProduct);
+        ProductUtils.copyGeoCoding(sourceProduct, targetProduct);
+        configureTargetProduct(targetProduct);
+        setTargetProduct(targetProduct);
+    }
+
+    private void prepareInputs() throws OperatorException {
         sensor = getSensor();
         String[] sourceRasterNames = sensor.getRasterNames();
 
@@ -117,9 +131,22 @@ public class WaterProcessorOp extends PixelOperator {
             }
             inputBands[i] = radianceBand;
         }
+
+        // Load the ozone spectral extinction coefficients of the band wavelengths
+        exO3 = new double[inputBands.length];
+        for (int i = 0; i < inputBands.length; i++) {
+            exO3[i] = WaterProcessorOzone.O3excoeff(inputBands[i].getSpectralWavelength());
+        }
+
         if (checkWhetherSuspectIsValid) {
             checkWhetherSuspectIsValid();
         }
+        final String validExpression = StringUtils.isNotNullAndNotEmpty(expression) ? expression : "true";
+        validPixelBand = new VirtualBand("__valid_pixel_", ProductData.TYPE_UINT8,
+                                         sourceProduct.getSceneRasterWidth(),
+                                         sourceProduct.getSceneRasterHeight(),
+                                         validExpression);
+        validPixelBand.setOwner(sourceProduct);
     }
 
     @Override
@@ -133,17 +160,7 @@ public class WaterProcessorOp extends PixelOperator {
         }
     }
 
-    @Override
-    protected void configureSourceSamples(SourceSampleConfigurer sampleConfigurer) throws OperatorException {
-        String[] sourceRasterNames = sensor.getRasterNames();
-        for (int i = 0; i < sourceRasterNames.length; i++) {
-            sampleConfigurer.defineSample(i, sourceRasterNames[i]);
-        }
-        sampleConfigurer.defineComputedSample(SOURCE_SAMPLE_VALID_MASK, ProductData.TYPE_INT8, expression);
-    }
-
-    @Override
-    protected void configureTargetSamples(TargetSampleConfigurer sampleConfigurer) throws OperatorException {
+    private String[] getOutputBandNames() {
         String[] bandNames = new String[0];
         if (computeCHL) {
             bandNames = StringUtils.addToArray(bandNames, WaterProcessorOpConstant.OUTPUT_CONCENTRATION_BAND_NAMES[0]);
@@ -158,357 +175,279 @@ public class WaterProcessorOp extends PixelOperator {
             bandNames = StringUtils.addArrays(bandNames, WaterProcessorOpConstant.OUTPUT_OPTICAL_DEPTH_BAND_NAMES);
             bandNames = StringUtils.addArrays(bandNames, WaterProcessorOpConstant.OUTPUT_REFLECTANCE_BAND_NAMES);
         }
-        bandNames = StringUtils.addToArray(bandNames, WaterProcessorOpConstant.result_flags_name);
+        return StringUtils.addToArray(bandNames, WaterProcessorOpConstant.result_flags_name);
+    }
+
+    @Override
+    public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
+        final String[] sourceRasterNames = sensor.getRasterNames();
+        final Tile[] sourceTiles = new Tile[sourceRasterNames.length];
+        for (int i = 0; i < sourceTiles.length; i++) {
+            sourceTiles[i] = getSourceTile(sourceProduct.getRasterDataNode(sourceRasterNames[i]), targetRectangle);
+        }
+        final Tile validPixelTile = getSourceTile(validPixelBand, targetRectangle);
 
-        for (int i = 0; i < bandNames.length; i++) {
-            sampleConfigurer.defineSample(i, bandNames[i]);
+        final String[] outputBandNames = getOutputBandNames();
+        final Tile[] outputTiles = new Tile[outputBandNames.length];
+        for (int i = 0; i < outputTiles.length; i++) {
+            outputTiles[i] = targetTiles.get(getTargetProduct().getBand(outputBandNames[i]));
+        }
+
+        // The tile is processed row by row, so that each network evaluates a whole row in one call
+        final RowBuffers row = new RowBuffers(targetRectangle.width, outputTiles.length - 1);
+        pm.beginTask("Computing FUB/WeW water properties", targetRectangle.height);
+        try {
+            for (int y = targetRectangle.y; y < targetRectangle.y + targetRectangle.height; y++) {
+                checkForCancellation();
+                computeRow(targetRectangle.x, y, sourceTiles, validPixelTile, row);
+                for (int i = 0; i < targetRectangle.width; i++) {
+                    final int x = targetRectangle.x + i;
+                    for (int n = 0; n < row.result.length; n++) {
+                        outputTiles[n].setSample(x, y, row.result[n][i]);
+                    }
+                    outputTiles[row.result.length].setSample(x, y, row.resultFlags[i]);
+                }
+                pm.worked(1);
+            }
+        } finally {
+            pm.done();
         }
     }
 
-    @Override
-    protected void computePixel(final int xpos, final int ypos, Sample[] sourceSamples, WritableSample[] targetSamples) {
+    private void computeRow(final int x0, final int y, Tile[] sourceTiles, Tile validPixelTile, RowBuffers row) {
 
         // If set to -1.0f : NN input and output ranges are checked
         // If set to +1.0f : NN input and output ranges are NOT checked
-        float aset = -1.0f;
+        final float aset = -1.0f;
 
-        int width = 1;
-        int nbands = inputBands.length;
+        final int width = row.width;
+        final int output_planes = row.result.length;
+        final float[][] ipixel = row.ipixel;
+        final float[][] ipixels = row.ipixels;
+        final int[] resultFlags = row.resultFlags;
+        final int[] resultFlagsNN = row.resultFlagsNN;
+        final float[] a = row.a;
 
-        // allocate memory for a multispectral scan line
-        float[] toa = new float[nbands];
+        final double d2r = Math.acos(-1.0) / 180.0;
 
-        // allocate memory for the flags
-        int[] resultFlags = new int[width];
+        // Get the number of I/O nodes in advance
+        final int inodes = NN_YellowSubstance.getKernel().getNumNodesInput();
+        // implicit atm.corr.
+        final int onodes_1 = NN_YellowSubstance.getKernel().getNumNodesOutput();
+        // explicit atm.corr.
+        final int onodes_2 = NN_AtmCorr.getKernel().getNumNodesOutput();
+
+        final int num_toa = 12;
+        final float[] toa = new float[inputBands.length];
+        final float[] top = new float[num_toa];
+        final double[] o3f = new double[num_toa];
+        final float[] aux = new float[2];
+        final float[] geo = new float[4];
+        int ls = 0;
 
-        // Ozone data
-        double[] wavelength = new double[nbands];
-        double[] exO3 = new double[nbands];
+        for (int x = 0; x < width; x++) {
+            final int xpos = x0 + x;
+
+            // First the TOA radiances
+            for (int n = 0; n < inputBands.length; n++) {
+                toa[n] = sourceTiles[n].getSampleFloat(xpos, y);
+            } // n
+
+            // Second the auxiliary data
+            final float sza = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_SUN_ZENITH].getSampleFloat(xpos, y);
+            final float saa = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_SUN_AZIMUTH].getSampleFloat(xpos, y);
+            final float vza = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_VIEW_ZENITH].getSampleFloat(xpos, y);
+            final float vaa = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_VIEW_AZIMUTH].getSampleFloat(xpos, y);
+            final float zw = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_ZONAL_WIND].getSampleFloat(xpos, y);
+            final float mw = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_MERID_WIND].getSampleFloat(xpos, y);
+            final float press = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_ATM_PRESS].getSampleFloat(xpos, y);
+            final float o3 = sourceTiles[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_OZONE].getSampleFloat(xpos, y);
+            final boolean valid = validPixelTile.getSampleBoolean(xpos, y);
+
+            row.vza[x] = vza;
+            resultFlags[x] = 0;
+            resultFlagsNN[x] = 0;
+
+            // Exclude pixels from processing if the following l1flags mask becomes true
+//            not quality_flags_sun_glint_risk and not quality_flags_bright and not quality_flags_invalid
+//
+            if (!valid) {
+                resultFlags[x] = WaterProcessorOpConstant.RESULT_ERROR_VALUES[0];
+            }
 
-        // local variables
-        double d2r;
-        float dazi;
-        int k;
-        int l;
-        int ls = 0;
-        int n;
-        float[] a = new float[width];
+            // *********************
+            // * STAGE 0
+            // *********************
+
+            // Get the toa reflectances for selected bands
+            // and normalize ozone
+            //
+            int n;
+            int l = 0;
+            final double TOTAL_OZONE_DU_MOMO = 344.0;
+            for (n = 0; n <= 6; n++, l++) {
+                top[l] = toa[n] / solarFlux[n];
+                o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
+                        (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
+                top[l] *= o3f[l];
+            }
+            for (n = 8; n <= 9; n++, l++) {
+                top[l] = toa[n] / solarFlux[n];
+                o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
+                        (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
+                top[l] *= o3f[l];
+            }
+            for (n = 11; n <= 13; n++, l++) {
+                top[l] = toa[n] / solarFlux[n];
+                o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
+                        (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
+                top[l] *= o3f[l];
+            }
 
-        int inodes;
-        int onodes;
-        int onodes_1;
-        int onodes_2;
-        int stage;
+            // Get the wind speed
+            aux[0] = (float) Math.sqrt((double) (zw * zw + mw * mw));
+            // Get the pressure
+            aux[1] = press;
 
-        float[][] ipixel = new float[2][1];
-        float[][] ipixels = new float[2][1];
-        float[][] opixel = new float[2][1];
+            // Adjust the azimuth difference
+            float dazi = vaa - saa;
 
-        // Load the wavelengths and ozone spectral extinction coefficients
-        //
-        for (int i = 0; i < nbands; i++) {
-            wavelength[i] = inputBands[i].getSpectralWavelength();
-            exO3[i] = WaterProcessorOzone.O3excoeff(wavelength[i]);
-        }
+            while (dazi <= -180.0f) {
+                dazi += 360.0f;
+            }
+            while (dazi > 180.0f) {
+                dazi -= 360.0f;
+            }
+            float tmp = dazi;
+            if (tmp >= 0.0f) {
+                dazi = +180.0f - dazi;
+            }
+            if (tmp < 0.0f) {
+                dazi = -180.0f - dazi;
+            }
 
-        d2r = Math.acos(-1.0) / 180.0;
+            // Get cos(sunzen)
+            geo[0] = (float) Math.cos((double) sza * d2r);
 
-        // Get the number of I/O nodes in advance
-        inodes = NN_YellowSubstance.compute(ipixel, -1, opixel, 1, width, resultFlags, 0, a);
-        // implicit atm.corr.
-        onodes_1 = NN_YellowSubstance.compute(ipixel, 1, opixel, -1, width, resultFlags, 0, a);
-        // explicit atm.corr.
-        onodes_2 = NN_AtmCorr.compute(ipixel, 1, opixel, -1, width, resultFlags, 0, a);
+            // And now transform into cartesian coordinates
+            geo[1] = (float) (Math.sin((double) vza * d2r) * Math.cos((double) dazi * d2r)); // obs_x
+            geo[2] = (float) (Math.sin((double) vza * d2r) * Math.sin((double) dazi * d2r)); // obs_y
+            geo[3] = (float) (Math.cos((double) vza * d2r));                            // obs_z
 
-        int num_toa = 12;
-        int output_planes = 0;
-        if (computeCHL) {
-            output_planes++;
-        }
-        if (computeYS) {
-            output_planes++;
-        }
-        if (computeTSM) {
-            output_planes++;
-        }
-        if (computeAtmCorr) {
-            output_planes += WaterProcessorOpConstant.OUTPUT_OPTICAL_DEPTH_BAND_NAMES.length + WaterProcessorOpConstant.OUTPUT_REFLECTANCE_BAND_NAMES.length;
-        }
-        float[] top = new float[num_toa];
-        float[] tops = new float[num_toa];
-        double[] o3f = new double[num_toa];
-        float[] sof = new float[num_toa];
-        float[] aux = new float[2];
-        float[] geo = new float[4];
-        float[] result = new float[output_planes];
-
-        // First the TOA radiances
-        for (n = 0; n < inputBands.length; n++) {
-            toa[n] = sourceSamples[n].getFloat();
-        } // n
-
-        // Second the auxiliary data
-        float sza = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_SUN_ZENITH].getFloat();
-        float saa = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_SUN_AZIMUTH].getFloat();
-        float vza = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_VIEW_ZENITH].getFloat();
-        float vaa = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_VIEW_AZIMUTH].getFloat();
-        float zw = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_ZONAL_WIND].getFloat();
-        float mw = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_MERID_WIND].getFloat();
-        float press = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_ATM_PRESS].getFloat();
-        float o3 = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_INDEX_OZONE].getFloat();
-        boolean valid = sourceSamples[WaterProcessorOpConstant.SOURCE_SAMPLE_VALID_MASK].getBoolean();
-
-        final int x = 0;
-
-        resultFlags[x] = 0;
-        int resultFlagsNN = 0;
-
-        // Exclude pixels from processing if the following l1flags mask becomes true
-//        not quality_flags_sun_glint_risk and not quality_flags_bright and not quality_flags_invalid
-//
-        if (!valid) {
-            resultFlags[x] = WaterProcessorOpConstant.RESULT_ERROR_VALUES[0];
-        }
+            // Save the input pixel: the TOA reflectances
+            for (l = 0; l < num_toa; l++) {
+                ipixels[l][x] = top[l];
+            }
 
-        // *********************
-        // * STAGE 0
-        // *********************
+            // the wind speed and pressure
+            ipixels[l++][x] = aux[0];
+            ipixels[l++][x] = aux[1];
 
-        // Get the toa reflectances for selected bands
-        // and normalize ozone
-        //
-        l = 0;
-        final double TOTAL_OZONE_DU_MOMO = 344.0;
-        for (n = 0; n <= 6; n++, l++) {
-            tops[l] = toa[n];
-            sof[l] = solarFlux[n];
-            top[l] = toa[n] / solarFlux[n];
-            o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
-                    (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
-            top[l] *= o3f[l];
-        }
-        for (n = 8; n <= 9; n++, l++) {
-            tops[l] = toa[n];
-            sof[l] = solarFlux[n];
-            top[l] = toa[n] / solarFlux[n];
-            o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
-                    (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
-            top[l] *= o3f[l];
-        }
-        for (n = 11; n <= 13; n++, l++) {
-            tops[l] = toa[n];
-            sof[l] = solarFlux[n];
-            top[l] = toa[n] / solarFlux[n];
-            o3f[l] = Math.exp(-(TOTAL_OZONE_DU_MOMO - o3) * exO3[n] / 1000.0 * (1.0 / Math.cos(
-                    (double) vza * d2r) + 1.0 / Math.cos((double) sza * d2r)));
-            top[l] *= o3f[l];
-        }
-
-        // Get the wind speed
-        aux[0] = (float) Math.sqrt((double) (zw * zw + mw * mw));
-        // Get the pressure
-        aux[1] = press;
-
-        // Adjust the azimuth difference
-        dazi = vaa - saa;
-
-        while (dazi <= -180.0f) {
-            dazi += 360.0f;
-        }
-        while (dazi > 180.0f) {
-            dazi -= 360.0f;
-        }
-        float tmp = dazi;
-        if (tmp >= 0.0f) {
-            dazi = +180.0f - dazi;
-        }
-        if (tmp < 0.0f) {
-            dazi = -180.0f - dazi;
-        }
-
-        // Get cos(sunzen)
-        geo[0] = (float) Math.cos((double) sza * d2r);
-
-        // And now transform into cartesian coordinates
-        geo[1] = (float) (Math.sin((double) vza * d2r) * Math.cos((double) dazi * d2r)); // obs_x
-        geo[2] = (float) (Math.sin((double) vza * d2r) * Math.sin((double) dazi * d2r)); // obs_y
-        geo[3] = (float) (Math.cos((double) vza * d2r));                            // obs_z
+            // cos(sunzen), x, yPos, z
+            ipixels[l++][x] = geo[0];
+            ipixels[l++][x] = geo[1];
+            ipixels[l++][x] = geo[2];
+            ipixels[l++][x] = geo[3];
+            ls = l;
+        }
 
         // *********************
         // * STAGE 1-4
         // *********************
 
-        onodes = onodes_1; // They differ !!
-
-        ipixel = new float[inodes][width];
-        ipixels = new float[inodes][width];
-        opixel = new float[onodes][width];
-
-        // load the TOA reflectances
-        for (l = 0; l < num_toa; l++) {
-            ipixel[l][x] = top[l];
-        }
-
-        // get the wind speed and pressure
-        ipixel[l++][x] = aux[0];
-        ipixel[l++][x] = aux[1];
-
-        // get cos(sunzen), x, yPos, z
-        ipixel[l++][x] = geo[0];
-        ipixel[l++][x] = geo[1];
-        ipixel[l++][x] = geo[2];
-        ipixel[l++][x] = geo[3];
-
         // Check against range limits inside the network
         // recall if the value of a[x] is set to -1.0f.
         //
         // This results in the application of the flag
         // 'RESULT_ERROR_VALUE[]' to the 'resultFlagsNN'
 
-
-        a[x] = aset;
-
-        // Save input pixel
-        ls = l;
-        for (l = 0; l < ls; l++) {
-            ipixels[l][x] = ipixel[l][x];
-        }
-
         int resultCounter = 0;
 
         if (computeCHL) {
             // Run the 1-step chlorophyll network;
-            stage = 1;
-            NN_CHL.compute(ipixel, inodes, opixel, onodes, width, resultFlags, 0, a);
-
-            // Input range failure
-            if ((a[x] > -2.1) && (a[x] < -1.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-            }
-            // Output range failure
-            if ((a[x] > -19.1) && (a[x] < -18.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
-            }
-            // Input AND Output range failure
-            if ((a[x] > -22.1) && (a[x] < -21.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
-            }
-            result[resultCounter++] = opixel[0][x];
+            loadInputRow(ipixels, ipixel, ls, a, aset);
+            NN_CHL.getKernel().compute(ipixel, inodes, row.opixel, onodes_1, width, resultFlags, 0, a, useFloatPrecision);
+            addRangeFlags(a, resultFlagsNN, width, 1);
+            System.arraycopy(row.opixel[0], 0, row.result[resultCounter++], 0, width);
         }
         if (computeYS) {
             // Run the 1-step yellow substance network;
-            stage = 2;
-            // reload the pixel
-            for (l = 0; l < ls; l++) {
-                ipixel[l][x] = ipixels[l][x];
-            }
-            a[x] = aset;
-
-            NN_YellowSubstance.compute(ipixel, inodes, opixel, onodes, width, resultFlags, 0, a);
-
-            // Input range failure
-            if ((a[x] > -2.1) && (a[x] < -1.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-            }
-            // Output range failure
-            if ((a[x] > -19.1) && (a[x] < -18.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
-            }
-            // Input AND Output range failure
-            if ((a[x] > -22.1) && (a[x] < -21.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
-            }
-            result[resultCounter++] = opixel[0][x];
+            loadInputRow(ipixels, ipixel, ls, a, aset);
+            NN_YellowSubstance.getKernel().compute(ipixel, inodes, row.opixel, onodes_1, width, resultFlags, 0, a, useFloatPrecision);
+            addRangeFlags(a, resultFlagsNN, width, 2);
+            System.arraycopy(row.opixel[0], 0, row.result[resultCounter++], 0, width);
         }
         if (computeTSM) {
             // Run the 1-step total suspended matter network;
-            stage = 3;
-
-            // reload the pixel
-            for (l = 0; l < ls; l++) {
-                ipixel[l][x] = ipixels[l][x];
-            }
-            a[x] = aset;
-
-            NN_TSM.compute(ipixel, inodes, opixel, onodes, width, resultFlags, 0, a);
+            loadInputRow(ipixels, ipixel, ls, a, aset);
+            NN_TSM.getKernel().compute(ipixel, inodes, row.opixel, onodes_1, width, resultFlags, 0, a, useFloatPrecision);
+            addRangeFlags(a, resultFlagsNN, width, 3);
+            System.arraycopy(row.opixel[0], 0, row.result[resultCounter++], 0, width);
+        }
+        if (computeAtmCorr) {
+            // Run part 1 of the 2-step atm.corr. network;
+            loadInputRow(ipixels, ipixel, ls, a, aset);
+            NN_AtmCorr.getKernel().compute(ipixel, inodes, row.opixelAtmCorr, onodes_2, width, resultFlags, 0, a, useFloatPrecision);
+            addRangeFlags(a, resultFlagsNN, width, 4);
 
-            // Input range failure
-            if ((a[x] > -2.1) && (a[x] < -1.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-            }
-            // Output range failure
-            if ((a[x] > -19.1) && (a[x] < -18.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
+            // The aots
+            final int num_msl = 8;
+            for (int i = num_msl; i < onodes_2; i++) {
+                System.arraycopy(row.opixelAtmCorr[i], 0, row.result[resultCounter + i - num_msl], 0, width);
             }
-            // Input AND Output range failure
-            if ((a[x] > -22.1) && (a[x] < -21.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
+            for (int i = 0; i < num_msl; i++) {
+                final int numOfSpectralAerosolOpticalDepths = 4;
+                System.arraycopy(row.opixelAtmCorr[i], 0, row.result[resultCounter + numOfSpectralAerosolOpticalDepths + i], 0, width);
             }
-            result[resultCounter++] = opixel[0][x];
         }
-        if (computeAtmCorr) {
-            // Run part 1 of the 2-step atm.corr. network;
-            stage = 4;
-            onodes = onodes_2;
-            opixel = new float[onodes][width];
 
-            // reload the pixel
-            for (l = 0; l < ls; l++) {
-                ipixel[l][x] = ipixels[l][x];
+        for (int x = 0; x < width; x++) {
+            // Now check for error flags !
+            // If set, set output vector to mask value !
+            if (resultFlags[x] != 0) {
+                for (int n = 0; n < output_planes; n++) {
+                    row.result[n][x] = WaterProcessorOpConstant.RESULT_MASK_VALUE;
+                }
+            }
+            // Check for angle out of range. NNs only trained for MERIS. The vza for OLCI is higher.
+            if (row.vza[x] >= 40) {
+                resultFlags[x] = WaterProcessorOpConstant.RESULT_ERROR_VALUES[0];
             }
-            a[x] = aset;
 
-            NN_AtmCorr.compute(ipixel, inodes, opixel, onodes, width, resultFlags, 0, a);
+            // Combine result flags
+            resultFlags[x] |= resultFlagsNN[x];
+        }
+    }
 
+    /*
+     * Reloads the saved input row, because the networks transform their input in place.
+     */
+    private static void loadInputRow(float[][] ipixels, float[][] ipixel, int ls, float[] a, float aset) {
+        for (int l = 0; l < ls; l++) {
+            System.arraycopy(ipixels[l], 0, ipixel[l], 0, a.length);
+        }
+        Arrays.fill(a, aset);
+    }
+
+    /*
+     * Translates the range check results of the network run in the given stage into result flags.
+     */
+    private static void addRangeFlags(float[] a, int[] resultFlagsNN, int width, int stage) {
+        for (int x = 0; x < width; x++) {
             // Input range failure
             if ((a[x] > -2.1) && (a[x] < -1.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
+                resultFlagsNN[x] |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
             }
             // Output range failure
             if ((a[x] > -19.1) && (a[x] < -18.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
+                resultFlagsNN[x] |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
             }
             // Input AND Output range failure
             if ((a[x] > -22.1) && (a[x] < -21.9)) {
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
-                resultFlagsNN |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
-            }
-            //System.out.println(" --> " + resultFlagsNN[x]);
-
-            // The aots
-            final int num_msl = 8;
-            for (int i = num_msl; i < onodes; i++) {
-                result[resultCounter + i - num_msl] = opixel[i][x];
-            }
-            for (int i = 0; i < num_msl; i++) {
-                final int numOfSpectralAerosolOpticalDepths = 4;
-                result[resultCounter + numOfSpectralAerosolOpticalDepths + i] = opixel[i][x];
+                resultFlagsNN[x] |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage - 1];
+                resultFlagsNN[x] |= WaterProcessorOpConstant.RESULT_ERROR_VALUES[2 * stage];
             }
         }
-        // Now check for error flags !
-        // If set, set output vector to mask value !
-        if (resultFlags[x] != 0) {
-            for (n = 0; n < output_planes; n++) {
-                result[n] = WaterProcessorOpConstant.RESULT_MASK_VALUE;
-            }
-        }
-        // Check for angle out of range. NNs only trained for MERIS. The vza for OLCI is higher.
-        if (vza >= 40) {
-            resultFlags[x] = WaterProcessorOpConstant.RESULT_ERROR_VALUES[0];
-        }
-
-        // Combine result flags
-        resultFlags[x] |= resultFlagsNN;
-
-        // Set sample values in target product
-        //
-        for (n = 0; n < output_planes; n++) {
-            targetSamples[n].set(result[n]);
-        }
-        targetSamples[output_planes].set(resultFlags[0]);
     }
 
     private void checkWhetherSuspectIsValid() throws OperatorException {
@@ -614,12 +553,8 @@ public class WaterProcessorOp extends PixelOperator {
     }
 
 
-    @Override
-    protected void configureTargetProduct(ProductConfigurer productConfigurer) {
-        super.configureTargetProduct(productConfigurer);
-        productConfigurer.copyMetadata();
-        final Product sourceProduct = productConfigurer.getSourceProduct();
-        final Product targetProduct = productConfigurer.getTargetProduct();
+    private void configureTargetProduct(Product targetProduct) {
+        ProductUtils.copyMetadata(sourceProduct, targetProduct);
 
         targetProduct.setProductType(getOutputProductType());
 
@@ -643,12 +578,14 @@ public class WaterProcessorOp extends PixelOperator {
         ProductUtils.copyFlagBands(sourceProduct, targetProduct, true);
 
         if (!targetProduct.containsBand(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LONGITUDE_BAND_NAME)) {
-            productConfigurer.copyBands(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LONGITUDE_BAND_NAME);
+            ProductUtils.copyBand(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LONGITUDE_BAND_NAME, sourceProduct, targetProduct, true);
         }
         if (!targetProduct.containsBand(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LATITUDE_BAND_NAME)) {
-            productConfigurer.copyBands(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LATITUDE_BAND_NAME);
+            ProductUtils.copyBand(EnvisatConstants.MERIS_AMORGOS_L1B_CORR_LATITUDE_BAND_NAME, sourceProduct, targetProduct, true);
+        }
+        if (!targetProduct.containsBand(EnvisatConstants.MERIS_AMORGOS_L1B_ALTIUDE_BAND_NAME)) {
+            ProductUtils.copyBand(EnvisatConstants.MERIS_AMORGOS_L1B_ALTIUDE_BAND_NAME, sourceProduct, targetProduct, true);
         }
-        productConfigurer.copyBands(EnvisatConstants.MERIS_AMORGOS_L1B_ALTIUDE_BAND_NAME);
 
         FlagCoding resultFlagCoding = createResultFlagCoding();
         targetProduct.getFlagCodingGroup().add(resultFlagCoding);
@@ -657,7 +594,7 @@ public class WaterProcessorOp extends PixelOperator {
         resultFlagsOutputBand.setDescription("FUB/WeW WATER plugin specific flags");
         resultFlagsOutputBand.setSampleCoding(resultFlagCoding);
 
-        productConfigurer.copyMasks();
+        ProductUtils.copyMasks(sourceProduct, targetProduct);
 
         String flagNamePrefix = WaterProcessorOpConstant.result_flags_name + ".";
         addMasksToTargetProduct(targetProduct, sceneWidth, sceneHeight, flagNamePrefix);
@@ -754,6 +691,37 @@ public class WaterProcessorOp extends PixelOperator {
                                          new Byte[]{-1}, null);
     }
 
+    /*
+     * The per-row arrays of a tile, indexed [plane][x].
+     */
+    private static class RowBuffers {
+
+        final int width;
+        final float[][] ipixel;
+        final float[][] ipixels;
+        final float[][] opixel;
+        final float[][] opixelAtmCorr;
+        final float[][] result;
+        final int[] resultFlags;
+        final int[] resultFlagsNN;
+        final float[] a;
+        final float[] vza;
+
+        RowBuffers(int width, int outputPlanes) {
+            this.width = width;
+            final int inodes = NN_YellowSubstance.getKernel().getNumNodesInput();
+            ipixel = new float[inodes][width];
+            ipixels = new float[inodes][width];
+            opixel = new float[NN_YellowSubstance.getKernel().getNumNodesOutput()][width];
+            opixelAtmCorr = new float[NN_AtmCorr.getKernel().getNumNodesOutput()][width];
+            result = new float[outputPlanes][width];
+            resultFlags = new int[width];
+            resultFlagsNN = new int[width];
+            a = new float[width];
+            vza = new float[width];
+        }
+    }
+
     public static class Spi extends OperatorSpi {
 
         public Spi() {
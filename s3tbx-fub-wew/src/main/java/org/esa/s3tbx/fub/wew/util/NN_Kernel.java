@@ -0,0 +1,494 @@
+package org.esa.s3tbx.fub.wew.util;
+
+/**
+ * Evaluates one of the FUB/WeW feed-forward networks (input scaling, input PCA, one sigmoid hidden layer and a
+ * sigmoid output layer) for a row of pixels.
+ * <p>
+ * The weight tables of a network are copied once into contiguous row-major arrays, one row per neuron. The pixels
+ * of a row are evaluated in blocks of {@link #BLOCK_SIZE}; each layer is computed for the whole block with the
+ * innermost loop running over the pixels, which the JIT can vectorise.
+ * <p>
+ * In double precision the results are identical to the original per-pixel implementation of the networks. In
+ * float precision the hidden and output layers are evaluated with float weights and activations, which halves
+ * the memory traffic and doubles the width of the vector operations at the cost of small deviations.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class NN_Kernel {
+
+    /**
+     * Number of pixels evaluated together in the inner loops.
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    private final int nodesInput;
+    private final int nodesHidden;
+    private final int nodesOutput;
+    private final double tInput;
+    private final double tHidden;
+
+    private final float[] inputLimitMin;
+    private final float[] inputLimitMax;
+    private final int[] inputScaleFlag;
+    private final float[] inputScaleOff;
+    private final float[] inputScaleIntercept;
+    private final float[] inputScaleSlope;
+    // indices of the inputs taking part in the PCA and the eigenvectors restricted to them, one row per input
+    private final int[] pcaIndices;
+    private final double[] pcaEvec;
+
+    // one row of nodesInput + 1 (bias) weights for each hidden neuron
+    private final double[] hiddenWeights;
+    private final float[] hiddenWeightsFloat;
+    // one row of nodesHidden + 1 (bias) weights for each output neuron
+    private final double[] outputWeights;
+    private final float[] outputWeightsFloat;
+
+    private final float[] outputScaleIntercept;
+    private final float[] outputScaleSlope;
+    private final float[] outputScaleOff;
+    private final int[] outputScaleFlag;
+    private final float[] outputLimitMin;
+    private final float[] outputLimitMax;
+
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * Creates a kernel from the weight tables of a network, laid out as in the {@code NN_*} classes.
+     *
+     * @param inputScaleLimits   input limits (min/max) from the training data set, indexed {@code [input][0|1]}
+     * @param inputScale         intercept and slope of the input scale layer, indexed {@code [input][0|1]}
+     * @param inputScaleOff      input offset factors
+     * @param inputScaleFlag     input scale flags; {@code -1} log, {@code -2} exp, {@code 1} part of the PCA
+     * @param inputPcaEvec       eigenvectors (columnwise) of the input PCA layer
+     * @param hiddenWeights      weights of the hidden layer, indexed {@code [input or bias][hidden]}
+     * @param outputWeights      weights of the output layer, indexed {@code [hidden or bias][output]}
+     * @param outputScale        intercept and slope of the output scale layer, indexed {@code [output][0|1]}
+     * @param outputScaleOff     output offset factors
+     * @param outputScaleFlag    output scale flags; {@code -1} log, {@code -2} exp
+     * @param outputScaleLimits  output limits (min/max) from the training data set, indexed {@code [output][0|1]}
+     * @param hiddenTemperature  the temperature of the sigmoid activations
+     */
+    public NN_Kernel(double[][] inputScaleLimits, double[][] inputScale, double[] inputScaleOff, int[] inputScaleFlag,
+                     double[][] inputPcaEvec, double[][] hiddenWeights, double[][] outputWeights,
+                     double[][] outputScale, double[] outputScaleOff, int[] outputScaleFlag,
+                     double[][] outputScaleLimits, double hiddenTemperature) {
+        nodesInput = inputScale.length;
+        nodesHidden = hiddenWeights[0].length;
+        nodesOutput = outputWeights[0].length;
+        if (hiddenWeights.length != nodesInput + 1 || outputWeights.length != nodesHidden + 1) {
+            throw new IllegalArgumentException("Weight tables do not match the number of nodes");
+        }
+        tInput = hiddenTemperature / (double) nodesInput;
+        tHidden = hiddenTemperature / (double) nodesHidden;
+
+        inputLimitMin = new float[nodesInput];
+        inputLimitMax = new float[nodesInput];
+        inputScaleIntercept = new float[nodesInput];
+        inputScaleSlope = new float[nodesInput];
+        this.inputScaleOff = new float[nodesInput];
+        this.inputScaleFlag = inputScaleFlag.clone();
+        int pcaCount = 0;
+        for (int i = 0; i < nodesInput; i++) {
+            inputLimitMin[i] = (float) inputScaleLimits[i][0];
+            inputLimitMax[i] = (float) inputScaleLimits[i][1];
+            inputScaleIntercept[i] = (float) inputScale[i][0];
+            inputScaleSlope[i] = (float) inputScale[i][1];
+            this.inputScaleOff[i] = (float) inputScaleOff[i];
+            if (inputScaleFlag[i] == 1) {
+                pcaCount++;
+            }
+        }
+        pcaIndices = new int[pcaCount];
+        for (int i = 0, k = 0; i < nodesInput; i++) {
+            if (inputScaleFlag[i] == 1) {
+                pcaIndices[k++] = i;
+            }
+        }
+        pcaEvec = new double[pcaCount * pcaCount];
+        for (int k = 0; k < pcaCount; k++) {
+            for (int l = 0; l < pcaCount; l++) {
+                pcaEvec[k * pcaCount + l] = inputPcaEvec[pcaIndices[l]][pcaIndices[k]];
+            }
+        }
+
+        this.hiddenWeights = transpose(hiddenWeights);
+        hiddenWeightsFloat = toFloat(this.hiddenWeights);
+        this.outputWeights = transpose(outputWeights);
+        outputWeightsFloat = toFloat(this.outputWeights);
+
+        outputScaleIntercept = new float[nodesOutput];
+        outputScaleSlope = new float[nodesOutput];
+        this.outputScaleOff = new float[nodesOutput];
+        this.outputScaleFlag = outputScaleFlag.clone();
+        outputLimitMin = new float[nodesOutput];
+        outputLimitMax = new float[nodesOutput];
+        for (int i = 0; i < nodesOutput; i++) {
+            outputScaleIntercept[i] = (float) outputScale[i][0];
+            outputScaleSlope[i] = (float) outputScale[i][1];
+            this.outputScaleOff[i] = (float) outputScaleOff[i];
+            outputLimitMin[i] = (float) outputScaleLimits[i][0];
+            outputLimitMax[i] = (float) outputScaleLimits[i][1];
+        }
+
+        buffers = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    public int getNumNodesInput() {
+        return nodesInput;
+    }
+
+    public int getNumNodesOutput() {
+        return nodesOutput;
+    }
+
+    /**
+     * Evaluates the network in double precision. The arguments and the return value have the same meaning as for
+     * the {@code compute} methods of the {@code NN_*} classes.
+     */
+    public int compute(final float[][] in,
+                       final int getNumNodesInput,
+                       final float[][] out,
+                       final int getNumNodesOutput,
+                       final int width,
+                       final int[] mask,
+                       final int errmask,
+                       final float[] a) {
+        return compute(in, getNumNodesInput, out, getNumNodesOutput, width, mask, errmask, a, false);
+    }
+
+    /**
+     * Evaluates the network for a row of pixels.
+     *
+     * @param in                the inputs, indexed {@code [input][x]}; transformed in place like by the original networks
+     * @param getNumNodesInput  the number of inputs, if {@code <= 0} the number of inputs of the network is returned
+     * @param out               receives the outputs, indexed {@code [output][x]}
+     * @param getNumNodesOutput the number of outputs, if {@code <= 0} the number of outputs of the network is returned
+     * @param width             the number of pixels
+     * @param mask              pixels with a non-zero mask value are not evaluated
+     * @param errmask           set in the mask of pixels failing the range checks
+     * @param a                 if negative the input and output ranges of the pixel are checked; receives the check result
+     * @param floatPrecision    whether the layers are evaluated in float instead of double precision
+     * @return {@code 0} on success, {@code -1} or {@code -2} if the number of inputs or outputs does not match
+     */
+    public int compute(final float[][] in,
+                       final int getNumNodesInput,
+                       final float[][] out,
+                       final int getNumNodesOutput,
+                       final int width,
+                       final int[] mask,
+                       final int errmask,
+                       final float[] a,
+                       final boolean floatPrecision) {
+        // Return dimensions on request
+        if (getNumNodesInput <= 0) {
+            return nodesInput;
+        }
+        if (getNumNodesOutput <= 0) {
+            return nodesOutput;
+        }
+
+        // Crude compatibility checks
+        if (getNumNodesInput != nodesInput) {
+            return -1;
+        }
+        if (getNumNodesOutput != nodesOutput) {
+            return -2;
+        }
+
+        final Buffers buf = buffers.get();
+        final int[] pixels = buf.pixels(width);
+        final boolean[] rcheck = buf.rcheck(width);
+
+        // Range check ?? - and collect the pixels to be evaluated
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            rcheck[x] = a[x] < 0.0f;
+            a[x] = 1.0f;
+            if (mask[x] == 0) {
+                pixels[count++] = x;
+            }
+        }
+
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+            final int n = Math.min(BLOCK_SIZE, count - start);
+            for (int p = 0; p < n; p++) {
+                final int x = pixels[start + p];
+                if (rcheck[x]) {
+                    checkInputRange(in, x, mask, errmask, a);
+                }
+                transformInput(in, x, buf.pca);
+            }
+            if (floatPrecision) {
+                computeLayersFloat(in, pixels, start, n, buf);
+            } else if (n == 1) {
+                computeLayersSinglePixel(in, pixels[start], buf);
+            } else {
+                computeLayers(in, pixels, start, n, buf);
+            }
+            for (int p = 0; p < n; p++) {
+                final int x = pixels[start + p];
+                transformOutput(buf.outAcc, p, out, x);
+                if (rcheck[x]) {
+                    checkOutputRange(out, x, mask, errmask, a);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void checkInputRange(float[][] in, int x, int[] mask, int errmask, float[] a) {
+        for (int i = 0; i < nodesInput && a[x] > 0.0f; i++) {
+            if ((in[i][x] < inputLimitMin[i]) || (in[i][x] > inputLimitMax[i])) {
+                a[x] -= 3.0f;
+            }
+        }
+        if (a[x] < 0.0f) {
+            mask[x] |= errmask;
+        }
+    }
+
+    private void checkOutputRange(float[][] out, int x, int[] mask, int errmask, float[] a) {
+        for (int i = 0; i < nodesOutput && a[x] >= -2.0f; i++) {
+            if ((out[i][x] < outputLimitMin[i]) || (out[i][x] > outputLimitMax[i])) {
+                a[x] -= 20.0f;
+            }
+        }
+        if (a[x] < 0.0f) {
+            mask[x] |= errmask;
+        }
+    }
+
+    // Applies the input transformation, the input scale layer and the input PCA layer to one pixel
+    private void transformInput(float[][] in, int x, double[] pca) {
+        for (int i = 0; i < nodesInput; i++) {
+            if (inputScaleFlag[i] == -1) {
+                in[i][x] = (float) Math.log((double) in[i][x]);
+            }
+            if (inputScaleFlag[i] == -2) {
+                in[i][x] = (float) Math.exp((double) in[i][x]);
+            }
+        }
+        for (int i = 0; i < nodesInput; i++) {
+            in[i][x] = inputScaleOff[i] + (in[i][x] - inputScaleIntercept[i]) / inputScaleSlope[i];
+        }
+        final int pcaCount = pcaIndices.length;
+        for (int k = 0; k < pcaCount; k++) {
+            double sum = 0.0;
+            final int offset = k * pcaCount;
+            for (int l = 0; l < pcaCount; l++) {
+                sum += (double) in[pcaIndices[l]][x] * pcaEvec[offset + l];
+            }
+            pca[k] = sum;
+        }
+        for (int k = 0; k < pcaCount; k++) {
+            in[pcaIndices[k]][x] = (float) pca[k];
+        }
+    }
+
+    private void computeLayers(float[][] in, int[] pixels, int start, int n, Buffers buf) {
+        final double[] act0 = buf.act0;
+        final double[] act1 = buf.act1;
+        final float[] outAcc = buf.outAcc;
+        final int numIn = nodesInput + 1;
+        final int numHidden = nodesHidden + 1;
+
+        for (int j = 0; j < nodesInput; j++) {
+            final float[] inj = in[j];
+            final int offset = j * BLOCK_SIZE;
+            for (int p = 0; p < n; p++) {
+                act0[offset + p] = (double) inj[pixels[start + p]];
+            }
+        }
+        fill(act0, nodesInput * BLOCK_SIZE, n, 1.0);
+
+        // Pump through the first layer and the sigmoid
+        for (int i = 0; i < nodesHidden; i++) {
+            final int bOffset = i * BLOCK_SIZE;
+            fill(act1, bOffset, n, 0.0);
+            final int wOffset = i * numIn;
+            for (int j = 0; j < numIn; j++) {
+                final double wij = hiddenWeights[wOffset + j];
+                final int aOffset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    act1[bOffset + p] += act0[aOffset + p] * wij;
+                }
+            }
+            for (int p = 0; p < n; p++) {
+                act1[bOffset + p] = 1.0 / (1.0 + Math.exp(-tInput * act1[bOffset + p]));
+            }
+        }
+        fill(act1, nodesHidden * BLOCK_SIZE, n, 1.0);
+
+        // Pump through the second layer
+        for (int i = 0; i < nodesOutput; i++) {
+            final int bOffset = i * BLOCK_SIZE;
+            for (int p = 0; p < n; p++) {
+                outAcc[bOffset + p] = 0.0f;
+            }
+            final int wOffset = i * numHidden;
+            for (int j = 0; j < numHidden; j++) {
+                final double wij = outputWeights[wOffset + j];
+                final int aOffset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    outAcc[bOffset + p] += (float) (act1[aOffset + p] * wij);
+                }
+            }
+        }
+    }
+
+    // Same as computeLayers, but without the loops over the pixels of a block, for callers evaluating single pixels
+    private void computeLayersSinglePixel(float[][] in, int x, Buffers buf) {
+        final double[] act0 = buf.act0;
+        final double[] act1 = buf.act1;
+        final float[] outAcc = buf.outAcc;
+        final int numIn = nodesInput + 1;
+        final int numHidden = nodesHidden + 1;
+
+        for (int j = 0; j < nodesInput; j++) {
+            act0[j] = (double) in[j][x];
+        }
+        act0[nodesInput] = 1.0;
+
+        for (int i = 0; i < nodesHidden; i++) {
+            double sum = 0.0;
+            final int wOffset = i * numIn;
+            for (int j = 0; j < numIn; j++) {
+                sum += act0[j] * hiddenWeights[wOffset + j];
+            }
+            act1[i] = 1.0 / (1.0 + Math.exp(-tInput * sum));
+        }
+        act1[nodesHidden] = 1.0;
+
+        for (int i = 0; i < nodesOutput; i++) {
+            float sum = 0.0f;
+            final int wOffset = i * numHidden;
+            for (int j = 0; j < numHidden; j++) {
+                sum += (float) (act1[j] * outputWeights[wOffset + j]);
+            }
+            outAcc[i * BLOCK_SIZE] = sum;
+        }
+    }
+
+    private void computeLayersFloat(float[][] in, int[] pixels, int start, int n, Buffers buf) {
+        final float[] act0 = buf.act0Float;
+        final float[] act1 = buf.act1Float;
+        final float[] outAcc = buf.outAcc;
+        final int numIn = nodesInput + 1;
+        final int numHidden = nodesHidden + 1;
+        final float tIn = (float) tInput;
+
+        for (int j = 0; j < nodesInput; j++) {
+            final float[] inj = in[j];
+            final int offset = j * BLOCK_SIZE;
+            for (int p = 0; p < n; p++) {
+                act0[offset + p] = inj[pixels[start + p]];
+            }
+        }
+        fill(act0, nodesInput * BLOCK_SIZE, n, 1.0f);
+
+        for (int i = 0; i < nodesHidden; i++) {
+            final int bOffset = i * BLOCK_SIZE;
+            fill(act1, bOffset, n, 0.0f);
+            final int wOffset = i * numIn;
+            for (int j = 0; j < numIn; j++) {
+                final float wij = hiddenWeightsFloat[wOffset + j];
+                final int aOffset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    act1[bOffset + p] += act0[aOffset + p] * wij;
+                }
+            }
+            for (int p = 0; p < n; p++) {
+                act1[bOffset + p] = 1.0f / (1.0f + (float) Math.exp(-tIn * act1[bOffset + p]));
+            }
+        }
+        fill(act1, nodesHidden * BLOCK_SIZE, n, 1.0f);
+
+        for (int i = 0; i < nodesOutput; i++) {
+            final int bOffset = i * BLOCK_SIZE;
+            fill(outAcc, bOffset, n, 0.0f);
+            final int wOffset = i * numHidden;
+            for (int j = 0; j < numHidden; j++) {
+                final float wij = outputWeightsFloat[wOffset + j];
+                final int aOffset = j * BLOCK_SIZE;
+                for (int p = 0; p < n; p++) {
+                    outAcc[bOffset + p] += act1[aOffset + p] * wij;
+                }
+            }
+        }
+    }
+
+    // Applies the output sigmoid, the output scale layer and the output transformation to one pixel
+    private void transformOutput(float[] outAcc, int p, float[][] out, int x) {
+        for (int i = 0; i < nodesOutput; i++) {
+            float value = (float) (1.0 / (1.0 + Math.exp(-tHidden * outAcc[i * BLOCK_SIZE + p])));
+            value = outputScaleIntercept[i] + (value - outputScaleOff[i]) * outputScaleSlope[i];
+            if (outputScaleFlag[i] == -1) {
+                value = (float) Math.log((double) value);
+            }
+            if (outputScaleFlag[i] == -2) {
+                value = (float) Math.exp((double) value);
+            }
+            out[i][x] = value;
+        }
+    }
+
+    private static void fill(double[] values, int offset, int n, double value) {
+        for (int p = 0; p < n; p++) {
+            values[offset + p] = value;
+        }
+    }
+
+    private static void fill(float[] values, int offset, int n, float value) {
+        for (int p = 0; p < n; p++) {
+            values[offset + p] = value;
+        }
+    }
+
+    // [j][i] -> row-major with one row of j values for each i
+    private static double[] transpose(double[][] weights) {
+        final int rows = weights.length;
+        final int cols = weights[0].length;
+        final double[] flat = new double[rows * cols];
+        for (int j = 0; j < rows; j++) {
+            for (int i = 0; i < cols; i++) {
+                flat[i * rows + j] = weights[j][i];
+            }
+        }
+        return flat;
+    }
+
+    private static float[] toFloat(double[] values) {
+        final float[] floats = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            floats[i] = (float) values[i];
+        }
+        return floats;
+    }
+
+    private final class Buffers {
+
+        final double[] act0 = new double[(nodesInput + 1) * BLOCK_SIZE];
+        final double[] act1 = new double[(nodesHidden + 1) * BLOCK_SIZE];
+        final float[] act0Float = new float[(nodesInput + 1) * BLOCK_SIZE];
+        final float[] act1Float = new float[(nodesHidden + 1) * BLOCK_SIZE];
+        final float[] outAcc = new float[nodesOutput * BLOCK_SIZE];
+        final double[] pca = new double[pcaIndices.length];
+        private int[] pixels = new int[0];
+        private boolean[] rcheck = new boolean[0];
+
+        int[] pixels(int width) {
+            if (pixels.length < width) {
+                pixels = new int[width];
+            }
+            return pixels;
+        }
+
+        boolean[] rcheck(int width) {
+            if (rcheck.length < width) {
+                rcheck = new boolean[width];
+            }
+            return rcheck;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.esa.s3tbx.fub.wew.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating the FUB/WeW networks one pixel per call with evaluating a whole MERIS RR row at once, as
+ * {@code WaterProcessorOp} does, in double and in float precision.
+ * Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NN_KernelBenchmark {
+
+    @Param({"CHL", "TSM", "YS", "ATM_CORR"})
+    public String net;
+
+    @Param({"1121"})
+    public int rowLength;
+
+    private NN_Kernel kernel;
+    private float[][] in;
+    private float[][] inRow;
+    private float[][] out;
+    private int[] mask;
+    private float[] a;
+    private float[][] pixelIn;
+    private float[][] pixelOut;
+    private int[] pixelMask;
+    private float[] pixelA;
+
+    @Setup
+    public void setUp() {
+        switch (net) {
+            case "CHL":
+                kernel = NN_CHL.getKernel();
+                break;
+            case "TSM":
+                kernel = NN_TSM.getKernel();
+                break;
+            case "YS":
+                kernel = NN_YellowSubstance.getKernel();
+                break;
+            default:
+                kernel = NN_AtmCorr.getKernel();
+        }
+        final int numIn = kernel.getNumNodesInput();
+        final Random random = new Random(42);
+        in = new float[numIn][rowLength];
+        for (int i = 0; i < numIn; i++) {
+            final double min = NN_General.NODES_INPUT_SCALE_LIMITS[i][0];
+            final double max = NN_General.NODES_INPUT_SCALE_LIMITS[i][1];
+            for (int x = 0; x < rowLength; x++) {
+                in[i][x] = (float) (min + (max - min) * random.nextDouble());
+            }
+        }
+        inRow = new float[numIn][rowLength];
+        out = new float[kernel.getNumNodesOutput()][rowLength];
+        mask = new int[rowLength];
+        a = new float[rowLength];
+        pixelIn = new float[numIn][1];
+        pixelOut = new float[kernel.getNumNodesOutput()][1];
+        pixelMask = new int[1];
+        pixelA = new float[1];
+    }
+
+    @Benchmark
+    public float[][] perPixel() {
+        final int numIn = kernel.getNumNodesInput();
+        final int numOut = kernel.getNumNodesOutput();
+        for (int x = 0; x < rowLength; x++) {
+            // the networks transform their input in place, so it is reloaded like in the operator
+            for (int i = 0; i < numIn; i++) {
+                pixelIn[i][0] = in[i][x];
+            }
+            pixelMask[0] = 0;
+            pixelA[0] = -1.0f;
+            kernel.compute(pixelIn, numIn, pixelOut, numOut, 1, pixelMask, 0, pixelA);
+        }
+        return pixelOut;
+    }
+
+    @Benchmark
+    public float[][] row() {
+        return computeRow(false);
+    }
+
+    @Benchmark
+    public float[][] rowFloat() {
+        return computeRow(true);
+    }
+
+    private float[][] computeRow(boolean floatPrecision) {
+        for (int i = 0; i < in.length; i++) {
+            System.arraycopy(in[i], 0, inRow[i], 0, rowLength);
+        }
+        for (int x = 0; x < rowLength; x++) {
+            mask[x] = 0;
+            a[x] = -1.0f;
+        }
+        kernel.compute(inRow, in.length, out, out.length, rowLength, mask, 0, a, floatPrecision);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NN_KernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
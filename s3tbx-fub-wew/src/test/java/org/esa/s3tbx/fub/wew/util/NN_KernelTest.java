@@ -0,0 +1,95 @@
+package org.esa.s3tbx.fub.wew.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NN_KernelTest {
+
+    private static final float[] INPUT = {
+            0.05943133f, 0.05067047f, 0.041214053f, 0.037428323f, 0.030080993f,
+            0.024526045f, 0.023756435f, 0.022254849f, 0.021630857f, 0.021160515f,
+            0.019966979f, 0.019658221f, 11.66836f, 1023.05f, 0.7145359f, -0.385183f,
+            -0.385695f, 0.83837545f};
+
+    private static final float[] EXPECTED_ATM_CORR = {
+            0.0064101876f, 0.006221302f, 0.0067794686f, 0.0054770103f,
+            0.003863283f, 0.0011327977f, 7.242046E-4f, 1.9468556E-4f,
+            1.1322831f, 1.0241352f, 0.9826809f, 0.93816406f};
+
+    @Test
+    public void testRowGivesSameResultsAsSinglePixels() {
+        // more than two blocks, with some masked pixels
+        final int width = 2 * NN_Kernel.BLOCK_SIZE + 5;
+        final float[][] in = createRow(width);
+        final float[][] out = new float[12][width];
+        final int[] mask = new int[width];
+        final float[] a = new float[width];
+        for (int x = 0; x < width; x += 7) {
+            mask[x] = 1;
+            out[0][x] = -99.0f;
+        }
+
+        assertEquals(0, NN_AtmCorr.getKernel().compute(in, 18, out, 12, width, mask, 0, a));
+
+        for (int x = 0; x < width; x++) {
+            if (mask[x] != 0) {
+                assertEquals(-99.0f, out[0][x], 0.0f);
+                continue;
+            }
+            for (int i = 0; i < EXPECTED_ATM_CORR.length; i++) {
+                assertEquals("x=" + x + ", i=" + i, EXPECTED_ATM_CORR[i], out[i][x], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testFloatPrecision() {
+        final int width = NN_Kernel.BLOCK_SIZE + 1;
+        final float[][] out = new float[12][width];
+        final int[] mask = new int[width];
+        final float[] a = new float[width];
+
+        assertEquals(0, NN_AtmCorr.getKernel().compute(createRow(width), 18, out, 12, width, mask, 0, a, true));
+
+        for (int x = 0; x < width; x++) {
+            for (int i = 0; i < EXPECTED_ATM_CORR.length; i++) {
+                assertEquals(EXPECTED_ATM_CORR[i], out[i][x], 1.0e-3 * Math.abs(EXPECTED_ATM_CORR[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testRangeCheckFlagsPixel() {
+        final float[][] in = createRow(2);
+        in[12][0] = 5.0f; // wind speed within the training range
+        in[12][1] = 5.0f;
+        in[13][1] = 500.0f; // pressure far below the training range
+        final float[][] out = new float[1][2];
+        final int[] mask = new int[2];
+        final float[] a = {-1.0f, -1.0f};
+
+        NN_CHL.getKernel().compute(in, 18, out, 1, 2, mask, 4, a);
+
+        assertEquals(0, mask[0]);
+        assertEquals(4, mask[1]);
+        assertTrue(a[1] < 0.0f);
+    }
+
+    @Test
+    public void testNumNodes() {
+        assertEquals(18, NN_TSM.getKernel().getNumNodesInput());
+        assertEquals(1, NN_TSM.getKernel().getNumNodesOutput());
+        assertEquals(12, NN_AtmCorr.getKernel().getNumNodesOutput());
+    }
+
+    private static float[][] createRow(int width) {
+        final float[][] in = new float[INPUT.length][width];
+        for (int i = 0; i < INPUT.length; i++) {
+            for (int x = 0; x < width; x++) {
+                in[i][x] = INPUT[i];
+            }
+        }
+        return in;
+    }
+}
@@ -9,21 +9,29 @@ package org.esa.s3tbx.meris.l2auxdata;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.util.Guardian;
 
-import javax.imageio.stream.FileImageInputStream;
-import javax.imageio.stream.ImageInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Level;
 
 /**
  * Represents a physical auxiliary database file.
+ * <p/>
+ * The file is memory-mapped while it is open, so that the operating system can share its pages between all
+ * processes reading the same file. The records are read from the mapped buffer, either copied into new
+ * {@link ProductData} instances ({@link #readRecord}) or as read-only views without copying
+ * ({@link #getRecordBuffer}, {@link #getFloatBuffer}). Reading does not change the state of an open instance,
+ * so different threads can read from it at the same time.
  */
 public class AuxFile {
 
     private final AuxFileInfo _fileInfo;
     private final File _file;
 
-    private ImageInputStream _inputStream;
+    private ByteBuffer _buffer;
     private int[] _recordCounts; // _recordCounts.length = #numTables
     private long[] _datasetOffsets; // _datasetOffsets.length = #numTables
     private long _computedFileSize;
@@ -79,14 +87,15 @@ public class AuxFile {
      * @throws IllegalStateException if the file is already open
      */
     public void open() throws IOException {
-        if (_inputStream != null) {
+        if (_buffer != null) {
             throw new IllegalStateException("already open");
         }
 
         AuxDatabase.getLogger().info("opening auxiliary database file '" + _file.getPath() + "'");
 
-        if (_inputStream == null) {
-            _inputStream = new FileImageInputStream(_file);
+        // the mapping stays valid after the channel is closed; the byte order is big endian
+        try (FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ)) {
+            _buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
         }
 
         final int datasetCount = _fileInfo.getDatasetCount();
@@ -114,15 +123,11 @@ public class AuxFile {
      * Closes the database file.
      */
     public void close() {
-        if (_inputStream == null) {
+        if (_buffer == null) {
             return;
         }
-        try {
-            _inputStream.close();
-        } catch (IOException e) {
-            AuxDatabase.getLogger().warning("failed to close auxiliary database file '" + _file.getPath() + "'");
-        }
-        _inputStream = null;
+        // the mapping is released when the buffer is garbage collected
+        _buffer = null;
         _recordCounts = null;
         _datasetOffsets = null;
         _computedFileSize = 0;
@@ -260,16 +265,8 @@ public class AuxFile {
                                   int memoryDataType,
                                   ProductData memoryData) throws IOException {
 
-        Guardian.assertNotNullOrEmpty("varId", varId);
-        if (_inputStream == null) {
-            throw new IllegalStateException("no input stream");
-        }
-
-        final AuxVariableInfo variableInfo = AuxDatabase.getInstance().getVariableInfo(varId);
+        final AuxVariableInfo variableInfo = getVariableInfo(varId);
         final AuxDatasetInfo datasetInfo = variableInfo.getDatasetInfo();
-        if (getFileInfo() != datasetInfo.getFileInfo()) {
-            throw new IllegalArgumentException("illegal varId: " + varId);
-        }
 
         // memory data is the one returned by this method,
         // storage data is the one readRecord from file
@@ -303,13 +300,94 @@ public class AuxFile {
         }
 
         checkRecordSize(variableInfo, storageData);
-        long offset = getOffset(datasetInfo, variableInfo, recordIndex);
-        _inputStream.seek(offset);
-        storageData.readFrom(_inputStream);
+        final int storageRecSize = storageData.getElemSize() * storageData.getNumElems();
+        readElems(getBuffer(variableInfo, getOffset(datasetInfo, variableInfo, recordIndex), storageRecSize),
+                  storageData);
         convertData(variableInfo, storageData, memoryData);
         return memoryData;
     }
 
+    /**
+     * Gets a data record for the given variable from this database file as a read-only view of the file
+     * content. The data is not copied, converted or scaled.
+     *
+     * @param varId       the variable ID, must not be <code>null</code>
+     * @param recordIndex the record index
+     * @return the view, positioned at the first byte of the record and limited to its size
+     * @throws IOException              if the record exceeds the file size
+     * @throws IllegalArgumentException if one of the arguments is invalid
+     * @throws IllegalStateException    if the file is not open
+     */
+    public ByteBuffer getRecordBuffer(String varId, int recordIndex) throws IOException {
+        final AuxVariableInfo variableInfo = getVariableInfo(varId);
+        final long offset = getOffset(variableInfo.getDatasetInfo(), variableInfo, recordIndex);
+        return getBuffer(variableInfo, offset, variableInfo.getNumBytes());
+    }
+
+    /**
+     * Gets a data record of a <code>float</code> array variable from this database file as a read-only view of
+     * the file content. The data is not copied.
+     *
+     * @param varId       the variable ID, must not be <code>null</code>
+     * @param recordIndex the record index
+     * @return the view, containing all elements of the record
+     * @throws IOException              if the variable is not stored as unscaled <code>float</code> array or
+     *                                  if the record exceeds the file size
+     * @throws IllegalArgumentException if one of the arguments is invalid
+     * @throws IllegalStateException    if the file is not open
+     */
+    public FloatBuffer getFloatBuffer(String varId, int recordIndex) throws IOException {
+        final AuxVariableInfo variableInfo = getVariableInfo(varId);
+        if (variableInfo.getDataType() != ProductData.TYPE_FLOAT32 || variableInfo.getScale() != 1.0) {
+            throw new IOException(createMessagePrefix(variableInfo) + "not an unscaled float variable");
+        }
+        return getRecordBuffer(varId, recordIndex).asFloatBuffer();
+    }
+
+    private AuxVariableInfo getVariableInfo(String varId) {
+        Guardian.assertNotNullOrEmpty("varId", varId);
+        if (_buffer == null) {
+            throw new IllegalStateException("file not open");
+        }
+        final AuxVariableInfo variableInfo = AuxDatabase.getInstance().getVariableInfo(varId);
+        if (getFileInfo() != variableInfo.getDatasetInfo().getFileInfo()) {
+            throw new IllegalArgumentException("illegal varId: " + varId);
+        }
+        return variableInfo;
+    }
+
+    private ByteBuffer getBuffer(final AuxVariableInfo variableInfo, long offset, int size) throws IOException {
+        if (offset < 0 || offset + size > _buffer.capacity()) {
+            throw new IOException(createMessagePrefix(variableInfo) +
+                                          "record at offset " + offset + " exceeds file size (" + _buffer.capacity() + ")");
+        }
+        // a duplicate has its own position and limit, the ones of the mapped buffer are never changed;
+        // the slice is big endian like the file
+        final ByteBuffer buffer = _buffer.duplicate();
+        buffer.position((int) offset);
+        buffer.limit((int) offset + size);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    private static void readElems(final ByteBuffer buffer, final ProductData data) {
+        final Object elems = data.getElems();
+        if (elems instanceof byte[]) {
+            buffer.get((byte[]) elems);
+        } else if (elems instanceof short[]) {
+            buffer.asShortBuffer().get((short[]) elems);
+        } else if (elems instanceof int[]) {
+            buffer.asIntBuffer().get((int[]) elems);
+        } else if (elems instanceof long[]) {
+            buffer.asLongBuffer().get((long[]) elems);
+        } else if (elems instanceof float[]) {
+            buffer.asFloatBuffer().get((float[]) elems);
+        } else if (elems instanceof double[]) {
+            buffer.asDoubleBuffer().get((double[]) elems);
+        } else {
+            throw new IllegalArgumentException("unsupported data type: " + data.getTypeString());
+        }
+    }
+
     private void checkMemoryData(ProductData memoryData, final int memoryDataType, int memoryElemsCount) {
         if (memoryDataType == ProductData.TYPE_ASCII && !(memoryData instanceof ProductData.ASCII) ||
                 memoryDataType == ProductData.TYPE_UTC && !(memoryData instanceof ProductData.UTC) ||
@@ -334,7 +412,7 @@ public class AuxFile {
     private long getOffset(final AuxDatasetInfo datasetInfo, final AuxVariableInfo variableInfo, int recordIndex) {
         final long datasetOffset = _datasetOffsets[datasetInfo.getIndex()];
         final int variableOffset = variableInfo.getOffset();
-        return datasetOffset + variableOffset + recordIndex * datasetInfo.getRecordSize();
+        return datasetOffset + variableOffset + (long) recordIndex * datasetInfo.getRecordSize();
     }
 
     private int convertData(final AuxVariableInfo variableInfo, final ProductData storageData, ProductData memoryData) throws IOException {
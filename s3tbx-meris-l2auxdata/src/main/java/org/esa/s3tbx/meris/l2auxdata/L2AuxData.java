@@ -17,15 +17,20 @@ import org.esa.snap.core.datamodel.Stx;
 import org.esa.snap.core.datamodel.TiePointGrid;
 import org.esa.snap.dataio.envisat.EnvisatConstants;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.FloatBuffer;
 
 /**
  * The <code>L2AuxData</code> class is a collection of all relevant MERIS Level 2 DPM parameters.
  * <p/>
  * For convinience reasons, this class models a C-language-like structure which has only public fields and no methods.
+ * <p/>
+ * Except for the {@link #seasonal_factor}, the parameters only depend on the auxiliary database files and the
+ * resolution of the product. Products sharing them also share the tables, which must therefore not be modified.
  */
 @SuppressWarnings("JavaDoc")
-public final class L2AuxData implements Constants {
+public final class L2AuxData implements Constants, Cloneable {
     /**
      * Square of the sun-earth distance.
      */
@@ -242,8 +247,6 @@ public final class L2AuxData implements Constants {
         public final int[][] derivative_band_id = new int[L1_BAND_NUM][2];
     }
 
-    private Product sourceProduct;
-
     /**
      * @param config
      * @param product Source product, must have start/stop time set and have a tie-point grid "sun_zenith"
@@ -251,17 +254,114 @@ public final class L2AuxData implements Constants {
      * @throws IOException
      */
     public L2AuxData(DpmConfig config, Product product) throws L2AuxDataException, IOException {
-        sourceProduct = product;
-        loadAuxData(config);
+        this(getAuxDatabaseFiles(config), isFullResolution(product));
+        initProductAuxData(product);
+    }
+
+    /**
+     * Loads the parameters which do not depend on a particular product. The {@link #seasonal_factor} is not set.
+     *
+     * @param auxDatabaseFiles the auxiliary database files, as returned by {@link #getAuxDatabaseFiles(DpmConfig)}
+     * @param fullResolution   whether to load the detector parameters of full or of reduced resolution products
+     */
+    L2AuxData(File[] auxDatabaseFiles, boolean fullResolution) throws L2AuxDataException, IOException {
+        loadAuxData(auxDatabaseFiles, fullResolution);
+    }
+
+    /**
+     * Creates an instance without any parameters, they are set by tests.
+     */
+    L2AuxData() {
+    }
+
+    /**
+     * Creates a copy of this instance which is initialised for the given product. The copy shares all tables
+     * with this instance.
+     *
+     * @param product Source product, must have start/stop time set and have a tie-point grid "sun_zenith"
+     * @return the copy
+     * @throws L2AuxDataException if the product cannot be processed with these parameters
+     */
+    L2AuxData createForProduct(Product product) throws L2AuxDataException {
+        final L2AuxData auxData;
+        try {
+            auxData = (L2AuxData) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        auxData.initProductAuxData(product);
+        return auxData;
+    }
+
+    /**
+     * @return the auxiliary database files the parameters are read from
+     */
+    static File[] getAuxDatabaseFiles(DpmConfig config) throws L2AuxDataException {
+        return new File[]{
+                config.getAuxDatabaseFile("lv2conf", null),
+                config.getAuxDatabaseFile("atmosphere", null),
+                config.getAuxDatabaseFile("landaero", null),
+                config.getAuxDatabaseFile("case1", null),
+        };
+    }
+
+    static boolean isFullResolution(Product product) throws L2AuxDataException {
+        if (Utils.isProductRR(product)) {
+            return false;
+        } else if (Utils.isProductFR(product)) {
+            return true;
+        } else {
+            throw new L2AuxDataException("Input product is neither MERIS RR nor FR");
+        }
+    }
+
+    private void initProductAuxData(Product product) throws L2AuxDataException {
+        // Ratio actual sun-earth distance to mean sun-earth distance.
+        seasonal_factor = 1.0;
+        final ProductData.UTC startTime = product.getStartTime();
+        final ProductData.UTC stopTime = product.getEndTime();
+        if (startTime != null && stopTime != null) {
+            // DPM 2.1.4-3
+            final double daysSince2000 = 0.5 * (startTime.getMJD() + stopTime.getMJD());
+            seasonal_factor = Utils.computeSeasonalFactor(daysSince2000,
+                                                          sun_earth_distance_square);
+        }
+
+        TiePointGrid szaGrid = product.getTiePointGrid(EnvisatConstants.MERIS_SUN_ZENITH_DS_NAME);
+        if (szaGrid == null) {
+            String msg = String.format("Source product does not contain tie-point grid '%s'",
+                                       EnvisatConstants.MERIS_SUN_ZENITH_DS_NAME);
+            throw new L2AuxDataException(msg);
+        }
+
+        Stx stx = szaGrid.getStx(true, ProgressMonitor.NULL);
+
+        /* thetas tabulated values for LUTs turbid and Glint */
+        final double[] thetas = rog.getTab(4);
+
+        int min;
+        int max;
+        FractIndex fract = new FractIndex();
+        Interp.interpCoord(stx.getMinimum(), thetas, fract);
+        min = fract.index;
+        Interp.interpCoord(stx.getMaximum(), thetas, fract);
+        max = fract.index;
+        if (fract.fraction > 0) {
+            max++;
+        }
+        /* table does not accomodate whole thetas range : issue a warning */
+        if (max >= min + ROG_NUM_SZA) {
+            throw new L2AuxDataException("Wrong thetas(ROG) range: " + min + " to " + max);
+        }
     }
 
-    private void loadAuxData(DpmConfig config) throws L2AuxDataException, IOException {
-        final AuxFile auxFileO = AuxFile.open('O', config.getAuxDatabaseFile("lv2conf", null));
-        final AuxFile auxFileP = AuxFile.open('P', config.getAuxDatabaseFile("atmosphere", null));
-        final AuxFile auxFileS = AuxFile.open('S', config.getAuxDatabaseFile("landaero", null));
-        final AuxFile auxFileT = AuxFile.open('T', config.getAuxDatabaseFile("case1", null));
+    private void loadAuxData(File[] auxDatabaseFiles, boolean fullResolution) throws L2AuxDataException, IOException {
+        final AuxFile auxFileO = AuxFile.open('O', auxDatabaseFiles[0]);
+        final AuxFile auxFileP = AuxFile.open('P', auxDatabaseFiles[1]);
+        final AuxFile auxFileS = AuxFile.open('S', auxDatabaseFiles[2]);
+        final AuxFile auxFileT = AuxFile.open('T', auxDatabaseFiles[3]);
         try {
-            loadConfigurationAuxData(auxFileO);
+            loadConfigurationAuxData(auxFileO, fullResolution);
             loadAtmosphereAuxData(auxFileP);
             loadLandAerosolAuxData(auxFileS, auxFileT);
             loadRayscattCoeffAuxData(auxFileP, auxFileS);
@@ -273,7 +373,7 @@ public final class L2AuxData implements Constants {
         }
     }
 
-    private void loadConfigurationAuxData(final AuxFile auxFileO) throws IOException, L2AuxDataException {
+    private void loadConfigurationAuxData(final AuxFile auxFileO, boolean fullResolution) throws IOException {
 
         // Default radiance for saturated pixels.
         Saturation_L = auxFileO.readDoubleArray("O202", L1_BAND_NUM);
@@ -281,18 +381,6 @@ public final class L2AuxData implements Constants {
         // Square of the sun-earth distance.
         sun_earth_distance_square = auxFileO.readDouble("O300");
 
-        // todo move to another place
-        // Ratio actual sun-earth distance to mean sun-earth distance.
-        seasonal_factor = 1.0;
-        final ProductData.UTC startTime = sourceProduct.getStartTime();
-        final ProductData.UTC stopTime = sourceProduct.getEndTime();
-        if (startTime != null && stopTime != null) {
-            // DPM 2.1.4-3
-            final double daysSince2000 = 0.5 * (startTime.getMJD() + stopTime.getMJD());
-            seasonal_factor = Utils.computeSeasonalFactor(daysSince2000,
-                                                          sun_earth_distance_square);
-        }
-
         final byte[] sw_land_smile = auxFileO.readRecord("O301", ProductData.TYPE_ASCII).getElemString().getBytes();
         final byte[] sw_water_smile = auxFileO.readRecord("O302", ProductData.TYPE_ASCII).getElemString().getBytes();
         final byte[] derivative_land_smile = auxFileO.readRecord("O303", ProductData.TYPE_ASCII).getElemString().getBytes();
@@ -312,16 +400,14 @@ public final class L2AuxData implements Constants {
 
         final String central_wavelength_key;
         final String detector_solar_irradiance_key;
-        if (Utils.isProductRR(sourceProduct)) {
-            detector_count = RR_DETECTOR_COUNT;
-            central_wavelength_key = "O307";
-            detector_solar_irradiance_key = "O308";
-        } else if (Utils.isProductFR(sourceProduct)) {
+        if (fullResolution) {
             detector_count = FR_DETECTOR_COUNT;
             central_wavelength_key = "O309";
             detector_solar_irradiance_key = "O30A";
         } else {
-            throw new L2AuxDataException("Input product is neither MERIS RR nor FR");
+            detector_count = RR_DETECTOR_COUNT;
+            central_wavelength_key = "O307";
+            detector_solar_irradiance_key = "O308";
         }
         int num_elems = L1_BAND_NUM * detector_count;
 
@@ -594,7 +680,7 @@ public final class L2AuxData implements Constants {
         Rayscatt_coeff_s.setTab(3, ang_scale);
     }
 
-    private void loadLandAerosolAuxData(final AuxFile auxFileS, final AuxFile auxFileT) throws IOException, L2AuxDataException {
+    private void loadLandAerosolAuxData(final AuxFile auxFileS, final AuxFile auxFileT) throws IOException {
         assert R7T_NUM_SZA == R7T_NUM_VZA;
         final double[] r7thresh_tab1 = auxFileS.readDoubleArray("S200", R7T_NUM_SZA);
         final double[] r7thresh_tab2 = r7thresh_tab1;
@@ -655,39 +741,12 @@ public final class L2AuxData implements Constants {
         lap_beta_l = auxFileS.readDouble("S205");
         lap_beta_w = auxFileS.readDouble("S206");
 
-        TiePointGrid szaGrid = sourceProduct.getTiePointGrid(EnvisatConstants.MERIS_SUN_ZENITH_DS_NAME);
-        if (szaGrid == null) {
-            String msg = String.format("Source product does not contain tie-point grid '%s'",
-                                       EnvisatConstants.MERIS_SUN_ZENITH_DS_NAME);
-            throw new L2AuxDataException(msg);
-        }
-
-        Stx stx = szaGrid.getStx(true, ProgressMonitor.NULL);
-
         /* Read thetas tabulated values for LUTs turbid and Glint */
         fbuf = auxFileT.readFloatArray("T203", -1);
 
-        double[] fbufCopy = new double[27];
-        for (int i = 0; i < fbuf.length; i++) {
-            fbufCopy[i] = fbuf[i];
-        }
-
-        int min;
-        int max;
-        FractIndex fract = new FractIndex();
-        Interp.interpCoord(stx.getMinimum(), fbufCopy, fract);
-        min = fract.index;
-        Interp.interpCoord(stx.getMaximum(), fbufCopy, fract);
-        max = fract.index;
-        if (fract.fraction > 0) {
-            max++;
-        }
-        /* table does not accomodate whole thetas range : issue a warning */
-        if (max >= min + ROG_NUM_SZA) {
-            throw new L2AuxDataException("Wrong thetas(ROG) range: " + min + " to " + max);
-        }
-
-        min = Math.min(min, ROG_ALL_SZA - ROG_NUM_SZA);
+        /* the tables cover the whole thetas range, the range of a product is checked in initProductAuxData */
+        assert ROG_NUM_SZA == ROG_ALL_SZA;
+        final int min = 0;
         final float[] rog_tab5 = new float[ROG_NUM_SZA];
         System.arraycopy(fbuf, min, rog_tab5, 0, ROG_NUM_SZA);
 
@@ -706,26 +765,14 @@ public final class L2AuxData implements Constants {
         float[][][][][] rog_LUT = new float[ROG_NUM_WA][ROG_NUM_VZA][ROG_NUM_ADA][ROG_NUM_WIND][ROG_NUM_SZA];
         /* loop on selected Sun zenith angles */
         for (int its = 0; its < ROG_NUM_SZA; its++) {
-            /* read five successive tables */
-            int ws = 0;
-            fbuf = (float[]) auxFileT.readRecord("T700", min + its, -1, ProductData.TYPE_FLOAT32, null).getElems();
-
-            z = 0;
-            for (int wa = 0; wa < ROG_NUM_WA; wa++) {
-                for (int itv = 0; itv < ROG_NUM_VZA; itv++) {
-                    for (int idf = 0; idf < ROG_NUM_ADA; idf++) {
-                        rog_LUT[wa][itv][idf][ws][its] = fbuf[z];
-                        z++;
-                    }
-                }
-            }
-            for (ws = 1; ws < ROG_NUM_WIND; ws++) {
-                fbuf = (float[]) auxFileT.readRecord("T70" + ws, min + its, -1, ProductData.TYPE_FLOAT32, null).getElems();
+            /* read five successive tables, directly from the mapped file */
+            for (int ws = 0; ws < ROG_NUM_WIND; ws++) {
+                final FloatBuffer record = auxFileT.getFloatBuffer("T70" + ws, min + its);
                 z = 0;
                 for (int wa = 0; wa < ROG_NUM_WA; wa++) {
                     for (int itv = 0; itv < ROG_NUM_VZA; itv++) {
                         for (int idf = 0; idf < ROG_NUM_ADA; idf++) {
-                            rog_LUT[wa][itv][idf][ws][its] = fbuf[z];
+                            rog_LUT[wa][itv][idf][ws][its] = record.get(z);
                             z++;
                         }
                     }
@@ -16,22 +16,40 @@
  */
 package org.esa.s3tbx.meris.l2auxdata;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.esa.snap.core.datamodel.Product;
 
 /**
  * Created by marcoz.
+ * <p/>
+ * The auxiliary data is loaded once for all products of the same resolution and shared between them, as long as
+ * the auxiliary database files are not changed. Each product gets its own copy of the shared data, initialised
+ * for the product (see {@link L2AuxData#createForProduct(Product)}).
  *
  * @author marcoz
  * @version $Revision: $ $Date: $
  */
 public class L2AuxDataProvider {
+    /**
+     * The maximum number of shared instances kept, the least recently used is removed first.
+     */
+    private static final int MAX_CACHED_AUX_DATA = 4;
+
     private static L2AuxDataProvider instance;
     private org.esa.s3tbx.meris.l2auxdata.DpmConfig dpmConfig;
+    private final Loader loader;
     private final Map<Product, L2AuxData> map;
+    private final Map<AuxDataKey, Future<L2AuxData>> cache;
     
     public static synchronized L2AuxDataProvider getInstance() {
         if (instance == null) {
@@ -41,15 +59,37 @@ public class L2AuxDataProvider {
     }
     
     private L2AuxDataProvider() {
-        map = new WeakHashMap<Product, L2AuxData>();
+        this(L2AuxData::new);
+    }
+
+    L2AuxDataProvider(Loader loader) {
+        this.loader = loader;
+        map = Collections.synchronizedMap(new WeakHashMap<Product, L2AuxData>());
+        cache = new LinkedHashMap<AuxDataKey, Future<L2AuxData>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<AuxDataKey, Future<L2AuxData>> eldest) {
+                return size() > MAX_CACHED_AUX_DATA;
+            }
+        };
     }
     
-    public synchronized L2AuxData getAuxdata(Product product) throws L2AuxDataException {
-        getDpmConfig();
+    public L2AuxData getAuxdata(Product product) throws L2AuxDataException {
         L2AuxData auxData = map.get(product);
         if (auxData == null) {
-            auxData = loadAuxdata(product);
-            map.put(product, auxData);
+            auxData = getAuxdata(product, L2AuxData.getAuxDatabaseFiles(getDpmConfig()));
+        }
+        return auxData;
+    }
+
+    L2AuxData getAuxdata(Product product, File[] auxDatabaseFiles) throws L2AuxDataException {
+        L2AuxData auxData = map.get(product);
+        if (auxData == null) {
+            final AuxDataKey key = new AuxDataKey(auxDatabaseFiles, L2AuxData.isFullResolution(product));
+            auxData = getSharedAuxdata(key).createForProduct(product);
+            final L2AuxData existingAuxData = map.putIfAbsent(product, auxData);
+            if (existingAuxData != null) {
+                auxData = existingAuxData;
+            }
         }
         return auxData;
     }
@@ -61,10 +101,45 @@ public class L2AuxDataProvider {
         return dpmConfig;
     }
 
-    private L2AuxData loadAuxdata(Product product) throws L2AuxDataException {
+    /**
+     * Returns the shared auxiliary data for the given key. Only the first caller asking for a key loads the data,
+     * concurrent callers asking for the same key wait for it, callers asking for other keys are not blocked.
+     */
+    private L2AuxData getSharedAuxdata(AuxDataKey key) throws L2AuxDataException {
+        final FutureTask<L2AuxData> task = new FutureTask<>(() -> loadAuxdata(key));
+        Future<L2AuxData> future;
+        synchronized (cache) {
+            future = cache.get(key);
+            if (future == null) {
+                future = task;
+                cache.put(key, task);
+            }
+        }
+        if (future == task) {
+            task.run();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new L2AuxDataException("Interrupted while loading auxiliary data", e);
+        } catch (ExecutionException e) {
+            // do not keep the failure, a later call shall try again
+            synchronized (cache) {
+                cache.remove(key, future);
+            }
+            final Throwable cause = e.getCause();
+            if (cause instanceof L2AuxDataException) {
+                throw (L2AuxDataException) cause;
+            }
+            throw new L2AuxDataException(cause.getMessage(), cause);
+        }
+    }
+
+    private L2AuxData loadAuxdata(AuxDataKey key) throws L2AuxDataException {
         L2AuxData auxData;
         try {
-            auxData = new L2AuxData(dpmConfig, product);
+            auxData = loader.load(key.files, key.fullResolution);
         } catch (IOException e) {
             throw new L2AuxDataException(e.getMessage(), e);
         }
@@ -74,4 +149,59 @@ public class L2AuxDataProvider {
     private void loadDpmConfig() throws L2AuxDataException {
         dpmConfig = new DpmConfig();
     }
+
+    /**
+     * Loads the auxiliary data which is shared between products.
+     */
+    interface Loader {
+
+        L2AuxData load(File[] auxDatabaseFiles, boolean fullResolution) throws L2AuxDataException, IOException;
+    }
+
+    /**
+     * Identifies the content of the auxiliary database files by their paths, sizes and modification times,
+     * together with the resolution of the products.
+     */
+    private static final class AuxDataKey {
+        private final File[] files;
+        private final long[] lengths;
+        private final long[] lastModifiedTimes;
+        private final boolean fullResolution;
+
+        private AuxDataKey(File[] files, boolean fullResolution) {
+            this.files = new File[files.length];
+            this.lengths = new long[files.length];
+            this.lastModifiedTimes = new long[files.length];
+            for (int i = 0; i < files.length; i++) {
+                this.files[i] = files[i].getAbsoluteFile();
+                this.lengths[i] = files[i].length();
+                this.lastModifiedTimes[i] = files[i].lastModified();
+            }
+            this.fullResolution = fullResolution;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final AuxDataKey that = (AuxDataKey) o;
+            return fullResolution == that.fullResolution
+                   && Arrays.equals(files, that.files)
+                   && Arrays.equals(lengths, that.lengths)
+                   && Arrays.equals(lastModifiedTimes, that.lastModifiedTimes);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(files);
+            result = 31 * result + Arrays.hashCode(lengths);
+            result = 31 * result + Arrays.hashCode(lastModifiedTimes);
+            result = 31 * result + (fullResolution ? 1 : 0);
+            return result;
+        }
+    }
 }
@@ -6,21 +6,136 @@
  */
 package org.esa.s3tbx.meris.l2auxdata;
 
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AuxFileTest {
 
     public static final String CASE1_TEST_FILE = "case1/case1.60.04.prd";
     public static final String CASE2_TEST_FILE = "case2/case2.42.00.prd";
 
+    // sizes of the datasets of a case1 file ('T') as given in database.db, the number of records of the
+    // ADS 6, 7 and 8 is given by the ASCII variables T112, T11A and T11I of the SPH
+    private static final int[] CASE1_DATASET_SIZES = {1247, 2058, 12977, 304, 51336, 76, 131040, 66500, 4194304};
+    private static final int[] CASE1_RECORD_COUNT_OFFSETS = {1425, 1705, 1985};
+    private static final int GLINT_RECORD_COUNT = 3;
+    private static final int GLINT_TABLE_SIZE = 13300 / 4;
+
+    private File file;
+    private AuxFile auxFile;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("case1", ".prd");
+        writeCase1File(file);
+        auxFile = AuxFile.open('T', file);
+    }
+
+    @After
+    public void tearDown() {
+        auxFile.close();
+        file.delete();
+    }
+
     // todo: all tests currently disabled. Reactivate when auxiliary data setup is clarified.
     @Test
     public void testNothing() {
         assertNull(null);
     }
 
+    @Test
+    public void testFloatBufferEqualsRecord() throws IOException {
+        for (int recordIndex = 0; recordIndex < GLINT_RECORD_COUNT; recordIndex++) {
+            for (int ws = 0; ws < 5; ws++) {
+                final String varId = "T70" + ws;
+                final ProductData record = auxFile.readRecord(varId, recordIndex, GLINT_TABLE_SIZE,
+                                                              ProductData.TYPE_FLOAT32, null);
+                final FloatBuffer buffer = auxFile.getFloatBuffer(varId, recordIndex);
+
+                assertEquals(GLINT_TABLE_SIZE, buffer.remaining());
+                final float[] values = new float[GLINT_TABLE_SIZE];
+                buffer.get(values);
+                assertArrayEquals((float[]) record.getElems(), values, 0.0f);
+                assertEquals(getGlintValue(recordIndex, ws, GLINT_TABLE_SIZE - 1), values[GLINT_TABLE_SIZE - 1], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testRecordBuffer() throws IOException {
+        final ByteBuffer buffer = auxFile.getRecordBuffer("T702", 1);
+
+        assertTrue(buffer.isReadOnly());
+        assertEquals(13300, buffer.remaining());
+        assertEquals(getGlintValue(1, 2, 0), buffer.getFloat(0), 0.0f);
+        assertEquals(getGlintValue(1, 2, 1), buffer.getFloat(4), 0.0f);
+        // the views do not share their position
+        assertEquals(getGlintValue(1, 2, 0), auxFile.getFloatBuffer("T702", 1).get(), 0.0f);
+    }
+
+    @Test
+    public void testFloatBufferOfNonFloatVariable() throws IOException {
+        try {
+            auxFile.getFloatBuffer("T11A", 0);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testRecordBufferBeyondFileSize() {
+        try {
+            auxFile.getRecordBuffer("T700", GLINT_RECORD_COUNT);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    private static float getGlintValue(int recordIndex, int ws, int i) {
+        return recordIndex * 1000.0f + ws * 100.0f + i * 0.25f;
+    }
+
+    private static void writeCase1File(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.write(new byte[CASE1_DATASET_SIZES[0]]);
+            final byte[] sph = new byte[CASE1_DATASET_SIZES[1]];
+            final int[] recordCounts = {0, GLINT_RECORD_COUNT, 0};
+            for (int i = 0; i < recordCounts.length; i++) {
+                final byte[] ascii = String.format("+%010d", recordCounts[i]).getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(ascii, 0, sph, CASE1_RECORD_COUNT_OFFSETS[i], ascii.length);
+            }
+            out.write(sph);
+            for (int i = 2; i < 6; i++) {
+                out.write(new byte[CASE1_DATASET_SIZES[i]]);
+            }
+            for (int recordIndex = 0; recordIndex < GLINT_RECORD_COUNT; recordIndex++) {
+                for (int ws = 0; ws < 5; ws++) {
+                    for (int i = 0; i < GLINT_TABLE_SIZE; i++) {
+                        out.writeFloat(getGlintValue(recordIndex, ws, i));
+                    }
+                }
+            }
+        }
+    }
+
 //    public void testConstructor() {
         final AuxFileInfo fileInfo = AuxDatabase.getInstance().getFileInfo('Z');
 //        final AuxFile auxFile = new AuxFile(fileInfo, new File("./unknown.prd"));
@@ -0,0 +1,147 @@
+package org.esa.s3tbx.meris.l2auxdata;
+
+import org.esa.s3tbx.util.math.LUT;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.TiePointGrid;
+import org.esa.snap.dataio.envisat.EnvisatConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class L2AuxDataProviderTest {
+
+    private static final double SUN_EARTH_DISTANCE_SQUARE = 149.60e+09 * 149.60e+09;
+
+    private File[] auxDatabaseFiles;
+    private AtomicInteger loadCount;
+
+    @Before
+    public void setUp() throws IOException {
+        auxDatabaseFiles = new File[4];
+        for (int i = 0; i < auxDatabaseFiles.length; i++) {
+            auxDatabaseFiles[i] = File.createTempFile("aux", ".prd");
+            Files.write(auxDatabaseFiles[i].toPath(), new byte[]{1, 2, 3});
+        }
+        loadCount = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : auxDatabaseFiles) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAuxDataIsSharedBetweenProducts() throws L2AuxDataException {
+        final L2AuxDataProvider provider = new L2AuxDataProvider(this::loadAuxData);
+        final Product product1 = createProduct("MER_RR__1P", 1826);
+        final Product product2 = createProduct("MER_RR__1P", 1826);
+
+        final L2AuxData auxData1 = provider.getAuxdata(product1, auxDatabaseFiles);
+        final L2AuxData auxData2 = provider.getAuxdata(product2, auxDatabaseFiles);
+
+        assertEquals(1, loadCount.get());
+        assertNotSame(auxData1, auxData2);
+        assertSame(auxData1.rog, auxData2.rog);
+        assertSame(auxData1, provider.getAuxdata(product1, auxDatabaseFiles));
+    }
+
+    @Test
+    public void testAuxDataIsLoadedPerResolution() throws L2AuxDataException {
+        final L2AuxDataProvider provider = new L2AuxDataProvider(this::loadAuxData);
+
+        provider.getAuxdata(createProduct("MER_RR__1P", 1826), auxDatabaseFiles);
+        provider.getAuxdata(createProduct("MER_FR__1P", 1826), auxDatabaseFiles);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testAuxDataIsReloadedAfterFileChanged() throws L2AuxDataException, IOException {
+        final L2AuxDataProvider provider = new L2AuxDataProvider(this::loadAuxData);
+
+        provider.getAuxdata(createProduct("MER_RR__1P", 1826), auxDatabaseFiles);
+        Files.write(auxDatabaseFiles[3].toPath(), new byte[]{1, 2, 3, 4});
+        provider.getAuxdata(createProduct("MER_RR__1P", 1826), auxDatabaseFiles);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testSeasonalFactorIsSetPerProduct() throws L2AuxDataException {
+        final L2AuxDataProvider provider = new L2AuxDataProvider(this::loadAuxData);
+        final Product januaryProduct = createProduct("MER_RR__1P", 1826);
+        final Product julyProduct = createProduct("MER_RR__1P", 2007);
+
+        final L2AuxData januaryAuxData = provider.getAuxdata(januaryProduct, auxDatabaseFiles);
+        final L2AuxData julyAuxData = provider.getAuxdata(julyProduct, auxDatabaseFiles);
+
+        assertEquals(1, loadCount.get());
+        assertEquals(getExpectedSeasonalFactor(januaryProduct), januaryAuxData.seasonal_factor, 1.0e-12);
+        assertEquals(getExpectedSeasonalFactor(julyProduct), julyAuxData.seasonal_factor, 1.0e-12);
+        assertNotEquals(januaryAuxData.seasonal_factor, julyAuxData.seasonal_factor, 1.0e-3);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws L2AuxDataException {
+        final L2AuxDataProvider provider = new L2AuxDataProvider((files, fullResolution) -> {
+            if (loadCount.get() == 0) {
+                loadCount.incrementAndGet();
+                throw new IOException("failed to read");
+            }
+            return loadAuxData(files, fullResolution);
+        });
+        final Product product = createProduct("MER_RR__1P", 1826);
+
+        try {
+            provider.getAuxdata(product, auxDatabaseFiles);
+            fail("L2AuxDataException expected");
+        } catch (L2AuxDataException expected) {
+            assertEquals("failed to read", expected.getCause().getMessage());
+        }
+        final L2AuxData auxData = provider.getAuxdata(product, auxDatabaseFiles);
+
+        assertEquals(2, loadCount.get());
+        assertSame(auxData, provider.getAuxdata(product, auxDatabaseFiles));
+    }
+
+    private L2AuxData loadAuxData(File[] files, boolean fullResolution) {
+        loadCount.incrementAndGet();
+        final L2AuxData auxData = new L2AuxData();
+        auxData.sun_earth_distance_square = SUN_EARTH_DISTANCE_SQUARE;
+        auxData.rog = new LUT(new float[1][1][1][1][Constants.ROG_NUM_SZA]);
+        final double[] thetas = new double[Constants.ROG_NUM_SZA];
+        for (int i = 0; i < thetas.length; i++) {
+            thetas[i] = 3.0 * i;
+        }
+        auxData.rog.setTab(4, thetas);
+        return auxData;
+    }
+
+    private static Product createProduct(String productType, int daysSince2000) {
+        final Product product = new Product("test", productType, 4, 4);
+        product.setStartTime(new ProductData.UTC(daysSince2000, 0, 0));
+        product.setEndTime(new ProductData.UTC(daysSince2000, 600, 0));
+        product.addTiePointGrid(new TiePointGrid(EnvisatConstants.MERIS_SUN_ZENITH_DS_NAME, 2, 2, 0.5, 0.5, 3, 3,
+                                                 new float[]{30.0f, 32.0f, 34.0f, 36.0f}));
+        return product;
+    }
+
+    private static double getExpectedSeasonalFactor(Product product) {
+        final double daysSince2000 = 0.5 * (product.getStartTime().getMJD() + product.getEndTime().getMJD());
+        return Utils.computeSeasonalFactor(daysSince2000, SUN_EARTH_DISTANCE_SQUARE);
+    }
+}
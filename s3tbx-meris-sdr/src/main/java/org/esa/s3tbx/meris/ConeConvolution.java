@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2007 by Brockmann Consult (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation. This program is distributed in the hope it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.esa.s3tbx.meris;
+
+import java.awt.Rectangle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the cone weighted sums used by {@link FillAerosolOp} for all pixels of a source rectangle at once.
+ * <p>
+ * For a pixel {@code (x, y)} the window of {@code FillAerosolOp} covers the offsets {@code -(w-1) .. w-2} in both
+ * directions, clipped to the source rectangle, and weights each neighbour with {@code weights[|dx|][|dy|]}. The sum
+ * of the weights of the valid neighbours and the weighted sum of their values are therefore two convolutions of the
+ * same kernel, one over the validity mask and one over the masked values. Both are computed with a single complex
+ * FFT, the mask as real and the masked values as imaginary part. The sum of all weights inside the clipped window
+ * does not depend on the data and is taken from a table of partial sums of the kernel.
+ * <p>
+ * The sums agree with the direct window loop up to rounding. Instances can be shared between threads.
+ */
+final class ConeConvolution {
+
+    private final double[][] weights;
+    private final int lo;
+    private final int hi;
+    private final int kernelSize;
+    // prefixSums[(j * (kernelSize + 1)) + i] is the sum of the kernel over the first i offsets in x and j offsets in y
+    private final double[] prefixSums;
+    private final double zeroThreshold;
+    private final Map<Long, Plan> plans;
+
+    /**
+     * @param weights the weight matrix of {@code FillAerosolOp}, indexed by the absolute x and y distance
+     */
+    ConeConvolution(double[][] weights) {
+        this.weights = weights;
+        final int pixelWidth = weights.length;
+        lo = -(pixelWidth - 1);
+        hi = pixelWidth - 2;
+        kernelSize = Math.max(hi - lo + 1, 0);
+
+        final int stride = kernelSize + 1;
+        prefixSums = new double[stride * stride];
+        double minPositiveWeight = Double.MAX_VALUE;
+        for (int j = 0; j < kernelSize; j++) {
+            for (int i = 0; i < kernelSize; i++) {
+                final double weight = getWeight(lo + i, lo + j);
+                if (weight > 0 && weight < minPositiveWeight) {
+                    minPositiveWeight = weight;
+                }
+                prefixSums[(j + 1) * stride + i + 1] = weight + prefixSums[j * stride + i + 1]
+                                                       + prefixSums[(j + 1) * stride + i] - prefixSums[j * stride + i];
+            }
+        }
+        // the exact weight sum of a pixel is either zero or at least the smallest positive weight
+        zeroThreshold = 0.5 * minPositiveWeight;
+        plans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates the sums for the given source data. They are computed when first accessed, so that tiles
+     * without any pixel to fill do not pay for the convolution.
+     *
+     * @param values the source values, one per pixel of {@code rect}
+     * @param valid  the validity of the source values
+     * @param rect   the source rectangle
+     */
+    Sums createSums(float[] values, boolean[] valid, Rectangle rect) {
+        return new Sums(values, valid, rect);
+    }
+
+    private double getWeight(int dx, int dy) {
+        return weights[Math.abs(dx)][Math.abs(dy)];
+    }
+
+    private double getTotalWeightSum(int x, int y, int width, int height) {
+        final int i0 = Math.max(lo, -x) - lo;
+        final int i1 = Math.min(hi, width - 1 - x) - lo + 1;
+        final int j0 = Math.max(lo, -y) - lo;
+        final int j1 = Math.min(hi, height - 1 - y) - lo + 1;
+        if (i1 <= i0 || j1 <= j0) {
+            return 0.0;
+        }
+        final int stride = kernelSize + 1;
+        return prefixSums[j1 * stride + i1] - prefixSums[j0 * stride + i1]
+               - prefixSums[j1 * stride + i0] + prefixSums[j0 * stride + i0];
+    }
+
+    private Plan getPlan(int width, int height) {
+        final int nx = nextPowerOfTwo(width + kernelSize - 1);
+        final int ny = nextPowerOfTwo(height + kernelSize - 1);
+        return plans.computeIfAbsent(((long) nx << 32) | ny, key -> new Plan(nx, ny));
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        int p = 1;
+        while (p < n) {
+            p <<= 1;
+        }
+        return p;
+    }
+
+    /**
+     * The weighted sums of the pixels of a source rectangle.
+     */
+    final class Sums {
+
+        private final float[] values;
+        private final boolean[] valid;
+        private final Rectangle rect;
+        private double[] weightSums;
+        private double[] valueSums;
+        private boolean usable;
+
+        private Sums(float[] values, boolean[] valid, Rectangle rect) {
+            this.values = values;
+            this.valid = valid;
+            this.rect = rect;
+        }
+
+        /**
+         * Tells whether the sums are available for the given pixel. They are not, if the pixel is outside the
+         * source rectangle or if a valid source value is not finite, since the FFT would spread it over all sums.
+         */
+        boolean isAvailable(int x, int y) {
+            if (!rect.contains(x, y)) {
+                return false;
+            }
+            if (weightSums == null) {
+                compute();
+            }
+            return usable;
+        }
+
+        double getWeightSum(int x, int y) {
+            return weightSums[(y - rect.y) * rect.width + (x - rect.x)];
+        }
+
+        double getValueSum(int x, int y) {
+            return valueSums[(y - rect.y) * rect.width + (x - rect.x)];
+        }
+
+        double getTotalWeightSum(int x, int y) {
+            return ConeConvolution.this.getTotalWeightSum(x - rect.x, y - rect.y, rect.width, rect.height);
+        }
+
+        private void compute() {
+            final int width = rect.width;
+            final int height = rect.height;
+            weightSums = new double[width * height];
+            valueSums = new double[width * height];
+            usable = true;
+            for (int i = 0; i < width * height; i++) {
+                if (valid[i] && !Float.isFinite(values[i])) {
+                    usable = false;
+                    return;
+                }
+            }
+            if (kernelSize == 0) {
+                return;
+            }
+
+            final Plan plan = getPlan(width, height);
+            final int nx = plan.nx;
+            final int ny = plan.ny;
+            final double[] re = new double[nx * ny];
+            final double[] im = new double[nx * ny];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final int index = y * width + x;
+                    if (valid[index]) {
+                        re[y * nx + x] = 1.0;
+                        im[y * nx + x] = values[index];
+                    }
+                }
+            }
+
+            plan.forward(re, im, height);
+            final double[] kernelRe = plan.kernelRe;
+            final double[] kernelIm = plan.kernelIm;
+            for (int i = 0; i < re.length; i++) {
+                final double r = re[i] * kernelRe[i] - im[i] * kernelIm[i];
+                im[i] = re[i] * kernelIm[i] + im[i] * kernelRe[i];
+                re[i] = r;
+            }
+            // only the rows hi .. hi + height - 1 of the linear convolution are needed
+            plan.inverse(re, im, hi, height);
+
+            final double scale = 1.0 / (nx * ny);
+            for (int y = 0; y < height; y++) {
+                final int rowOffset = (y + hi) * nx + hi;
+                for (int x = 0; x < width; x++) {
+                    final double weightSum = re[rowOffset + x] * scale;
+                    final int index = y * width + x;
+                    if (weightSum > zeroThreshold) {
+                        weightSums[index] = weightSum;
+                        valueSums[index] = im[rowOffset + x] * scale;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The padded FFT size, its twiddle factors and the spectrum of the kernel.
+     */
+    private final class Plan {
+
+        private final int nx;
+        private final int ny;
+        private final double[] cosX;
+        private final double[] sinX;
+        private final double[] cosY;
+        private final double[] sinY;
+        private final double[] kernelRe;
+        private final double[] kernelIm;
+
+        private Plan(int nx, int ny) {
+            this.nx = nx;
+            this.ny = ny;
+            cosX = new double[nx / 2];
+            sinX = new double[nx / 2];
+            initTwiddles(cosX, sinX, nx);
+            cosY = new double[ny / 2];
+            sinY = new double[ny / 2];
+            initTwiddles(cosY, sinY, ny);
+
+            // kernel[j][i] = weight(hi - i, hi - j), so that the linear convolution at (x + hi, y + hi)
+            // is the window sum of pixel (x, y)
+            kernelRe = new double[nx * ny];
+            kernelIm = new double[nx * ny];
+            for (int j = 0; j < kernelSize; j++) {
+                for (int i = 0; i < kernelSize; i++) {
+                    kernelRe[j * nx + i] = getWeight(hi - i, hi - j);
+                }
+            }
+            forward(kernelRe, kernelIm, kernelSize);
+        }
+
+        /**
+         * Forward transform of data whose non-zero elements are within the first {@code rowCount} rows.
+         */
+        private void forward(double[] re, double[] im, int rowCount) {
+            transformRows(re, im, 0, rowCount, false);
+            transformColumns(re, im, false);
+        }
+
+        /**
+         * Inverse transform, computing only the {@code rowCount} rows starting at {@code firstRow}.
+         */
+        private void inverse(double[] re, double[] im, int firstRow, int rowCount) {
+            transformColumns(re, im, true);
+            transformRows(re, im, firstRow, rowCount, true);
+        }
+
+        private void transformRows(double[] re, double[] im, int firstRow, int rowCount, boolean inverse) {
+            final double[] rowRe = new double[nx];
+            final double[] rowIm = new double[nx];
+            for (int y = firstRow; y < firstRow + rowCount; y++) {
+                final int offset = y * nx;
+                System.arraycopy(re, offset, rowRe, 0, nx);
+                System.arraycopy(im, offset, rowIm, 0, nx);
+                fft(rowRe, rowIm, cosX, sinX, inverse);
+                System.arraycopy(rowRe, 0, re, offset, nx);
+                System.arraycopy(rowIm, 0, im, offset, nx);
+            }
+        }
+
+        private void transformColumns(double[] re, double[] im, boolean inverse) {
+            final double[] colRe = new double[ny];
+            final double[] colIm = new double[ny];
+            for (int x = 0; x < nx; x++) {
+                for (int y = 0; y < ny; y++) {
+                    colRe[y] = re[y * nx + x];
+                    colIm[y] = im[y * nx + x];
+                }
+                fft(colRe, colIm, cosY, sinY, inverse);
+                for (int y = 0; y < ny; y++) {
+                    re[y * nx + x] = colRe[y];
+                    im[y * nx + x] = colIm[y];
+                }
+            }
+        }
+    }
+
+    private static void initTwiddles(double[] cos, double[] sin, int n) {
+        for (int k = 0; k < cos.length; k++) {
+            final double angle = 2.0 * Math.PI * k / n;
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+    }
+
+    // in-place iterative radix-2 transform, unscaled in both directions
+    private static void fft(double[] re, double[] im, double[] cos, double[] sin, boolean inverse) {
+        final int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        final double sign = inverse ? 1.0 : -1.0;
+        for (int length = 2; length <= n; length <<= 1) {
+            final int half = length >> 1;
+            final int step = n / length;
+            for (int i = 0; i < n; i += length) {
+                for (int k = 0; k < half; k++) {
+                    final double wr = cos[k * step];
+                    final double wi = sign * sin[k * step];
+                    final int a = i + k;
+                    final int b = a + half;
+                    final double xr = re[b] * wr - im[b] * wi;
+                    final double xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ public class FillAerosolOp extends MerisBasisOp {
     private Map<Band, Band> defaultBands;
     private Product validProduct;
     private double[][] weights;
+    private ConeConvolution coneConvolution;
     private Rectangle sourceProductRect;
 
     @SourceProduct(alias="input")
@@ -66,6 +67,8 @@ public class FillAerosolOp extends MerisBasisOp {
     private static class Configuration {
         private int pixelWidth;
         private boolean frs = true;
+        // compute the weighted sums of a tile by FFT convolution instead of a window loop per pixel
+        private boolean fftConvolution = false;
         private String maskBand;
         private List<BandDesc> bands;
 
@@ -133,6 +136,9 @@ public class FillAerosolOp extends MerisBasisOp {
             }
             pm.setSubTaskName("Computing weights matrix ...");
             computeWeightMatrix();
+            if (config.fftConvolution) {
+                coneConvolution = new ConeConvolution(weights);
+            }
             pm.worked(1);
         } finally {
             pm.done();
@@ -140,25 +146,40 @@ public class FillAerosolOp extends MerisBasisOp {
     }
 
     private void computeWeightMatrix() {
-    	weights = new double[config.pixelWidth][config.pixelWidth];
-		for (int y = 0; y < config.pixelWidth; y++) {
-			for (int x = 0; x < config.pixelWidth; x++) {
-				final double w = Math.max(1.0 - Math.sqrt((x * x + y * y))/(config.pixelWidth),0.0);
+        weights = createWeightMatrix(config.pixelWidth);
+    }
+
+    static double[][] createWeightMatrix(int pixelWidth) {
+    	double[][] weights = new double[pixelWidth][pixelWidth];
+		for (int y = 0; y < pixelWidth; y++) {
+			for (int x = 0; x < pixelWidth; x++) {
+				final double w = Math.max(1.0 - Math.sqrt((x * x + y * y))/(pixelWidth),0.0);
 				weights[x][y] = w;
 			}
 		}
 		weights[0][0] = 0;
+		return weights;
 	}
 
-    private float computeInterpolatedValue(final int x, final int y, Rectangle sourceRect, float[] srcValues, boolean[] valid, float defaultValue) {
+    static float computeInterpolatedValue(final int x, final int y, ConeConvolution.Sums sums, Rectangle sourceRect,
+                                          float[] srcValues, boolean[] valid, float defaultValue, double[][] weights) {
+        if (sums != null && sums.isAvailable(x, y)) {
+            return blend(sums.getWeightSum(x, y), sums.getValueSum(x, y), sums.getTotalWeightSum(x, y), defaultValue);
+        }
+        return computeInterpolatedValue(x, y, sourceRect, srcValues, valid, defaultValue, weights);
+    }
+
+    static float computeInterpolatedValue(final int x, final int y, Rectangle sourceRect, float[] srcValues,
+                                          boolean[] valid, float defaultValue, double[][] weights) {
 		double weigthSum = 0;
 		double weigthSumTotal = 0;
         double tauSum = 0;
 
-        final int iyStart = Math.max(y - config.pixelWidth + 1,sourceRect.y);
-        final int iyEnd = Math.min(y + config.pixelWidth - 1,sourceRect.y+sourceRect.height);
-        final int ixStart = Math.max(x - config.pixelWidth + 1,sourceRect.x);
-        final int ixEnd = Math.min(x + config.pixelWidth - 1,sourceRect.x+sourceRect.width);
+        final int pixelWidth = weights.length;
+        final int iyStart = Math.max(y - pixelWidth + 1,sourceRect.y);
+        final int iyEnd = Math.min(y + pixelWidth - 1,sourceRect.y+sourceRect.height);
+        final int ixStart = Math.max(x - pixelWidth + 1,sourceRect.x);
+        final int ixEnd = Math.min(x + pixelWidth - 1,sourceRect.x+sourceRect.width);
 
         for (int iy = iyStart; iy < iyEnd; iy++) {
             final int yDist = Math.abs(iy - y);
@@ -175,6 +196,10 @@ public class FillAerosolOp extends MerisBasisOp {
                 }
             }
         }
+        return blend(weigthSum, tauSum, weigthSumTotal, defaultValue);
+	}
+
+    private static float blend(double weigthSum, double tauSum, double weigthSumTotal, float defaultValue) {
         float mean;
         if (weigthSum > 0) {
 			final double tauTemp = tauSum/weigthSum;
@@ -288,6 +313,7 @@ public class FillAerosolOp extends MerisBasisOp {
         pm.beginTask("Processing frame...", sourceRect.height + 1);
         try {
         	Tile maskTile = null;
+            ConeConvolution.Sums sums = null;
             boolean useMask = false;
             if (maskProduct != null && StringUtils.isNotNullAndNotEmpty(config.maskBand)) {
             	maskTile = getSourceTile(maskProduct.getBand(config.maskBand), sourceRect);
@@ -300,6 +326,9 @@ public class FillAerosolOp extends MerisBasisOp {
             if (!config.frs) {
             	float[] scaledData = getScaledArrayFromTile(dataTile);
                 boolean[] validData = (boolean[]) validDataTile.getRawSamples().getElems();
+                if (coneConvolution != null) {
+                    sums = coneConvolution.createSums(scaledData, validData, sourceRect);
+                }
 
 				for (int y = targetRect.y; y < targetRect.y + targetRect.height; y++) {
 					for (int x = targetRect.x; x < targetRect.x
@@ -311,9 +340,9 @@ public class FillAerosolOp extends MerisBasisOp {
 							} else {
 								final float defaultValue = defaultTile
 										.getSampleFloat(x, y);
-								float v = computeInterpolatedValue(x, y,
+								float v = computeInterpolatedValue(x, y, sums,
 										sourceRect, scaledData, validData,
-										defaultValue);
+										defaultValue, weights);
 								targetTile.setSample(x, y, v);
 							}
 						} else {
@@ -327,6 +356,9 @@ public class FillAerosolOp extends MerisBasisOp {
 				boolean[] validData = getArrayFromTileFRS(validDataTile);
 	            Rectangle sourceRectFRS = new Rectangle(MathUtils.ceilInt(sourceRect.x/4.0), MathUtils.ceilInt(sourceRect.y/4.0),
 	            		MathUtils.ceilInt(sourceRect.width/4.0), MathUtils.ceilInt(sourceRect.height/4.0));
+                if (coneConvolution != null) {
+                    sums = coneConvolution.createSums(scaledData, validData, sourceRectFRS);
+                }
 
 	            Rectangle intermediateRectangle = new Rectangle(targetRect.x - 4, targetRect.y - 4, targetRect.width + 8, targetRect.height + 8);
 	            Rectangle productRect = sourceProductRect;
@@ -347,9 +379,9 @@ public class FillAerosolOp extends MerisBasisOp {
 										.getSampleFloat(x, y);
 								final int x4 = (x+1)/4;
 								final int y4 = (y+1)/4;
-								float v = computeInterpolatedValue(x4, y4,
+								float v = computeInterpolatedValue(x4, y4, sums,
 										sourceRectFRS, scaledData, validData,
-										defaultValue);
+										defaultValue, weights);
 								setValueInRegion(x, y, maxX, maxY, v, intermediateRaster);
 							}
 						} else {
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2007 by Brockmann Consult (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation. This program is distributed in the hope it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.esa.s3tbx.meris;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConeConvolutionTest {
+
+    private static final float DEFAULT_VALUE = 0.3f;
+
+    @Test
+    public void testSameResultAsWindowLoop() {
+        for (int pixelWidth : new int[]{2, 3, 6, 11}) {
+            for (double validFraction : new double[]{0.0, 0.05, 0.5, 1.0}) {
+                assertSameResult(pixelWidth, validFraction);
+            }
+        }
+    }
+
+    @Test
+    public void testSums() {
+        final int pixelWidth = 7;
+        final double[][] weights = FillAerosolOp.createWeightMatrix(pixelWidth);
+        final Rectangle rect = new Rectangle(7, 3, 40, 30);
+        final float[] values = new float[rect.width * rect.height];
+        final boolean[] valid = new boolean[values.length];
+        fill(values, valid, 0.3, new Random(3));
+
+        final ConeConvolution.Sums sums = new ConeConvolution(weights).createSums(values, valid, rect);
+        for (int y = rect.y; y < rect.y + rect.height; y += 3) {
+            for (int x = rect.x; x < rect.x + rect.width; x += 3) {
+                double weightSum = 0;
+                double valueSum = 0;
+                double totalWeightSum = 0;
+                for (int iy = Math.max(y - pixelWidth + 1, rect.y); iy < Math.min(y + pixelWidth - 1, rect.y + rect.height); iy++) {
+                    for (int ix = Math.max(x - pixelWidth + 1, rect.x); ix < Math.min(x + pixelWidth - 1, rect.x + rect.width); ix++) {
+                        final double weight = weights[Math.abs(ix - x)][Math.abs(iy - y)];
+                        final int index = (iy - rect.y) * rect.width + (ix - rect.x);
+                        totalWeightSum += weight;
+                        if (valid[index]) {
+                            weightSum += weight;
+                            valueSum += weight * values[index];
+                        }
+                    }
+                }
+                assertTrue(sums.isAvailable(x, y));
+                assertEquals(weightSum, sums.getWeightSum(x, y), 1.0e-10);
+                assertEquals(valueSum, sums.getValueSum(x, y), 1.0e-10);
+                assertEquals(totalWeightSum, sums.getTotalWeightSum(x, y), 1.0e-10);
+            }
+        }
+        assertFalse(sums.isAvailable(rect.x - 1, rect.y));
+        assertFalse(sums.isAvailable(rect.x, rect.y + rect.height));
+    }
+
+    @Test
+    public void testNotAvailableForNaNValues() {
+        final double[][] weights = FillAerosolOp.createWeightMatrix(5);
+        final Rectangle rect = new Rectangle(0, 0, 20, 20);
+        final float[] values = new float[rect.width * rect.height];
+        final boolean[] valid = new boolean[values.length];
+        fill(values, valid, 1.0, new Random(5));
+        values[42] = Float.NaN;
+
+        final ConeConvolution.Sums sums = new ConeConvolution(weights).createSums(values, valid, rect);
+        assertFalse(sums.isAvailable(10, 10));
+        // falls back to the window loop
+        assertEquals(FillAerosolOp.computeInterpolatedValue(10, 10, rect, values, valid, DEFAULT_VALUE, weights),
+                     FillAerosolOp.computeInterpolatedValue(10, 10, sums, rect, values, valid, DEFAULT_VALUE, weights),
+                     0.0f);
+    }
+
+    private static void assertSameResult(int pixelWidth, double validFraction) {
+        final double[][] weights = FillAerosolOp.createWeightMatrix(pixelWidth);
+        final Rectangle rect = new Rectangle(7, 3, 97, 61);
+        final float[] values = new float[rect.width * rect.height];
+        final boolean[] valid = new boolean[values.length];
+        fill(values, valid, validFraction, new Random(pixelWidth));
+        // a gap larger than the window
+        for (int y = 10; y < 40; y++) {
+            for (int x = 20; x < 70; x++) {
+                valid[y * rect.width + x] = false;
+            }
+        }
+
+        final ConeConvolution.Sums sums = new ConeConvolution(weights).createSums(values, valid, rect);
+        for (int y = rect.y - 1; y <= rect.y + rect.height; y++) {
+            for (int x = rect.x - 1; x <= rect.x + rect.width; x++) {
+                final float expected = FillAerosolOp.computeInterpolatedValue(x, y, rect, values, valid,
+                                                                              DEFAULT_VALUE, weights);
+                final float actual = FillAerosolOp.computeInterpolatedValue(x, y, sums, rect, values, valid,
+                                                                            DEFAULT_VALUE, weights);
+                assertEquals("pixelWidth=" + pixelWidth + " x=" + x + " y=" + y, expected, actual, 1.0e-6f);
+            }
+        }
+    }
+
+    private static void fill(float[] values, boolean[] valid, double validFraction, Random random) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextFloat();
+            valid[i] = random.nextDouble() < validFraction;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007 by Brockmann Consult (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation. This program is distributed in the hope it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.esa.s3tbx.meris;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Rectangle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares filling all invalid pixels of a tile of {@link FillAerosolOp} with the window loop per pixel and with
+ * the sums of {@link ConeConvolution}. The source rectangle is the tile extended by the window width, as in the
+ * operator. Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillAerosolBenchmark {
+
+    @Param({"256"})
+    public int tileSize;
+
+    @Param({"5", "12", "25"})
+    public int pixelWidth;
+
+    @Param({"0.5"})
+    public double validFraction;
+
+    private double[][] weights;
+    private ConeConvolution coneConvolution;
+    private Rectangle sourceRect;
+    private float[] values;
+    private boolean[] valid;
+
+    @Setup
+    public void setUp() {
+        weights = FillAerosolOp.createWeightMatrix(pixelWidth);
+        coneConvolution = new ConeConvolution(weights);
+        sourceRect = new Rectangle(0, 0, tileSize + 2 * pixelWidth, tileSize + 2 * pixelWidth);
+        values = new float[sourceRect.width * sourceRect.height];
+        valid = new boolean[values.length];
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextFloat();
+            valid[i] = random.nextDouble() < validFraction;
+        }
+    }
+
+    @Benchmark
+    public void windowLoop(Blackhole blackhole) {
+        fillTile(null, blackhole);
+    }
+
+    @Benchmark
+    public void convolution(Blackhole blackhole) {
+        fillTile(coneConvolution.createSums(values, valid, sourceRect), blackhole);
+    }
+
+    private void fillTile(ConeConvolution.Sums sums, Blackhole blackhole) {
+        for (int y = pixelWidth; y < pixelWidth + tileSize; y++) {
+            for (int x = pixelWidth; x < pixelWidth + tileSize; x++) {
+                if (!valid[y * sourceRect.width + x]) {
+                    blackhole.consume(FillAerosolOp.computeInterpolatedValue(x, y, sums, sourceRect, values, valid,
+                                                                             0.1f, weights));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FillAerosolBenchmark.class.getSimpleName()).build()).run();
+    }
+}
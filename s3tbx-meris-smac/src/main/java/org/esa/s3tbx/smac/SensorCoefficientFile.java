@@ -80,6 +80,8 @@ public class SensorCoefficientFile implements SmacSensorCoefficients {
     private double _resa3;
     private double _resa4;
 
+    private volatile boolean frozen;
+
     /**
      * Creates the object with default parameters.
      */
@@ -96,6 +98,9 @@ public class SensorCoefficientFile implements SmacSensorCoefficients {
      */
     public void readFile(String fileName) throws IllegalArgumentException, IOException {
         Guardian.assertNotNull("fileName", fileName);
+        if (frozen) {
+            throw new IllegalStateException("Coefficients have been frozen and cannot be read again");
+        }
         File coeffFile = new File(fileName);
 
         // check if file is available
@@ -440,6 +445,14 @@ public class SensorCoefficientFile implements SmacSensorCoefficients {
         return _resa4;
     }
 
+    /**
+     * Prevents the coefficients from being changed by further calls to {@link #readFile(String)}. Frozen instances
+     * can be shared between threads.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /////// END OF PUBLIC
     ///////////////////////////////////////////////////////////////////////////
@@ -448,9 +461,12 @@ public class SensorCoefficientFile implements SmacSensorCoefficients {
      * Scans the file for coefficients
      */
     private void scan(File coeffFile) throws IOException {
-        FileReader reader = new FileReader(coeffFile);
-        StreamTokenizer tokenizer = new StreamTokenizer(reader);
+        try (FileReader reader = new FileReader(coeffFile)) {
+            scan(new StreamTokenizer(reader));
+        }
+    }
 
+    private void scan(StreamTokenizer tokenizer) throws IOException {
         tokenizer.resetSyntax();
         tokenizer.whitespaceChars(0, 32);
         tokenizer.eolIsSignificant(false);
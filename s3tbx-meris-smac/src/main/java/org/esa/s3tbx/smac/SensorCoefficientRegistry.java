@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s3tbx.smac;
+
+import org.esa.snap.core.util.Guardian;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the parsed SMAC sensor coefficients.
+ * <p>
+ * There is one registry per auxdata directory. The sensor map of the directory is read when coefficients are
+ * requested for the first time and every coefficient file is parsed at most once. The returned coefficients are
+ * frozen and shared by all threads and operator instances, so the SMAC processing does not access any files once
+ * the coefficients of all bands have been loaded.
+ */
+final class SensorCoefficientRegistry {
+
+    private static final Map<String, SensorCoefficientRegistry> registries = new ConcurrentHashMap<>();
+
+    private final Path auxdataDir;
+    private final Map<String, SmacSensorCoefficients> coefficients;
+    private volatile SensorCoefficientManager manager;
+
+    private SensorCoefficientRegistry(Path auxdataDir) {
+        this.auxdataDir = auxdataDir;
+        coefficients = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the registry of the given auxdata directory.
+     *
+     * @param auxdataDir the directory containing the sensor map and the coefficient files
+     */
+    static SensorCoefficientRegistry getInstance(Path auxdataDir) {
+        Guardian.assertNotNull("auxdataDir", auxdataDir);
+        final Path dir = auxdataDir.toAbsolutePath().normalize();
+        return registries.computeIfAbsent(dir.toString(), k -> new SensorCoefficientRegistry(dir));
+    }
+
+    /**
+     * Retrieves the coefficients for a given sensor, band and aerosol type. The coefficient file is parsed on the
+     * first request only.
+     *
+     * @param sensor      the sensor name
+     * @param bandName    the band name
+     * @param aerosolType the aerosol type
+     * @return the coefficients or <code>null</code> when the sensor map contains no entry for the band
+     * @throws IOException when the sensor map or the coefficient file cannot be read
+     */
+    SmacSensorCoefficients getCoefficients(String sensor, String bandName, AEROSOL_TYPE aerosolType) throws IOException {
+        final String key = sensor + '|' + bandName + '|' + aerosolType;
+        SmacSensorCoefficients coeffs = coefficients.get(key);
+        if (coeffs != null) {
+            return coeffs;
+        }
+
+        final URL url = getManager().getCoefficientFile(sensor, bandName, aerosolType);
+        if (url == null) {
+            return null;
+        }
+        try {
+            // concurrent requests for the same band wait for the first one instead of parsing the file again
+            return coefficients.computeIfAbsent(key, k -> readCoefficients(url));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private SensorCoefficientManager getManager() throws IOException {
+        SensorCoefficientManager mgr = manager;
+        if (mgr == null) {
+            synchronized (this) {
+                mgr = manager;
+                if (mgr == null) {
+                    mgr = new SensorCoefficientManager(auxdataDir.toUri().toURL());
+                    manager = mgr;
+                }
+            }
+        }
+        return mgr;
+    }
+
+    private static SmacSensorCoefficients readCoefficients(URL url) {
+        final SensorCoefficientFile coeffs = new SensorCoefficientFile();
+        try {
+            coeffs.readFile(new File(url.toURI()).getAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new UncheckedIOException(new IOException("Invalid coefficient file URL " + url, e));
+        }
+        coeffs.freeze();
+        return coeffs;
+    }
+}
@@ -22,9 +22,6 @@ import org.esa.snap.core.util.Guardian;
  */
 public final class SmacAlgorithm {
 
-    private static final double _cdr = Math.PI / 180.0;
-    private static final double _crd = 180.0 / Math.PI;
-    private static final double _invMaxPressure = 1.0 / 1013.0;
     private static final double _oneQuarter = 1.0 / 4.0;
     private static final double _twoThird = 2.0 / 3.0;
 
@@ -265,12 +262,39 @@ public final class SmacAlgorithm {
                              float[] taup550, float[] uh2o, float[] uo3,
                              float[] airPressure, boolean[] process, float invalid, float[] r_toa,
                              float[] r_surfRecycle) {
+        final SmacGeometry geometry = new SmacGeometry();
+        geometry.compute(sza, saa, vza, vaa, airPressure);
+        return run(geometry, taup550, uh2o, uo3, process, invalid, r_toa, r_surfRecycle);
+    }
+
+    /**
+     * Performs the SMAC algorithm using band independent terms computed beforehand. Use this method when several
+     * bands of the same pixels are corrected, the geometry then needs to be computed only once.
+     *
+     * @param geometry      the band independent terms of the pixels
+     * @param taup550       array of aerosol optical thickness at 550nm
+     * @param uh2o          array of water vapour concentrations
+     * @param uo3           array of ozone concentrations
+     * @param process       boolean array indicating whether a pixel has to be processed or not
+     * @param invalid       the value set for invalid pixels, i.e. the ones excluded by the process parameter
+     * @param r_toa         array of top of atmosphere reflectances to be corrected
+     * @param r_surfRecycle if not <code>null</code> and of correct size this array will be reused for the return
+     *                      values
+     * @return array of corrected surface reflectances
+     */
+    public final float[] run(SmacGeometry geometry, float[] taup550, float[] uh2o, float[] uo3,
+                             boolean[] process, float invalid, float[] r_toa, float[] r_surfRecycle) {
+        Guardian.assertNotNull("geometry", geometry);
+        if (geometry.getSize() != r_toa.length) {
+            throw new IllegalArgumentException("geometry has not been computed for " + r_toa.length + " pixels");
+        }
+
         // array to be returned
         float[] r_return;
         double us, invUs, us2, uv, invUv, usTimesuv, invUsTimesUv;
-        double dphi, Peq, m, s, cksi, ksiD;
-        double taup, tautot, Res_6s;
+        double Peq, m, s, cksi, ksiD;
         double uo2, uco2, uch4, uno2, uco;
+        double taup, tautot, Res_6s;
         double to3, th2o, to2, tco2, tch4, tno2, tco;
         double ttetas, ttetav;
         double ray_phase, ray_ref, taurz, Res_ray;
@@ -292,6 +316,13 @@ public final class SmacAlgorithm {
             r_return = r_surfRecycle;
         }
 
+        // the pressure dependent gas amounts only depend on the band through the exponent
+        final double[] uo2Power = _calcUo2 ? geometry.getPressurePower(_po2) : null;
+        final double[] uco2Power = _calcUco2 ? geometry.getPressurePower(_pco2) : null;
+        final double[] uch4Power = _calcUch4 ? geometry.getPressurePower(_pch4) : null;
+        final double[] uno2Power = _calcUno2 ? geometry.getPressurePower(_pno2) : null;
+        final double[] ucoPower = _calcUco ? geometry.getPressurePower(_pco) : null;
+
         // loop over vectors
         // -----------------
         int n;
@@ -303,45 +334,29 @@ public final class SmacAlgorithm {
                 continue;
             }
             // parameter setup
-            us = Math.cos(sza[n] * _cdr);
-            invUs = 1.0 / us;
-            us2 = us * us;
+            us = geometry.us[n];
+            invUs = geometry.invUs[n];
+            us2 = geometry.us2[n];
 
-            uv = Math.cos(vza[n] * _cdr);
-            invUv = 1.0 / uv;
-            usTimesuv = us * uv;
-            invUsTimesUv = 1.0 / usTimesuv;
+            uv = geometry.uv[n];
+            invUv = geometry.invUv[n];
+            usTimesuv = geometry.usTimesUv[n];
+            invUsTimesUv = geometry.invUsTimesUv[n];
 
-            dphi = (saa[n] - vaa[n]) * _cdr;
-            Peq = airPressure[n] * _invMaxPressure;
+            Peq = geometry.peq[n];
 
             /*------ 1) air mass */
-            m = invUs + invUv;
+            m = geometry.m[n];
 
             /*------ 2) aerosol optical depth in the spectral band, taup  */
             taup = _A0taup + _A1taup * taup550[n];
 
             /*------ 3) gaseous transmissions (downward and upward paths)*/
-            uo2 = 1.0;
-            if (_calcUo2) {
-                uo2 = Math.pow(Peq, _po2);
-            }
-            uco2 = 1.0;
-            if (_calcUco2) {
-                uco2 = Math.pow(Peq, _pco2);
-            }
-            uch4 = 1.0;
-            if (_calcUch4) {
-                uch4 = Math.pow(Peq, _pch4);
-            }
-            uno2 = 1.0;
-            if (_calcUno2) {
-                uno2 = Math.pow(Peq, _pno2);
-            }
-            uco = 1.0;
-            if (_calcUco) {
-                uco = Math.pow(Peq, _pco);
-            }
+            uo2 = uo2Power != null ? uo2Power[n] : 1.0;
+            uco2 = uco2Power != null ? uco2Power[n] : 1.0;
+            uch4 = uch4Power != null ? uch4Power[n] : 1.0;
+            uno2 = uno2Power != null ? uno2Power[n] : 1.0;
+            uco = ucoPower != null ? ucoPower[n] : 1.0;
 
             /*------ 4) if uh2o <= 0 and uo3 <= 0 no gaseous absorption is computed*/
             to3 = 1.0;
@@ -386,17 +401,14 @@ public final class SmacAlgorithm {
             s = _a0s * Peq + _a3s + _a1s * taup550[n] + _a2s * taup550[n] * taup550[n];
 
             /*------ 7) scattering angle cosine */
-            cksi = -(usTimesuv + (Math.sqrt(1.0 - us2) * Math.sqrt(1.0 - uv * uv) * Math.cos(dphi)));
-            if (cksi < -1) {
-                cksi = -1.0;
-            }
+            cksi = geometry.cksi[n];
 
             /*------ 8) scattering angle in degree */
-            ksiD = _crd * Math.acos(cksi);
+            ksiD = geometry.ksiD[n];
 
             /*------ 9) rayleigh atmospheric reflectance */
             /* pour 6s on a delta = 0.0279 */
-            ray_phase = 0.7190443 * (1.0 + (cksi * cksi)) + 0.0412742;
+            ray_phase = geometry.rayPhase[n];
             taurz = _taur * Peq;
             ray_ref = (taurz * ray_phase) * _oneQuarter * invUsTimesUv;
 
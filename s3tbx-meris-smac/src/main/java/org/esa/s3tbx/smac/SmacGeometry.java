@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s3tbx.smac;
+
+import org.esa.snap.core.util.Guardian;
+
+/**
+ * Holds the per-pixel terms of the SMAC algorithm which depend only on the viewing geometry and the air pressure,
+ * but not on the sensor coefficients of a spectral band. They are computed once by {@link #compute} and can then
+ * be used by {@link SmacAlgorithm#run(SmacGeometry, float[], float[], float[], boolean[], float, float[], float[])}
+ * for all bands of the same pixels.
+ * <p>
+ * The arrays are reused when {@link #compute} is called again for the same number of pixels. Instances are not
+ * thread safe.
+ */
+public final class SmacGeometry {
+
+    private static final double _cdr = Math.PI / 180.0;
+    private static final double _crd = 180.0 / Math.PI;
+    private static final double _invMaxPressure = 1.0 / 1013.0;
+
+    private int size;
+    double[] us;
+    double[] us2;
+    double[] uv;
+    double[] invUs;
+    double[] invUv;
+    double[] usTimesUv;
+    double[] invUsTimesUv;
+    double[] peq;
+    double[] m;
+    double[] cksi;
+    double[] ksiD;
+    double[] rayPhase;
+
+    // Peq raised to the gas path exponents of the sensor coefficients, which usually are the same for all bands
+    private double[] powerExponents;
+    private double[][] powers;
+    private int powerCount;
+
+    public SmacGeometry() {
+        size = -1;
+        powerExponents = new double[8];
+        powers = new double[8][];
+    }
+
+    /**
+     * Computes the band independent terms.
+     *
+     * @param sza         array of sun zenith angles in decimal degrees
+     * @param saa         array of sun azimuth angles in decimal degrees
+     * @param vza         array of view zenith angles in decimal degrees
+     * @param vaa         array of view azimuth angles in decimal degrees
+     * @param airPressure array of air pressure in hPa
+     */
+    public void compute(float[] sza, float[] saa, float[] vza, float[] vaa, float[] airPressure) {
+        Guardian.assertNotNull("sza", sza);
+        ensureSize(sza.length);
+        powerCount = 0;
+
+        for (int n = 0; n < size; n++) {
+            final double us = Math.cos(sza[n] * _cdr);
+            final double us2 = us * us;
+            final double uv = Math.cos(vza[n] * _cdr);
+            final double usTimesuv = us * uv;
+            final double invUs = 1.0 / us;
+            final double invUv = 1.0 / uv;
+            final double dphi = (saa[n] - vaa[n]) * _cdr;
+
+            this.us[n] = us;
+            this.us2[n] = us2;
+            this.uv[n] = uv;
+            this.invUs[n] = invUs;
+            this.invUv[n] = invUv;
+            this.usTimesUv[n] = usTimesuv;
+            this.invUsTimesUv[n] = 1.0 / usTimesuv;
+            peq[n] = airPressure[n] * _invMaxPressure;
+
+            /*------ 1) air mass */
+            m[n] = invUs + invUv;
+
+            /*------ 7) scattering angle cosine */
+            double cksi = -(usTimesuv + (Math.sqrt(1.0 - us2) * Math.sqrt(1.0 - uv * uv) * Math.cos(dphi)));
+            if (cksi < -1) {
+                cksi = -1.0;
+            }
+            this.cksi[n] = cksi;
+
+            /*------ 8) scattering angle in degree */
+            ksiD[n] = _crd * Math.acos(cksi);
+
+            /*------ 9) rayleigh phase function */
+            rayPhase[n] = 0.7190443 * (1.0 + (cksi * cksi)) + 0.0412742;
+        }
+    }
+
+    /**
+     * @return the number of pixels of the last call to {@link #compute}
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the equivalent pressure of each pixel raised to the given exponent. The result is cached, so that
+     * bands sharing a gas path exponent compute the power only once.
+     */
+    double[] getPressurePower(double exponent) {
+        for (int i = 0; i < powerCount; i++) {
+            if (powerExponents[i] == exponent) {
+                return powers[i];
+            }
+        }
+        if (powerCount == powers.length) {
+            final int newLength = 2 * powers.length;
+            final double[] newExponents = new double[newLength];
+            final double[][] newPowers = new double[newLength][];
+            System.arraycopy(powerExponents, 0, newExponents, 0, powerCount);
+            System.arraycopy(powers, 0, newPowers, 0, powerCount);
+            powerExponents = newExponents;
+            powers = newPowers;
+        }
+        double[] power = powers[powerCount];
+        if (power == null || power.length != size) {
+            power = new double[size];
+            powers[powerCount] = power;
+        }
+        for (int n = 0; n < size; n++) {
+            power[n] = Math.pow(peq[n], exponent);
+        }
+        powerExponents[powerCount] = exponent;
+        powerCount++;
+        return power;
+    }
+
+    private void ensureSize(int newSize) {
+        if (newSize == size) {
+            return;
+        }
+        size = newSize;
+        us = new double[size];
+        us2 = new double[size];
+        uv = new double[size];
+        invUs = new double[size];
+        invUv = new double[size];
+        usTimesUv = new double[size];
+        invUsTimesUv = new double[size];
+        peq = new double[size];
+        m = new double[size];
+        cksi = new double[size];
+        ksiD = new double[size];
+        rayPhase = new double[size];
+        for (int i = 0; i < powers.length; i++) {
+            powers[i] = null;
+        }
+    }
+}
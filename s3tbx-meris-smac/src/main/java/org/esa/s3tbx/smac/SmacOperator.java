@@ -40,15 +40,14 @@ import org.esa.snap.dataio.envisat.EnvisatConstants;
 
 import java.awt.Color;
 import java.awt.Rectangle;
-import java.io.File;
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.net.URL;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -95,7 +94,8 @@ public class SmacOperator extends Operator {
 
     private Path auxdataInstallDir;
     private Map<String, String> bandNameMapping;
-    private HashMap<String, SmacSensorCoefficients> coefficients;
+    private final Map<String, SmacAlgorithm> algorithms;
+    private final ThreadLocal<SourceData> workspace;
 
     private TiePointGrid szaBand;
     private TiePointGrid saaBand;
@@ -156,7 +156,8 @@ public class SmacOperator extends Operator {
         inputBandList = new ArrayList<>();
         logger = getLogger();
         bandNameMapping = new HashMap<>();
-        coefficients = new HashMap<>();
+        algorithms = new ConcurrentHashMap<>();
+        workspace = ThreadLocal.withInitial(SourceData::new);
     }
 
     @Override
@@ -174,30 +175,10 @@ public class SmacOperator extends Operator {
 
     @Override
     public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
-        // here goes the allocation of data that is constant for the targetRectangle
-
-        // initialize vectors and other data
-        // ---------------------------------
-        int width = targetRectangle.width;
-        int height = targetRectangle.height;
-        int x = targetRectangle.x;
-        int y = targetRectangle.y;
-
-        SourceData sourceData = new SourceData();
-        sourceData.taup550 = new float[width * height];
-        sourceData.process = new boolean[width * height];
-        sourceData.uh2o = new float[width * height];
-        sourceData.uo3 = new float[width * height];
-        sourceData.press = new float[width * height];
-        sourceData.toa = new float[width * height];
-
-        for (int i = 0; i < width * height; i++) {
-            sourceData.taup550[i] = tauAero550;
-            sourceData.uh2o[i] = uH2o;
-            sourceData.uo3[i] = uO3;
-            sourceData.press[i] = surfPress;
-            sourceData.process[i] = true;
-        }
+        // the source data and all buffers derived from it are held per thread and reused for the next tile,
+        // everything which does not depend on the spectral band is computed once per tile
+        final SourceData sourceData = workspace.get();
+        sourceData.ensureSize(targetRectangle.width * targetRectangle.height);
 
         sourceData.sza = getSourceTile(szaBand, targetRectangle).getSamplesFloat();
         sourceData.saa = getSourceTile(saaBand, targetRectangle).getSamplesFloat();
@@ -208,11 +189,18 @@ public class SmacOperator extends Operator {
             sourceData.saaFwd = getSourceTile(saaFwdBand, targetRectangle).getSamplesFloat();
             sourceData.vzaFwd = getSourceTile(vzaFwdBand, targetRectangle).getSamplesFloat();
             sourceData.vaaFwd = getSourceTile(vaaFwdBand, targetRectangle).getSamplesFloat();
+            prepareAatsr(sourceData, targetRectangle);
         } else if (useMerisADS) {
-            sourceData.uh2o = getSourceTile(wvBand, targetRectangle).getSamplesFloat();
-            sourceData.uo3 = getSourceTile(o3Band, targetRectangle).getSamplesFloat();
-            sourceData.press = getSourceTile(pressBand, targetRectangle).getSamplesFloat();
-            sourceData.elev = getSourceTile(elevBand, targetRectangle).getSamplesFloat();
+            final float[] wv = getSourceTile(wvBand, targetRectangle).getSamplesFloat();
+            final float[] o3 = getSourceTile(o3Band, targetRectangle).getSamplesFloat();
+            final float[] press = getSourceTile(pressBand, targetRectangle).getSamplesFloat();
+            final float[] elev = getSourceTile(elevBand, targetRectangle).getSamplesFloat();
+            relativeHumidityTogcm2(wv, sourceData.uh2o);
+            dobsonToCmAtm(o3, sourceData.uo3);
+            sourceData.press = RsMathUtils.simpleBarometric(press, elev, sourceData.press);
+            prepareMeris(sourceData, targetRectangle);
+        } else {
+            prepareMeris(sourceData, targetRectangle);
         }
 
         for (Map.Entry<Band, Tile> bandTileEntry : targetTiles.entrySet()) {
@@ -221,19 +209,10 @@ public class SmacOperator extends Operator {
             Tile sourceTile = getSourceTile(sourceBand, targetRectangle);
             sourceData.toa = sourceTile.getSamplesFloat();
             Tile targetTile = bandTileEntry.getValue();
-            try {
-                if (ObjectUtils.equalObjects(sensorType, SensorCoefficientManager.MERIS_NAME)) {
-                    if (useMerisADS) {
-                        processMerisWithADS(sourceBand, sourceData, targetTile, targetRectangle, new SmacAlgorithm());
-                    } else {
-                        processMeris(sourceBand, sourceData, targetTile, targetRectangle, new SmacAlgorithm());
-                    }
-                } else if (ObjectUtils.equalObjects(sensorType, SensorCoefficientManager.AATSR_NAME)) {
-                    processAatsr(sourceBand.getName(), sourceData, targetTile, targetRectangle, new SmacAlgorithm());
-                }
-            } catch (IOException e) {
-                logger.severe("An error occurred during processing: ");
-                logger.severe(e.getMessage());
+            if (ObjectUtils.equalObjects(sensorType, SensorCoefficientManager.MERIS_NAME)) {
+                processMeris(sourceBand, sourceData, targetTile);
+            } else if (ObjectUtils.equalObjects(sensorType, SensorCoefficientManager.AATSR_NAME)) {
+                processAatsr(sourceBand.getName(), sourceData, targetTile);
             }
         }
     }
@@ -564,168 +543,119 @@ public class SmacOperator extends Operator {
         return targetBandName;
     }
 
-    private void processMerisWithADS(Band spectralBand, SourceData sourceData, Tile targetTile, Rectangle targetRectangle, SmacAlgorithm algorithm) throws IOException {
-        if (!setBandCoefficients(spectralBand.getName(), algorithm)) {
-            logger.severe(String.format("Sensor coefficient file for spectral band '%s' not found!", spectralBand.getName()));
-            return;
-        }
+    // Computes the process mask and the band independent terms of a MERIS tile.
+    private void prepareMeris(SourceData sourceData, Rectangle targetRectangle) {
+        fillProcessMask(smacMask, targetRectangle, sourceData.process);
+        sourceData.geometry.compute(sourceData.sza, sourceData.saa, sourceData.vza, sourceData.vaa, sourceData.press);
+    }
 
-        float[] toa = RsMathUtils.radianceToReflectance(sourceData.toa, sourceData.sza, spectralBand.getSolarFlux(), null);
-        float[] press = RsMathUtils.simpleBarometric(sourceData.press, sourceData.elev, null);
-        float[] uo3 = dobsonToCmAtm(sourceData.uo3);
-        float[] uh2o = relativeHumidityTogcm2(sourceData.uh2o);
+    // Computes the process masks and the band independent terms of both views of an AATSR tile.
+    // The sun and view elevations are scaled to zenith angles.
+    private void prepareAatsr(SourceData sourceData, Rectangle targetRectangle) {
+        sourceData.vzaZenith = RsMathUtils.elevationToZenith(sourceData.vza, sourceData.vzaZenith);
+        sourceData.szaZenith = RsMathUtils.elevationToZenith(sourceData.sza, sourceData.szaZenith);
+        fillProcessMask(smacMask, targetRectangle, sourceData.process);
+        sourceData.geometry.compute(sourceData.sza, sourceData.saa, sourceData.vzaZenith, sourceData.szaZenith,
+                                    sourceData.press);
+
+        sourceData.vzaFwdZenith = RsMathUtils.elevationToZenith(sourceData.vzaFwd, sourceData.vzaFwdZenith);
+        sourceData.szaFwdZenith = RsMathUtils.elevationToZenith(sourceData.szaFwd, sourceData.szaFwdZenith);
+        fillProcessMask(smacMaskForward, targetRectangle, sourceData.processFwd);
+        sourceData.geometryFwd.compute(sourceData.sza, sourceData.saa, sourceData.vzaFwdZenith, sourceData.szaFwdZenith,
+                                       sourceData.press);
+    }
 
+    private void fillProcessMask(Mask mask, Rectangle targetRectangle, boolean[] process) {
         int i = 0;
         for (int absY = targetRectangle.y; absY < targetRectangle.y + targetRectangle.height; absY++) {
             checkForCancellation();
             for (int absX = targetRectangle.x; absX < targetRectangle.x + targetRectangle.width; absX++) {
-                sourceData.process[i] = smacMask.getSampleInt(absX, absY) != 0;
+                process[i] = mask.getSampleInt(absX, absY) != 0;
                 i++;
             }
         }
-
-        float[] toa_corr = new float[toa.length];
-        toa_corr = algorithm.run(sourceData.sza, sourceData.saa, sourceData.vza, sourceData.vaa, sourceData.taup550,
-                                 uh2o, uo3, press, sourceData.process, invalidPixel,
-                                 toa, toa_corr);
-
-        targetTile.setSamples(toa_corr);
     }
 
-    // Processes MERIS data.
-    private void processMeris(Band spectralBand, SourceData sourceData, Tile targetTile, Rectangle targetRectangle, SmacAlgorithm algorithm) throws IOException {
-        if (!setBandCoefficients(spectralBand.getName(), algorithm)) {
+    // Processes a single MERIS band.
+    private void processMeris(Band spectralBand, SourceData sourceData, Tile targetTile) {
+        SmacAlgorithm algorithm = getAlgorithm(spectralBand.getName());
+        if (algorithm == null) {
             logger.severe(String.format("Sensor coefficient file for spectral band '%s' not found!", spectralBand.getName()));
             return;
         }
 
-        float[] reflectances = RsMathUtils.radianceToReflectance(sourceData.toa, sourceData.sza, spectralBand.getSolarFlux(), null);
-
-        int i = 0;
-        for (int absY = targetRectangle.y; absY < targetRectangle.y + targetRectangle.height; absY++) {
-            checkForCancellation();
-            for (int absX = targetRectangle.x; absX < targetRectangle.x + targetRectangle.width; absX++) {
-                sourceData.process[i] = smacMask.getSampleInt(absX, absY) != 0;
-                i++;
-            }
-        }
-
-        float[] toa_corr = new float[reflectances.length];
-        toa_corr = algorithm.run(sourceData.sza, sourceData.saa, sourceData.vza, sourceData.vaa, sourceData.taup550,
-                                 sourceData.uh2o, sourceData.uo3, sourceData.press, sourceData.process, invalidPixel,
-                                 reflectances, toa_corr);
+        float[] reflectances = RsMathUtils.radianceToReflectance(sourceData.toa, sourceData.sza, spectralBand.getSolarFlux(),
+                                                                 sourceData.reflectances);
+        float[] toa_corr = algorithm.run(sourceData.geometry, sourceData.taup550, sourceData.uh2o, sourceData.uo3,
+                                         sourceData.process, invalidPixel, reflectances, sourceData.toaCorr);
 
         targetTile.setSamples(toa_corr);
     }
 
     // Processes a single AATSR band.
-    private void processAatsr(String bandName, SourceData sourceData, Tile targetTile, Rectangle targetRectangle, SmacAlgorithm algorithm) throws IOException {
-        if (!setBandCoefficients(bandName, algorithm)) {
+    private void processAatsr(String bandName, SourceData sourceData, Tile targetTile) {
+        SmacAlgorithm algorithm = getAlgorithm(bandName);
+        if (algorithm == null) {
             logger.severe("Sensor coefficient file for spectral band '" + bandName +
                           "' not found!");
             return;
         }
 
         boolean isForwardBand = bandName.contains("fward");
+        SmacGeometry geometry = isForwardBand ? sourceData.geometryFwd : sourceData.geometry;
+        boolean[] process = isForwardBand ? sourceData.processFwd : sourceData.process;
 
-        // set the tie point bands and mask according to input band view
-        // and scale sun and view elevation to zenith angles
-        Mask localMask;
-        float[] vza;
-        float[] sza;
-        if (isForwardBand) {
-            vza = RsMathUtils.elevationToZenith(sourceData.vzaFwd, null);
-            sza = RsMathUtils.elevationToZenith(sourceData.szaFwd, null);
-            localMask = smacMaskForward;
-        } else {
-            vza = RsMathUtils.elevationToZenith(sourceData.vza, null);
-            sza = RsMathUtils.elevationToZenith(sourceData.sza, null);
-            localMask = smacMask;
-        }
-
-        int i = 0;
-        for (int absY = targetRectangle.y; absY < targetRectangle.y + targetRectangle.height; absY++) {
-            checkForCancellation();
-            for (int absX = targetRectangle.x; absX < targetRectangle.x + targetRectangle.width; absX++) {
-                sourceData.process[i] = localMask.getSampleInt(absX, absY) != 0;
-                i++;
-            }
-        }
-
-        float[] toa_corr = new float[sourceData.toa.length];
-        toa_corr = algorithm.run(sourceData.sza, sourceData.saa, vza, sza, sourceData.taup550,
-                                 sourceData.uh2o, sourceData.uo3, sourceData.press, sourceData.process, invalidPixel,
-                                 sourceData.toa, toa_corr);
+        float[] toa_corr = algorithm.run(geometry, sourceData.taup550, sourceData.uh2o, sourceData.uo3,
+                                         process, invalidPixel, sourceData.toa, sourceData.toaCorr);
 
         targetTile.setSamples(toa_corr);
     }
 
-    private boolean setBandCoefficients(String bandName, SmacAlgorithm algorithm) {
-        if (coefficients.containsKey(bandName)) {
-            algorithm.setSensorCoefficients(coefficients.get(bandName));
-            return true;
-        }
-        URL url;
-        SensorCoefficientFile coeff = new SensorCoefficientFile();
-        boolean handleError = false;
-        boolean success = false;
-
-        try {
-
-            url = getSensorCoefficientManager().getCoefficientFile(sensorType, bandName, aerosolType);
-            if (url == null) {
-                handleError = true;
-            } else {
-                coeff.readFile(new File(url.toURI()).getAbsolutePath());
-                logger.info("Loaded sensor coefficient file " + url.getFile());
-                algorithm.setSensorCoefficients(coeff);
-                coefficients.put(bandName, coeff);
-                success = true;
+    // Returns the algorithm set up with the coefficients of the given band, or null if they cannot be loaded.
+    // The algorithm does not change its state while running, so one instance per band is shared by all tiles.
+    private SmacAlgorithm getAlgorithm(String bandName) {
+        return algorithms.computeIfAbsent(bandName, name -> {
+            SmacSensorCoefficients coeff = loadBandCoefficients(name);
+            if (coeff == null) {
+                return null;
             }
-        } catch (IOException | URISyntaxException e) {
-            handleError = true;
-            logger.severe(e.getMessage());
-        }
-
-        if (handleError) {
-            logger.severe("Unable to load sensor coefficients for band " + bandName);
-        }
-
-        return success;
+            SmacAlgorithm algorithm = new SmacAlgorithm();
+            algorithm.setSensorCoefficients(coeff);
+            return algorithm;
+        });
     }
 
-    private SensorCoefficientManager getSensorCoefficientManager() {
-        SensorCoefficientManager coeffMgr = null;
+    private SmacSensorCoefficients loadBandCoefficients(String bandName) {
+        SmacSensorCoefficients coeff = null;
         try {
-            coeffMgr = new SensorCoefficientManager(auxdataInstallDir.toUri().toURL());
-            logger.fine("Using auxiliary data path: " + auxdataInstallDir.toString());
+            coeff = SensorCoefficientRegistry.getInstance(auxdataInstallDir).getCoefficients(sensorType, bandName, aerosolType);
         } catch (IOException e) {
             logger.severe("Error reading coefficients from: " + auxdataInstallDir.toString());
             logger.severe(e.getMessage());
             logger.log(Level.FINE, e.getMessage(), e);
         }
-        return coeffMgr;
+
+        if (coeff == null) {
+            logger.severe("Unable to load sensor coefficients for band " + bandName);
+        }
+        return coeff;
     }
 
     // Converts an array of ozone contents in DU to cm *atm
-    private static float[] dobsonToCmAtm(float[] du) {
+    private static void dobsonToCmAtm(float[] du, float[] ret) {
         Assert.notNull(du, "du");
-        final float[] ret = new float[du.length];
         for (int n = 0; n < du.length; n++) {
             ret[n] = du[n] * duToCmAtm;
         }
-        return ret;
     }
 
     // Converts an array of relative humidity values (in %) to water vapour content in g/cm^2. This method uses a simple
     // linear relation without plausibility checks
-    private static float[] relativeHumidityTogcm2(float[] relHum) {
+    private static void relativeHumidityTogcm2(float[] relHum, float[] ret) {
         Assert.notNull(relHum, "relHum");
-        final float[] ret = new float[relHum.length];
         for (int n = 0; n < relHum.length; n++) {
             ret[n] = relHumTogcm * relHum[n];
         }
-        return ret;
     }
 
     public static class Spi extends OperatorSpi {
@@ -736,6 +666,8 @@ public class SmacOperator extends Operator {
 
     }
 
+    // Source samples of a tile together with the buffers derived from them. One instance is held per thread
+    // and reused as long as the tile size does not change.
     private class SourceData {
 
         float[] sza;
@@ -749,9 +681,42 @@ public class SmacOperator extends Operator {
         float[] uh2o;
         float[] uo3;
         float[] press;
-        float[] elev;
         float[] taup550;
         boolean[] process;
+        boolean[] processFwd;
         float[] toa;
+
+        float[] szaZenith;
+        float[] vzaZenith;
+        float[] szaFwdZenith;
+        float[] vzaFwdZenith;
+        float[] reflectances;
+        float[] toaCorr;
+        final SmacGeometry geometry = new SmacGeometry();
+        final SmacGeometry geometryFwd = new SmacGeometry();
+
+        void ensureSize(int size) {
+            if (taup550 != null && taup550.length == size) {
+                return;
+            }
+            taup550 = new float[size];
+            process = new boolean[size];
+            processFwd = new boolean[size];
+            uh2o = new float[size];
+            uo3 = new float[size];
+            press = new float[size];
+            szaZenith = new float[size];
+            vzaZenith = new float[size];
+            szaFwdZenith = new float[size];
+            vzaFwdZenith = new float[size];
+            reflectances = new float[size];
+            toaCorr = new float[size];
+
+            // the ECMWF data of the MERIS ADS overwrites these values for every tile
+            Arrays.fill(taup550, tauAero550);
+            Arrays.fill(uh2o, uH2o);
+            Arrays.fill(uo3, uO3);
+            Arrays.fill(press, surfPress);
+        }
     }
 }
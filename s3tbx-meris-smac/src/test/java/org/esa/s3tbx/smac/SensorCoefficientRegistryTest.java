@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2010 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+
+package org.esa.s3tbx.smac;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SensorCoefficientRegistryTest {
+
+    private Path smacAuxDir;
+
+    @Before
+    public void setUp() throws Exception {
+        SmacOperator op = new SmacOperator();
+        op.installAuxdata(ProgressMonitor.NULL); // just to extract auxdata
+        smacAuxDir = op.getAuxdataInstallDir();
+    }
+
+    @Test
+    public void testGetInstanceIsSharedPerDirectory() {
+        SensorCoefficientRegistry registry = SensorCoefficientRegistry.getInstance(smacAuxDir);
+        assertSame(registry, SensorCoefficientRegistry.getInstance(smacAuxDir.resolve("..").resolve(smacAuxDir.getFileName())));
+    }
+
+    @Test
+    public void testGetCoefficientsParsesOnce() throws Exception {
+        SensorCoefficientRegistry registry = SensorCoefficientRegistry.getInstance(smacAuxDir);
+
+        SmacSensorCoefficients coeffs = registry.getCoefficients(SensorCoefficientManager.MERIS_NAME, "radiance_1",
+                                                                 AEROSOL_TYPE.CONTINENTAL);
+        assertNotNull(coeffs);
+        assertSame(coeffs, registry.getCoefficients(SensorCoefficientManager.MERIS_NAME, "radiance_1",
+                                                    AEROSOL_TYPE.CONTINENTAL));
+        assertNotSame(coeffs, registry.getCoefficients(SensorCoefficientManager.MERIS_NAME, "radiance_1",
+                                                       AEROSOL_TYPE.DESERT));
+
+        SensorCoefficientFile expected = new SensorCoefficientFile();
+        expected.readFile(smacAuxDir.resolve("coef_MERIS1_CONT.dat").toString());
+        assertEquals(expected.getAo3(), coeffs.getAo3(), 0.0);
+        assertEquals(expected.getA0P(), coeffs.getA0P(), 0.0);
+        assertEquals(expected.getResa4(), coeffs.getResa4(), 0.0);
+    }
+
+    @Test
+    public void testSharedCoefficientsCannotBeReadAgain() throws Exception {
+        SensorCoefficientRegistry registry = SensorCoefficientRegistry.getInstance(smacAuxDir);
+        SensorCoefficientFile coeffs = (SensorCoefficientFile) registry.getCoefficients(SensorCoefficientManager.MERIS_NAME,
+                                                                                       "radiance_2",
+                                                                                       AEROSOL_TYPE.CONTINENTAL);
+        try {
+            coeffs.readFile(smacAuxDir.resolve("coef_MERIS3_CONT.dat").toString());
+            fail("frozen coefficients must not be changed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testGetCoefficientsOfUnknownBand() throws Exception {
+        SensorCoefficientRegistry registry = SensorCoefficientRegistry.getInstance(smacAuxDir);
+        assertNull(registry.getCoefficients(SensorCoefficientManager.MERIS_NAME, "radiance_42", AEROSOL_TYPE.CONTINENTAL));
+        assertNull(registry.getCoefficients("SPOT", "radiance_1", AEROSOL_TYPE.CONTINENTAL));
+    }
+}
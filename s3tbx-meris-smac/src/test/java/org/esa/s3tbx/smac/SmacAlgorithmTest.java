@@ -18,6 +18,7 @@ package org.esa.s3tbx.smac;
 
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
 
 import static org.junit.Assert.*;
@@ -242,4 +243,38 @@ public class SmacAlgorithmTest {
         }
     }
 
+    @Test
+    public void testRunWithSharedGeometry() throws Exception {
+        float[] sza = {30.0f, 45.5f, 62.1f, 10.2f};
+        float[] saa = {30.0f, 120.0f, 275.3f, 180.0f};
+        float[] vza = {15.0f, 2.3f, 38.7f, 21.0f};
+        float[] vaa = {15.0f, 300.0f, 101.9f, 0.5f};
+        float[] taup550 = {0.5f, 0.2f, 0.2f, 0.05f};
+        float[] uh2o = {0.7f, 3.0f, 1.2f, 0.0f};
+        float[] uo3 = {0.3f, 0.15f, 0.35f, 0.0f};
+        float[] pressure = {900.0f, 1013.0f, 980.4f, 850.0f};
+        float[] toa = {0.4f, 0.12f, 0.08f, 0.3f};
+        boolean[] process = {true, true, false, true};
+
+        SmacGeometry geometry = new SmacGeometry();
+        geometry.compute(sza, saa, vza, vaa, pressure);
+        float[] recycle = new float[toa.length];
+        for (String coeffName : new String[]{"coef_MERIS1_CONT.dat", "coef_MERIS11_DES.dat", "coef_MERIS15_CONT.dat"}) {
+            SensorCoefficientFile file = new SensorCoefficientFile();
+            file.readFile(new File(getClass().getResource("/auxdata/" + coeffName).toURI()).getPath());
+
+            SmacAlgorithm perBand = new SmacAlgorithm();
+            perBand.setSensorCoefficients(file);
+            float[] expected = perBand.run(sza, saa, vza, vaa, taup550, uh2o, uo3, pressure, process, -1.0f, toa, null);
+
+            SmacAlgorithm shared = new SmacAlgorithm();
+            shared.setSensorCoefficients(file);
+            float[] actual = shared.run(geometry, taup550, uh2o, uo3, process, -1.0f, toa, recycle);
+
+            assertSame(recycle, actual);
+            assertArrayEquals(coeffName, expected, actual, 0.0f);
+            assertEquals(-1.0f, actual[2], 0.0f);
+        }
+    }
+
 }
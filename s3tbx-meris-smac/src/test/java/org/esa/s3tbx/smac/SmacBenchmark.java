@@ -0,0 +1,128 @@
+package org.esa.s3tbx.smac;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares correcting all 15 MERIS bands of a tile with a new {@link SmacAlgorithm} and new buffers per band, as
+ * the operator did before, with sharing the band independent {@link SmacGeometry} and reusing the buffers.
+ * The default tile is a stripe of 64 lines of a MERIS FR scene.
+ * Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmacBenchmark {
+
+    private static final int NUM_BANDS = 15;
+
+    @Param({"2241"})
+    public int tileWidth;
+
+    @Param({"64"})
+    public int tileHeight;
+
+    private SmacSensorCoefficients[] coefficients;
+    private SmacAlgorithm[] algorithms;
+    private float[] sza;
+    private float[] saa;
+    private float[] vza;
+    private float[] vaa;
+    private float[] taup550;
+    private float[] uh2o;
+    private float[] uo3;
+    private float[] press;
+    private boolean[] process;
+    private float[][] toa;
+    private SmacGeometry geometry;
+    private float[] toaCorr;
+
+    @Setup
+    public void setUp() throws Exception {
+        coefficients = new SmacSensorCoefficients[NUM_BANDS];
+        algorithms = new SmacAlgorithm[NUM_BANDS];
+        for (int b = 0; b < NUM_BANDS; b++) {
+            SensorCoefficientFile file = new SensorCoefficientFile();
+            String resource = "/auxdata/coef_MERIS" + (b + 1) + "_CONT.dat";
+            file.readFile(new File(getClass().getResource(resource).toURI()).getPath());
+            coefficients[b] = file;
+            algorithms[b] = new SmacAlgorithm();
+            algorithms[b].setSensorCoefficients(file);
+        }
+
+        int size = tileWidth * tileHeight;
+        Random random = new Random(42);
+        sza = new float[size];
+        saa = new float[size];
+        vza = new float[size];
+        vaa = new float[size];
+        press = new float[size];
+        for (int i = 0; i < size; i++) {
+            sza[i] = 20.0f + 50.0f * random.nextFloat();
+            saa[i] = 360.0f * random.nextFloat();
+            vza[i] = 40.0f * random.nextFloat();
+            vaa[i] = 360.0f * random.nextFloat();
+            press[i] = 950.0f + 70.0f * random.nextFloat();
+        }
+        taup550 = new float[size];
+        uh2o = new float[size];
+        uo3 = new float[size];
+        process = new boolean[size];
+        Arrays.fill(taup550, 0.2f);
+        Arrays.fill(uh2o, 3.0f);
+        Arrays.fill(uo3, 0.15f);
+        Arrays.fill(process, true);
+        toa = new float[NUM_BANDS][size];
+        for (float[] bandToa : toa) {
+            for (int i = 0; i < size; i++) {
+                bandToa[i] = 0.05f + 0.3f * random.nextFloat();
+            }
+        }
+        geometry = new SmacGeometry();
+        toaCorr = new float[size];
+    }
+
+    @Benchmark
+    public void perBand(Blackhole blackhole) {
+        for (int b = 0; b < NUM_BANDS; b++) {
+            SmacAlgorithm algorithm = new SmacAlgorithm();
+            algorithm.setSensorCoefficients(coefficients[b]);
+            float[] result = new float[toa[b].length];
+            result = algorithm.run(sza, saa, vza, vaa, taup550, uh2o, uo3, press, process, 0.0f, toa[b], result);
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    public void sharedGeometry(Blackhole blackhole) {
+        geometry.compute(sza, saa, vza, vaa, press);
+        for (int b = 0; b < NUM_BANDS; b++) {
+            blackhole.consume(algorithms[b].run(geometry, taup550, uh2o, uo3, process, 0.0f, toa[b], toaCorr));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SmacBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.s3tbx.dataio.merisl3;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Locates the bins of a binned level-3 product by grid row.
+ * <p>
+ * For every row of the ISIN grid the index knows the contiguous range of the bin list holding the row's bins,
+ * so that a reader only needs to read this range. For the rows in use it also provides a lookup table from the
+ * pixel column of the scene to the position of the bin within the range, which is shared by all bands. The lookup
+ * tables are kept in a bounded cache of recently used rows. Instances are thread safe.
+ */
+public final class BinRowIndex {
+
+    private final ISINGrid grid;
+    private final int[] bins;
+    private final int sceneWidth;
+    private final int[] rowOffsets;
+    private final int[] rowLengths;
+    private final Map<Integer, int[]> lineIndexCache;
+
+    /**
+     * @param grid          the ISIN grid of the product
+     * @param bins          the bin numbers of the bin list, in ascending order
+     * @param sceneWidth    the width of the scene raster
+     * @param maxCachedRows the maximum number of rows whose lookup tables are cached
+     * @throws IOException if the bin numbers are not in ascending order
+     */
+    public BinRowIndex(ISINGrid grid, int[] bins, int sceneWidth, final int maxCachedRows) throws IOException {
+        this.grid = grid;
+        this.bins = bins;
+        this.sceneWidth = sceneWidth;
+        final int rowCount = grid.getRowCount();
+        rowOffsets = new int[rowCount];
+        rowLengths = new int[rowCount];
+
+        final Point gridPoint = new Point();
+        int lastBinIndex = -1;
+        int lastRowIndex = -1;
+        int lineOffset = 0;
+        int lineLength = 0;
+        for (int i = 0; i < bins.length; i++) {
+
+            final int binIndex = bins[i];
+            if (binIndex < lastBinIndex) {
+                throw new IOException(
+                        "Unrecognized level-3 format. Bins numbers expected to appear in ascending order.");
+            }
+            lastBinIndex = binIndex;
+
+            grid.getGridPoint(binIndex, gridPoint);
+            final int rowIndex = gridPoint.y;
+
+            if (rowIndex != lastRowIndex) {
+                if (lineLength > 0) {
+                    rowOffsets[lastRowIndex] = lineOffset;
+                    rowLengths[lastRowIndex] = lineLength;
+                }
+                lineOffset = i;
+                lineLength = 0;
+            }
+
+            lineLength++;
+            lastRowIndex = rowIndex;
+        }
+
+        if (lineLength > 0) {
+            rowOffsets[lastRowIndex] = lineOffset;
+            rowLengths[lastRowIndex] = lineLength;
+        }
+
+        lineIndexCache = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > maxCachedRows;
+            }
+        };
+    }
+
+    /**
+     * @return the position of the first bin of the row within the bin list
+     */
+    public int getOffset(int rowIndex) {
+        return rowOffsets[rowIndex];
+    }
+
+    /**
+     * @return the number of bins of the row in the bin list, zero if the row has no bins
+     */
+    public int getLength(int rowIndex) {
+        return rowLengths[rowIndex];
+    }
+
+    /**
+     * Gets the lookup table of the given row. Element {@code x} is the position of the bin of scene column {@code x}
+     * relative to {@link #getOffset(int)}, or -1 if the bin list does not contain the bin.
+     *
+     * @param rowIndex the row index of the ISIN grid
+     * @return the lookup table, must not be modified
+     */
+    public int[] getLineIndices(int rowIndex) {
+        int[] lineIndices;
+        synchronized (lineIndexCache) {
+            lineIndices = lineIndexCache.get(rowIndex);
+        }
+        if (lineIndices == null) {
+            lineIndices = createLineIndices(rowIndex);
+            synchronized (lineIndexCache) {
+                lineIndexCache.put(rowIndex, lineIndices);
+            }
+        }
+        return lineIndices;
+    }
+
+    // walks the scene columns and the bins of the row in parallel, both are in ascending order of bin numbers
+    private int[] createLineIndices(int rowIndex) {
+        final int[] lineIndices = new int[sceneWidth];
+        final int lineOffset = rowOffsets[rowIndex];
+        final int lineLength = rowLengths[rowIndex];
+        int lineIndex0 = 0;
+        for (int x = 0; x < sceneWidth; x++) {
+            final double lon = x * 360.0 / sceneWidth;
+            final int binIndex = grid.getBinIndex(rowIndex, lon);
+            int lineIndex = -1;
+            for (int i = lineIndex0; i < lineLength; i++) {
+                int binidx = bins[lineOffset + i];
+                if (binidx >= binIndex) {
+                    if (binidx == binIndex) {
+                        lineIndex = i;
+                    }
+                    lineIndex0 = i;
+                    break;
+                }
+            }
+            lineIndices[x] = lineIndex;
+        }
+        return lineIndices;
+    }
+}
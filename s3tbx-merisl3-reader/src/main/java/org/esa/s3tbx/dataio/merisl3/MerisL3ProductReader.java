@@ -33,7 +33,6 @@ import ucar.nc2.Attribute;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
-import java.awt.Point;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
@@ -52,12 +51,14 @@ public class MerisL3ProductReader extends AbstractProductReader {
 
     public static final String COL_INDEX_BAND_NAME = "col_index";
 
+    private static final int MAX_CACHED_ROWS = 512;
+
     private NetcdfFile _netcdfFile;
     private Product _product;
     private ISINGrid _grid;
     private int _sceneRasterWidth;
     private int _sceneRasterHeight;
-    private RowInfo[] _rowInfos;
+    private BinRowIndex _binRowIndex;
     private Map<Band, VariableMetadata> bandMap;
 
     /**
@@ -160,12 +161,8 @@ public class MerisL3ProductReader extends AbstractProductReader {
             throw new IllegalStateException("sourceWidth != destWidth || sourceHeight != destHeight");
         }
 
-        final Variable idxVariable = _netcdfFile.getRootGroup().findVariable("idx");
         short[] rasterData = (short[]) destBuffer.getElems();
 
-        if (_rowInfos == null) {
-            _rowInfos = createRowInfos();
-        }
         VariableMetadata variableMetadata = bandMap.get(destBand);
         boolean readColIndex = variableMetadata == null; // this band has no variables associated
 
@@ -199,25 +196,23 @@ public class MerisL3ProductReader extends AbstractProductReader {
                 int[] lineLengths = new int[1];
 
                 Arrays.fill(rasterData, fillValue);
+                final BinRowIndex binRowIndex = getBinRowIndex();
 
                 for (int y = sourceOffsetY; y < sourceOffsetY + sourceHeight; y++) {
                     if (pm.isCanceled()) {
                         break;
                     }
                     final int rowIndex = (height - 1) - y;
-                    final RowInfo rowInfo = _rowInfos[rowIndex];
-                    if (rowInfo != null) {
+                    final int lineLength = binRowIndex.getLength(rowIndex);
+                    if (lineLength > 0) {
 
-                        final int lineOffset = rowInfo.offset;
-                        final int lineLength = rowInfo.length;
+                        final int lineOffset = binRowIndex.getOffset(rowIndex);
 
                         lineOffsets[0] = lineOffset;
                         lineLengths[0] = lineLength;
-                        final int[] idxValues;
                         final short[] binValues;
                         try {
                             synchronized (_netcdfFile) {
-                                idxValues = (int[]) idxVariable.read(lineOffsets, lineLengths).getStorage();
                                 binValues = (short[]) binVariable.read(lineOffsets, lineLengths).getStorage();
                             }
                         } catch (InvalidRangeException e) {
@@ -225,20 +220,9 @@ public class MerisL3ProductReader extends AbstractProductReader {
                             throw new IOException("Format problem.");
                         }
 
-                        int lineIndex0 = 0;
+                        final int[] lineIndices = binRowIndex.getLineIndices(rowIndex);
                         for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; x++) {
-                            final double lon = x * 360.0 / width;
-                            final int binIndex = grid.getBinIndex(rowIndex, lon);
-                            int lineIndex = -1;
-                            for (int i = lineIndex0; i < lineLength; i++) {
-                                if (idxValues[i] >= binIndex) {
-                                    if (idxValues[i] == binIndex) {
-                                        lineIndex = i;
-                                    }
-                                    lineIndex0 = i;
-                                    break;
-                                }
-                            }
+                            final int lineIndex = lineIndices[x];
                             if (lineIndex >= 0) {
                                 final int rasterIndex = sourceWidth * (y - sourceOffsetY) + (x - sourceOffsetX);
                                 rasterData[rasterIndex] = binValues[lineIndex];
@@ -277,7 +261,7 @@ public class MerisL3ProductReader extends AbstractProductReader {
         bandMap.clear();
         _product = null;
         _grid = null;
-        _rowInfos = null;
+        _binRowIndex = null;
     }
 
     /////////////////////////////////////////////////////////////////////////
@@ -319,49 +303,17 @@ public class MerisL3ProductReader extends AbstractProductReader {
         }
     }
 
-    private RowInfo[] createRowInfos() throws
-            IOException {
-        final ISINGrid grid = _grid;
-        final RowInfo[] binLines = new RowInfo[_sceneRasterHeight];
-        final Variable idxVariable = _netcdfFile.getRootGroup().findVariable("idx");
-        final int[] idxValues;
-        synchronized (_netcdfFile) {
-            idxValues = (int[]) idxVariable.read().getStorage();
-        }
-        final Point gridPoint = new Point();
-        int lastBinIndex = -1;
-        int lastRowIndex = -1;
-        int lineOffset = 0;
-        int lineLength = 0;
-        for (int i = 0; i < idxValues.length; i++) {
-
-            final int binIndex = idxValues[i];
-            if (binIndex < lastBinIndex) {
-                throw new IOException(
-                        "Unrecognized level-3 format. Bins numbers expected to appear in ascending order.");
-            }
-            lastBinIndex = binIndex;
-
-            grid.getGridPoint(binIndex, gridPoint);
-            final int rowIndex = gridPoint.y;
-
-            if (rowIndex != lastRowIndex) {
-                if (lineLength > 0) {
-                    binLines[lastRowIndex] = new RowInfo(lineOffset, lineLength);
-                }
-                lineOffset = i;
-                lineLength = 0;
+    // the bin list is decoded once and then shared by all bands
+    private synchronized BinRowIndex getBinRowIndex() throws IOException {
+        if (_binRowIndex == null) {
+            final Variable idxVariable = _netcdfFile.getRootGroup().findVariable("idx");
+            final int[] idxValues;
+            synchronized (_netcdfFile) {
+                idxValues = (int[]) idxVariable.read().getStorage();
             }
-
-            lineLength++;
-            lastRowIndex = rowIndex;
-        }
-
-        if (lineLength > 0) {
-            binLines[lastRowIndex] = new RowInfo(lineOffset, lineLength);
+            _binRowIndex = new BinRowIndex(_grid, idxValues, _sceneRasterWidth, MAX_CACHED_ROWS);
         }
-
-        return binLines;
+        return _binRowIndex;
     }
 
     private void addBand(String varName) {
@@ -436,17 +388,4 @@ public class MerisL3ProductReader extends AbstractProductReader {
             this.log10Scaled = logScaled;
         }
     }
-
-    private static final class RowInfo {
-
-        // offset of row within file
-        final int offset;
-        // number of bins per row
-        final int length;
-
-        public RowInfo(int offset, int length) {
-            this.offset = offset;
-            this.length = length;
-        }
-    }
 }
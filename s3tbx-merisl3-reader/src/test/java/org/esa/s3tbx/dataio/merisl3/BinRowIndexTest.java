@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.s3tbx.dataio.merisl3;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class BinRowIndexTest {
+
+    private static final int ROW_COUNT = 180;
+    private static final int SCENE_WIDTH = 2 * ROW_COUNT;
+
+    @Test
+    public void testRowRanges() throws IOException {
+        final ISINGrid grid = new ISINGrid(ROW_COUNT);
+        final int[] bins = createBins(grid, 0.3, new Random(1));
+        final BinRowIndex index = new BinRowIndex(grid, bins, SCENE_WIDTH, 16);
+
+        int expectedOffset = 0;
+        for (int row = 0; row < ROW_COUNT; row++) {
+            final int length = index.getLength(row);
+            if (length > 0) {
+                assertEquals(expectedOffset, index.getOffset(row));
+                for (int i = 0; i < length; i++) {
+                    assertEquals(row, grid.getRowIndex(bins[index.getOffset(row) + i]));
+                }
+                expectedOffset += length;
+            }
+        }
+        assertEquals(bins.length, expectedOffset);
+    }
+
+    @Test
+    public void testLineIndicesMatchLinearScan() throws IOException {
+        final ISINGrid grid = new ISINGrid(ROW_COUNT);
+        final int[] bins = createBins(grid, 0.5, new Random(2));
+        final BinRowIndex index = new BinRowIndex(grid, bins, SCENE_WIDTH, 16);
+
+        for (int row = 0; row < ROW_COUNT; row++) {
+            final int[] lineIndices = index.getLineIndices(row);
+            assertEquals(SCENE_WIDTH, lineIndices.length);
+            for (int x0 : new int[]{0, 17, SCENE_WIDTH / 2}) {
+                final int[] expected = scan(grid, bins, row, index.getOffset(row), index.getLength(row), x0);
+                for (int x = x0; x < SCENE_WIDTH; x++) {
+                    assertEquals("row=" + row + " x=" + x, expected[x - x0], lineIndices[x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLineIndicesAreCached() throws IOException {
+        final ISINGrid grid = new ISINGrid(ROW_COUNT);
+        final BinRowIndex index = new BinRowIndex(grid, createBins(grid, 0.5, new Random(3)), SCENE_WIDTH, 2);
+
+        final int[] row10 = index.getLineIndices(10);
+        assertSame(row10, index.getLineIndices(10));
+        index.getLineIndices(11);
+        index.getLineIndices(12);
+        // evicted, but computed again with the same content
+        final int[] row10Again = index.getLineIndices(10);
+        assertEquals(row10.length, row10Again.length);
+        for (int x = 0; x < row10.length; x++) {
+            assertEquals(row10[x], row10Again[x]);
+        }
+    }
+
+    @Test
+    public void testUnorderedBins() {
+        final ISINGrid grid = new ISINGrid(ROW_COUNT);
+        try {
+            new BinRowIndex(grid, new int[]{5, 3}, SCENE_WIDTH, 16);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static int[] createBins(ISINGrid grid, double fraction, Random random) {
+        final int[] all = new int[grid.getTotalBinCount()];
+        int count = 0;
+        for (int bin = 0; bin < all.length; bin++) {
+            if (random.nextDouble() < fraction) {
+                all[count++] = bin;
+            }
+        }
+        final int[] bins = new int[count];
+        System.arraycopy(all, 0, bins, 0, count);
+        return bins;
+    }
+
+    // the former per pixel search of the level-3 readers
+    private static int[] scan(ISINGrid grid, int[] bins, int rowIndex, int lineOffset, int lineLength, int x0) {
+        final int[] result = new int[SCENE_WIDTH - x0];
+        int lineIndex0 = 0;
+        for (int x = x0; x < SCENE_WIDTH; x++) {
+            final double lon = x * 360.0 / SCENE_WIDTH;
+            final int binIndex = grid.getBinIndex(rowIndex, lon);
+            int lineIndex = -1;
+            for (int i = lineIndex0; i < lineLength; i++) {
+                int binidx = bins[lineOffset + i];
+                if (binidx >= binIndex) {
+                    if (binidx == binIndex) {
+                        lineIndex = i;
+                    }
+                    lineIndex0 = i;
+                    break;
+                }
+            }
+            result[x - x0] = lineIndex;
+        }
+        return result;
+    }
+}
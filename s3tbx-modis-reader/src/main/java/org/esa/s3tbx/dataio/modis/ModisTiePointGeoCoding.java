@@ -55,7 +55,7 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
     private List<GeoCoding> gcList;
     private boolean cross180;
     private List<PolyLine> centerLineList;
-    private int lastCenterLineIndex;
+    private CenterLineIndex centerLineIndex;
     private int smallestValidIndex;
     private int biggestValidIndex;
     private int gcStripeSceneHeight;
@@ -81,7 +81,6 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
         this.lonGrid = lonGrid;
         // todo  - check datum, is it really WGS84 for MODIS?
         this.datum = Datum.WGS_84;
-        lastCenterLineIndex = 0;
         init();
     }
 
@@ -132,8 +131,10 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
 //            return pixelPos;
 //        }
 
-        final int index = getGeoCodingIndexfor(geoPos);
-        lastCenterLineIndex = index;
+        final int index = centerLineIndex.findNearestStripe(geoPos.lon, geoPos.lat);
+        if (index == -1) {
+            return pixelPos;
+        }
         final GeoCoding gc = gcList.get(index);
         if (gc != null) {
             gc.getPixelPos(geoPos, pixelPos);
@@ -142,7 +143,7 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
         if (pixelPos.x == -1 || pixelPos.y == -1) {
             return pixelPos;
         }
-        pixelPos.y += (lastCenterLineIndex * gcStripeSceneHeight);
+        pixelPos.y += (index * gcStripeSceneHeight);
         return pixelPos;
     }
 
@@ -285,6 +286,7 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
             }
         }
         initSmallestAndLargestValidGeocodingIndices();
+        centerLineIndex = new CenterLineIndex(centerLineList);
     }
 
     private void initSmallestAndLargestValidGeocodingIndices() {
@@ -348,52 +350,6 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
         }
     }
 
-    private int getGeoCodingIndexfor(final GeoPos geoPos) {
-        int index = lastCenterLineIndex;
-        index = getNextCenterLineIndex(index, 1);
-        final PolyLine centerLine1 = centerLineList.get(index);
-        double v = centerLine1.getDistance(geoPos.lon, geoPos.lat);
-        int vIndex = index;
-
-        int direction = -1;
-        if (index == smallestValidIndex) {
-            direction = +1;
-        }
-        while (true) {
-            index += direction;
-            index = getNextCenterLineIndex(index, direction);
-            final PolyLine centerLine2 = centerLineList.get(index);
-            final double v2 = centerLine2.getDistance(geoPos.lon, geoPos.lat);
-            if (v2 < v) {
-                if (index == smallestValidIndex || index == biggestValidIndex) {
-                    return index;
-                }
-                v = v2;
-                vIndex = index;
-            } else if (direction == -1) {
-                index++;
-                direction = +1;
-                if (index == biggestValidIndex) {
-                    return index;
-                }
-            } else if (direction == +1) {
-                return vIndex;
-            }
-        }
-    }
-
-    private int getNextCenterLineIndex(int index, final int direction) {
-        while (centerLineList.get(index) == null) {
-            index += direction;
-            if (index < smallestValidIndex) {
-                index = biggestValidIndex;
-            } else if (index > biggestValidIndex) {
-                index = smallestValidIndex;
-            }
-        }
-        return index;
-    }
-
     /**
      * Transfers the geo-coding of the {@link Scene srcScene} to the {@link Scene destScene} with respect to the given
      * {@link ProductSubsetDef subsetDef}.
@@ -517,15 +473,23 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
     }
 
 
-    private static class PolyLine {
+    static class PolyLine {
 
         private double _x1;
         private double _y1;
         private boolean _started;
         private ArrayList<Line2D.Double> _lines;
+        private double _minX;
+        private double _minY;
+        private double _maxX;
+        private double _maxY;
 
         public PolyLine() {
             _started = false;
+            _minX = Double.POSITIVE_INFINITY;
+            _minY = Double.POSITIVE_INFINITY;
+            _maxX = Double.NEGATIVE_INFINITY;
+            _maxY = Double.NEGATIVE_INFINITY;
         }
 
         public void lineTo(final double x, final double y) {
@@ -545,6 +509,26 @@ public class ModisTiePointGeoCoding extends AbstractGeoCoding {
         private void setXY1(final double x, final double y) {
             _x1 = x;
             _y1 = y;
+            _minX = Math.min(_minX, x);
+            _minY = Math.min(_minY, y);
+            _maxX = Math.max(_maxX, x);
+            _maxY = Math.max(_maxY, y);
+        }
+
+        public double getMinX() {
+            return _minX;
+        }
+
+        public double getMinY() {
+            return _minY;
+        }
+
+        public double getMaxX() {
+            return _maxX;
+        }
+
+        public double getMaxY() {
+            return _maxY;
         }
 
         public double getDistance(final double x, final double y) {
@@ -65,6 +65,9 @@ public class RayleighAux {
     private static final String THETA = "theta";
     private static final String RAY_COEFF_MATRIX = "ray_coeff_matrix";
     private static final String RAY_ALBEDO_LUT = "ray_albedo_lut";
+    // number of Fourier terms of the Rayleigh phase function and of interpolated LUT coefficients (a, b, c, d) per term
+    static final int NUM_FOURIER_TERMS = 3;
+    static final int NUM_INTERPOLATION_COEFFS = 4;
     private static ElevationModel elevationModel;
     private static double[] thetas;
     private static double[][][] rayCoeffMatrixA;
@@ -83,8 +86,11 @@ public class RayleighAux {
     private float waveLength;
     private double[] longitudes;
     private double[] altitudes;
-    private Map<Integer, double[]> fourierPoly;
-    private Map<Integer, List<double[]>> interpolateMap;
+    // flat per-pixel arrays: fourier[pixel * NUM_FOURIER_TERMS + term] and
+    // interpolation[(pixel * NUM_FOURIER_TERMS + term) * NUM_INTERPOLATION_COEFFS + coeff]
+    private double[] fourierPoly;
+    private double[] interpolation;
+    private boolean[] interpolationValid;
     private double[] viewAzimuthAnglesRad;
     private double[] sunZenithAnglesRad;
     private double[] sunAzimuthAnglesRad;
@@ -105,6 +111,55 @@ public class RayleighAux {
         return Doubles.toArray(collect);
     }
 
+    /**
+     * Computes the data which is otherwise derived lazily from the geometry, so that the copies created by
+     * {@link #copyGeometry()} share it and can be used by several threads.
+     *
+     * @param rayleighThickness  whether the altitudes needed for the Rayleigh optical thickness are computed
+     * @param multipleScattering whether the data needed for the Rayleigh reflectance is computed
+     */
+    void computeGeometryData(boolean rayleighThickness, boolean multipleScattering) {
+        getAirMass();
+        if (rayleighThickness) {
+            getAltitudes();
+        }
+        if (multipleScattering) {
+            getAziDifferent();
+            getFourier();
+            getInterpolation();
+        }
+    }
+
+    /**
+     * Creates a copy which shares the geometry and the data derived from it, but has its own band specific data.
+     */
+    RayleighAux copyGeometry() {
+        final RayleighAux copy = new RayleighAux();
+        copy.sunZenithAngles = sunZenithAngles;
+        copy.viewZenithAngles = viewZenithAngles;
+        copy.sunAzimuthAngles = sunAzimuthAngles;
+        copy.viewAzimuthAngles = viewAzimuthAngles;
+        copy.seaLevels = seaLevels;
+        copy.totalOzones = totalOzones;
+        copy.latitudes = latitudes;
+        copy.longitudes = longitudes;
+        copy.altitudes = altitudes;
+        copy.fourierPoly = fourierPoly;
+        copy.interpolation = interpolation;
+        copy.interpolationValid = interpolationValid;
+        copy.viewAzimuthAnglesRad = viewAzimuthAnglesRad;
+        copy.sunZenithAnglesRad = sunZenithAnglesRad;
+        copy.sunAzimuthAnglesRad = sunAzimuthAnglesRad;
+        copy.viewZenithAnglesRad = viewZenithAnglesRad;
+        copy.aziDiff = aziDiff;
+        copy.cosSZARads = cosSZARads;
+        copy.sinOZARads = sinOZARads;
+        copy.sinSZARads = sinSZARads;
+        copy.cosOZARads = cosOZARads;
+        copy.airMass = airMass;
+        return copy;
+    }
+
     public static void initDefaultAuxiliary() throws IOException, ParseException {
         ElevationModelDescriptor getasse30 = ElevationModelRegistry.getInstance().getDescriptor(GETASSE_30);
         elevationModel = getasse30.createDem(Resampling.NEAREST_NEIGHBOUR);
@@ -162,22 +217,51 @@ public class RayleighAux {
         this.altitudes = alt;
     }
 
-    public Map<Integer, List<double[]>> getInterpolation() {
-        if (Objects.isNull(interpolateMap)) {
-            interpolateMap = getSpikeInterpolation();
+    /**
+     * Returns the coefficients a, b, c and d of the multiple scattering correction, interpolated from the LUT
+     * for the geometry of each pixel. They depend on the geometry only and are therefore computed once and
+     * shared by all bands. The value of coefficient {@code c} of Fourier term {@code t} of pixel {@code i} is at
+     * {@code (i * NUM_FOURIER_TERMS + t) * NUM_INTERPOLATION_COEFFS + c}.
+     */
+    public double[] getInterpolation() {
+        if (Objects.isNull(interpolation)) {
+            computeSpikeInterpolation();
         }
-        return interpolateMap;
+        return interpolation;
+    }
+
+    /**
+     * @return {@code false} if no coefficients could be interpolated for the pixel, because its geometry is invalid
+     */
+    public boolean hasInterpolation(int index) {
+        if (Objects.isNull(interpolation)) {
+            computeSpikeInterpolation();
+        }
+        return interpolationValid[index];
     }
 
     //for test only
     void setInterpolation(HashMap<Integer, List<double[]>> integerHashMap) {
-        this.interpolateMap = integerHashMap;
+        final int length = getSunZenithAngles().length;
+        interpolation = new double[length * NUM_FOURIER_TERMS * NUM_INTERPOLATION_COEFFS];
+        interpolationValid = new boolean[length];
+        for (Map.Entry<Integer, List<double[]>> entry : integerHashMap.entrySet()) {
+            final int index = entry.getKey();
+            final List<double[]> valueList = entry.getValue();
+            interpolationValid[index] = !valueList.isEmpty();
+            for (int i = 0; i < valueList.size(); i++) {
+                System.arraycopy(valueList.get(i), 0, interpolation,
+                                 (index * NUM_FOURIER_TERMS + i) * NUM_INTERPOLATION_COEFFS, NUM_INTERPOLATION_COEFFS);
+            }
+        }
     }
 
-    private Map<Integer, List<double[]>> getSpikeInterpolation() {
+    private void computeSpikeInterpolation() {
         double[] sunZenithAngles = getSunZenithAngles();
         double[] viewZenithAngles = getViewZenithAngles();
-        Map<Integer, List<double[]>> interpolate = new HashMap<>();
+        final int length = Objects.nonNull(sunZenithAngles) ? sunZenithAngles.length : 0;
+        final double[] values = new double[length * NUM_FOURIER_TERMS * NUM_INTERPOLATION_COEFFS];
+        final boolean[] valid = new boolean[length];
 
         if (Objects.nonNull(sunZenithAngles) && Objects.nonNull(viewZenithAngles)) {
             for (int index = 0; index < sunZenithAngles.length; index++) {
@@ -186,24 +270,27 @@ public class RayleighAux {
                 if (Double.isNaN(szaVal) || Double.isNaN(vzaVal)) {
                     continue;
                 }
-                List<double[]> valueList = new ArrayList<>();
                 for (int i = 0; i < rayCoeffMatrixA.length; i++) {
-                    double[] values = new double[4];
-                    values[0] = SpikeInterpolation.interpolate2D(rayCoeffMatrixA[i], thetas, thetas, szaVal, vzaVal);
-                    values[1] = SpikeInterpolation.interpolate2D(rayCoeffMatrixB[i], thetas, thetas, szaVal, vzaVal);
-                    values[2] = SpikeInterpolation.interpolate2D(rayCoeffMatrixC[i], thetas, thetas, szaVal, vzaVal);
-                    values[3] = SpikeInterpolation.interpolate2D(rayCoeffMatrixD[i], thetas, thetas, szaVal, vzaVal);
-                    valueList.add(values);
+                    final int offset = (index * NUM_FOURIER_TERMS + i) * NUM_INTERPOLATION_COEFFS;
+                    values[offset] = SpikeInterpolation.interpolate2D(rayCoeffMatrixA[i], thetas, thetas, szaVal, vzaVal);
+                    values[offset + 1] = SpikeInterpolation.interpolate2D(rayCoeffMatrixB[i], thetas, thetas, szaVal, vzaVal);
+                    values[offset + 2] = SpikeInterpolation.interpolate2D(rayCoeffMatrixC[i], thetas, thetas, szaVal, vzaVal);
+                    values[offset + 3] = SpikeInterpolation.interpolate2D(rayCoeffMatrixD[i], thetas, thetas, szaVal, vzaVal);
                 }
-                interpolate.put(index, valueList);
+                valid[index] = true;
             }
         }
-        return interpolate;
+        interpolation = values;
+        interpolationValid = valid;
     }
 
-    Map<Integer, double[]> getFourier() {
+    /**
+     * Returns the Fourier terms of the Rayleigh phase function; term {@code t} of pixel {@code i} is at
+     * {@code i * NUM_FOURIER_TERMS + t}.
+     */
+    double[] getFourier() {
         if (Objects.isNull(fourierPoly)) {
-            return fourierPoly = getFourierMap();
+            return fourierPoly = getFourierArray();
         }
         return fourierPoly;
     }
@@ -509,9 +596,8 @@ public class RayleighAux {
         return values;
     }
 
-    private Map<Integer, double[]> getFourierMap() {
+    private double[] getFourierArray() {
         // Fourier components of multiple scattering
-        Map<Integer, double[]> fourierPoly = new HashMap<>();
         double[] sunZenithAnglesRad = getSunZenithAnglesRad();
         double[] viewZenithAnglesRad = getViewZenithAnglesRad();
 
@@ -525,6 +611,7 @@ public class RayleighAux {
         double[] sinSZA2s = getSquarePower(sinSZARads);
 
         if (Objects.nonNull(sunZenithAnglesRad) && Objects.nonNull(viewZenithAnglesRad)) {
+            double[] fourierPoly = new double[sunZenithAnglesRad.length * NUM_FOURIER_TERMS];
             for (int index = 0; index < sunZenithAnglesRad.length; index++) {
                 double cosSZARad = cosSZARads[index];
                 double cosOZARad = cosOZARads[index];
@@ -535,13 +622,11 @@ public class RayleighAux {
                 double sinSZA2 = sinSZA2s[index];
                 double sinOZA2 = sinOZA2s[index];
 
-                double[] fourierSeries = new double[3];
+                final int offset = index * NUM_FOURIER_TERMS;
                 //Rayleigh Phase function, 3 Fourier terms
-                fourierSeries[0] = (3.0 * 0.9587256 / 4.0 * (1 + Math.pow(cosSZARad, 2) * Math.pow(cosOZARad, 2) + (sinSZA2 * sinOZA2) / 2.0) + (1.0 - 0.9587256));
-                fourierSeries[1] = (-3.0 * 0.9587256 / 4.0 * cosSZARad * cosOZARad * sinSZARad * sinOZARad);
-                fourierSeries[2] = (3.0 * 0.9587256 / 16.0 * sinSZA2 * sinOZA2);
-
-                fourierPoly.put(index, fourierSeries);
+                fourierPoly[offset] = (3.0 * 0.9587256 / 4.0 * (1 + Math.pow(cosSZARad, 2) * Math.pow(cosOZARad, 2) + (sinSZA2 * sinOZA2) / 2.0) + (1.0 - 0.9587256));
+                fourierPoly[offset + 1] = (-3.0 * 0.9587256 / 4.0 * cosSZARad * cosOZARad * sinSZARad * sinOZARad);
+                fourierPoly[offset + 2] = (3.0 * 0.9587256 / 16.0 * sinSZA2 * sinOZA2);
             }
             return fourierPoly;
 
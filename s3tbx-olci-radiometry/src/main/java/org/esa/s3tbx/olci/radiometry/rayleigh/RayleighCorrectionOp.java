@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.esa.s3tbx.olci.radiometry.SensorConstants.MERIS_4TH_OZONE_NAME;
 import static org.esa.s3tbx.olci.radiometry.SensorConstants.MERIS_4TH_SAA_NAME;
@@ -144,6 +145,11 @@ public class RayleighCorrectionOp extends Operator {
     @Parameter(defaultValue = "300.0", label = "Ozone in DU (S2 MSI only)")
     private double s2MsiOzone;
 
+    @Parameter(defaultValue = "1", interval = "[1,*]", label = "Maximum number of bands computed in parallel per tile",
+            description = "If greater than 1, the bands of a tile are computed in parallel on a pool of this size, " +
+                    "in addition to the parallel computation of tiles.")
+    private int bandParallelism;
+
 
     // for debugging set to true
     private final boolean addRrayDebug = false;
@@ -155,6 +161,7 @@ public class RayleighCorrectionOp extends Operator {
     private double[] crossSectionSigma;
 
     private Product productToProcess;
+    private ForkJoinPool bandPool;
 
 
     @Override
@@ -208,6 +215,9 @@ public class RayleighCorrectionOp extends Operator {
             pm.worked(1);
             RayleighAux.initDefaultAuxiliary();
             pm.worked(1);
+            if (bandParallelism > 1) {
+                bandPool = new ForkJoinPool(bandParallelism);
+            }
         } catch (IOException | ParseException e) {
             throw new OperatorException("Could not initialize default auxiliary data", e);
         } finally {
@@ -219,74 +229,98 @@ public class RayleighCorrectionOp extends Operator {
     public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
         checkForCancellation();
 
-        Set<Map.Entry<Band, Tile>> entries = targetTiles.entrySet();
-        entries.forEach(targetTileStream -> {
-            Tile targetTile = targetTileStream.getValue();
-            Band targetBand = targetTileStream.getKey();
-
-            String targetBandName = targetBand.getName();
-            double[] targetData = null;
-
-            Tile qualityFlagsTile = null;
-            final String l1bFlagsName = sensor.getL1bFlagsName();
-            if (l1bFlagsName != null) {
-                qualityFlagsTile = getSourceTile(productToProcess.getBand(l1bFlagsName), targetRectangle);
+        Tile qualityFlagsTile = null;
+        final String l1bFlagsName = sensor.getL1bFlagsName();
+        if (l1bFlagsName != null) {
+            qualityFlagsTile = getSourceTile(productToProcess.getBand(l1bFlagsName), targetRectangle);
+        }
+        // the geometry and everything derived from it (air mass, Fourier terms, LUT interpolation) depends on the
+        // rectangle only, so it is computed once and shared by all bands; the band specific data is set per band
+        final RayleighAux rayleighAux = createAuxiliary(productToProcess, sensor, targetRectangle);
+
+        final Set<Map.Entry<Band, Tile>> entries = targetTiles.entrySet();
+        if (bandPool == null) {
+            for (Map.Entry<Band, Tile> entry : entries) {
+                computeBand(entry.getKey(), entry.getValue(), targetRectangle, rayleighAux, qualityFlagsTile);
             }
-            RayleighAux rayleighAux = createAuxiliary(productToProcess, sensor, targetRectangle);
+        } else {
+            // the lazily derived geometry data is computed before the bands are forked,
+            // each band then works on its own copy which shares the geometry arrays
+            rayleighAux.computeGeometryData(computeTaur || computeRBrr, computeRBrr);
+            final Tile flagsTile = qualityFlagsTile;
+            bandPool.submit(() -> entries.parallelStream().forEach(
+                    entry -> computeBand(entry.getKey(), entry.getValue(), targetRectangle,
+                                         rayleighAux.copyGeometry(), flagsTile))).join();
+        }
+    }
 
-            if (targetBandName.equals(AIRMASS) && addAirMass) {
-                targetData = rayleighAux.getAirMass();
-                setTargetSamples(qualityFlagsTile, targetTile, targetData);
-            }
+    private void computeBand(Band targetBand, Tile targetTile, Rectangle targetRectangle, RayleighAux rayleighAux,
+                             Tile qualityFlagsTile) {
+        String targetBandName = targetBand.getName();
+        double[] targetData = null;
 
-            final int sourceBandIndex = getSourceBandIndex(targetBandName);
-            // note that sourceBandIndex is 8 for both S2 B8 and B8A!
-            if (sourceBandIndex != -1) {
-                double[] rayleighOpticalThickness;
-                addAuxiliaryData(productToProcess, rayleighAux, targetRectangle, sourceBandIndex, targetBandName);
+        if (targetBandName.equals(AIRMASS) && addAirMass) {
+            // copied, because invalid pixels are masked in place and the air mass is used by the other bands
+            targetData = rayleighAux.getAirMass().clone();
+            setTargetSamples(qualityFlagsTile, targetTile, targetData);
+        }
 
-                if (targetBandNameMatches(targetBandName, RTOA_PATTERN) && computeRtoa) {
-                    if (sensor == Sensor.S2_MSI) {
-                        targetData = rayleighAux.getSourceSampleRad();
-                    } else {
-                        targetData = getReflectance(rayleighAux);
-                    }
-                } else if (targetBandNameMatches(targetBandName, TAUR_PATTERN) && computeTaur) {
-                    targetData = algorithm.getRayleighThickness(rayleighAux, crossSectionSigma, sourceBandIndex, targetBandName);
-                } else if (computeRBrr || computeRtoaNg) {
-                    double[] reflectance;
-                    if (sensor == Sensor.S2_MSI) {
-                        reflectance = rayleighAux.getSourceSampleRad();
-                    } else {
-                        reflectance = getReflectance(rayleighAux);
-                    }
+        final int sourceBandIndex = getSourceBandIndex(targetBandName);
+        // note that sourceBandIndex is 8 for both S2 B8 and B8A!
+        if (sourceBandIndex != -1) {
+            double[] rayleighOpticalThickness;
+            addAuxiliaryData(productToProcess, rayleighAux, targetRectangle, sourceBandIndex, targetBandName);
+
+            if (targetBandNameMatches(targetBandName, RTOA_PATTERN) && computeRtoa) {
+                if (sensor == Sensor.S2_MSI) {
+                    targetData = rayleighAux.getSourceSampleRad();
+                } else {
+                    targetData = getReflectance(rayleighAux);
+                }
+            } else if (targetBandNameMatches(targetBandName, TAUR_PATTERN) && computeTaur) {
+                targetData = algorithm.getRayleighThickness(rayleighAux, crossSectionSigma, sourceBandIndex, targetBandName);
+            } else if (computeRBrr || computeRtoaNg) {
+                double[] reflectance;
+                if (sensor == Sensor.S2_MSI) {
+                    reflectance = rayleighAux.getSourceSampleRad();
+                } else {
+                    reflectance = getReflectance(rayleighAux);
+                }
 
-                    if (isWavelength709(rayleighAux.getWaveLength())) {
-                        reflectance = waterVaporCorrection709(reflectance, targetRectangle, sensor);
-                    }
-                    double[] corrOzoneRefl = getCorrectOzone(rayleighAux, reflectance, sourceBandIndex, targetBandName);
-                    if (targetBandNameMatches(targetBandName, RTOA_NG_PATTERN) && computeRtoaNg) {
+                if (isWavelength709(rayleighAux.getWaveLength())) {
+                    reflectance = waterVaporCorrection709(reflectance, targetRectangle, sensor);
+                }
+                double[] corrOzoneRefl = getCorrectOzone(rayleighAux, reflectance, sourceBandIndex, targetBandName);
+                if (targetBandNameMatches(targetBandName, RTOA_NG_PATTERN) && computeRtoaNg) {
+                    targetData = corrOzoneRefl;
+                }
+                if (targetBandNameMatches(targetBandName, R_BRR_PATTERN) && computeRBrr) {
+                    if (sensor == Sensor.S2_MSI && sourceBandIndex >= 10) {
+                        // skip B10-12 before we better know what to do
                         targetData = corrOzoneRefl;
-                    }
-                    if (targetBandNameMatches(targetBandName, R_BRR_PATTERN) && computeRBrr) {
-                        if (sensor == Sensor.S2_MSI && sourceBandIndex >= 10) {
-                            // skip B10-12 before we better know what to do
-                            targetData = corrOzoneRefl;
-                        } else {
-                            rayleighOpticalThickness = algorithm.getRayleighThickness(rayleighAux, crossSectionSigma, sourceBandIndex, targetBandName);
-                            targetData = getRhoBrr(rayleighAux, rayleighOpticalThickness, corrOzoneRefl);
-                        }
-                    }
-                    if (addRrayDebug && targetBandNameMatches(targetBandName, RRAY_PATTERN) && computeRBrr) {
-                        //for debugging.
+                    } else {
                         rayleighOpticalThickness = algorithm.getRayleighThickness(rayleighAux, crossSectionSigma, sourceBandIndex, targetBandName);
-                        targetData = getRhoRayleigh(rayleighAux, rayleighOpticalThickness, corrOzoneRefl);
+                        targetData = getRhoBrr(rayleighAux, rayleighOpticalThickness, corrOzoneRefl);
                     }
                 }
-
-                setTargetSamples(qualityFlagsTile, targetTile, targetData);
+                if (addRrayDebug && targetBandNameMatches(targetBandName, RRAY_PATTERN) && computeRBrr) {
+                    //for debugging.
+                    rayleighOpticalThickness = algorithm.getRayleighThickness(rayleighAux, crossSectionSigma, sourceBandIndex, targetBandName);
+                    targetData = getRhoRayleigh(rayleighAux, rayleighOpticalThickness, corrOzoneRefl);
+                }
             }
-        });
+
+            setTargetSamples(qualityFlagsTile, targetTile, targetData);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (bandPool != null) {
+            bandPool.shutdown();
+            bandPool = null;
+        }
+        super.dispose();
     }
 
     private boolean isWavelength709(double waveLength) {
@@ -26,6 +26,8 @@ import java.nio.file.Path;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -58,6 +60,39 @@ public class RayleighAuxTest {
 
     }
 
+    @Test
+    public void testCopyGeometry() throws Exception {
+        rayleighAux.computeGeometryData(true, false);
+        rayleighAux.setWavelength(412.5f);
+        rayleighAux.setSolarFluxs(angleTwo);
+
+        final RayleighAux copy = rayleighAux.copyGeometry();
+        copy.setWavelength(442.5f);
+
+        assertSame(rayleighAux.getAirMass(), copy.getAirMass());
+        assertSame(rayleighAux.getCosSZARads(), copy.getCosSZARads());
+        assertSame(rayleighAux.getAltitudes(), copy.getAltitudes());
+        assertEquals(412.5, rayleighAux.getWaveLength(), 1e-6);
+        assertEquals(442.5, copy.getWaveLength(), 1e-6);
+        assertNull(copy.getSolarFluxs());
+    }
+
+    @Test
+    public void testGetFourierIsFlatPerPixel() throws Exception {
+        final double[] fourier = rayleighAux.getFourier();
+        assertEquals(angleOne.length * RayleighAux.NUM_FOURIER_TERMS, fourier.length);
+
+        final double cosSZA = rayleighAux.getCosSZARads()[2];
+        final double sinSZA = rayleighAux.getSinSZARads()[2];
+        final double sinSZA2 = sinSZA * sinSZA;
+        // pixel 2 has the same sun and view zenith angles
+        assertEquals(3.0 * 0.9587256 / 4.0 * (1 + Math.pow(cosSZA, 4) + sinSZA2 * sinSZA2 / 2.0) + (1.0 - 0.9587256),
+                     fourier[2 * RayleighAux.NUM_FOURIER_TERMS], 1e-8);
+        assertEquals(-3.0 * 0.9587256 / 4.0 * cosSZA * cosSZA * sinSZA * sinSZA,
+                     fourier[2 * RayleighAux.NUM_FOURIER_TERMS + 1], 1e-8);
+        assertEquals(3.0 * 0.9587256 / 16.0 * sinSZA2 * sinSZA2, fourier[2 * RayleighAux.NUM_FOURIER_TERMS + 2], 1e-8);
+    }
+
     @Test
     public void testGetCosSZA() throws Exception {
         assertArrayEquals(angleOne, rayleighAux.getSunZenithAngles(), 1e-8);
@@ -171,14 +171,15 @@ public class RayleighCorrAlgorithmTest {
 
     @Test
     public void testGetRho() {
-        ArrayList<double[]> interpolateValues = getInterpolationValues();
+        double[] interpolateValues = {1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0, 11.0, 12.0};
 
         double rayleighOpticalThickness = 1.0;
         double massAir = 1.0;
         double cosOZARad = 1.5;
         double cosSZARad = 1.5;
         double[] fourierSeriesCof = {1.2, 2.2, 3.0};
-        double[] fourierSeriesExpected = algo.getFourierSeries(rayleighOpticalThickness, massAir, cosOZARad, cosSZARad, interpolateValues, fourierSeriesCof);
+        double[] fourierSeriesExpected = new double[3];
+        algo.getFourierSeries(rayleighOpticalThickness, massAir, cosOZARad, cosSZARad, interpolateValues, fourierSeriesCof, 0, fourierSeriesExpected);
 
         assertEquals(3, fourierSeriesExpected.length);
         assertEquals(0.6321, fourierSeriesExpected[0], 1e-4);
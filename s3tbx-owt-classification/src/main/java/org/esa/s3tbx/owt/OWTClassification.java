@@ -102,19 +102,23 @@ public class OWTClassification {
             }
             double x = zSquare / 2.0;   // no idea why this is needed. Even Tim doesn't have
             double chiSquare = wavelengthCount / 2.0;
-            if (x <= (chiSquare + 1.0)) {
-                double gamma = computeIGFSeries(chiSquare, x);
-                alphaChi[i] = 1.0 - gamma;
-            } else {
-                double gamma = computeIGFContinuedFraction(chiSquare, x);
-                alphaChi[i] = gamma;
-            }
+            alphaChi[i] = computeSurvival(chiSquare, x);
         }
 
         return alphaChi;
 
     }
 
+    // Computes the complement of the regularized incomplete gamma function, i.e. the chi-square survival function
+    static double computeSurvival(double chiSquare, double x) throws OWTException {
+        if (x <= (chiSquare + 1.0)) {
+            double gamma = computeIGFSeries(chiSquare, x);
+            return 1.0 - gamma;
+        } else {
+            return computeIGFContinuedFraction(chiSquare, x);
+        }
+    }
+
     // Computes the incomplete gamma function by its continued fraction
     private static double computeIGFContinuedFraction(double a, double x) throws OWTException {
         final double min = 1.0e-30;
@@ -0,0 +1,267 @@
+/*
+ *
+ *  * Copyright (C) 2012 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *  *
+ *  * This program is free software; you can redistribute it and/or modify it
+ *  * under the terms of the GNU General Public License as published by the Free
+ *  * Software Foundation; either version 3 of the License, or (at your option)
+ *  * any later version.
+ *  * This program is distributed in the hope that it will be useful, but WITHOUT
+ *  * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *  * more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License along
+ *  * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package org.esa.s3tbx.owt;
+
+import com.bc.ceres.core.Assert;
+
+/**
+ * A precompiled form of {@link OWTClassification}.
+ * <p>
+ * The class means and the Cholesky factors of the inverted covariance matrices are stored in a single flat array,
+ * so that the squared Mahalanobis distance of a class is the squared norm of the factor applied to the difference
+ * vector. The chi-square survival function is looked up from a table of its logarithm, which is linearly interpolated.
+ * Distances close to zero, where the logarithm is not smooth for one and three wavelengths, and distances beyond the
+ * table are computed exactly. The memberships agree with those of {@link OWTClassification} to a relative accuracy
+ * of {@value #RELATIVE_ACCURACY}.
+ * <p>
+ * The computation methods do not allocate memory, and instances can be shared between threads.
+ */
+public final class OWTClassificationKernel {
+
+    static final double RELATIVE_ACCURACY = 1.0e-6;
+
+    private static final int TABLE_STEPS_PER_UNIT = 512;
+    // distance beyond the chi-square value up to which the survival function is tabulated
+    private static final double TABLE_EXTENT = 64.0;
+    // below this value the survival function is computed exactly
+    private static final double TABLE_START = 0.5;
+
+    private final int wavelengthCount;
+    private final int classCount;
+    private final double chiSquare;
+    // per class: the mean spectrum followed by either the packed rows of the upper triangular factor U,
+    // with U^T U equal to the inverted covariance matrix, or, if the matrix is not positive definite, the full matrix
+    private final double[] classData;
+    private final int[] classOffsets;
+    private final boolean[] factorized;
+    private final double[] logSurvivalTable;
+    private final double tableLimit;
+
+    /**
+     * Creates the kernel. The parameters are the same as for {@link OWTClassification}.
+     *
+     * @param reflectanceMeans       a two dimensional array specifying the mean spectrum for each class.
+     *                               The first dimension specifies the number of bands,
+     *                               the second specifies the number of classes.
+     * @param invertedClassCovMatrix a three dimensional array.
+     *                               The first dimension specifies the number of classes,
+     *                               the second and third dimensions build up the squared matrix defined by
+     *                               the number of wavelength.
+     */
+    public OWTClassificationKernel(double[][] reflectanceMeans, double[][][] invertedClassCovMatrix) {
+        wavelengthCount = reflectanceMeans.length;
+        classCount = reflectanceMeans[0].length;
+        final String pattern = "Number of %s of reflectanceMeans [%d] and invertedClassCovMatrix [%d] do not match.";
+        Assert.argument(invertedClassCovMatrix.length == classCount,
+                        String.format(pattern, "classes", classCount, invertedClassCovMatrix.length));
+        Assert.argument(invertedClassCovMatrix[0].length == wavelengthCount,
+                        String.format(pattern, "wavelength", wavelengthCount, invertedClassCovMatrix[0].length));
+
+        final int n = wavelengthCount;
+        classOffsets = new int[classCount + 1];
+        factorized = new boolean[classCount];
+        final double[][] factors = new double[classCount][];
+        for (int i = 0; i < classCount; i++) {
+            factors[i] = computeUpperCholeskyFactor(invertedClassCovMatrix[i]);
+            factorized[i] = factors[i] != null;
+            final int matrixSize = factorized[i] ? n * (n + 1) / 2 : n * n;
+            classOffsets[i + 1] = classOffsets[i] + n + matrixSize;
+        }
+        classData = new double[classOffsets[classCount]];
+        for (int i = 0; i < classCount; i++) {
+            int index = classOffsets[i];
+            for (int j = 0; j < n; j++) {
+                classData[index++] = reflectanceMeans[j][i];
+            }
+            if (factorized[i]) {
+                System.arraycopy(factors[i], 0, classData, index, factors[i].length);
+            } else {
+                for (int j = 0; j < n; j++) {
+                    System.arraycopy(invertedClassCovMatrix[i][j], 0, classData, index, n);
+                    index += n;
+                }
+            }
+        }
+
+        chiSquare = n / 2.0;
+        tableLimit = chiSquare + TABLE_EXTENT;
+        logSurvivalTable = createLogSurvivalTable(chiSquare, tableLimit);
+    }
+
+    /**
+     * The number of bands used by the classification.
+     *
+     * @return the number bands used.
+     */
+    public int getWavelengthCount() {
+        return wavelengthCount;
+    }
+
+    /**
+     * The number of classes computed by the classification.
+     *
+     * @return the number classes computed.
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Computes the fractional class memberships for the given spectrum.
+     *
+     * @param reflectances The spectrum to compute the class memberships for.
+     *                     The length of the spectrum must be equal to {@link #getWavelengthCount()}
+     * @param memberships  The array receiving the fractional class memberships. Its length must be equal to
+     *                     {@link #getClassCount()}
+     * @throws OWTException if the memberships can not be computed for the spectrum
+     */
+    public void computeClassMemberships(double[] reflectances, double[] memberships) throws OWTException {
+        final String pattern = "Number of %s must be %d but is %d.";
+        Assert.argument(reflectances.length == wavelengthCount,
+                        String.format(pattern, "reflectances", wavelengthCount, reflectances.length));
+        Assert.argument(memberships.length == classCount,
+                        String.format(pattern, "memberships", classCount, memberships.length));
+        computeClassMemberships(reflectances, 0, memberships, 0);
+    }
+
+    /**
+     * Computes the fractional class memberships for a number of spectra, e.g. the pixels of a tile.
+     * Pixels for which the memberships can not be computed get memberships of {@code NaN}.
+     *
+     * @param reflectances The spectra, pixel interleaved, i.e. the reflectance of wavelength {@code j} of pixel
+     *                     {@code p} is at index {@code p * getWavelengthCount() + j}
+     * @param valid        Optional mask of the pixels to compute, may be {@code null}. Invalid pixels get
+     *                     memberships of {@code NaN}.
+     * @param pixelCount   The number of pixels
+     * @param memberships  The array receiving the fractional class memberships, pixel interleaved like the spectra
+     */
+    public void computeClassMemberships(double[] reflectances, boolean[] valid, int pixelCount, double[] memberships) {
+        Assert.argument(reflectances.length >= pixelCount * wavelengthCount, "reflectances too short");
+        Assert.argument(memberships.length >= pixelCount * classCount, "memberships too short");
+        for (int p = 0; p < pixelCount; p++) {
+            final int membershipOffset = p * classCount;
+            boolean computed = false;
+            if (valid == null || valid[p]) {
+                try {
+                    computeClassMemberships(reflectances, p * wavelengthCount, memberships, membershipOffset);
+                    computed = true;
+                } catch (OWTException ignored) {
+                    // pixel is marked as not computable below
+                }
+            }
+            if (!computed) {
+                for (int i = 0; i < classCount; i++) {
+                    memberships[membershipOffset + i] = Double.NaN;
+                }
+            }
+        }
+    }
+
+    private void computeClassMemberships(double[] reflectances, int reflectanceOffset,
+                                         double[] memberships, int membershipOffset) throws OWTException {
+        final int n = wavelengthCount;
+        for (int i = 0; i < classCount; i++) {
+            final int meanOffset = classOffsets[i];
+            final int matrixOffset = meanOffset + n;
+            double zSquare = 0.0;
+            if (factorized[i]) {
+                // z = U * (r - mean), zSquare = |z|^2
+                int index = matrixOffset;
+                for (int j = 0; j < n; j++) {
+                    double z = 0.0;
+                    for (int k = j; k < n; k++) {
+                        z += classData[index++] * (reflectances[reflectanceOffset + k] - classData[meanOffset + k]);
+                    }
+                    zSquare += z * z;
+                }
+            } else {
+                int index = matrixOffset;
+                for (int j = 0; j < n; j++) {
+                    double b = 0.0;
+                    for (int k = 0; k < n; k++) {
+                        b += classData[index++] * (reflectances[reflectanceOffset + k] - classData[meanOffset + k]);
+                    }
+                    zSquare += (reflectances[reflectanceOffset + j] - classData[meanOffset + j]) * b;
+                }
+            }
+            memberships[membershipOffset + i] = computeSurvival(zSquare / 2.0);
+        }
+    }
+
+    private double computeSurvival(double x) throws OWTException {
+        if (x >= TABLE_START && x < tableLimit) {
+            final double position = x * TABLE_STEPS_PER_UNIT;
+            final int index = (int) position;
+            final double weight = position - index;
+            final double logSurvival = logSurvivalTable[index] +
+                                       weight * (logSurvivalTable[index + 1] - logSurvivalTable[index]);
+            return Math.exp(logSurvival);
+        }
+        if (!(x >= 0.0)) {
+            throw new OWTException("x must be greater or equal to zero");
+        }
+        return OWTClassification.computeSurvival(chiSquare, x);
+    }
+
+    private static double[] createLogSurvivalTable(double chiSquare, double tableLimit) {
+        final int size = (int) Math.ceil(tableLimit * TABLE_STEPS_PER_UNIT) + 2;
+        final double[] table = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double x = (double) i / TABLE_STEPS_PER_UNIT;
+            try {
+                table[i] = Math.log(OWTClassification.computeSurvival(chiSquare, x));
+            } catch (OWTException e) {
+                throw new IllegalArgumentException("Unable to tabulate chi-square distribution for " +
+                                                   2 * chiSquare + " degrees of freedom", e);
+            }
+        }
+        return table;
+    }
+
+    // Returns the packed rows of U with U^T U = A, using the symmetric part of A,
+    // or null if A is not positive definite.
+    private static double[] computeUpperCholeskyFactor(double[][] matrix) {
+        final int n = matrix.length;
+        final double[][] l = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int k = 0; k <= j; k++) {
+                double sum = 0.5 * (matrix[j][k] + matrix[k][j]);
+                for (int m = 0; m < k; m++) {
+                    sum -= l[j][m] * l[k][m];
+                }
+                if (j == k) {
+                    if (!(sum > 0.0)) {
+                        return null;
+                    }
+                    l[j][j] = Math.sqrt(sum);
+                } else {
+                    l[j][k] = sum / l[k][k];
+                }
+            }
+        }
+        final double[] packed = new double[n * (n + 1) / 2];
+        int index = 0;
+        for (int j = 0; j < n; j++) {
+            for (int k = j; k < n; k++) {
+                packed[index++] = l[k][j];
+            }
+        }
+        return packed;
+    }
+}
@@ -65,7 +65,9 @@ public class OWTClassificationOp extends PixelOperator {
     @Parameter(defaultValue = "false")
     private boolean writeInputReflectances;
 
-    private OWTClassification owtClassification;
+    private OWTClassificationKernel classificationKernel;
+    private ThreadLocal<double[][]> pixelBuffers;
+    private double[] normalizationWavelengths;
     private Auxdata auxdata;
 
     private void setTargetSamplesToInvalid(WritableSample[] targetSamples, int numClassSamples) {
@@ -77,12 +79,7 @@ public class OWTClassificationOp extends PixelOperator {
     }
 
     private void normalizeSpectra(double[] rrsBelowWater) {
-        double wls[] = new double[owtType.getWavelengths().length];
-        for (int i = 0; i < wls.length; i++) {
-            wls[i] = owtType.getWavelengths()[i];
-        }
-
-        double integral = trapz(wls, rrsBelowWater);
+        double integral = trapz(normalizationWavelengths, rrsBelowWater);
 
         for (int i = 0; i < rrsBelowWater.length; i++) {
             rrsBelowWater[i] /= integral;
@@ -247,10 +244,14 @@ public class OWTClassificationOp extends PixelOperator {
 
     @Override
     protected void configureSourceSamples(SourceSampleConfigurer sampleConfigurer) throws OperatorException {
-        owtClassification = new OWTClassification(auxdata.getSpectralMeans(),
-                                                  auxdata.getInvertedCovarianceMatrices());
+        classificationKernel = new OWTClassificationKernel(auxdata.getSpectralMeans(),
+                                                           auxdata.getInvertedCovarianceMatrices());
         float[] wavelengths = owtType.getWavelengths();
+        final int classCount = classificationKernel.getClassCount();
+        pixelBuffers = ThreadLocal.withInitial(() -> new double[][]{new double[wavelengths.length], new double[classCount]});
+        normalizationWavelengths = new double[wavelengths.length];
         for (int i = 0; i < wavelengths.length; i++) {
+            normalizationWavelengths[i] = wavelengths[i];
             final String bandName = getSourceBandName(reflectancesPrefix, wavelengths[i]);
             sampleConfigurer.defineSample(i, bandName);
         }
@@ -283,7 +284,8 @@ public class OWTClassificationOp extends PixelOperator {
             return;
         }
 
-        double[] rrsBelowWater = new double[numWLs];
+        final double[][] buffers = pixelBuffers.get();
+        double[] rrsBelowWater = buffers[0];
         for (int i = 0; i < numWLs; i++) {
             rrsBelowWater[i] = convertToSubsurfaceWaterRrs(sourceSamples[i].getDouble());
             if (inputReflectanceIs == ReflectanceEnum.IRRADIANCE_REFLECTANCES) {
@@ -297,9 +299,9 @@ public class OWTClassificationOp extends PixelOperator {
             normalizeSpectra(rrsBelowWater);
         }
 
-        double[] classMemberships;
+        double[] classMemberships = buffers[1];
         try {
-            classMemberships = owtClassification.computeClassMemberships(rrsBelowWater);
+            classificationKernel.computeClassMemberships(rrsBelowWater, classMemberships);
         } catch (OWTException e) {
             setTargetSamplesToInvalid(targetSamples, numClassSamples);
             return;
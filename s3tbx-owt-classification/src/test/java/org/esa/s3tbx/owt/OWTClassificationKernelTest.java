@@ -0,0 +1,139 @@
+/*
+ *
+ *  * Copyright (C) 2012 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *  *
+ *  * This program is free software; you can redistribute it and/or modify it
+ *  * under the terms of the GNU General Public License as published by the Free
+ *  * Software Foundation; either version 3 of the License, or (at your option)
+ *  * any later version.
+ *  * This program is distributed in the hope that it will be useful, but WITHOUT
+ *  * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *  * more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License along
+ *  * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package org.esa.s3tbx.owt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class OWTClassificationKernelTest {
+
+    private Auxdata auxdata;
+
+    @Before
+    public void setup() throws Exception {
+        auxdata = new CoastalAuxdataFactory("/auxdata/coastal/owt16_meris_stats_101119_5band.hdf").createAuxdata();
+    }
+
+    @Test
+    public void testFuzzyResults() throws OWTException {
+        final double[] reflectances = {0.0307, 0.0414, 0.0500, 0.0507, 0.0454};
+        final OWTClassificationKernel kernel = new OWTClassificationKernel(auxdata.getSpectralMeans(),
+                                                                           auxdata.getInvertedCovarianceMatrices());
+        assertEquals(5, kernel.getWavelengthCount());
+        assertEquals(16, kernel.getClassCount());
+
+        final double[] classMembershipProbability = new double[kernel.getClassCount()];
+        kernel.computeClassMemberships(reflectances, classMembershipProbability);
+
+        // these values are validated by algorithm provider Timothy Moore
+        final double[] expectedValues = new double[]{
+                0.0, 0.0, 0.0, 0.0,
+                0.0, 0.0, 0.0, 0.0,
+                0.0, 0.0, 0.0, 0.0,
+                0.0, 0.024374, 0.083183, 0.199592
+        };
+        for (int i = 0; i < classMembershipProbability.length; i++) {
+            assertEquals(expectedValues[i], classMembershipProbability[i], 1.0e-5);
+        }
+    }
+
+    @Test
+    public void testAgreesWithOWTClassification() throws OWTException {
+        final double[][] means = auxdata.getSpectralMeans();
+        final OWTClassification classification = new OWTClassification(means, auxdata.getInvertedCovarianceMatrices());
+        final OWTClassificationKernel kernel = new OWTClassificationKernel(means, auxdata.getInvertedCovarianceMatrices());
+        final int wavelengthCount = kernel.getWavelengthCount();
+        final int classCount = kernel.getClassCount();
+
+        final int pixelCount = 500;
+        final double[] spectra = new double[pixelCount * wavelengthCount];
+        final Random random = new Random(42);
+        for (int p = 0; p < pixelCount; p++) {
+            final int meanClass = p % classCount;
+            final double noise = 0.2 * random.nextDouble();
+            for (int j = 0; j < wavelengthCount; j++) {
+                spectra[p * wavelengthCount + j] = means[j][meanClass] * (1.0 + noise * random.nextGaussian());
+            }
+        }
+        final boolean[] valid = new boolean[pixelCount];
+        valid[0] = true;
+        for (int p = 2; p < pixelCount; p++) {
+            valid[p] = true;
+        }
+
+        final double[] memberships = new double[pixelCount * classCount];
+        kernel.computeClassMemberships(spectra, valid, pixelCount, memberships);
+
+        final double[] spectrum = new double[wavelengthCount];
+        for (int p = 0; p < pixelCount; p++) {
+            System.arraycopy(spectra, p * wavelengthCount, spectrum, 0, wavelengthCount);
+            final double[] expected = classification.computeClassMemberships(spectrum);
+            for (int i = 0; i < classCount; i++) {
+                final double actual = memberships[p * classCount + i];
+                if (valid[p]) {
+                    assertEquals(expected[i], actual, OWTClassificationKernel.RELATIVE_ACCURACY * expected[i]);
+                } else {
+                    assertTrue(Double.isNaN(actual));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSurvivalIsAccurate() throws OWTException {
+        for (int wavelengthCount : new int[]{1, 3, 5, 6, 16}) {
+            // identity covariance, the squared distance to the mean is the square of the first reflectance
+            final double[][] means = new double[wavelengthCount][1];
+            final double[][][] invertedCovarianceMatrices = new double[1][wavelengthCount][wavelengthCount];
+            for (int j = 0; j < wavelengthCount; j++) {
+                invertedCovarianceMatrices[0][j][j] = 1.0;
+            }
+            final OWTClassificationKernel kernel = new OWTClassificationKernel(means, invertedCovarianceMatrices);
+            final double chiSquare = wavelengthCount / 2.0;
+
+            final double[] reflectances = new double[wavelengthCount];
+            final double[] memberships = new double[1];
+            for (double x = 0.0; x < chiSquare + 70.0; x += 0.001) {
+                reflectances[0] = Math.sqrt(2.0 * x);
+                kernel.computeClassMemberships(reflectances, memberships);
+                final double zSquare = reflectances[0] * reflectances[0];
+                final double expected = OWTClassification.computeSurvival(chiSquare, zSquare / 2.0);
+                assertEquals(expected, memberships[0], OWTClassificationKernel.RELATIVE_ACCURACY * expected);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidSpectrum() {
+        final OWTClassificationKernel kernel = new OWTClassificationKernel(auxdata.getSpectralMeans(),
+                                                                           auxdata.getInvertedCovarianceMatrices());
+        final double[] reflectances = {0.0307, Double.NaN, 0.0500, 0.0507, 0.0454};
+        try {
+            kernel.computeClassMemberships(reflectances, new double[kernel.getClassCount()]);
+            fail("OWTException expected");
+        } catch (OWTException expected) {
+            // expected
+        }
+    }
+}
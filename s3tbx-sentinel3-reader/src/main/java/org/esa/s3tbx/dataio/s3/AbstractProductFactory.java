@@ -62,6 +62,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -71,6 +75,11 @@ import static org.esa.snap.core.dataio.geocoding.InverseCoding.KEY_SUFFIX_INTERP
 
 public abstract class AbstractProductFactory implements ProductFactory {
 
+    /**
+     * The maximum number of component files opened at the same time, 1 opens them one after the other.
+     */
+    public final static String S3TBX_READER_OPENING_THREAD_COUNT = "s3tbx.reader.openingThreadCount";
+
     private final static Color[] uncertainty_colors = new Color[]{
             new Color(127, 0, 255),
             new Color(0, 0, 255),
@@ -198,7 +207,7 @@ public abstract class AbstractProductFactory implements ProductFactory {
         tpgImageMap.put(tpgName, newSourceImage);
     }
 
-    protected void setSceneTransforms(Product product) {
+    protected void setSceneTransforms(Product product) throws IOException {
     }
 
     protected void setBandGeoCodings(Product targetProduct) throws IOException {
@@ -424,9 +433,12 @@ public abstract class AbstractProductFactory implements ProductFactory {
     }
 
     protected void addSeparatingDimensions(String[] suffixesForSeparatingDimensions) {
-        for (String suffixForSeparatingDimension : suffixesForSeparatingDimensions) {
-            if (!separatingDimensions.contains(suffixForSeparatingDimension)) {
-                separatingDimensions.add(suffixForSeparatingDimension);
+        // called from readProduct, which runs concurrently for the component files
+        synchronized (separatingDimensions) {
+            for (String suffixForSeparatingDimension : suffixesForSeparatingDimensions) {
+                if (!separatingDimensions.contains(suffixForSeparatingDimension)) {
+                    separatingDimensions.add(suffixForSeparatingDimension);
+                }
             }
         }
     }
@@ -501,21 +513,72 @@ public abstract class AbstractProductFactory implements ProductFactory {
         }
     }
 
-    private void readProducts(List<String> fileNames) throws IOException {
+    // package access for tests and the benchmark
+    void readProducts(List<String> fileNames) throws IOException {
+        final List<String> productFileNames = new ArrayList<>();
         for (final String fileName : fileNames) {
-            if ("".equals(fileName)) {  // skip directory
-                continue;
+            if (!"".equals(fileName)) {  // skip directory
+                productFileNames.add(fileName);
+            }
+        }
+        // the component files are opened concurrently, the products are kept in the order of the file names
+        final int threadCount = Math.max(1, Math.min(productFileNames.size(), getOpeningThreadCount()));
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final Product[] products = new Product[productFileNames.size()];
+        Throwable failure = null;
+        boolean interrupted = false;
+        try {
+            final List<Future<Product>> futures = new ArrayList<>(productFileNames.size());
+            for (final String fileName : productFileNames) {
+                futures.add(executorService.submit(() -> readProduct(fileName, manifest)));
+            }
+            // all files are awaited, also after a failure, so that the products opened by the other threads
+            // can be disposed
+            for (int i = 0; i < products.length; i++) {
+                boolean done = false;
+                while (!done) {
+                    try {
+                        products[i] = futures.get(i).get();
+                        done = true;
+                    } catch (ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            logger.log(Level.WARNING, cause.getMessage());
+                        } else if (failure == null) {
+                            failure = cause;
+                        }
+                        done = true;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        if (interrupted || failure != null) {
+            for (Product product : products) {
+                if (product != null) {
+                    product.dispose();
+                }
             }
-            Product product = null;
-            try {
-                product = readProduct(fileName, manifest);
-            } catch (IOException ioe) {
-                logger.log(Level.WARNING, ioe.getMessage());
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
-            if (product != null) {
-                openProductList.add(product);
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+            throw new IOException("Interrupted while reading the product files.");
+        }
+        for (int i = 0; i < products.length; i++) {
+            if (products[i] != null) {
+                openProductList.add(products[i]);
             } else {
-                logger.log(Level.WARNING, MessageFormat.format("Could not find ''{0}''.", fileName));
+                logger.log(Level.WARNING, MessageFormat.format("Could not find ''{0}''.", productFileNames.get(i)));
             }
         }
         if (openProductList.isEmpty()) {
@@ -523,6 +586,10 @@ public abstract class AbstractProductFactory implements ProductFactory {
         }
     }
 
+    private static int getOpeningThreadCount() {
+        return Config.instance("s3tbx").load().preferences().getInt(S3TBX_READER_OPENING_THREAD_COUNT, 8);
+    }
+
     private Manifest createManifest(File file) throws IOException {
         final Document xmlDocument;
         try (InputStream inputStream = new FileInputStream(file)) {
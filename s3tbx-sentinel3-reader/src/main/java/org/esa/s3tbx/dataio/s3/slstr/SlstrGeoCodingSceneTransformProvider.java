@@ -9,15 +9,28 @@ import org.esa.snap.core.transform.MathTransform2D;
 import org.opengis.referencing.operation.NoninvertibleTransformException;
 import org.opengis.referencing.operation.TransformException;
 
+import java.awt.Dimension;
 import java.awt.geom.Point2D;
 
 /**
- * Not in use.
+ * Provides the scene transforms of SLSTR L1B bands if {@link SlstrLevel1ProductFactory#SLSTR_L1B_USE_SCENE_TRANSFORMS}
+ * is set.
  *
  * @author Tonio Fincke
  */
 class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
 
+    /**
+     * The distance of the nodes of the displacement grids in pixels of the source raster.
+     */
+    static final int GRID_STEP = 16;
+
+    /**
+     * The maximum distance in pixels of the target raster by which an interpolated position may deviate from the
+     * exact one in the centre of a grid cell. Cells exceeding it are transformed exactly.
+     */
+    static final double MAX_GRID_ERROR = 0.05;
+
     private final GeoCoding sceneGeoCoding;
     private final GeoCoding modelGeoCoding;
     private final ModelToSceneTransform modelToSceneTransform;
@@ -32,10 +45,26 @@ class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
      * @param modelGeoCoding The geo-coding of the model
      */
     public SlstrGeoCodingSceneTransformProvider(GeoCoding sceneGeoCoding, GeoCoding modelGeoCoding) {
+        this(sceneGeoCoding, modelGeoCoding, null, null);
+    }
+
+    /**
+     * A SceneTransformProvider like the one created by {@link #SlstrGeoCodingSceneTransformProvider(GeoCoding, GeoCoding)},
+     * but which transforms positions within the given rasters by bilinear interpolation in a coarse grid of
+     * displacements. The grids are computed from the geo-codings when a transform is used for the first time, so
+     * a provider should be shared by all rasters on the same grid.
+     *
+     * @param sceneGeoCoding   The geo-coding of the scene
+     * @param modelGeoCoding   The geo-coding of the model
+     * @param sceneRasterSize  The size of the scene raster, may be <code>null</code> to always transform exactly
+     * @param modelRasterSize  The size of the model raster, may be <code>null</code> to always transform exactly
+     */
+    public SlstrGeoCodingSceneTransformProvider(GeoCoding sceneGeoCoding, GeoCoding modelGeoCoding,
+                                                Dimension sceneRasterSize, Dimension modelRasterSize) {
         this.sceneGeoCoding = sceneGeoCoding;
         this.modelGeoCoding = modelGeoCoding;
-        modelToSceneTransform = new ModelToSceneTransform();
-        sceneToModelTransform = new SceneToModelTransform();
+        modelToSceneTransform = new ModelToSceneTransform(modelRasterSize);
+        sceneToModelTransform = new SceneToModelTransform(sceneRasterSize);
     }
 
     @Override
@@ -50,18 +79,26 @@ class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
 
     private abstract class SlstrSceneTransform extends AbstractTransform2D {
 
-        protected Point2D transform(Point2D ptSrc, Point2D ptDst, GeoCoding from, GeoCoding to) throws TransformException {
-            if (!from.canGetGeoPos() || !to.canGetPixelPos()) {
-                throw new TransformException("Cannot transform");
+        private final GeoCoding from;
+        private final GeoCoding to;
+        private final Dimension sourceRasterSize;
+        private volatile DisplacementGrid grid;
+
+        SlstrSceneTransform(GeoCoding from, GeoCoding to, Dimension sourceRasterSize) {
+            this.from = from;
+            this.to = to;
+            this.sourceRasterSize = sourceRasterSize;
+        }
+
+        @Override
+        public Point2D transform(Point2D ptSrc, Point2D ptDst) throws TransformException {
+            final DisplacementGrid grid = getGrid();
+            if (grid != null && grid.interpolate(ptSrc.getX(), ptSrc.getY(), ptDst)) {
+                return ptDst;
             }
-            PixelPos pixelPos = new PixelPos(ptSrc.getX(), ptSrc.getY());
-            final GeoPos geoPos = from.getGeoPos(pixelPos, new GeoPos());
-            pixelPos = to.getPixelPos(geoPos, pixelPos);
-            if (Double.isNaN(geoPos.getLat()) || Double.isNaN(geoPos.getLon()) ||
-                    Double.isNaN(pixelPos.getX()) || Double.isNaN(pixelPos.getY())) {
+            if (!transformExactly(ptSrc.getX(), ptSrc.getY(), ptDst)) {
                 throw new TransformException("Cannot transform");
             }
-            ptDst.setLocation(pixelPos.getX(), pixelPos.getY());
             return ptDst;
         }
 
@@ -73,13 +110,46 @@ class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
             return sceneGeoCoding;
         }
 
+        private boolean transformExactly(double x, double y, Point2D ptDst) {
+            if (!from.canGetGeoPos() || !to.canGetPixelPos()) {
+                return false;
+            }
+            PixelPos pixelPos = new PixelPos(x, y);
+            final GeoPos geoPos = from.getGeoPos(pixelPos, new GeoPos());
+            pixelPos = to.getPixelPos(geoPos, pixelPos);
+            if (Double.isNaN(geoPos.getLat()) || Double.isNaN(geoPos.getLon()) ||
+                    Double.isNaN(pixelPos.getX()) || Double.isNaN(pixelPos.getY())) {
+                return false;
+            }
+            ptDst.setLocation(pixelPos.getX(), pixelPos.getY());
+            return true;
+        }
+
+        private DisplacementGrid getGrid() {
+            if (sourceRasterSize == null || sourceRasterSize.width < 2 || sourceRasterSize.height < 2) {
+                return null;
+            }
+            DisplacementGrid grid = this.grid;
+            if (grid == null) {
+                synchronized (this) {
+                    grid = this.grid;
+                    if (grid == null) {
+                        grid = DisplacementGrid.create(this::transformExactly,
+                                                       sourceRasterSize.width, sourceRasterSize.height,
+                                                       GRID_STEP, MAX_GRID_ERROR);
+                        this.grid = grid;
+                    }
+                }
+            }
+            return grid;
+        }
+
     }
 
     private class ModelToSceneTransform extends SlstrSceneTransform {
 
-        @Override
-        public Point2D transform(Point2D ptSrc, Point2D ptDst) throws TransformException {
-            return transform(ptSrc, ptDst, modelGeoCoding, sceneGeoCoding);
+        ModelToSceneTransform(Dimension modelRasterSize) {
+            super(modelGeoCoding, sceneGeoCoding, modelRasterSize);
         }
 
         @Override
@@ -108,9 +178,8 @@ class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
 
     private class SceneToModelTransform extends SlstrSceneTransform {
 
-        @Override
-        public Point2D transform(Point2D ptSrc, Point2D ptDst) throws TransformException {
-            return transform(ptSrc, ptDst, sceneGeoCoding, modelGeoCoding);
+        SceneToModelTransform(Dimension sceneRasterSize) {
+            super(sceneGeoCoding, modelGeoCoding, sceneRasterSize);
         }
 
         @Override
@@ -137,4 +206,129 @@ class SlstrGeoCodingSceneTransformProvider implements SceneTransformProvider {
         }
     }
 
+    /**
+     * The displacements between the pixel positions of a source raster and the corresponding positions in a target
+     * raster, sampled at the centres of every {@link #GRID_STEP}th source pixel and at the last one.
+     */
+    static class DisplacementGrid {
+
+        interface ExactTransform {
+
+            boolean transform(double x, double y, Point2D ptDst);
+        }
+
+        private final int width;
+        private final int height;
+        private final int step;
+        private final int nodeCountX;
+        private final int nodeCountY;
+        private final double[] dx;
+        private final double[] dy;
+        private final boolean[] interpolatedCells;
+
+        private DisplacementGrid(int width, int height, int step) {
+            this.width = width;
+            this.height = height;
+            this.step = step;
+            nodeCountX = (width - 2 + step) / step + 1;
+            nodeCountY = (height - 2 + step) / step + 1;
+            dx = new double[nodeCountX * nodeCountY];
+            dy = new double[nodeCountX * nodeCountY];
+            interpolatedCells = new boolean[(nodeCountX - 1) * (nodeCountY - 1)];
+        }
+
+        /**
+         * Computes the grid for a source raster of at least 2 x 2 pixels. Nodes which cannot be transformed are
+         * left out. A cell of the grid is interpolated only if its four nodes can be transformed and the
+         * interpolated position of its centre does not deviate by more than the given error from the exact one.
+         *
+         * @param exact    the exact transform
+         * @param width    the width of the source raster
+         * @param height   the height of the source raster
+         * @param step     the distance of the grid nodes in source pixels
+         * @param maxError the maximum distance in target pixels
+         * @return the grid
+         */
+        static DisplacementGrid create(ExactTransform exact, int width, int height, int step, double maxError) {
+            final DisplacementGrid grid = new DisplacementGrid(width, height, step);
+            final Point2D.Double pt = new Point2D.Double();
+            for (int j = 0; j < grid.nodeCountY; j++) {
+                final double y = grid.getNodeY(j);
+                for (int i = 0; i < grid.nodeCountX; i++) {
+                    final double x = grid.getNodeX(i);
+                    final int k = j * grid.nodeCountX + i;
+                    if (exact.transform(x, y, pt)) {
+                        grid.dx[k] = pt.x - x;
+                        grid.dy[k] = pt.y - y;
+                    } else {
+                        grid.dx[k] = Double.NaN;
+                        grid.dy[k] = Double.NaN;
+                    }
+                }
+            }
+            final Point2D.Double interpolated = new Point2D.Double();
+            for (int j = 0; j < grid.nodeCountY - 1; j++) {
+                final double y = 0.5 * (grid.getNodeY(j) + grid.getNodeY(j + 1));
+                for (int i = 0; i < grid.nodeCountX - 1; i++) {
+                    final double x = 0.5 * (grid.getNodeX(i) + grid.getNodeX(i + 1));
+                    final int k = j * grid.nodeCountX + i;
+                    boolean interpolatedCell = false;
+                    if (grid.areNodesTransformed(k) && exact.transform(x, y, pt)) {
+                        grid.interpolate(k, x, y, 0.5, 0.5, interpolated);
+                        interpolatedCell = interpolated.distance(pt) <= maxError;
+                    }
+                    grid.interpolatedCells[j * (grid.nodeCountX - 1) + i] = interpolatedCell;
+                }
+            }
+            return grid;
+        }
+
+        /**
+         * Interpolates the target position of a source position.
+         *
+         * @param x     the x-coordinate of the source position
+         * @param y     the y-coordinate of the source position
+         * @param ptDst the target position, only set if <code>true</code> is returned
+         * @return <code>true</code> if the position has been interpolated, <code>false</code> if it has to be
+         * transformed exactly
+         */
+        boolean interpolate(double x, double y, Point2D ptDst) {
+            if (!(x >= 0.5 && x <= width - 0.5 && y >= 0.5 && y <= height - 0.5)) {
+                return false;
+            }
+            final int i = Math.min((int) ((x - 0.5) / step), nodeCountX - 2);
+            final int j = Math.min((int) ((y - 0.5) / step), nodeCountY - 2);
+            if (!interpolatedCells[j * (nodeCountX - 1) + i]) {
+                return false;
+            }
+            final double wx = (x - getNodeX(i)) / (getNodeX(i + 1) - getNodeX(i));
+            final double wy = (y - getNodeY(j)) / (getNodeY(j + 1) - getNodeY(j));
+            interpolate(j * nodeCountX + i, x, y, wx, wy, ptDst);
+            return true;
+        }
+
+        private void interpolate(int k, double x, double y, double wx, double wy, Point2D ptDst) {
+            ptDst.setLocation(x + interpolate(dx, k, wx, wy), y + interpolate(dy, k, wx, wy));
+        }
+
+        private double interpolate(double[] d, int k, double wx, double wy) {
+            final double d0 = d[k] + wx * (d[k + 1] - d[k]);
+            final double d1 = d[k + nodeCountX] + wx * (d[k + nodeCountX + 1] - d[k + nodeCountX]);
+            return d0 + wy * (d1 - d0);
+        }
+
+        private boolean areNodesTransformed(int k) {
+            return !(Double.isNaN(dx[k]) || Double.isNaN(dx[k + 1]) ||
+                    Double.isNaN(dx[k + nodeCountX]) || Double.isNaN(dx[k + nodeCountX + 1]));
+        }
+
+        private double getNodeX(int i) {
+            return Math.min(0.5 + i * step, width - 0.5);
+        }
+
+        private double getNodeY(int j) {
+            return Math.min(0.5 + j * step, height - 0.5);
+        }
+    }
+
 }
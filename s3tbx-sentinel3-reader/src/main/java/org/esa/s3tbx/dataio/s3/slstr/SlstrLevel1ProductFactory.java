@@ -60,12 +60,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.prefs.Preferences;
 
 public class SlstrLevel1ProductFactory extends SlstrProductFactory {
 
     public final static String SLSTR_L1B_USE_PIXELGEOCODINGS = "s3tbx.reader.slstrl1b.pixelGeoCodings";
     public final static String SLSTR_L1B_PIXEL_GEOCODING_INVERSE = "s3tbx.reader.slstrl1b.pixelGeoCodings.inverse";
     public final static String SLSTR_L1B_LOAD_ORPHAN_PIXELS = "s3tbx.reader.slstrl1b.loadOrphanPixels";
+    public final static String SLSTR_L1B_USE_SCENE_TRANSFORMS = "s3tbx.reader.slstrl1b.sceneTransforms";
     public final static String SLSTR_L1B_CUSTOM_CALIBRATION = "s3tbx.reader.slstrl1b.applyCustomCalibration";
     public final static String SLSTR_L1B_S3MPC_CALIBRATION = "s3tbx.reader.slstrl1b.applyS3MPCCalibration";
     private final static String SLSTR_L1B_CALIBRATION_PATTERN = "s3tbx.reader.slstrl1b.ID.calibration.TYPE";
@@ -84,6 +86,7 @@ public class SlstrLevel1ProductFactory extends SlstrProductFactory {
     private final Map<String, Float> nameToBandwidthMap;
     private final Map<String, Integer> nameToIndexMap;
     private final Map<String, GeoCoding> geoCodingMap;
+    private final Map<String, SlstrGeoCodingSceneTransformProvider> sceneTransformProviderMap;
     private final List<NetcdfFile> netcdfFileList;
 
 
@@ -102,6 +105,7 @@ public class SlstrLevel1ProductFactory extends SlstrProductFactory {
         nameToBandwidthMap = new HashMap<>();
         nameToIndexMap = new HashMap<>();
         geoCodingMap = new HashMap<>();
+        sceneTransformProviderMap = new HashMap<>();
         netcdfFileList = new ArrayList<>();
     }
 
@@ -383,25 +387,24 @@ public class SlstrLevel1ProductFactory extends SlstrProductFactory {
                 targetProduct.addBand(targetBand);
                 ProductUtils.copyRasterDataNodeProperties(sourceBand, targetBand);
                 final RenderedImage sourceRenderedImage = sourceBand.getSourceImage().getImage(0);
-                //todo remove commented lines when resampling works with scenetransforms
-                //if pixel band geo-codings are used, scenetransforms are set
-//                if (Config.instance("s3tbx").load().preferences().getBoolean(SLSTR_L1B_USE_PIXELGEOCODINGS, false)) {
-//                    targetBand.setSourceImage(sourceRenderedImage);
-//                } else {
-                final AffineTransform imageToModelTransform = new AffineTransform();
-                final float[] offsets = getOffsets(sourceStartOffset, sourceTrackOffset, sourceResolutions);
-                imageToModelTransform.translate(offsets[0], offsets[1]);
-                final short[] referenceResolutions = getReferenceResolutions();
-                final int subSamplingX = sourceResolutions[0] / referenceResolutions[0];
-                final int subSamplingY = sourceResolutions[1] / referenceResolutions[1];
-                imageToModelTransform.scale(subSamplingX, subSamplingY);
-                final DefaultMultiLevelModel targetModel =
-                        new DefaultMultiLevelModel(imageToModelTransform,
-                                                   sourceRenderedImage.getWidth(), sourceRenderedImage.getHeight());
-                final DefaultMultiLevelSource targetMultiLevelSource =
-                        new DefaultMultiLevelSource(sourceRenderedImage, targetModel);
-                targetBand.setSourceImage(new DefaultMultiLevelImage(targetMultiLevelSource));
-//                }
+                //if scene transforms are used, they map the band to the scene, otherwise imagetomodeltransforms are set
+                if (useSceneTransforms()) {
+                    targetBand.setSourceImage(sourceRenderedImage);
+                } else {
+                    final AffineTransform imageToModelTransform = new AffineTransform();
+                    final float[] offsets = getOffsets(sourceStartOffset, sourceTrackOffset, sourceResolutions);
+                    imageToModelTransform.translate(offsets[0], offsets[1]);
+                    final short[] referenceResolutions = getReferenceResolutions();
+                    final int subSamplingX = sourceResolutions[0] / referenceResolutions[0];
+                    final int subSamplingY = sourceResolutions[1] / referenceResolutions[1];
+                    imageToModelTransform.scale(subSamplingX, subSamplingY);
+                    final DefaultMultiLevelModel targetModel =
+                            new DefaultMultiLevelModel(imageToModelTransform,
+                                                       sourceRenderedImage.getWidth(), sourceRenderedImage.getHeight());
+                    final DefaultMultiLevelSource targetMultiLevelSource =
+                            new DefaultMultiLevelSource(sourceRenderedImage, targetModel);
+                    targetBand.setSourceImage(new DefaultMultiLevelImage(targetMultiLevelSource));
+                }
                 return targetBand;
             }
         }
@@ -468,28 +471,40 @@ public class SlstrLevel1ProductFactory extends SlstrProductFactory {
     }
 
     @Override
-    protected void setSceneTransforms(Product product) {
-        //if tie point band geo-codings are used, imagetomodeltransforms are set
-        //todo remove commented lines when resampling works with scenetransforms
-//        if (Config.instance("s3tbx").load().preferences().getBoolean(SLSTR_L1B_USE_PIXELGEOCODINGS, false)) {
-//            final Band[] bands = product.getBands();
-//            for (Band band : bands) {
-//                final GeoCoding bandGeoCoding = getBandGeoCoding(product, getGridIndex(band.getName));
-//                final SlstrGeoCodingSceneTransformProvider transformProvider =
-//                        new SlstrGeoCodingSceneTransformProvider(product.getSceneGeoCoding(), bandGeoCoding);
-//                band.setModelToSceneTransform(transformProvider.getModelToSceneTransform());
-//                band.setSceneToModelTransform(transformProvider.getSceneToModelTransform());
-//            }
-//            final ProductNodeGroup<Mask> maskGroup = product.getMaskGroup();
-//            for (int i = 0; i < maskGroup.getNodeCount(); i++) {
-//                final Mask mask = maskGroup.get(i);
-//                final GeoCoding bandGeoCoding = getBandGeoCoding(product, getGridIndex(mask.getName()));
-//                final SlstrGeoCodingSceneTransformProvider transformProvider =
-//                        new SlstrGeoCodingSceneTransformProvider(product.getSceneGeoCoding(), bandGeoCoding);
-//                mask.setModelToSceneTransform(transformProvider.getModelToSceneTransform());
-//                mask.setSceneToModelTransform(transformProvider.getSceneToModelTransform());
-//            }
-//        }
+    protected void setSceneTransforms(Product product) throws IOException {
+        //if tie point band geo-codings are used or scene transforms are not wanted, imagetomodeltransforms are set
+        if (!useSceneTransforms()) {
+            return;
+        }
+        for (Band band : product.getBands()) {
+            setSceneTransforms(product, band);
+        }
+        final ProductNodeGroup<Mask> maskGroup = product.getMaskGroup();
+        for (int i = 0; i < maskGroup.getNodeCount(); i++) {
+            setSceneTransforms(product, maskGroup.get(i));
+        }
+    }
+
+    private void setSceneTransforms(Product product, RasterDataNode node) throws IOException {
+        final String gridIndex = getGridIndex(node.getName());
+        // only the nodes on the grids added by addSpecialNode are not yet aligned to the scene
+        if (gridIndex.startsWith("t") || getStartOffset(gridIndex) == null || getTrackOffset(gridIndex) == null) {
+            return;
+        }
+        SlstrGeoCodingSceneTransformProvider transformProvider = sceneTransformProviderMap.get(gridIndex);
+        if (transformProvider == null) {
+            final GeoCoding bandGeoCoding = getBandGeoCoding(product, gridIndex);
+            if (bandGeoCoding == null || product.getSceneGeoCoding() == null) {
+                return;
+            }
+            // shared by all nodes on the grid, so that the displacement grids are computed once
+            transformProvider = new SlstrGeoCodingSceneTransformProvider(product.getSceneGeoCoding(), bandGeoCoding,
+                                                                         product.getSceneRasterSize(),
+                                                                         node.getRasterSize());
+            sceneTransformProviderMap.put(gridIndex, transformProvider);
+        }
+        node.setModelToSceneTransform(transformProvider.getModelToSceneTransform());
+        node.setSceneToModelTransform(transformProvider.getSceneToModelTransform());
     }
 
     @Override
@@ -506,6 +521,12 @@ public class SlstrLevel1ProductFactory extends SlstrProductFactory {
         setTimeCoding(targetProduct, "time_an.nc", "time_stamp_a");
     }
 
+    private boolean useSceneTransforms() {
+        final Preferences preferences = Config.instance("s3tbx").load().preferences();
+        return preferences.getBoolean(SLSTR_L1B_USE_PIXELGEOCODINGS, true) &&
+                preferences.getBoolean(SLSTR_L1B_USE_SCENE_TRANSFORMS, false);
+    }
+
     protected boolean isOrphanPixelsAllowed() {
         return Config.instance("s3tbx").load().preferences().getBoolean(SLSTR_L1B_LOAD_ORPHAN_PIXELS, false);
     }
@@ -66,8 +66,10 @@ class InstrumentDataReader extends S3NetcdfReader {
         } else {
             variable = getNetcdfFile().findVariable(variableName);
         }
-        return new S3MultiLevelOpImage(band, variable, new String[]{dimensionName}, new int[]{dimensionIndex},
-                detectorIndexBand, "detectors", dimensionName);
+        final S3MultiLevelOpImage image = new S3MultiLevelOpImage(band, variable, new String[]{dimensionName},
+                new int[]{dimensionIndex}, detectorIndexBand, "detectors", dimensionName);
+        image.setNetcdfFilePool(getNetcdfFilePool());
+        return image;
     }
 
     @Override
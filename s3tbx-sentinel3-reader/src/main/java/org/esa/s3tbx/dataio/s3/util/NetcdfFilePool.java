@@ -0,0 +1,148 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.esa.snap.dataio.netcdf.util.NetcdfFileOpener;
+import org.esa.snap.runtime.Config;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the data of NetCDF variables for the source images of a reader.
+ * <p>
+ * A <code>NetcdfFile</code> cannot be read by several threads at the same time. By default, all reads of a file
+ * are therefore serialised by synchronising on the file the variable belongs to. If a pool size greater than zero
+ * is configured with the preference {@link #PROPERTY_KEY_POOL_SIZE}, the pool opens up to this number of
+ * additional handles of the file on demand. Each read leases one of them exclusively, so that as many tiles of
+ * the file can be read concurrently.
+ */
+public class NetcdfFilePool {
+
+    public static final String PROPERTY_KEY_POOL_SIZE = "s3tbx.reader.netcdf.handlePoolSize";
+
+    /**
+     * Does not open additional handles, all reads are serialised.
+     */
+    static final NetcdfFilePool NONE = new NetcdfFilePool(null, 0);
+
+    private final File file;
+    private final int maxSize;
+    private final Deque<NetcdfFile> idleFiles;
+    private int openCount;
+    private boolean closed;
+
+    NetcdfFilePool(File file, int maxSize) {
+        this.file = file;
+        this.maxSize = maxSize;
+        idleFiles = new ArrayDeque<>(Math.max(maxSize, 1));
+    }
+
+    /**
+     * Creates a pool for the given file, with the size configured in the preferences.
+     *
+     * @param file the NetCDF file
+     * @return the pool, never <code>null</code>
+     */
+    public static NetcdfFilePool create(File file) {
+        final int poolSize = Config.instance("s3tbx").load().preferences().getInt(PROPERTY_KEY_POOL_SIZE, 0);
+        return poolSize > 0 ? new NetcdfFilePool(file, poolSize) : NONE;
+    }
+
+    /**
+     * Reads a section of the data of a variable.
+     *
+     * @param variable the variable, as found in the file the reader opened
+     * @param section  the section
+     * @return the data
+     * @throws IOException           if the data cannot be read
+     * @throws InvalidRangeException if the section does not fit the variable
+     */
+    public Array read(Variable variable, Section section) throws IOException, InvalidRangeException {
+        if (maxSize <= 0) {
+            synchronized (variable.getParentGroup().getNetcdfFile()) {
+                return variable.read(section);
+            }
+        }
+        final NetcdfFile netcdfFile = lease();
+        try {
+            final Variable leasedVariable = netcdfFile.findVariable(variable.getFullNameEscaped());
+            if (leasedVariable == null) {
+                throw new IOException(String.format("Variable '%s' not found in '%s'", variable.getFullName(), file));
+            }
+            return leasedVariable.read(section);
+        } finally {
+            release(netcdfFile);
+        }
+    }
+
+    /**
+     * Closes all handles of this pool. Handles currently leased are closed when they are released.
+     * Does nothing if the pool does not open additional handles, such as the shared {@link #NONE}.
+     */
+    public void close() throws IOException {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (idleFiles) {
+            closed = true;
+            while (!idleFiles.isEmpty()) {
+                idleFiles.poll().close();
+            }
+            idleFiles.notifyAll();
+        }
+    }
+
+    private NetcdfFile lease() throws IOException {
+        synchronized (idleFiles) {
+            while (idleFiles.isEmpty() && openCount >= maxSize && !closed) {
+                try {
+                    idleFiles.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a handle of " + file, e);
+                }
+            }
+            if (closed) {
+                throw new IOException("Pool of " + file + " is closed");
+            }
+            if (!idleFiles.isEmpty()) {
+                return idleFiles.poll();
+            }
+            // reserve the slot, the file is opened outside the lock
+            openCount++;
+        }
+        NetcdfFile netcdfFile = null;
+        try {
+            netcdfFile = NetcdfFileOpener.open(file);
+            if (netcdfFile == null) {
+                throw new IOException(String.format("Not able to read file '%s'. Might be corrupted.", file));
+            }
+            return netcdfFile;
+        } finally {
+            if (netcdfFile == null) {
+                synchronized (idleFiles) {
+                    openCount--;
+                    idleFiles.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void release(NetcdfFile netcdfFile) throws IOException {
+        synchronized (idleFiles) {
+            if (!closed) {
+                idleFiles.push(netcdfFile);
+                idleFiles.notifyAll();
+                return;
+            }
+            openCount--;
+        }
+        netcdfFile.close();
+    }
+}
@@ -26,6 +26,7 @@ public class S3MultiLevelOpImage extends AbstractNetcdfMultiLevelImage {
     private String nameOfDisplayedDimension;
     private int xIndex;
     private int yIndex;
+    private NetcdfFilePool netcdfFilePool = NetcdfFilePool.NONE;
 
     public S3MultiLevelOpImage(RasterDataNode rasterDataNode, Variable variable,
                                String[] dimensionNames, int[] dimensionIndexes,
@@ -59,6 +60,16 @@ public class S3MultiLevelOpImage extends AbstractNetcdfMultiLevelImage {
         this.nameOfDisplayedDimension = nameOfDisplayedDimension;
     }
 
+    /**
+     * Sets the pool used to read the variable. By default, reads are serialised per file. Must be set before
+     * the first image is created.
+     *
+     * @param netcdfFilePool the pool
+     */
+    public void setNetcdfFilePool(NetcdfFilePool netcdfFilePool) {
+        this.netcdfFilePool = netcdfFilePool;
+    }
+
     @Override
     protected RenderedImage createImage(int level) {
         RasterDataNode rasterDataNode = getRasterDataNode();
@@ -71,27 +82,29 @@ public class S3MultiLevelOpImage extends AbstractNetcdfMultiLevelImage {
             return new S3ReferencingVariableOpImage(variable, dataBufferType, sceneRasterWidth, sceneRasterHeight,
                                                     imageTileSize, resolutionLevel, dimensionIndexes,
                                                     referencedIndexRasterDataNode, nameOfReferencingIndexDimension,
-                                                    nameOfDisplayedDimension);
+                                                    nameOfDisplayedDimension, netcdfFilePool);
         }
+        final S3VariableOpImage image;
         if(rasterDataNode.getName().endsWith("_msb")) {
-            return S3VariableOpImage.createS3VariableOpImage(variable, dataBufferType, sceneRasterWidth,
-                                                             sceneRasterHeight, imageTileSize, resolutionLevel,
-                                                             dimensionNames, dimensionIndexes, xIndex, yIndex, true);
+            image = S3VariableOpImage.createS3VariableOpImage(variable, dataBufferType, sceneRasterWidth,
+                                                              sceneRasterHeight, imageTileSize, resolutionLevel,
+                                                              dimensionNames, dimensionIndexes, xIndex, yIndex, true);
         } else if(rasterDataNode.getName().endsWith("_lsb")) {
-            return S3VariableOpImage.createS3VariableOpImage(variable, dataBufferType, sceneRasterWidth,
-                                                             sceneRasterHeight, imageTileSize, resolutionLevel,
-                                                             dimensionNames, dimensionIndexes, xIndex, yIndex, false);
-        }
+            image = S3VariableOpImage.createS3VariableOpImage(variable, dataBufferType, sceneRasterWidth,
+                                                              sceneRasterHeight, imageTileSize, resolutionLevel,
+                                                              dimensionNames, dimensionIndexes, xIndex, yIndex, false);
         //todo remove references to specific band names
-        if ((variable.getFullName().contains("row_corresp") || (variable.getFullName().contains("col_corresp"))) &&
+        } else if ((variable.getFullName().contains("row_corresp") || (variable.getFullName().contains("col_corresp"))) &&
                 rasterDataNode.getDataType() == ProductData.TYPE_UINT32) {
-            return new S3VariableOpImage(variable, DataBuffer.TYPE_FLOAT, sceneRasterWidth, sceneRasterHeight, imageTileSize,
-                                         resolutionLevel, dimensionNames, dimensionIndexes, xIndex, yIndex,
-                                         S3VariableOpImage.ArrayConverter.UINTCONVERTER);
+            image = new S3VariableOpImage(variable, DataBuffer.TYPE_FLOAT, sceneRasterWidth, sceneRasterHeight, imageTileSize,
+                                          resolutionLevel, dimensionNames, dimensionIndexes, xIndex, yIndex,
+                                          S3VariableOpImage.ArrayConverter.UINTCONVERTER);
         } else {
-            return new S3VariableOpImage(variable, dataBufferType, sceneRasterWidth, sceneRasterHeight, imageTileSize,
-                                         resolutionLevel, dimensionNames, dimensionIndexes, xIndex, yIndex);
+            image = new S3VariableOpImage(variable, dataBufferType, sceneRasterWidth, sceneRasterHeight, imageTileSize,
+                                          resolutionLevel, dimensionNames, dimensionIndexes, xIndex, yIndex);
         }
+        image.setNetcdfFilePool(netcdfFilePool);
+        return image;
     }
 
 }
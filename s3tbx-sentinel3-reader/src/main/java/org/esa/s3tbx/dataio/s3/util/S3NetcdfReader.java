@@ -29,7 +29,6 @@ import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * @author Tonio Fincke
@@ -43,6 +42,7 @@ public class S3NetcdfReader extends AbstractProductReader {
     private static final String flag_meanings = "flag_meanings";
     private static final String fillValue = "_FillValue";
     private NetcdfFile netcdfFile;
+    private NetcdfFilePool netcdfFilePool;
 
     public S3NetcdfReader() {
         super(null);
@@ -60,6 +60,7 @@ public class S3NetcdfReader extends AbstractProductReader {
         if (netcdfFile == null) {
             throw new IOException(String.format("Not able to read file '%s'. Might be corrupted.", inputFile));
         }
+        netcdfFilePool = NetcdfFilePool.create(inputFile);
 
         final String productType = readProductType();
         int productWidth = getWidth();
@@ -85,6 +86,10 @@ public class S3NetcdfReader extends AbstractProductReader {
 
     @Override
     public void close() throws IOException {
+        if (netcdfFilePool != null) {
+            netcdfFilePool.close();
+            netcdfFilePool = null;
+        }
         if (netcdfFile != null) {
             netcdfFile.close();
             netcdfFile = null;
@@ -172,7 +177,10 @@ public class S3NetcdfReader extends AbstractProductReader {
         for (int i = 0; i < dimensionIndexList.size(); i++) {
             dimensionIndexes[i] = dimensionIndexList.get(i);
         }
-        return new S3MultiLevelOpImage(band, variable, dimensionNames, dimensionIndexes, xIndex, yIndex);
+        final S3MultiLevelOpImage image = new S3MultiLevelOpImage(band, variable, dimensionNames, dimensionIndexes,
+                                                                  xIndex, yIndex);
+        image.setNetcdfFilePool(netcdfFilePool);
+        return image;
     }
 
     protected int getDimensionIndexFromBandName(String bandName) {
@@ -555,30 +563,10 @@ public class S3NetcdfReader extends AbstractProductReader {
                 }
             }
             if (variable.getDataType() != DataType.STRING) {
-                try {
-                    Object data = variable.read().copyTo1DJavaArray();
-                    MetadataAttribute variableAttribute = null;
-                    if (data instanceof float[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((float[]) data), true);
-                    } else if (data instanceof double[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((double[]) data), true);
-                    } else if (data instanceof byte[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((byte[]) data), true);
-                    } else if (data instanceof short[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((short[]) data), true);
-                    } else if (data instanceof int[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((int[]) data), true);
-                    } else if (data instanceof long[]) {
-                        variableAttribute = new MetadataAttribute("value", ProductData.createInstance((long[]) data), true);
-                    }
-                    if (variableAttribute != null) {
-                        variableAttribute.setUnit(variable.getUnitsString());
-                        variableAttribute.setDescription(variable.getDescription());
-                        variableElement.addAttribute(variableAttribute);
-                    }
-                } catch (IOException e) {
-                    Logger logger = Logger.getLogger(this.getClass().getName());
-                    logger.severe("Could not read variable " + variable.getFullName());
+                // the values are read when they are accessed
+                final MetadataAttribute variableAttribute = VariableValueAttribute.create(variable);
+                if (variableAttribute != null) {
+                    variableElement.addAttribute(variableAttribute);
                 }
             }
             product.getMetadataRoot().getElement("Variable_Attributes").addElement(variableElement);
@@ -738,4 +726,8 @@ public class S3NetcdfReader extends AbstractProductReader {
         return netcdfFile;
     }
 
+    protected NetcdfFilePool getNetcdfFilePool() {
+        return netcdfFilePool;
+    }
+
 }
@@ -22,14 +22,16 @@ class S3ReferencingVariableOpImage extends SingleBandedOpImage {
     private final RasterDataNode referencedIndexRasterDataNode;
     private final Variable variable;
     private final DimensionValuesProvider dimensionValuesProvider;
+    private final NetcdfFilePool netcdfFilePool;
 
     //todo use this to display fires in SLSTR L2 LST products when data is available
     S3ReferencingVariableOpImage(Variable variable, int dataBufferType, int sourceWidth, int sourceHeight,
                                         Dimension tileSize, ResolutionLevel level, int[] additionalDimensionIndexes,
                                         RasterDataNode referencedIndexRasterDataNode, String nameOfReferencingDimension,
-                                        String nameOfDisplayedDimension) {
+                                        String nameOfDisplayedDimension, NetcdfFilePool netcdfFilePool) {
         super(dataBufferType, sourceWidth, sourceHeight, tileSize, null, level);
         this.variable = variable;
+        this.netcdfFilePool = netcdfFilePool;
         dimensionValuesProvider = getDimensionValuesProvider();
         int displayedDimensionIndex = variable.findDimensionIndex(nameOfDisplayedDimension);
         int referencingDimensionIndex = variable.findDimensionIndex(nameOfReferencingDimension);
@@ -121,10 +123,8 @@ class S3ReferencingVariableOpImage extends SingleBandedOpImage {
         public void readValues(int[] variableOrigin, int[] variableShape) {
             try {
                 final Section detectorSection = new Section(variableOrigin, variableShape);
-                synchronized (variable.getParentGroup().getNetcdfFile()) {
-                    final Array dimensionValuesArray = variable.read(detectorSection);
-                    dimensionValues = (float[]) dimensionValuesArray.copyTo1DJavaArray();
-                }
+                final Array dimensionValuesArray = netcdfFilePool.read(variable, detectorSection);
+                dimensionValues = (float[]) dimensionValuesArray.copyTo1DJavaArray();
             } catch (InvalidRangeException | IOException e) {
                 throw new RuntimeException(e);
             }
@@ -151,10 +151,8 @@ class S3ReferencingVariableOpImage extends SingleBandedOpImage {
         public void readValues(int[] variableOrigin, int[] variableShape) {
             try {
                 final Section detectorSection = new Section(variableOrigin, variableShape);
-                synchronized (variable.getParentGroup().getNetcdfFile()) {
-                    final Array dimensionValuesArray = variable.read(detectorSection);
-                    dimensionValues = (short[]) dimensionValuesArray.copyTo1DJavaArray();
-                }
+                final Array dimensionValuesArray = netcdfFilePool.read(variable, detectorSection);
+                dimensionValues = (short[]) dimensionValuesArray.copyTo1DJavaArray();
             } catch (InvalidRangeException | IOException e) {
                 throw new RuntimeException(e);
             }
@@ -10,6 +10,11 @@ import ucar.nc2.Variable;
 import javax.media.jai.PlanarImage;
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 
 /**
@@ -23,6 +28,7 @@ public class S3VariableOpImage extends SingleBandedOpImage {
     private int yIndex;
     private int[] additionalDimensionIndexes;
     private String[] additionalDimensionNames;
+    private NetcdfFilePool netcdfFilePool = NetcdfFilePool.NONE;
 
     public S3VariableOpImage(Variable variable, int dataBufferType, int sourceWidth, int sourceHeight,
                              Dimension tileSize, ResolutionLevel level,
@@ -95,17 +101,29 @@ public class S3VariableOpImage extends SingleBandedOpImage {
 
         Array array;
         try {
-            synchronized (variable.getParentGroup().getNetcdfFile()) {
-                final Section section = new Section(origin, shape, stride);
-                array = variable.read(section);
-            }
+            final Section section = new Section(origin, shape, stride);
+            array = netcdfFilePool.read(variable, section);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        // the storage converters write in the order (..., y, x), subclasses may transform the storage
+        if (converter instanceof StorageConverter && getClass() == S3VariableOpImage.class &&
+                ((StorageConverter) converter).write(array, tile, rectangle)) {
+            return;
+        }
         array = converter.convert(array);
         tile.setDataElements(rectangle.x, rectangle.y, rectangle.width, rectangle.height, transformStorage(array));
     }
 
+    /**
+     * Sets the pool used to read the variable. By default, reads are serialised per file.
+     *
+     * @param netcdfFilePool the pool
+     */
+    void setNetcdfFilePool(NetcdfFilePool netcdfFilePool) {
+        this.netcdfFilePool = netcdfFilePool;
+    }
+
     /**
      * Returns the origin of the x dimension of the variable, which
      * provides the image data.
@@ -154,40 +172,184 @@ public class S3VariableOpImage extends SingleBandedOpImage {
             }
         };
 
-        public ArrayConverter LSB = new ArrayConverter() {
+        /**
+         * The lower 32 bits of a 64-bit variable.
+         */
+        public ArrayConverter LSB = new StorageConverter(DataType.INT) {
             @Override
-            public Array convert(Array array) {
-                final Array convertedArray = Array.factory(DataType.INT, array.getShape());
-                for (int i = 0; i < convertedArray.getSize(); i++) {
-                    convertedArray.setInt(i, (int) (array.getLong(i) & 0x00000000FFFFFFFFL));
+            boolean canConvert(Object storage) {
+                return storage instanceof long[];
+            }
+
+            @Override
+            void convert(Array array, int sourceOffset, Object target, int targetOffset, int length) {
+                final long[] source = (long[]) array.getStorage();
+                final int[] ints = (int[]) target;
+                for (int i = 0; i < length; i++) {
+                    ints[targetOffset + i] = (int) source[sourceOffset + i];
                 }
-                return convertedArray;
+            }
+
+            @Override
+            void convertElement(Array array, int index, Array convertedArray) {
+                convertedArray.setInt(index, (int) (array.getLong(index) & 0x00000000FFFFFFFFL));
             }
         };
 
-        public ArrayConverter MSB = new ArrayConverter() {
+        /**
+         * The upper 32 bits of a 64-bit variable.
+         */
+        public ArrayConverter MSB = new StorageConverter(DataType.INT) {
             @Override
-            public Array convert(Array array) {
-                final Array convertedArray = Array.factory(DataType.INT, array.getShape());
-                for (int i = 0; i < convertedArray.getSize(); i++) {
-                    convertedArray.setInt(i, (int) (array.getLong(i) >>> 32));
+            boolean canConvert(Object storage) {
+                return storage instanceof long[];
+            }
+
+            @Override
+            void convert(Array array, int sourceOffset, Object target, int targetOffset, int length) {
+                final long[] source = (long[]) array.getStorage();
+                final int[] ints = (int[]) target;
+                for (int i = 0; i < length; i++) {
+                    ints[targetOffset + i] = (int) (source[sourceOffset + i] >>> 32);
                 }
-                return convertedArray;
+            }
+
+            @Override
+            void convertElement(Array array, int index, Array convertedArray) {
+                convertedArray.setInt(index, (int) (array.getLong(index) >>> 32));
             }
         };
 
-        public ArrayConverter UINTCONVERTER = new ArrayConverter() {
+        /**
+         * The values of a 32-bit unsigned integer variable as float, which can represent all of them approximately.
+         */
+        public ArrayConverter UINTCONVERTER = new StorageConverter(DataType.FLOAT) {
             @Override
-            public Array convert(Array array) {
-                final Array convertedArray = Array.factory(DataType.FLOAT, array.getShape());
-                for (int i = 0; i < convertedArray.getSize(); i++) {
-                    convertedArray.setFloat(i, array.getFloat(i));
+            boolean canConvert(Object storage) {
+                return storage instanceof int[];
+            }
+
+            @Override
+            void convert(Array array, int sourceOffset, Object target, int targetOffset, int length) {
+                final int[] source = (int[]) array.getStorage();
+                final float[] floats = (float[]) target;
+                if (array.getDataType().isUnsigned()) {
+                    for (int i = 0; i < length; i++) {
+                        floats[targetOffset + i] = source[sourceOffset + i] & 0xFFFFFFFFL;
+                    }
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        floats[targetOffset + i] = source[sourceOffset + i];
+                    }
                 }
-                return convertedArray;
+            }
+
+            @Override
+            void convertElement(Array array, int index, Array convertedArray) {
+                convertedArray.setFloat(index, array.getFloat(index));
             }
         };
 
         Array convert(Array array);
     }
 
+    /**
+     * Converts the primitive storage of the arrays read from a variable with tight loops. It writes directly into
+     * the data buffer of a tile, if possible, and otherwise into a buffer which is reused per thread.
+     */
+    static abstract class StorageConverter implements ArrayConverter {
+
+        private final DataType targetType;
+        private final ThreadLocal<Object> buffers = new ThreadLocal<>();
+
+        StorageConverter(DataType targetType) {
+            this.targetType = targetType;
+        }
+
+        @Override
+        public Array convert(Array array) {
+            final Array convertedArray = Array.factory(targetType, array.getShape());
+            if (isConvertible(array)) {
+                convert(array, 0, convertedArray.getStorage(), 0, (int) array.getSize());
+            } else {
+                for (int i = 0; i < convertedArray.getSize(); i++) {
+                    convertElement(array, i, convertedArray);
+                }
+            }
+            return convertedArray;
+        }
+
+        /**
+         * Writes the converted array into the given rectangle of the tile.
+         *
+         * @return <code>false</code> if the array cannot be converted on its storage, nothing is written then
+         */
+        boolean write(Array array, WritableRaster tile, Rectangle rectangle) {
+            final int width = rectangle.width;
+            final int height = rectangle.height;
+            if (!isConvertible(array) || array.getSize() != (long) width * height) {
+                return false;
+            }
+            final DataBuffer dataBuffer = tile.getDataBuffer();
+            final SampleModel sampleModel = tile.getSampleModel();
+            final Object bankData = getBankData(dataBuffer);
+            if (bankData != null && sampleModel instanceof ComponentSampleModel &&
+                    ((ComponentSampleModel) sampleModel).getPixelStride() == 1) {
+                final ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+                final int scanlineStride = componentSampleModel.getScanlineStride();
+                final int offset = dataBuffer.getOffset() +
+                        componentSampleModel.getOffset(rectangle.x - tile.getSampleModelTranslateX(),
+                                                       rectangle.y - tile.getSampleModelTranslateY());
+                for (int y = 0; y < height; y++) {
+                    convert(array, y * width, bankData, offset + y * scanlineStride, width);
+                }
+            } else {
+                final Object buffer = getBuffer(width * height);
+                convert(array, 0, buffer, 0, width * height);
+                tile.setDataElements(rectangle.x, rectangle.y, width, height, buffer);
+            }
+            return true;
+        }
+
+        abstract boolean canConvert(Object storage);
+
+        /**
+         * Converts a range of the storage of the array into the target storage.
+         */
+        abstract void convert(Array array, int sourceOffset, Object target, int targetOffset, int length);
+
+        /**
+         * Converts an element of an array whose storage cannot be converted.
+         */
+        abstract void convertElement(Array array, int index, Array convertedArray);
+
+        private boolean isConvertible(Array array) {
+            final Object storage = array.getStorage();
+            // the storage must hold the elements of the array in their canonical order
+            return canConvert(storage) && java.lang.reflect.Array.getLength(storage) == array.getSize();
+        }
+
+        private Object getBankData(DataBuffer dataBuffer) {
+            if (dataBuffer.getNumBanks() != 1) {
+                return null;
+            }
+            if (targetType == DataType.INT && dataBuffer instanceof DataBufferInt) {
+                return ((DataBufferInt) dataBuffer).getData();
+            }
+            if (targetType == DataType.FLOAT && dataBuffer instanceof DataBufferFloat) {
+                return ((DataBufferFloat) dataBuffer).getData();
+            }
+            return null;
+        }
+
+        private Object getBuffer(int length) {
+            Object buffer = buffers.get();
+            if (buffer == null || java.lang.reflect.Array.getLength(buffer) < length) {
+                buffer = java.lang.reflect.Array.newInstance(targetType.getPrimitiveClassType(), length);
+                buffers.set(buffer);
+            }
+            return buffer;
+        }
+    }
+
 }
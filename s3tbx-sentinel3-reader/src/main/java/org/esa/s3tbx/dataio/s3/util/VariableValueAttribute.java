@@ -0,0 +1,97 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.ProductData;
+import ucar.ma2.Array;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * The values of a one-dimensional NetCDF variable as metadata attribute. The values are read from the variable
+ * when they are accessed for the first time, not when the product is opened. If they cannot be read then, for
+ * example because the product has been closed, the failure is logged and the attribute is empty.
+ */
+class VariableValueAttribute extends MetadataAttribute {
+
+    private final Variable variable;
+    private volatile ProductData values;
+
+    private VariableValueAttribute(Variable variable, int dataType) {
+        super("value", dataType, (int) variable.getSize());
+        this.variable = variable;
+        setReadOnly(true);
+        setUnit(variable.getUnitsString());
+        setDescription(variable.getDescription());
+    }
+
+    /**
+     * Creates the attribute for the given variable.
+     *
+     * @param variable the variable
+     * @return the attribute, or <code>null</code> if the data type of the variable is not supported
+     */
+    static VariableValueAttribute create(Variable variable) {
+        final Class<?> type = variable.getDataType().getPrimitiveClassType();
+        final int dataType;
+        if (type == float.class) {
+            dataType = ProductData.TYPE_FLOAT32;
+        } else if (type == double.class) {
+            dataType = ProductData.TYPE_FLOAT64;
+        } else if (type == byte.class) {
+            dataType = ProductData.TYPE_INT8;
+        } else if (type == short.class) {
+            dataType = ProductData.TYPE_INT16;
+        } else if (type == int.class) {
+            dataType = ProductData.TYPE_INT32;
+        } else if (type == long.class) {
+            dataType = ProductData.TYPE_INT64;
+        } else {
+            return null;
+        }
+        return new VariableValueAttribute(variable, dataType);
+    }
+
+    @Override
+    public ProductData getData() {
+        final ProductData data = super.getData();
+        // the variable is null while the super constructor runs
+        if (variable == null || data == null) {
+            return data;
+        }
+        if (values == null) {
+            synchronized (this) {
+                if (values == null) {
+                    values = readValues(data);
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public MetadataAttribute createDeepClone() {
+        // the clone holds the values, and not the variable of this product, which may be closed before the clone
+        final MetadataAttribute clone = new MetadataAttribute(getName(), getData().createDeepClone(), isReadOnly());
+        clone.setUnit(getUnit());
+        clone.setDescription(getDescription());
+        clone.setSynthetic(isSynthetic());
+        return clone;
+    }
+
+    private ProductData readValues(ProductData data) {
+        final Array array;
+        try {
+            synchronized (variable.getParentGroup().getNetcdfFile()) {
+                array = variable.read();
+            }
+        } catch (IOException | RuntimeException e) {
+            // NetCDF fails with unchecked exceptions when the file has been closed
+            Logger.getLogger(S3NetcdfReader.class.getName()).severe("Could not read variable " + variable.getFullName());
+            return ProductData.createInstance(getDataType(), Array.factory(variable.getDataType(), new int[]{0}).getStorage());
+        }
+        System.arraycopy(array.copyTo1DJavaArray(), 0, data.getElems(), 0, data.getNumElems());
+        return data;
+    }
+}
@@ -21,11 +21,21 @@ import org.esa.snap.core.dataio.geocoding.forward.PixelForward;
 import org.esa.snap.core.dataio.geocoding.forward.PixelInterpolatingForward;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelGeoIndexInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelQuadTreeInverse;
+import org.esa.snap.core.datamodel.Product;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.esa.s3tbx.dataio.s3.slstr.SlstrLevel1ProductFactory.SLSTR_L1B_PIXEL_GEOCODING_INVERSE;
 import static org.esa.snap.core.dataio.geocoding.ComponentGeoCoding.SYSPROP_SNAP_PIXEL_CODING_FRACTION_ACCURACY;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AbstractProductFactoryTest {
 
@@ -93,4 +103,86 @@ public class AbstractProductFactoryTest {
             }
         }
     }
+
+    @Test
+    public void testReadProductsKeepsOrderOfFileNames() throws IOException {
+        final List<String> fileNames = Arrays.asList("a.nc", "", "b.nc", "missing.nc", "broken.nc", "c.nc", "d.nc");
+        final AbstractProductFactory factory = new AbstractProductFactory(null) {
+            @Override
+            protected List<String> getFileNames(Manifest manifest) {
+                throw new IllegalStateException("not used");
+            }
+
+            @Override
+            protected Product readProduct(String fileName, Manifest manifest) throws IOException {
+                if (fileName.equals("missing.nc")) {
+                    return null;
+                }
+                if (fileName.equals("broken.nc")) {
+                    throw new IOException("broken");
+                }
+                // the first files take longest to open, so that they are completed last
+                try {
+                    Thread.sleep(20 * (fileNames.size() - fileNames.indexOf(fileName)));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return new Product(fileName, "test", 1, 1);
+            }
+        };
+
+        factory.readProducts(fileNames);
+
+        final List<Product> products = factory.getOpenProductList();
+        assertEquals(4, products.size());
+        assertEquals("a.nc", products.get(0).getName());
+        assertEquals("b.nc", products.get(1).getName());
+        assertEquals("c.nc", products.get(2).getName());
+        assertEquals("d.nc", products.get(3).getName());
+    }
+
+    @Test
+    public void testReadProductsDisposesOpenedProductsOnFailure() {
+        final List<String> fileNames = Arrays.asList("a.nc", "b.nc", "failing.nc", "c.nc", "d.nc");
+        final Set<String> disposed = ConcurrentHashMap.newKeySet();
+        final AbstractProductFactory factory = new AbstractProductFactory(null) {
+            @Override
+            protected List<String> getFileNames(Manifest manifest) {
+                throw new IllegalStateException("not used");
+            }
+
+            @Override
+            protected Product readProduct(String fileName, Manifest manifest) throws IOException {
+                if (fileName.equals("failing.nc")) {
+                    throw new IllegalArgumentException("failing");
+                }
+                // the last files take longest to open, so that they are completed after the failure
+                try {
+                    Thread.sleep(20 * fileNames.indexOf(fileName));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return new Product(fileName, "test", 1, 1) {
+                    @Override
+                    public void dispose() {
+                        disposed.add(getName());
+                        super.dispose();
+                    }
+                };
+            }
+        };
+
+        try {
+            factory.readProducts(fileNames);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("failing", expected.getMessage());
+        } catch (IOException e) {
+            fail("IllegalArgumentException expected, got " + e);
+        }
+
+        assertTrue(factory.getOpenProductList().isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("a.nc", "b.nc", "c.nc", "d.nc")), disposed);
+    }
+
 }
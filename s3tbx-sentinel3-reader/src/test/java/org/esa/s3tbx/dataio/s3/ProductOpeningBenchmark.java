@@ -0,0 +1,114 @@
+package org.esa.s3tbx.dataio.s3;
+
+import org.esa.s3tbx.dataio.s3.util.S3NetcdfReader;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.runtime.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time {@link AbstractProductFactory} needs to open the component files of a product, one after
+ * the other and with several threads. The product is a synthetic SAFE directory holding copies of a small
+ * NetCDF test file. The benefit is larger on network storage than on a local disk.
+ * Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductOpeningBenchmark {
+
+    @Param({"30"})
+    public int fileCount;
+
+    @Param({"1", "8"})
+    public int openingThreadCount;
+
+    private Path productDir;
+    private List<String> fileNames;
+
+    @Setup
+    public void setUp() throws Exception {
+        productDir = Files.createTempDirectory("S3A_XX_BENCHMARK").resolve("S3A_XX_BENCHMARK.SEN3");
+        Files.createDirectory(productDir);
+        final Path testFile = Paths.get(getClass().getResource("FRP_in.nc").toURI());
+        fileNames = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            final String fileName = String.format("component_%02d.nc", i);
+            Files.copy(testFile, productDir.resolve(fileName));
+            fileNames.add(fileName);
+        }
+        Config.instance("s3tbx").load().preferences().putInt(AbstractProductFactory.S3TBX_READER_OPENING_THREAD_COUNT,
+                                                             openingThreadCount);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Config.instance("s3tbx").load().preferences().remove(AbstractProductFactory.S3TBX_READER_OPENING_THREAD_COUNT);
+        for (String fileName : fileNames) {
+            Files.delete(productDir.resolve(fileName));
+        }
+        Files.delete(productDir);
+        Files.delete(productDir.getParent());
+    }
+
+    @Benchmark
+    public void openComponentFiles(Blackhole blackhole) throws IOException {
+        final ComponentProductFactory factory = new ComponentProductFactory(productDir.toFile());
+        try {
+            factory.readProducts(fileNames);
+            blackhole.consume(factory.getOpenProductList());
+        } finally {
+            factory.dispose();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductOpeningBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class ComponentProductFactory extends AbstractProductFactory {
+
+        private final File productDir;
+
+        ComponentProductFactory(File productDir) {
+            super(null);
+            this.productDir = productDir;
+        }
+
+        @Override
+        protected List<String> getFileNames(Manifest manifest) {
+            throw new IllegalStateException("not used");
+        }
+
+        @Override
+        protected Product readProduct(String fileName, Manifest manifest) throws IOException {
+            return new S3NetcdfReader().readProductNodes(new File(productDir, fileName), null);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opengis.referencing.operation.TransformException;
 
+import java.awt.Dimension;
 import java.awt.geom.Point2D;
 
 import static org.junit.Assert.*;
@@ -58,4 +59,60 @@ public class SlstrGeoCodingSceneTransformProviderTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGridTransformsAgreeWithExactTransforms() throws TransformException {
+        final TiePointGrid sceneLatGrid = new TiePointGrid("sceneLat", 2, 2, 0, 0, 64, 64, new float[]{52, 52, 50, 50});
+        final TiePointGrid sceneLonGrid = new TiePointGrid("sceneLon", 2, 2, 0, 0, 64, 64, new float[]{4, 6, 4, 6});
+        final TiePointGeoCoding sceneGeoCoding = new TiePointGeoCoding(sceneLatGrid, sceneLonGrid);
+        final TiePointGrid modelLatGrid = new TiePointGrid("modelLat", 2, 2, 0, 0, 64, 64, new float[]{51, 51, 49, 49});
+        final TiePointGrid modelLonGrid = new TiePointGrid("modelLon", 2, 2, 0, 0, 64, 64, new float[]{5, 7, 5, 7});
+        final TiePointGeoCoding modelGeoCoding = new TiePointGeoCoding(modelLatGrid, modelLonGrid);
+        final SlstrGeoCodingSceneTransformProvider exactProvider =
+                new SlstrGeoCodingSceneTransformProvider(sceneGeoCoding, modelGeoCoding);
+        final Dimension rasterSize = new Dimension(64, 64);
+        final SlstrGeoCodingSceneTransformProvider gridProvider =
+                new SlstrGeoCodingSceneTransformProvider(sceneGeoCoding, modelGeoCoding, rasterSize, rasterSize);
+
+        for (double y = 32.5; y < 64; y += 3.7) {
+            for (double x = 32.5; x < 64; x += 3.7) {
+                final Point2D.Double ptSrc = new Point2D.Double(x, y);
+                final Point2D exact = exactProvider.getSceneToModelTransform().transform(ptSrc, new Point2D.Double());
+                final Point2D grid = gridProvider.getSceneToModelTransform().transform(ptSrc, new Point2D.Double());
+                assertEquals(exact.getX(), grid.getX(), SlstrGeoCodingSceneTransformProvider.MAX_GRID_ERROR);
+                assertEquals(exact.getY(), grid.getY(), SlstrGeoCodingSceneTransformProvider.MAX_GRID_ERROR);
+            }
+        }
+        for (double y = 0.5; y < 32; y += 3.7) {
+            for (double x = 0.5; x < 32; x += 3.7) {
+                final Point2D.Double ptSrc = new Point2D.Double(x, y);
+                final Point2D exact = exactProvider.getModelToSceneTransform().transform(ptSrc, new Point2D.Double());
+                final Point2D grid = gridProvider.getModelToSceneTransform().transform(ptSrc, new Point2D.Double());
+                assertEquals(exact.getX(), grid.getX(), SlstrGeoCodingSceneTransformProvider.MAX_GRID_ERROR);
+                assertEquals(exact.getY(), grid.getY(), SlstrGeoCodingSceneTransformProvider.MAX_GRID_ERROR);
+            }
+        }
+    }
+
+    @Test
+    public void testDisplacementGridCellTypes() {
+        // shifts by (10, 20) where y < 48, is quadratic in y elsewhere and cannot transform where x > 64
+        final SlstrGeoCodingSceneTransformProvider.DisplacementGrid grid =
+                SlstrGeoCodingSceneTransformProvider.DisplacementGrid.create((x, y, ptDst) -> {
+                    if (x > 64) {
+                        return false;
+                    }
+                    ptDst.setLocation(x + 10, y < 48 ? y + 20 : y * y);
+                    return true;
+                }, 100, 80, 16, 0.05);
+
+        final Point2D.Double ptDst = new Point2D.Double();
+        assertTrue(grid.interpolate(20.25, 30.75, ptDst));
+        assertEquals(30.25, ptDst.getX(), 1e-10);
+        assertEquals(50.75, ptDst.getY(), 1e-10);
+        assertFalse(grid.interpolate(20.25, 60.0, ptDst));
+        assertFalse(grid.interpolate(60.0, 30.75, ptDst));
+        assertFalse(grid.interpolate(90.0, 30.75, ptDst));
+        assertFalse(grid.interpolate(0.25, 30.75, ptDst));
+    }
+
+}
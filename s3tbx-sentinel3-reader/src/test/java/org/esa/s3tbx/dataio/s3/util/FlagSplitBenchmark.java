@@ -0,0 +1,88 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares splitting a tile of a 64-bit flag variable into its lower and upper 32 bits as {@link S3VariableOpImage}
+ * did before, with element-wise access to a new array which is then copied into the tile, with the
+ * {@link S3VariableOpImage.StorageConverter}s, which write directly into the tile.
+ * Not run as part of the unit tests; start it with {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlagSplitBenchmark {
+
+    @Param({"512"})
+    public int tileSize;
+
+    private Array array;
+    private WritableRaster lsbTile;
+    private WritableRaster msbTile;
+    private Rectangle rectangle;
+
+    @Setup
+    public void setUp() {
+        final long[] flags = new long[tileSize * tileSize];
+        final Random random = new Random(42);
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = random.nextLong();
+        }
+        array = Array.factory(DataType.LONG, new int[]{tileSize, tileSize}, flags);
+        lsbTile = Raster.createBandedRaster(DataBuffer.TYPE_INT, tileSize, tileSize, 1, new Point(0, 0));
+        msbTile = Raster.createBandedRaster(DataBuffer.TYPE_INT, tileSize, tileSize, 1, new Point(0, 0));
+        rectangle = new Rectangle(0, 0, tileSize, tileSize);
+    }
+
+    @Benchmark
+    public Object splitElementWise() {
+        final Array lsb = Array.factory(DataType.INT, array.getShape());
+        for (int i = 0; i < lsb.getSize(); i++) {
+            lsb.setInt(i, (int) (array.getLong(i) & 0x00000000FFFFFFFFL));
+        }
+        lsbTile.setDataElements(0, 0, tileSize, tileSize, lsb.getStorage());
+        final Array msb = Array.factory(DataType.INT, array.getShape());
+        for (int i = 0; i < msb.getSize(); i++) {
+            msb.setInt(i, (int) (array.getLong(i) >>> 32));
+        }
+        msbTile.setDataElements(0, 0, tileSize, tileSize, msb.getStorage());
+        return msbTile;
+    }
+
+    @Benchmark
+    public Object splitOnStorage() {
+        ((S3VariableOpImage.StorageConverter) S3VariableOpImage.ArrayConverter.LSB).write(array, lsbTile, rectangle);
+        ((S3VariableOpImage.StorageConverter) S3VariableOpImage.ArrayConverter.MSB).write(array, msbTile, rectangle);
+        return msbTile;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FlagSplitBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.esa.snap.dataio.netcdf.util.NetcdfFileOpener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class NetcdfFilePoolTest {
+
+    private File file;
+    private NetcdfFile netcdfFile;
+    private Variable variable;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(getClass().getResource("../FRP_in.nc").toURI());
+        netcdfFile = NetcdfFileOpener.open(file);
+        assertNotNull(netcdfFile);
+        for (Variable candidate : netcdfFile.getVariables()) {
+            if (candidate.getRank() == 2 && candidate.getDataType().isNumeric()) {
+                variable = candidate;
+                break;
+            }
+        }
+        assertNotNull(variable);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        netcdfFile.close();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final NetcdfFilePool pool = new NetcdfFilePool(file, 2);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final int[] shape = variable.getShape();
+            final List<Section> sections = new ArrayList<>();
+            final List<Future<Array>> futures = new ArrayList<>();
+            for (int y = 0; y < shape[0]; y += 64) {
+                final Section section = new Section(new int[]{y, 0},
+                                                    new int[]{Math.min(64, shape[0] - y), shape[1]});
+                sections.add(section);
+                futures.add(executor.submit(() -> pool.read(variable, section)));
+            }
+            for (int i = 0; i < sections.size(); i++) {
+                final Array expected = NetcdfFilePool.NONE.read(variable, sections.get(i));
+                assertArrayEquals(expected.getShape(), futures.get(i).get().getShape());
+                // the nested primitive arrays are compared element-wise
+                assertArrayEquals(new Object[]{expected.copyTo1DJavaArray()},
+                                  new Object[]{futures.get(i).get().copyTo1DJavaArray()});
+            }
+        } finally {
+            executor.shutdown();
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testReadAfterClose() throws Exception {
+        final NetcdfFilePool pool = new NetcdfFilePool(file, 1);
+        pool.read(variable, new Section(new int[]{0, 0}, new int[]{1, 1}));
+        pool.close();
+        try {
+            pool.read(variable, new Section(new int[]{0, 0}, new int[]{1, 1}));
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testClosingSharedPoolHasNoEffect() throws Exception {
+        NetcdfFilePool.NONE.close();
+        final Array array = NetcdfFilePool.NONE.read(variable, new Section(new int[]{0, 0}, new int[]{1, 1}));
+        assertEquals(1, array.getSize());
+    }
+}
@@ -0,0 +1,74 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class S3VariableOpImageTest {
+
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 5;
+
+    @Test
+    public void testLsbAndMsb() {
+        final long[] values = new long[WIDTH * HEIGHT];
+        final int[] expectedLsb = new int[values.length];
+        final int[] expectedMsb = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0x8000000100000000L * i + 0xF0000001L * i;
+            expectedLsb[i] = (int) (values[i] & 0x00000000FFFFFFFFL);
+            expectedMsb[i] = (int) (values[i] >>> 32);
+        }
+        final Array array = Array.factory(DataType.LONG, new int[]{HEIGHT, WIDTH}, values);
+
+        assertArrayEquals(expectedLsb, (int[]) S3VariableOpImage.ArrayConverter.LSB.convert(array).getStorage());
+        assertArrayEquals(expectedMsb, (int[]) S3VariableOpImage.ArrayConverter.MSB.convert(array).getStorage());
+
+        assertArrayEquals(expectedLsb, (int[]) write(S3VariableOpImage.ArrayConverter.LSB, array, DataBuffer.TYPE_INT));
+        assertArrayEquals(expectedMsb, (int[]) write(S3VariableOpImage.ArrayConverter.MSB, array, DataBuffer.TYPE_INT));
+    }
+
+    @Test
+    public void testUInt() {
+        final int[] values = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0x7FFFFFFF + 1000 * i;
+        }
+        final Array array = Array.factory(DataType.UINT, new int[]{HEIGHT, WIDTH}, values);
+        final float[] expected = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = array.getFloat(i);
+        }
+
+        final float[] converted = (float[]) S3VariableOpImage.ArrayConverter.UINTCONVERTER.convert(array).getStorage();
+        assertArrayEquals(expected, converted, 0.0f);
+        assertArrayEquals(expected, (float[]) write(S3VariableOpImage.ArrayConverter.UINTCONVERTER, array,
+                                                    DataBuffer.TYPE_FLOAT), 0.0f);
+    }
+
+    private static Object write(S3VariableOpImage.ArrayConverter converter, Array array, int dataType) {
+        // the tile is a child of a larger raster, so that offset and scanline stride matter
+        // Raster.createBandedRaster does not support float data
+        final SampleModel sampleModel = new BandedSampleModel(dataType, WIDTH + 3, HEIGHT + 4, 1);
+        final WritableRaster parent = Raster.createWritableRaster(sampleModel, sampleModel.createDataBuffer(),
+                                                                  new Point(100, 200));
+        final WritableRaster tile = parent.createWritableChild(101, 201, WIDTH + 2, HEIGHT + 3, 101, 201, null);
+        final Rectangle rectangle = new Rectangle(102, 203, WIDTH, HEIGHT);
+        assertTrue(((S3VariableOpImage.StorageConverter) converter).write(array, tile, rectangle));
+        final Object data = parent.getDataElements(rectangle.x, rectangle.y, WIDTH, HEIGHT, null);
+        assertEquals(WIDTH * HEIGHT, java.lang.reflect.Array.getLength(data));
+        return data;
+    }
+}
@@ -0,0 +1,92 @@
+package org.esa.s3tbx.dataio.s3.util;
+
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.dataio.netcdf.util.NetcdfFileOpener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+public class VariableValueAttributeTest {
+
+    private static final float[] VALUES = {0.5f, 1.5f, -2.25f, 300.0f};
+
+    private File file;
+    private NetcdfFile netcdfFile;
+    private Variable variable;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("values", ".nc").toFile();
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getPath());
+        writer.addDimension(null, "n", VALUES.length);
+        final Variable writerVariable = writer.addVariable(null, "values", DataType.FLOAT, "n");
+        writer.addVariableAttribute(writerVariable, new Attribute("units", "K"));
+        writer.create();
+        writer.write(writerVariable, Array.factory(DataType.FLOAT, new int[]{VALUES.length}, VALUES));
+        writer.close();
+
+        netcdfFile = NetcdfFileOpener.open(file);
+        assertNotNull(netcdfFile);
+        variable = netcdfFile.findVariable("values");
+        assertNotNull(variable);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        netcdfFile.close();
+        Files.delete(file.toPath());
+    }
+
+    @Test
+    public void testGetData() {
+        final VariableValueAttribute attribute = VariableValueAttribute.create(variable);
+
+        assertNotNull(attribute);
+        assertEquals("value", attribute.getName());
+        assertEquals("K", attribute.getUnit());
+        assertEquals(ProductData.TYPE_FLOAT32, attribute.getDataType());
+        assertArrayEquals(VALUES, (float[]) attribute.getData().getElems(), 0.0f);
+    }
+
+    @Test
+    public void testDeepCloneHoldsValues() throws IOException {
+        final VariableValueAttribute attribute = VariableValueAttribute.create(variable);
+        assertNotNull(attribute);
+
+        final MetadataAttribute clone = attribute.createDeepClone();
+        netcdfFile.close();
+
+        assertFalse(clone instanceof VariableValueAttribute);
+        assertEquals("K", clone.getUnit());
+        assertArrayEquals(VALUES, (float[]) clone.getData().getElems(), 0.0f);
+    }
+
+    @Test
+    public void testGetDataAfterCloseIsEmpty() throws IOException {
+        final VariableValueAttribute attribute = VariableValueAttribute.create(variable);
+        assertNotNull(attribute);
+
+        netcdfFile.close();
+        final ProductData data = attribute.getData();
+
+        assertEquals(ProductData.TYPE_FLOAT32, data.getType());
+        assertEquals(0, data.getNumElems());
+        assertEquals(0, attribute.createDeepClone().getData().getNumElems());
+    }
+}
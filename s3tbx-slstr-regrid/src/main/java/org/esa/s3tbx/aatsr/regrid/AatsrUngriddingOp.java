@@ -2,11 +2,8 @@ package org.esa.s3tbx.aatsr.regrid;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.snap.core.datamodel.Band;
-import org.esa.snap.core.datamodel.MetadataAttribute;
-import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
-import org.esa.snap.core.datamodel.ProductNodeGroup;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
 import org.esa.snap.core.gpf.annotations.OperatorMetadata;
@@ -22,8 +19,6 @@ import org.esa.snap.core.gpf.pointop.WritableSample;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 
 /**
@@ -67,14 +62,9 @@ public class AatsrUngriddingOp extends PixelOperator {
     private InputParameters parameters;
 
     // Annotation Data Sets from product
-    private ProductNodeGroup<MetadataElement> NADIR_VIEW_SCAN_PIX_NUM_ADS_Records;
-    private ProductNodeGroup<MetadataElement> FWARD_VIEW_SCAN_PIX_NUM_ADS_Records;
-    private ProductNodeGroup<MetadataElement> SCAN_PIXEL_X_AND_Y_ADS_Records;
-    private ProductNodeGroup<MetadataElement> GEOLOCATION_ADS_Records;
+    private AnnotationDataSets ads;
 
-    private List<Double> scanYCoords;
-    private int s0;    // s0 scan number of first record = 32
-    private List<List<Double>> pixelProjectionMap;
+    private double[][] pixelProjectionMap;
 
     private final static int PIXELS_PER_ROW = 512;
     //default values as given in the technical note
@@ -107,8 +97,7 @@ public class AatsrUngriddingOp extends PixelOperator {
             if (enableFOV) {
                 // Get the pixel projection map (along and across track extent) for all 2000 pixels
                 // This assumes spherical earth geometry & constant platform altitude
-                this.pixelProjectionMap = new ArrayList<>();
-                Calculator.getConstantPixelProjection(parameters, pixelProjectionMap);
+                this.pixelProjectionMap = Calculator.getConstantPixelProjection(parameters);
                 pm.worked(1);
             }
         } finally {
@@ -207,12 +196,7 @@ public class AatsrUngriddingOp extends PixelOperator {
         int[] pixelRelativeNumbers = {0, 0};
         double[] pixelNewPositionsAndTimes = {0.0, 0.0, 0.0, 0.0, 0.0, 0.0};
         Calculator.getPixelPositionsAcquisitionTimes(y, pixel,
-                                                     this.s0,
-                                                     this.NADIR_VIEW_SCAN_PIX_NUM_ADS_Records,
-                                                     this.FWARD_VIEW_SCAN_PIX_NUM_ADS_Records,
-                                                     this.SCAN_PIXEL_X_AND_Y_ADS_Records,
-                                                     this.GEOLOCATION_ADS_Records,
-                                                     this.scanYCoords,
+                                                     this.ads,
                                                      pixelNewPositionsAndTimes,
                                                      pixelRelativeNumbers,
                                                      this.parameters);
@@ -226,10 +210,10 @@ public class AatsrUngriddingOp extends PixelOperator {
         targetSamples[5].set(pixelNewPositionsAndTimes[5]);
 
         if (enableFOV) {
-            targetSamples[6].set(pixelProjectionMap.get(pixelRelativeNumbers[0]).get(0));
-            targetSamples[7].set(pixelProjectionMap.get(pixelRelativeNumbers[0]).get(1));
-            targetSamples[8].set(pixelProjectionMap.get(pixelRelativeNumbers[1]).get(0));
-            targetSamples[9].set(pixelProjectionMap.get(pixelRelativeNumbers[1]).get(1));
+            targetSamples[6].set(pixelProjectionMap[pixelRelativeNumbers[0]][0]);
+            targetSamples[7].set(pixelProjectionMap[pixelRelativeNumbers[0]][1]);
+            targetSamples[8].set(pixelProjectionMap[pixelRelativeNumbers[1]][0]);
+            targetSamples[9].set(pixelProjectionMap[pixelRelativeNumbers[1]][1]);
         }
     }
 
@@ -321,25 +305,8 @@ public class AatsrUngriddingOp extends PixelOperator {
     }
 
     private void prepareMetadata() {
-        // Get the ADS from the product
-        MetadataElement metadataRoot = sourceProduct.getMetadataRoot();
-        this.NADIR_VIEW_SCAN_PIX_NUM_ADS_Records = metadataRoot.getElement("NADIR_VIEW_SCAN_PIX_NUM_ADS").getElementGroup();
-        this.FWARD_VIEW_SCAN_PIX_NUM_ADS_Records = metadataRoot.getElement("FWARD_VIEW_SCAN_PIX_NUM_ADS").getElementGroup();
-        this.SCAN_PIXEL_X_AND_Y_ADS_Records = metadataRoot.getElement("SCAN_PIXEL_X_AND_Y_ADS").getElementGroup();
-        this.GEOLOCATION_ADS_Records = metadataRoot.getElement("GEOLOCATION_ADS").getElementGroup();
-
-        // Get list of GeoLocation ADS scanYCoords (Seems to be very expensive so only compute once)
-        this.scanYCoords = new ArrayList<>();
-        for (int k = 0; k < GEOLOCATION_ADS_Records.getNodeCount(); k++) {
-            MetadataElement GeoAdsRecord = GEOLOCATION_ADS_Records.get(k);
-            scanYCoords.add(GeoAdsRecord.getAttributeDouble("img_scan_y"));
-        }
-
-        // Get the scan number of the first record of the scanPixelADS
-        MetadataElement firstRecord = SCAN_PIXEL_X_AND_Y_ADS_Records.get(0);
-        MetadataAttribute instr_scan_num = firstRecord.getAttributeAt(2);
-        ProductData data = instr_scan_num.getData();
-        this.s0 = data.getElemInt(); // = 32
+        // Decode the ADS from the product once, looking them up in the metadata for each pixel is very expensive
+        this.ads = new AnnotationDataSets(sourceProduct.getMetadataRoot());
     }
 
 /*    private void prepareSubset(){
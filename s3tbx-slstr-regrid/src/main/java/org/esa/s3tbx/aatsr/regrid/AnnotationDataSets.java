@@ -0,0 +1,148 @@
+package org.esa.s3tbx.aatsr.regrid;
+
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.ProductNodeGroup;
+
+/**
+ * The Annotation Data Sets of an (A)ATSR L1B product needed for ungridding, decoded once from the product
+ * metadata into primitive arrays indexed by record number.
+ * <p>
+ * Accessing the records through the metadata tree for every pixel is expensive, since each access looks up
+ * elements and attributes by name and copies their data. Instances are immutable and can be shared by the
+ * threads computing the tiles.
+ */
+class AnnotationDataSets {
+
+    // NADIR_VIEW_SCAN_PIX_NUM_ADS and FWARD_VIEW_SCAN_PIX_NUM_ADS, one record per granule of 32 image rows
+    final int[][] nadirScanNumbers;
+    final short[][] nadirPixelNumbers;
+    final int[][] forwardScanNumbers;
+    final short[][] forwardPixelNumbers;
+
+    // SCAN_PIXEL_X_AND_Y_ADS, one record per 32 instrument scans
+    final int s0;    // s0 scan number of first record = 32
+    final int[] scanNumbers;
+    final double[] scanTimes;
+    final int[][] tiePixelXCoordinates;
+    final int[][] tiePixelYCoordinates;
+
+    // GEOLOCATION_ADS, one record per granule of 32 image rows
+    final double[] scanYCoordinates;
+    final int[][] tiePointLatitudes;
+    final int[][] tiePointLongitudes;
+    final int[][] nadirLatitudeCorrections;
+    final int[][] nadirLongitudeCorrections;
+    final int[][] forwardLatitudeCorrections;
+    final int[][] forwardLongitudeCorrections;
+    private final boolean scanYCoordinatesAscending;
+
+    AnnotationDataSets(MetadataElement metadataRoot) {
+        final ProductNodeGroup<MetadataElement> nadirViewADS = metadataRoot.getElement("NADIR_VIEW_SCAN_PIX_NUM_ADS").getElementGroup();
+        nadirScanNumbers = new int[nadirViewADS.getNodeCount()][];
+        nadirPixelNumbers = new short[nadirViewADS.getNodeCount()][];
+        readViewADS(nadirViewADS, nadirScanNumbers, nadirPixelNumbers);
+
+        final ProductNodeGroup<MetadataElement> forwardViewADS = metadataRoot.getElement("FWARD_VIEW_SCAN_PIX_NUM_ADS").getElementGroup();
+        forwardScanNumbers = new int[forwardViewADS.getNodeCount()][];
+        forwardPixelNumbers = new short[forwardViewADS.getNodeCount()][];
+        readViewADS(forwardViewADS, forwardScanNumbers, forwardPixelNumbers);
+
+        final ProductNodeGroup<MetadataElement> scanPixelADS = metadataRoot.getElement("SCAN_PIXEL_X_AND_Y_ADS").getElementGroup();
+        final int numScanPixelRecords = scanPixelADS.getNodeCount();
+        scanNumbers = new int[numScanPixelRecords];
+        scanTimes = new double[numScanPixelRecords];
+        tiePixelXCoordinates = new int[numScanPixelRecords][];
+        tiePixelYCoordinates = new int[numScanPixelRecords][];
+        for (int k = 0; k < numScanPixelRecords; k++) {
+            final MetadataElement record = scanPixelADS.get(k);
+            /* Get scan time of record as a double */
+            final ProductData dsrTime = record.getAttributeAt(0).getData();
+            scanTimes[k] = dsrTime.getElemIntAt(0) + (dsrTime.getElemDoubleAt(1) / 86400.0) + ((dsrTime.getElemDoubleAt(2) / 1.0e6) / 86400.0);
+            scanNumbers[k] = record.getAttributeAt(2).getData().getElemInt();
+            tiePixelXCoordinates[k] = (int[]) record.getAttributeAt(3).getDataElems();
+            tiePixelYCoordinates[k] = (int[]) record.getAttributeAt(4).getDataElems();
+        }
+        s0 = scanNumbers[0];
+
+        final ProductNodeGroup<MetadataElement> geolocationADS = metadataRoot.getElement("GEOLOCATION_ADS").getElementGroup();
+        final int numGeolocationRecords = geolocationADS.getNodeCount();
+        scanYCoordinates = new double[numGeolocationRecords];
+        tiePointLatitudes = new int[numGeolocationRecords][];
+        tiePointLongitudes = new int[numGeolocationRecords][];
+        nadirLatitudeCorrections = new int[numGeolocationRecords][];
+        nadirLongitudeCorrections = new int[numGeolocationRecords][];
+        forwardLatitudeCorrections = new int[numGeolocationRecords][];
+        forwardLongitudeCorrections = new int[numGeolocationRecords][];
+        boolean ascending = true;
+        for (int k = 0; k < numGeolocationRecords; k++) {
+            final MetadataElement record = geolocationADS.get(k);
+            scanYCoordinates[k] = record.getAttributeDouble("img_scan_y");
+            if (k > 0 && !(scanYCoordinates[k] >= scanYCoordinates[k - 1])) {
+                ascending = false;
+            }
+            tiePointLatitudes[k] = getInts(record, "tie_pt_lat");
+            tiePointLongitudes[k] = getInts(record, "tie_pt_long");
+            nadirLatitudeCorrections[k] = getInts(record, "lat_corr_nadv");
+            nadirLongitudeCorrections[k] = getInts(record, "long_corr_nadv");
+            forwardLatitudeCorrections[k] = getInts(record, "lat_corr_forv");
+            forwardLongitudeCorrections[k] = getInts(record, "long_corr_forv");
+        }
+        scanYCoordinatesAscending = ascending;
+    }
+
+    /**
+     * Finds the index of the geolocation record at the top of the given y coordinate, which is the last record
+     * of the leading records whose scan y coordinate is not greater than the given one, or 0 if there is none.
+     */
+    int findGeolocationRecord(double yCoordinate) {
+        if (!scanYCoordinatesAscending) {
+            int ig = 0;
+            for (int count = 0; count < scanYCoordinates.length; count++) {
+                if (yCoordinate >= scanYCoordinates[count]) {
+                    ig = count;
+                } else {
+                    break;
+                }
+            }
+            return ig;
+        }
+        int low = 0;
+        int high = scanYCoordinates.length - 1;
+        int ig = 0;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (yCoordinate >= scanYCoordinates[mid]) {
+                ig = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return ig;
+    }
+
+    private static void readViewADS(ProductNodeGroup<MetadataElement> viewADS, int[][] scanNumbers, short[][] pixelNumbers) {
+        for (int k = 0; k < scanNumbers.length; k++) {
+            final MetadataElement adsRecord = viewADS.get(k);
+            // Get instrument scan number list from record (note have to convert from short due to number of scans...)
+            scanNumbers[k] = getInts(adsRecord, "instr_scan_num");
+            // Get instrument pixel number list
+            pixelNumbers[k] = (short[]) adsRecord.getAttribute("pix_num").getDataElems();
+        }
+    }
+
+    private static int[] getInts(MetadataElement record, String attributeName) {
+        final MetadataAttribute attribute = record.getAttribute(attributeName);
+        if (attribute == null) {
+            return null;
+        }
+        final ProductData data = attribute.getData();
+        final int[] ints = new int[data.getNumElems()];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = data.getElemIntAt(i);
+        }
+        return ints;
+    }
+}
@@ -21,12 +21,6 @@
 
 package org.esa.s3tbx.aatsr.regrid;
 
-import org.esa.snap.core.datamodel.MetadataElement;
-import org.esa.snap.core.datamodel.ProductNodeGroup;
-
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  *
  * @author ABeaton, Telespazio VEGA UK Ltd 30/10/2013
@@ -84,24 +78,14 @@ class Calculator {
      *
      * @param iRow
      * @param jPixel
-     * @param s0
-     * @param nadirViewADS
-     * @param forwardViewADS
-     * @param scanPixelADS
-     * @param geolocationADS
-     * @param ADSScanYList
+     * @param ads
      * @param pixelNewPositionsAndTimes
      * @param pixelRelativeNumbers
      * @param parameters
      */
     public static void getPixelPositionsAcquisitionTimes(int iRow,
                                                          int jPixel,
-                                                         int s0,
-                                                         ProductNodeGroup<MetadataElement> nadirViewADS,
-                                                         ProductNodeGroup<MetadataElement> forwardViewADS,
-                                                         ProductNodeGroup<MetadataElement> scanPixelADS,
-                                                         ProductNodeGroup<MetadataElement> geolocationADS,
-                                                         List<Double> ADSScanYList,
+                                                         AnnotationDataSets ads,
                                                          double[] pixelNewPositionsAndTimes,
                                                          int[] pixelRelativeNumbers,
                                                          InputParameters parameters) {
@@ -126,7 +110,7 @@ class Calculator {
          -888888.0 For pixels with scan number <=32 (First ADS starts at row 32).
          */
 
-        ScanAndPixelIndicesExtractor.searchScanAndPixelNumberADS(iRow, jPixel, nadirViewADS, scanAndPixelIndices);
+        ScanAndPixelIndicesExtractor.searchScanAndPixelNumberADS(iRow, jPixel, ads.nadirScanNumbers, ads.nadirPixelNumbers, scanAndPixelIndices);
 
         pixelRelativeNumbers[0] = scanAndPixelIndices[1];
 
@@ -137,12 +121,12 @@ class Calculator {
             pixelNewPositionsAndTimes[2] = -999999.0;
 
         } else {
-            PixelCoordinateInterpolator.searchScanPixelADS(scanAndPixelIndices, s0, scanPixelADS, firstNadirPixel, pixelCoordinatesAndTime);
+            PixelCoordinateInterpolator.searchScanPixelADS(scanAndPixelIndices, ads, firstNadirPixel, pixelCoordinatesAndTime);
             if (parameters.cornerReferenceFlag) {
-                PixelCoordinateInterpolator.convertCentreLocationToReference(pixelCoordinatesAndTime, iRow, geolocationADS);
+                PixelCoordinateInterpolator.convertCentreLocationToReference(pixelCoordinatesAndTime, iRow, ads);
             }
             nadirFlag = true;
-            GeolocationInterpolator.searchGeolocationADS(pixelCoordinatesAndTime[0], pixelCoordinatesAndTime[1], geolocationADS, ADSScanYList, pixelLatsLongs, parameters.topographicFlag, nadirFlag, parameters.topographyHomogenity);
+            GeolocationInterpolator.searchGeolocationADS(pixelCoordinatesAndTime[0], pixelCoordinatesAndTime[1], ads, pixelLatsLongs, parameters.topographicFlag, nadirFlag, parameters.topographyHomogenity);
             pixelNewPositionsAndTimes[0] = pixelLatsLongs[0];
             pixelNewPositionsAndTimes[1] = pixelLatsLongs[1];
             pixelNewPositionsAndTimes[2] = pixelCoordinatesAndTime[2];
@@ -150,7 +134,7 @@ class Calculator {
 
         /* Now compute the forward view */
 
-        ScanAndPixelIndicesExtractor.searchScanAndPixelNumberADS(iRow, jPixel, forwardViewADS, scanAndPixelIndices);
+        ScanAndPixelIndicesExtractor.searchScanAndPixelNumberADS(iRow, jPixel, ads.forwardScanNumbers, ads.forwardPixelNumbers, scanAndPixelIndices);
 
         pixelRelativeNumbers[1] = scanAndPixelIndices[1];
 
@@ -162,12 +146,12 @@ class Calculator {
 
         } else {
 
-            PixelCoordinateInterpolator.searchScanPixelADS(scanAndPixelIndices, s0, scanPixelADS, firstForwardPixel, pixelCoordinatesAndTime);
+            PixelCoordinateInterpolator.searchScanPixelADS(scanAndPixelIndices, ads, firstForwardPixel, pixelCoordinatesAndTime);
             if (parameters.cornerReferenceFlag) {
-                PixelCoordinateInterpolator.convertCentreLocationToReference(pixelCoordinatesAndTime, iRow, geolocationADS);
+                PixelCoordinateInterpolator.convertCentreLocationToReference(pixelCoordinatesAndTime, iRow, ads);
             }
             nadirFlag = false;
-            GeolocationInterpolator.searchGeolocationADS(pixelCoordinatesAndTime[0], pixelCoordinatesAndTime[1], geolocationADS, ADSScanYList, pixelLatsLongs, parameters.topographicFlag, nadirFlag, parameters.topographyHomogenity);
+            GeolocationInterpolator.searchGeolocationADS(pixelCoordinatesAndTime[0], pixelCoordinatesAndTime[1], ads, pixelLatsLongs, parameters.topographicFlag, nadirFlag, parameters.topographyHomogenity);
             pixelNewPositionsAndTimes[3] = pixelLatsLongs[0];
             pixelNewPositionsAndTimes[4] = pixelLatsLongs[1];
             pixelNewPositionsAndTimes[5] = pixelCoordinatesAndTime[2];
@@ -513,16 +497,15 @@ class Calculator {
         return y;
     }
 
-    public static void getConstantPixelProjection(InputParameters parameters, List<List<Double>> pixelProjectionMap) {
+    public static double[][] getConstantPixelProjection(InputParameters parameters) {
         // Assuming spherical earth geometry & constant altitude results in each pixel number having a constant projection dimension
+        double[][] pixelProjectionMap = new double[2000][];
         for (int i = 0; i < 2000; i++) {
             double[] pixelDimensions = new double[4];
             int[] pixelRelativeNumbers = {i, 0};
             getPixelProjection(parameters, pixelDimensions, pixelRelativeNumbers);
-            List<Double> projection = new ArrayList<>();
-            projection.add(pixelDimensions[0]);
-            projection.add(pixelDimensions[1]);
-            pixelProjectionMap.add(projection);
+            pixelProjectionMap[i] = new double[]{pixelDimensions[0], pixelDimensions[1]};
         }
+        return pixelProjectionMap;
     }
 }
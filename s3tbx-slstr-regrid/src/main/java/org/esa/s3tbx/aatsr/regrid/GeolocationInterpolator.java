@@ -21,12 +21,6 @@
 
 package org.esa.s3tbx.aatsr.regrid;
 
-import org.esa.snap.core.datamodel.MetadataElement;
-import org.esa.snap.core.datamodel.ProductData;
-import org.esa.snap.core.datamodel.ProductNodeGroup;
-
-import java.util.List;
-
 /**
  *
  * @author ABeaton, Telespazio VEGA UK Ltd 30/10/2013
@@ -37,7 +31,7 @@ import java.util.List;
  */
 class GeolocationInterpolator {
 
-    static void searchGeolocationADS(double xCoordinate, double yCoordinate, ProductNodeGroup<MetadataElement> geolocationADS, List<Double> ADSScanYList, double[] pixelLatsLongs, boolean topographicFlag, boolean nadirFlag, double topographyHomogenity) {
+    static void searchGeolocationADS(double xCoordinate, double yCoordinate, AnnotationDataSets ads, double[] pixelLatsLongs, boolean topographicFlag, boolean nadirFlag, double topographyHomogenity) {
         /* This function finds the pixel geolocation using the provided instrument coordinates and the geolocationADS.
          Note that this methodology is extracted from the AATSR Frequently Asked Questions (FAQ) document
          "Appendix A Interpolations of pixel geolocation in AATSR full resolution products"
@@ -54,34 +48,23 @@ class GeolocationInterpolator {
         double wx = ((xCoordinate + 275.0) / 25.0) - jg;
 
         /* Find the index of the tie point to the top */
-        int ig = 0;
-        int finalCount = ADSScanYList.size();
-        for (int count = 0; count < finalCount; count++) {
-            if (yCoordinate >= ADSScanYList.get(count)) {
-                ig = count;
-            } else {
-                break;
-            }
-        }
+        double[] ADSScanYList = ads.scanYCoordinates;
+        int ig = ads.findGeolocationRecord(yCoordinate);
 
         /* For ATSR-1/2 Geolocation ADS does not contain all yCoordinates for image pixels
          return fill values for geolocation (-999999.0) Typically occurs for image final row*/
-        if (ig + 1 < ADSScanYList.size()) {
+        if (ig + 1 < ADSScanYList.length) {
 
             /* Get the Y interpolation weighting */
-            double wy = (yCoordinate - ADSScanYList.get(ig)) / (ADSScanYList.get(ig + 1) - ADSScanYList.get(ig));
-
-            /* Get the geolocation records for ig and ig+1 */
-            MetadataElement geoRecordIg = geolocationADS.get(ig);
-            MetadataElement geoRecordIgPlus1 = geolocationADS.get(ig + 1);
+            double wy = (yCoordinate - ADSScanYList[ig]) / (ADSScanYList[ig + 1] - ADSScanYList[ig]);
 
-            /* Calculate the latitude of the pixel */
-            ProductData geoRecordIgLatitude = geoRecordIg.getAttribute("tie_pt_lat").getData();
-            int igGeoLatitude1 = geoRecordIgLatitude.getElemIntAt(jg);
-            int igGeoLatitude2 = geoRecordIgLatitude.getElemIntAt(jg + 1);
-            ProductData geoRecordIgPlus1Latitude = geoRecordIgPlus1.getAttribute("tie_pt_lat").getData();
-            int igGeoPlus1Latitude1 = geoRecordIgPlus1Latitude.getElemIntAt(jg);
-            int igGeoPlus1Latitude2 = geoRecordIgPlus1Latitude.getElemIntAt(jg + 1);
+            /* Calculate the latitude of the pixel using the geolocation records for ig and ig+1 */
+            int[] geoRecordIgLatitude = ads.tiePointLatitudes[ig];
+            int igGeoLatitude1 = geoRecordIgLatitude[jg];
+            int igGeoLatitude2 = geoRecordIgLatitude[jg + 1];
+            int[] geoRecordIgPlus1Latitude = ads.tiePointLatitudes[ig + 1];
+            int igGeoPlus1Latitude1 = geoRecordIgPlus1Latitude[jg];
+            int igGeoPlus1Latitude2 = geoRecordIgPlus1Latitude[jg + 1];
 
             double phi1 = igGeoLatitude1 + wx * (igGeoLatitude2 - igGeoLatitude1);
             double phi2 = igGeoPlus1Latitude1 + wx * (igGeoPlus1Latitude2 - igGeoPlus1Latitude1);
@@ -93,12 +76,12 @@ class GeolocationInterpolator {
              is greater than 180 degrees, if so, 360 is added to negative longitudes prior to interpolation.
              After interpolation, the longitude is translated back into -180<long<180 by subtracting 360 if the value exceeds 180
              */
-            ProductData geoRecordIgLongitude = geoRecordIg.getAttribute("tie_pt_long").getData();
-            int igGeoLongitude1 = geoRecordIgLongitude.getElemIntAt(jg);
-            int igGeoLongitude2 = geoRecordIgLongitude.getElemIntAt(jg + 1);
-            ProductData geoRecordIgPlus1Longitude = geoRecordIgPlus1.getAttribute("tie_pt_long").getData();
-            int igGeoPlus1Longitude1 = geoRecordIgPlus1Longitude.getElemIntAt(jg);
-            int igGeoPlus1Longitude2 = geoRecordIgPlus1Longitude.getElemIntAt(jg + 1);
+            int[] geoRecordIgLongitude = ads.tiePointLongitudes[ig];
+            int igGeoLongitude1 = geoRecordIgLongitude[jg];
+            int igGeoLongitude2 = geoRecordIgLongitude[jg + 1];
+            int[] geoRecordIgPlus1Longitude = ads.tiePointLongitudes[ig + 1];
+            int igGeoPlus1Longitude1 = geoRecordIgPlus1Longitude[jg];
+            int igGeoPlus1Longitude2 = geoRecordIgPlus1Longitude[jg + 1];
 
             double minLongitude = getMinValue(igGeoLongitude1, igGeoLongitude2, igGeoPlus1Longitude1, igGeoPlus1Longitude2);
             double maxLongitude = getMaxValue(igGeoLongitude1, igGeoLongitude2, igGeoPlus1Longitude1, igGeoPlus1Longitude2);
@@ -141,21 +124,17 @@ class GeolocationInterpolator {
                 double remainder = count % 1;
                 double integer = count - remainder;
                 if (xCoordinate > integer*25.0 - topographyHomogenity && xCoordinate < integer*25.0 + topographyHomogenity) {
-                    if (yCoordinate > ADSScanYList.get(ig) - (topographyHomogenity*1000) && yCoordinate < ADSScanYList.get(ig) + (topographyHomogenity*1000)) {
+                    if (yCoordinate > ADSScanYList[ig] - (topographyHomogenity*1000) && yCoordinate < ADSScanYList[ig] + (topographyHomogenity*1000)) {
                         if (nadirFlag) {
-                            ProductData geoRecordNadLatCorr = geoRecordIg.getAttribute("lat_corr_nadv").getData();
-                            ProductData geoRecordNadLongCorr = geoRecordIg.getAttribute("long_corr_nadv").getData();
-                            int nadLatCorr = geoRecordNadLatCorr.getElemIntAt(jg);
-                            int nadLongCorr = geoRecordNadLongCorr.getElemIntAt(jg);
+                            int nadLatCorr = ads.nadirLatitudeCorrections[ig][jg];
+                            int nadLongCorr = ads.nadirLongitudeCorrections[ig][jg];
                             if (nadLatCorr != -999999 && nadLongCorr != -999999) {
                                 pixelLatsLongs[0] = (latitude + nadLatCorr) / 1.0e6;
                                 pixelLatsLongs[1] = (longitude + nadLongCorr) / 1.0e6;
                             }
                         } else {
-                            ProductData geoRecordFwdLatCorr = geoRecordIg.getAttribute("lat_corr_forv").getData();
-                            ProductData geoRecordFwdLongCorr = geoRecordIg.getAttribute("long_corr_forv").getData();
-                            int fwdLatCorr = geoRecordFwdLatCorr.getElemIntAt(jg);
-                            int fwdLongCorr = geoRecordFwdLongCorr.getElemIntAt(jg);
+                            int fwdLatCorr = ads.forwardLatitudeCorrections[ig][jg];
+                            int fwdLongCorr = ads.forwardLongitudeCorrections[ig][jg];
                             if (fwdLatCorr != -999999 && fwdLongCorr != -999999) {
                                 pixelLatsLongs[0] = (latitude + fwdLatCorr) / 1.0e6;
                                 pixelLatsLongs[1] = (longitude + fwdLongCorr) / 1.0e6;
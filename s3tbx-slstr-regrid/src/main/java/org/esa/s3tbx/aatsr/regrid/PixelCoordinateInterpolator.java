@@ -21,11 +21,6 @@
 
 package org.esa.s3tbx.aatsr.regrid;
 
-import org.esa.snap.core.datamodel.MetadataAttribute;
-import org.esa.snap.core.datamodel.MetadataElement;
-import org.esa.snap.core.datamodel.ProductData;
-import org.esa.snap.core.datamodel.ProductNodeGroup;
-
 /**
  *
  * @author ABeaton, Telespazio VEGA UK Ltd 30/10/2013
@@ -35,7 +30,7 @@ import org.esa.snap.core.datamodel.ProductNodeGroup;
  */
 class PixelCoordinateInterpolator {
 
-    static void searchScanPixelADS(int[] scanAndPixelIndices, int s0, ProductNodeGroup<MetadataElement> scanPixelADS, int firstPixelNumber, double[] pixelCoordinatesAndTime) {
+    static void searchScanPixelADS(int[] scanAndPixelIndices, AnnotationDataSets ads, int firstPixelNumber, double[] pixelCoordinatesAndTime) {
 
         /* This function finds the pixel coordinates using the instrument scan and instrument pixel numbers and the pixel acqusition time
          Note that this methodology is taken from a Technical Note by Andrew Birks of Rutherford Appelton Laboratory.
@@ -45,6 +40,7 @@ class PixelCoordinateInterpolator {
          */
         int s = scanAndPixelIndices[0];
         int p = scanAndPixelIndices[1];
+        int s0 = ads.s0;
 
         /* Find the tie-scan corresponding to/before the input scan number */
         int sg = (int) Math.floor(((double) s - (double) s0) / (double) 32);
@@ -61,20 +57,18 @@ class PixelCoordinateInterpolator {
          Note that the scanPixelADS ends (i.e. acquisition time) sometime before the MDS and other ADS,
          when this happens, retrieve the last record of the scanPixelADS
          */
-        int numberOfADSRecords = scanPixelADS.getNodeCount();
+        int numberOfADSRecords = ads.scanNumbers.length;
 
         if (sg > (numberOfADSRecords - 1)) {
             sg = numberOfADSRecords - 1;
         }
 
-        MetadataElement scanADSRecord = scanPixelADS.get(sg);
-
         /* If data gaps are present, this may be the incorrect record (does not correspond to/before input scan number)
          Check to see if this is the case, if during testing this frequently occurs, may have to implement search algorithm
          */
         int instrumentScanNumberCheck = (32 * sg) + s0;
 
-        int currentRecordScanNumber = scanADSRecord.getAttributeAt(2).getData().getElemInt();
+        int currentRecordScanNumber = ads.scanNumbers[sg];
 
         if (currentRecordScanNumber != instrumentScanNumberCheck) {
             System.out.println("Data Gaps are present in Scan Pixel ADS");
@@ -104,10 +98,8 @@ class PixelCoordinateInterpolator {
         }
 
         /* Calculate the x and y coordinates of the relative pixel in the tie scan ADS */
-        MetadataAttribute tiePixXList = scanADSRecord.getAttributeAt(3);
-        int[] xCoordinateList = (int[]) tiePixXList.getDataElems();
-        MetadataAttribute tiePixYList = scanADSRecord.getAttributeAt(4);
-        int[] yCoordinateList = (int[]) tiePixYList.getDataElems();
+        int[] xCoordinateList = ads.tiePixelXCoordinates[sg];
+        int[] yCoordinateList = ads.tiePixelYCoordinates[sg];
 
         double xCoord = ((1 - weight) * xCoordinateList[tiePixel]) + (weight * xCoordinateList[tiePixel + 1]);
         double yCoord = ((1 - weight) * yCoordinateList[tiePixel]) + (weight * yCoordinateList[tiePixel + 1]);
@@ -116,13 +108,9 @@ class PixelCoordinateInterpolator {
          the coordinates from the next record using linear interpolation. Follow the same process as above and then interpolate.
          */
         if (s != currentRecordScanNumber && s > s0 && sg < (numberOfADSRecords - 1)) {
-            MetadataElement scanADSRecord2 = scanPixelADS.get(sg + 1);
-
-            int nextRecordScanNumber = scanADSRecord2.getAttributeAt(2).getData().getElemInt();
-            tiePixXList = scanADSRecord2.getAttributeAt(3);
-            xCoordinateList = (int[]) tiePixXList.getDataElems();
-            tiePixYList = scanADSRecord2.getAttributeAt(4);
-            yCoordinateList = (int[]) tiePixYList.getDataElems();
+            int nextRecordScanNumber = ads.scanNumbers[sg + 1];
+            xCoordinateList = ads.tiePixelXCoordinates[sg + 1];
+            yCoordinateList = ads.tiePixelYCoordinates[sg + 1];
 
             double xCoordNext = ((1 - weight) * xCoordinateList[tiePixel]) + (weight * xCoordinateList[tiePixel + 1]);
             double yCoordNext = ((1 - weight) * yCoordinateList[tiePixel]) + (weight * yCoordinateList[tiePixel + 1]);
@@ -135,7 +123,7 @@ class PixelCoordinateInterpolator {
         }
         /* Get the pixel sample time */
 
-        double pixelTime = solvePixelTime(scanADSRecord, s, sg, s0, p, currentRecordScanNumber);
+        double pixelTime = solvePixelTime(ads.scanTimes[sg], s, sg, s0, p, currentRecordScanNumber);
 
         /* Store the results */
         pixelCoordinatesAndTime[0] = xCoord;
@@ -143,15 +131,10 @@ class PixelCoordinateInterpolator {
         pixelCoordinatesAndTime[2] = pixelTime;
     }
 
-    private static double solvePixelTime(MetadataElement scanADSRecord, int s, int sg, int s0, int p, int currentRecordScanNumber) {
-        /* This function reads the scan record instrument scan time and then calculates the pixel sample time.
+    private static double solvePixelTime(double scanTime, int s, int sg, int s0, int p, int currentRecordScanNumber) {
+        /* This function takes the scan record instrument scan time and then calculates the pixel sample time.
          Note the return of this function is unit: MJD2000
          */
-        /* Get scan time of record as a double */
-        ProductData dsrTime = scanADSRecord.getAttributeAt(0).getData();
-        
-        double scanTime = dsrTime.getElemIntAt(0) + (dsrTime.getElemDoubleAt(1) / 86400.0) + ((dsrTime.getElemDoubleAt(2) / 1.0e6) / 86400.0);
-        
         /* If the scan number does not occur at this granule, correct the time */
         if (s != currentRecordScanNumber && s > s0) {
             double scanTimeAlongTrackMod = ((0.15 * (s - (32 * sg) - s0)) / 86400.0);
@@ -165,7 +148,7 @@ class PixelCoordinateInterpolator {
         return pixelSampleTime;
     }
 
-    static void convertCentreLocationToReference(double[] pixelCoordinatesAndTime, int i, ProductNodeGroup<MetadataElement> geolocationADS) {
+    static void convertCentreLocationToReference(double[] pixelCoordinatesAndTime, int i, AnnotationDataSets ads) {
         /* This function converts the pixel coordinates referenced to the centre of the pixel to pixel coordinates referenced to the bottom left corner of the pixel 
          * Note that this step is missing from the Technical Note "Instrument Pixel Co-ordinates and Measurement Times from AATSR Products"
          * 
@@ -180,10 +163,10 @@ class PixelCoordinateInterpolator {
         /* Find the tie-scan corresponding to/before the input row number */
         int sg = (int) Math.floor(((double) i - (double) 0) / (double) 32);
 
-        int lastADSCoordinate = geolocationADS.get(sg).getAttribute("img_scan_y").getData().getElemInt();
+        int lastADSCoordinate = (int) ads.scanYCoordinates[sg];
         int nextADSCoordinate;
-        if ((sg + 1) < geolocationADS.getNodeCount()) {
-            nextADSCoordinate = geolocationADS.get(sg + 1).getAttribute("img_scan_y").getData().getElemInt();
+        if ((sg + 1) < ads.scanYCoordinates.length) {
+            nextADSCoordinate = (int) ads.scanYCoordinates[sg + 1];
         } else {
             nextADSCoordinate = lastADSCoordinate += (32 * 1011); // An approximation for the end of the product
                                                                   // Note not needed if the product is "trimmed"
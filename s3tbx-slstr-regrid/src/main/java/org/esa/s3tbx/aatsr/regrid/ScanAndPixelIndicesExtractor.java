@@ -21,11 +21,6 @@
 
 package org.esa.s3tbx.aatsr.regrid;
 
-import org.esa.snap.core.datamodel.MetadataAttribute;
-import org.esa.snap.core.datamodel.MetadataElement;
-import org.esa.snap.core.datamodel.ProductData;
-import org.esa.snap.core.datamodel.ProductNodeGroup;
-
 /**
  * @author ABeaton, Telespazio VEGA UK Ltd 30/10/2013
  *         <p>
@@ -33,7 +28,7 @@ import org.esa.snap.core.datamodel.ProductNodeGroup;
  */
 class ScanAndPixelIndicesExtractor {
 
-    static void searchScanAndPixelNumberADS(int iRow, int jPixel, ProductNodeGroup<MetadataElement> viewADS, int[] scanAndPixelIndices) {
+    static void searchScanAndPixelNumberADS(int iRow, int jPixel, int[][] viewADSScanNumbers, short[][] viewADSPixelNumbers, int[] scanAndPixelIndices) {
         /* This function finds the instrument scan and instrument pixel numbers of pixel i,j using the appropriate view ADS
          Note that this methodology is taken from a Technical Note by Andrew Birks of Rutherford Appelton Laboratory.
          "Instrument Pixel Co-ordinates and Measurement Times from AATSR Products",
@@ -49,18 +44,8 @@ class ScanAndPixelIndicesExtractor {
         int idash = iRow - (32 * ig);
 
         /* Fetch the viewADS record corresponding to the granule index */
-        MetadataElement adsRecord = viewADS.get(ig);
-
-        // Get instrument scan number list from record (note have to convert from short due to number of scans...)
-        MetadataAttribute instrumentScanNumbering = adsRecord.getAttribute("instr_scan_num");
-        ProductData scanNumbering = instrumentScanNumbering.getData();
-        int[] scanNumbers = new int[(int) instrumentScanNumbering.getNumDataElems()];
-        for (int k = 0; k < instrumentScanNumbering.getNumDataElems(); k++) {
-            scanNumbers[k] = (int) scanNumbering.getElemIntAt(k);
-        }
-        // Get instrument pixel number list
-        MetadataAttribute pixelNumbering = adsRecord.getAttribute("pix_num");
-        short[] pixelNumbers = (short[]) pixelNumbering.getDataElems();
+        int[] scanNumbers = viewADSScanNumbers[ig];
+        short[] pixelNumbers = viewADSPixelNumbers[ig];
 
         /* Get instrument scan (s) and pixel (p) number for image pixel.
             Modify the scan number if the image pixel comes from a granule inbetween the ADS samples (every 32 granules.
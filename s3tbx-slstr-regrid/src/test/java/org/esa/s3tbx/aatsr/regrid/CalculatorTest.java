@@ -0,0 +1,244 @@
+package org.esa.s3tbx.aatsr.regrid;
+
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the ungridding of pixels from synthetic ADS records with the results of the implementation which
+ * looked up the records in the metadata for every pixel.
+ */
+public class CalculatorTest {
+
+    private static final int GRANULE_COUNT = 20;
+
+    // x, y, cornerReferenceFlag (0/1), topographicFlag (0/1)
+    private static final int[][] PIXELS = {
+            {326, 140, 0, 0},
+            {4, 77, 0, 0},
+            {251, 420, 0, 0},
+            {380, 384, 0, 0},
+            {291, 546, 0, 0},
+            {487, 576, 0, 0},
+            {129, 148, 0, 0},
+            {356, 447, 0, 0},
+            {351, 481, 1, 0},
+            {328, 423, 1, 0},
+            {401, 116, 1, 0},
+            {301, 539, 1, 0},
+            {242, 180, 1, 0},
+            {130, 152, 1, 0},
+            {195, 147, 1, 0},
+            {394, 121, 1, 0},
+            {112, 51, 0, 1},
+            {431, 394, 0, 1},
+            {350, 494, 0, 1},
+            {498, 469, 0, 1},
+            {142, 473, 0, 1},
+            {304, 165, 0, 1},
+            {476, 448, 0, 1},
+            {45, 76, 0, 1},
+            {0, 132, 1, 1},
+            {427, 410, 1, 1},
+            {237, 20, 1, 1},
+            {229, 269, 1, 1},
+            {467, 357, 1, 1},
+            {56, 221, 1, 1},
+            {308, 173, 1, 1},
+            {100, 25, 1, 1}
+    };
+
+    // latitude, longitude and time of the nadir view, then of the forward view
+    private static final double[][] EXPECTED_POSITIONS_AND_TIMES = {
+            {50.60026779385757, 11.925518, 1200.0349806172221, -999999.0, -999999.0, -999999.0},
+            {50.66299443385262, 15.1810875, 1200.0348623329164, 50.53137716073936, 13.5260765, 1200.0348613849999},
+            {-999999.0, -999999.0, -999999.0, 51.46393928359298, -179.1663653125, 1200.0354915230441},
+            {51.30334078073813, -179.6264285, 1200.0354153350927, 51.29096426692384, 179.942672, 1200.0354234572799},
+            {51.88483106621167, -178.724312, 1200.035707560116, 51.833621398219584, -179.446155, 1200.0357119108103},
+            {51.72406472540059, 179.296926, 1200.035759452477, 51.72363536110782, 179.213716, 1200.0357673370256},
+            {50.78989009217853, 13.9123385, 1200.0349981701736, 50.699839558911975, 12.670337, 1200.0349989982985},
+            {51.52915258498022, -179.381482625, 1200.0355339570717, 51.48909703971933, -179.8843109375, 1200.035543808426},
+            {51.64427034170376, -179.332704375, 1200.0356039497105, 51.590452780785114, -179.8535643125, 1200.035603111169},
+            {51.47935065880316, -179.1076025, 1200.035495789537, 51.42902788111586, -179.7018399375, 1200.035494944051},
+            {50.469468589399106, 11.153967125, 1200.0349316608333, 50.43783875226384, 10.7955468125, 1200.0349325740276},
+            {51.8497325008865, -178.82784575, 1200.035703228148, 51.81174084554897, -179.51343625, 1200.035709318426},
+            {50.79866035760386, 12.76612, 1200.0350573592013, 50.726946159229726, 11.89243140625, 1200.0350564868056},
+            {50.7868705896365, 13.89834325, 1200.0349981693055, 50.706114803350644, 12.65605, 1200.0350042057637},
+            {50.72967903231021, 13.24260265625, 1200.0349963698266, 50.65712587409867, 12.21719509375, 1200.0349937465626},
+            {50.49733042125866, 11.225269125, 1200.0349438205556, 50.465851408457596, 10.84895184375, 1200.0349447320139},
+            {50.50582947997033, 14.08538125, 1200.034816816632, 50.40771468996538, 12.7884406875, 1200.0348159034377},
+            {51.30914823115727, 179.86268375, 1200.0354433348841, 51.28865038388724, 179.601772, 1200.0354442576272},
+            {51.67814917762611, -179.31899025, 1200.0356213116897, 51.63902866407518, -179.849049, 1200.0356291528358},
+            {51.47172090751112, 179.177951875, 1200.0355740202315, 51.47928043388229, 179.1338685, 1200.035576699919},
+            {51.790997245706606, -177.21103140625, 1200.0355882572105, 51.69397955209817, -178.41932121875, 1200.035589088808},
+            {50.69483256318991, 12.1391145, 1200.0350260484374, 50.645883213235656, 11.4658021875, 1200.0350251951388},
+            {51.43636444855836, 179.4036125625, 1200.0355355759955, 51.4379052565183, 179.2870305, 1200.0355437285648},
+            {50.63107528567013, 14.768621875, 1200.0348588207637, 50.50963016567755, 13.2474296875, 1200.034859621979},
+            {50.850041233755256, 15.2903325, 1200.0349687830208, 50.69825093902696, 13.559511875, 1200.0349660981249},
+            {51.36087166151335, 179.89227675, 1200.0354711161342, 51.327101868516316, 179.622614, 1200.0354650935647},
+            {50.31629546622156, 12.81977, 1200.0347643402777, -999999.0, -999999.0, -999999.0},
+            {51.08392325730465, 12.901761375, 1200.0352196450347, 51.00940739596934, 11.9816290625, 1200.0352205044096},
+            {51.159842907118566, 179.4869209375, 1200.0353683750232, 51.15544746960683, 179.344238875, 1200.0353745173843},
+            {51.07318812998888, 14.645618125, 1200.0351307287845, 50.96000260523059, 13.16882996875, 1200.0351332704513},
+            {50.72301632798096, 12.098239625, 1200.0350451421873, 50.67494549002226, 11.43427, 1200.035044289757},
+            {50.435555207140204, 14.20650875, 1200.0347662100694, 50.33476865199987, 12.8651453125, 1200.034770500868}
+    };
+
+    // instrument pixel numbers of the nadir and of the forward view
+    private static final int[][] EXPECTED_RELATIVE_NUMBERS = {
+            {421, 0},
+            {783, 1691},
+            {0, 1503},
+            {360, 1404},
+            {460, 1472},
+            {240, 1323},
+            {642, 1596},
+            {387, 1423},
+            {393, 1427},
+            {418, 1444},
+            {336, 1388},
+            {449, 1465},
+            {515, 1510},
+            {641, 1595},
+            {568, 1546},
+            {344, 1394},
+            {661, 1609},
+            {303, 1366},
+            {394, 1427},
+            {227, 1314},
+            {628, 1586},
+            {445, 1462},
+            {252, 1331},
+            {737, 1660},
+            {788, 1695},
+            {307, 1369},
+            {521, 0},
+            {530, 1520},
+            {262, 1338},
+            {724, 1652},
+            {441, 1459},
+            {675, 1618}
+    };
+
+    @Test
+    public void testGetPixelPositionsAcquisitionTimes() {
+        final AnnotationDataSets ads = new AnnotationDataSets(createMetadataRoot());
+
+        for (int i = 0; i < PIXELS.length; i++) {
+            final int[] pixel = PIXELS[i];
+            final double[] positionsAndTimes = new double[6];
+            final int[] relativeNumbers = new int[2];
+            Calculator.getPixelPositionsAcquisitionTimes(pixel[1], 511 - pixel[0], ads, positionsAndTimes, relativeNumbers,
+                                                         createParameters(pixel[2] == 1, pixel[3] == 1));
+
+            assertArrayEquals("pixel " + i, EXPECTED_POSITIONS_AND_TIMES[i], positionsAndTimes, 0.0);
+            assertArrayEquals("pixel " + i, EXPECTED_RELATIVE_NUMBERS[i], relativeNumbers);
+        }
+    }
+
+    @Test
+    public void testFindGeolocationRecord() {
+        final AnnotationDataSets ads = new AnnotationDataSets(createMetadataRoot());
+
+        // the scan y coordinate of record k is 32 * 1011 * k - 3000
+        assertEquals(0, ads.findGeolocationRecord(-5000.0));
+        assertEquals(0, ads.findGeolocationRecord(-3000.0));
+        assertEquals(0, ads.findGeolocationRecord(29351.0));
+        assertEquals(1, ads.findGeolocationRecord(29352.0));
+        assertEquals(10, ads.findGeolocationRecord(320620.0));
+        assertEquals(GRANULE_COUNT - 1, ads.findGeolocationRecord(1.0e9));
+    }
+
+    static InputParameters createParameters(boolean cornerReferenceFlag, boolean topographicFlag) {
+        final InputParameters parameters = new InputParameters();
+        parameters.firstNadirPixel = 213;
+        parameters.firstForwardPixel = 1305;
+        parameters.cornerReferenceFlag = cornerReferenceFlag;
+        parameters.topographicFlag = topographicFlag;
+        parameters.topographyHomogenity = 3.0;
+        return parameters;
+    }
+
+    /**
+     * Creates the ADS of a product with 20 granules, with randomly missing pixels and topographic corrections and
+     * with longitudes crossing the anti-meridian.
+     */
+    static MetadataElement createMetadataRoot() {
+        final Random random = new Random(3);
+        final MetadataElement root = new MetadataElement("metadata");
+        for (String name : new String[]{"NADIR_VIEW_SCAN_PIX_NUM_ADS", "FWARD_VIEW_SCAN_PIX_NUM_ADS"}) {
+            final MetadataElement ads = new MetadataElement(name);
+            final int firstPixel = name.startsWith("NADIR") ? 213 : 1305;
+            final int pixelSpan = name.startsWith("NADIR") ? 575 : 390;
+            for (int g = 0; g < GRANULE_COUNT; g++) {
+                final short[] scanNumbers = new short[512];
+                final short[] pixelNumbers = new short[512];
+                for (int j = 0; j < 512; j++) {
+                    scanNumbers[j] = (short) (32 + 32 * g + random.nextInt(5) - 2 + (g == 0 ? 2 : 0));
+                    pixelNumbers[j] = (short) (random.nextInt(50) == 0 ? 0 : firstPixel + j * pixelSpan / 511);
+                }
+                final MetadataElement record = new MetadataElement(name + "." + (g + 1));
+                record.addAttribute(createAttribute("instr_scan_num", ProductData.createInstance(scanNumbers)));
+                record.addAttribute(createAttribute("pix_num", ProductData.createInstance(pixelNumbers)));
+                ads.addElement(record);
+            }
+            root.addElement(ads);
+        }
+
+        final MetadataElement scanPixelADS = new MetadataElement("SCAN_PIXEL_X_AND_Y_ADS");
+        for (int k = 0; k < GRANULE_COUNT - 2; k++) {
+            final int[] x = new int[100];
+            final int[] y = new int[100];
+            for (int i = 0; i < 100; i++) {
+                x[i] = -270000 + (i % 59) * 9000 + random.nextInt(500);
+                y[i] = 32000 * k + 1000 * (i % 7) + random.nextInt(500);
+            }
+            final MetadataElement record = new MetadataElement("SCAN_PIXEL_X_AND_Y_ADS." + (k + 1));
+            record.addAttribute(createAttribute("dsr_time", new ProductData.UTC(1200, 3000 + 5 * k, 123457 * k % 1000000)));
+            record.addAttribute(createAttribute("attach_flag", ProductData.createInstance(new byte[]{0})));
+            record.addAttribute(createAttribute("instr_scan_num", ProductData.createInstance(new int[]{32 + 32 * k})));
+            record.addAttribute(createAttribute("tie_pix_x", ProductData.createInstance(x)));
+            record.addAttribute(createAttribute("tie_pix_y", ProductData.createInstance(y)));
+            scanPixelADS.addElement(record);
+        }
+        root.addElement(scanPixelADS);
+
+        final MetadataElement geolocationADS = new MetadataElement("GEOLOCATION_ADS");
+        final String[] correctionNames = {"lat_corr_nadv", "long_corr_nadv", "lat_corr_forv", "long_corr_forv"};
+        for (int k = 0; k < GRANULE_COUNT; k++) {
+            final int[] latitudes = new int[23];
+            final int[] longitudes = new int[23];
+            final int[][] corrections = new int[4][23];
+            for (int i = 0; i < 23; i++) {
+                latitudes[i] = 50000000 + 100000 * k + 20000 * i;
+                longitudes[i] = k > 10 ? 179000000 + 250000 * i : 10000000 + 250000 * i;
+                if (longitudes[i] > 180000000) {
+                    longitudes[i] -= 360000000;
+                }
+                for (int c = 0; c < 4; c++) {
+                    corrections[c][i] = (c == 0 || c == 3) && random.nextInt(3) == 0 ? -999999 : random.nextInt(1000);
+                }
+            }
+            final MetadataElement record = new MetadataElement("GEOLOCATION_ADS." + (k + 1));
+            record.addAttribute(createAttribute("img_scan_y", ProductData.createInstance(new int[]{32 * 1011 * k - 3000})));
+            record.addAttribute(createAttribute("tie_pt_lat", ProductData.createInstance(latitudes)));
+            record.addAttribute(createAttribute("tie_pt_long", ProductData.createInstance(longitudes)));
+            for (int c = 0; c < 4; c++) {
+                record.addAttribute(createAttribute(correctionNames[c], ProductData.createInstance(corrections[c])));
+            }
+            geolocationADS.addElement(record);
+        }
+        root.addElement(geolocationADS);
+        return root;
+    }
+
+    private static MetadataAttribute createAttribute(String name, ProductData data) {
+        return new MetadataAttribute(name, data, true);
+    }
+}
@@ -44,7 +44,7 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
     protected List<GeoCoding> gcList;
     protected boolean cross180;
     protected List<PolyLine> centerLineList;
-    private int lastCenterLineIndex;           // index found on the previous search
+    private CenterLineIndex centerLineIndex;
     private int smallestValidIndex;
     private int biggestValidIndex;
     private ProductNode gridOwner;
@@ -54,7 +54,6 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
      *
      */
     public AbstractBowtieGeoCoding() {
-        lastCenterLineIndex = 0;
     }
 
     /**
@@ -107,8 +106,10 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
         }
         pixelPos.setInvalid();
 
-        final int index = getGeoCodingIndexfor(geoPos);
-        lastCenterLineIndex = index;
+        final int index = centerLineIndex.findNearestStripe(geoPos.lon, geoPos.lat);
+        if (index == -1) {
+            return pixelPos;
+        }
         final GeoCoding gc = gcList.get(index);
         if (gc != null) {
             gc.getPixelPos(geoPos, pixelPos);
@@ -192,6 +193,7 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
                 break;
             }
         }
+        centerLineIndex = new CenterLineIndex(centerLineList);
     }
 
     protected static PolyLine createCenterPolyLine(GeoCoding geoCoding, final int sceneWidth,
@@ -230,53 +232,6 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
         }
     }
 
-    private int getGeoCodingIndexfor(final GeoPos geoPos) {
-        int index = lastCenterLineIndex;
-        index = getNextCenterLineIndex(index, 1);
-        final PolyLine centerLine1 = centerLineList.get(index);
-        double v = centerLine1.getDistance(geoPos.lon, geoPos.lat);
-        int vIndex = index;
-
-        int direction = -1;
-        if (index == smallestValidIndex) {
-            direction = +1;
-        }
-        while (true) {
-            index += direction;
-            index = getNextCenterLineIndex(index, direction);
-            final PolyLine centerLine2 = centerLineList.get(index);
-            final double v2 = centerLine2.getDistance(geoPos.lon, geoPos.lat);
-            if (v2 < v) {
-                if (index == smallestValidIndex || index == biggestValidIndex) {
-                    return index;
-                }
-                v = v2;
-                vIndex = index;
-            } else if (direction == -1) {
-                index++;
-                direction = +1;
-                index = getNextCenterLineIndex(index, direction);
-                if (index == biggestValidIndex) {
-                    return index;
-                }
-            } else if (direction == +1) {
-                return vIndex;
-            }
-        }
-    }
-
-    private int getNextCenterLineIndex(int index, final int direction) {
-        while (centerLineList.get(index) == null) {
-            index += direction;
-            if (index < smallestValidIndex) {
-                index = biggestValidIndex;
-            } else if (index > biggestValidIndex) {
-                index = smallestValidIndex;
-            }
-        }
-        return index;
-    }
-
     static int calculateStartLine(int scanlineHeight, Rectangle region) {
         return region.y / scanlineHeight * scanlineHeight;
     }
@@ -291,9 +246,17 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
         private double _y1;
         private boolean _started;
         private ArrayList<Line2D.Double> _lines;
+        private double _minX;
+        private double _minY;
+        private double _maxX;
+        private double _maxY;
 
         public PolyLine() {
             _started = false;
+            _minX = Double.POSITIVE_INFINITY;
+            _minY = Double.POSITIVE_INFINITY;
+            _maxX = Double.NEGATIVE_INFINITY;
+            _maxY = Double.NEGATIVE_INFINITY;
         }
 
         public void lineTo(final double x, final double y) {
@@ -313,6 +276,26 @@ public abstract class AbstractBowtieGeoCoding extends AbstractGeoCoding {
         private void setXY1(final double x, final double y) {
             _x1 = x;
             _y1 = y;
+            _minX = Math.min(_minX, x);
+            _minY = Math.min(_minY, y);
+            _maxX = Math.max(_maxX, x);
+            _maxY = Math.max(_maxY, y);
+        }
+
+        public double getMinX() {
+            return _minX;
+        }
+
+        public double getMinY() {
+            return _minY;
+        }
+
+        public double getMaxX() {
+            return _maxX;
+        }
+
+        public double getMaxY() {
+            return _maxY;
         }
 
         public double getDistance(final double x, final double y) {
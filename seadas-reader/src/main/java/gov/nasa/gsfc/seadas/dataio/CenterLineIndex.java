@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package gov.nasa.gsfc.seadas.dataio;
+
+import java.util.List;
+
+/**
+ * Finds the scan stripe whose center line is closest to a geographical position.
+ * <p>
+ * The center lines of consecutive stripes are grouped into a balanced tree of lon/lat bounding boxes. Since
+ * neighbouring stripes are also neighbours on the ground, the boxes are tight and a search only has to measure
+ * the distance to the center lines of a few stripes. The index is immutable and can be shared between threads.
+ * <p>
+ * This is the same index as the one of the MODIS reader ({@code org.esa.s3tbx.dataio.modis.CenterLineIndex}),
+ * kept as a copy like {@link AbstractBowtieGeoCoding.PolyLine}, since this module does not depend on that reader.
+ * Changes should be made to both.
+ */
+final class CenterLineIndex {
+
+    private static final int LEAF_SIZE = 4;
+
+    private final AbstractBowtieGeoCoding.PolyLine[] centerLines;
+    // indices of the stripes having a center line, in ascending order
+    private final int[] stripeIndices;
+    // per node: the range of stripeIndices it covers and its bounding box
+    private final int[] nodeStart;
+    private final int[] nodeEnd;
+    private final int[] nodeRight;
+    private final double[] nodeBounds;
+    private final int nodeCount;
+
+    /**
+     * @param centerLineList the center line of each stripe, {@code null} for stripes without geo-coding
+     */
+    CenterLineIndex(List<AbstractBowtieGeoCoding.PolyLine> centerLineList) {
+        centerLines = centerLineList.toArray(new AbstractBowtieGeoCoding.PolyLine[0]);
+        int validCount = 0;
+        for (AbstractBowtieGeoCoding.PolyLine centerLine : centerLines) {
+            if (centerLine != null) {
+                validCount++;
+            }
+        }
+        stripeIndices = new int[validCount];
+        for (int i = 0, j = 0; i < centerLines.length; i++) {
+            if (centerLines[i] != null) {
+                stripeIndices[j++] = i;
+            }
+        }
+
+        final int maxNodeCount = Math.max(1, 2 * validCount - 1);
+        nodeStart = new int[maxNodeCount];
+        nodeEnd = new int[maxNodeCount];
+        nodeRight = new int[maxNodeCount];
+        nodeBounds = new double[4 * maxNodeCount];
+        nodeCount = validCount > 0 ? buildNode(0, 0, validCount) : 0;
+    }
+
+    /**
+     * Returns the index of the stripe whose center line has the smallest distance to the given position. Of
+     * several stripes at the same distance the one with the smallest index is returned.
+     *
+     * @param lon the longitude
+     * @param lat the latitude
+     * @return the stripe index, or -1 if no stripe has a center line
+     */
+    int findNearestStripe(double lon, double lat) {
+        if (nodeCount == 0) {
+            return -1;
+        }
+        final Nearest nearest = new Nearest();
+        search(0, lon, lat, nearest);
+        return nearest.index;
+    }
+
+    // returns the index of the next free node
+    private int buildNode(int node, int start, int end) {
+        nodeStart[node] = start;
+        nodeEnd[node] = end;
+        if (end - start <= LEAF_SIZE) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                final AbstractBowtieGeoCoding.PolyLine centerLine = centerLines[stripeIndices[i]];
+                minX = Math.min(minX, centerLine.getMinX());
+                minY = Math.min(minY, centerLine.getMinY());
+                maxX = Math.max(maxX, centerLine.getMaxX());
+                maxY = Math.max(maxY, centerLine.getMaxY());
+            }
+            setBounds(node, minX, minY, maxX, maxY);
+            return node + 1;
+        }
+        final int middle = (start + end) >>> 1;
+        final int left = node + 1;
+        final int right = buildNode(left, start, middle);
+        nodeRight[node] = right;
+        final int next = buildNode(right, middle, end);
+        setBounds(node,
+                  Math.min(nodeBounds[4 * left], nodeBounds[4 * right]),
+                  Math.min(nodeBounds[4 * left + 1], nodeBounds[4 * right + 1]),
+                  Math.max(nodeBounds[4 * left + 2], nodeBounds[4 * right + 2]),
+                  Math.max(nodeBounds[4 * left + 3], nodeBounds[4 * right + 3]));
+        return next;
+    }
+
+    private void setBounds(int node, double minX, double minY, double maxX, double maxY) {
+        nodeBounds[4 * node] = minX;
+        nodeBounds[4 * node + 1] = minY;
+        nodeBounds[4 * node + 2] = maxX;
+        nodeBounds[4 * node + 3] = maxY;
+    }
+
+    // the distance from the position to the bounding box of the node, a lower bound of the center line distances
+    private double getBoundsDistance(int node, double x, double y) {
+        final double dx = Math.max(Math.max(nodeBounds[4 * node] - x, x - nodeBounds[4 * node + 2]), 0.0);
+        final double dy = Math.max(Math.max(nodeBounds[4 * node + 1] - y, y - nodeBounds[4 * node + 3]), 0.0);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private void search(int node, double x, double y, Nearest nearest) {
+        final int start = nodeStart[node];
+        final int end = nodeEnd[node];
+        if (end - start <= LEAF_SIZE) {
+            for (int i = start; i < end; i++) {
+                final int stripeIndex = stripeIndices[i];
+                final double distance = centerLines[stripeIndex].getDistance(x, y);
+                if (nearest.index == -1 || distance < nearest.distance
+                    || (distance == nearest.distance && stripeIndex < nearest.index)) {
+                    nearest.distance = distance;
+                    nearest.index = stripeIndex;
+                }
+            }
+            return;
+        }
+        final int left = node + 1;
+        final int right = nodeRight[node];
+        final double leftDistance = getBoundsDistance(left, x, y);
+        final double rightDistance = getBoundsDistance(right, x, y);
+        // visit the closer child first, on equal distance the left one to prefer smaller stripe indices
+        if (rightDistance < leftDistance) {
+            visit(right, rightDistance, x, y, nearest);
+            visit(left, leftDistance, x, y, nearest);
+        } else {
+            visit(left, leftDistance, x, y, nearest);
+            visit(right, rightDistance, x, y, nearest);
+        }
+    }
+
+    private void visit(int node, double boundsDistance, double x, double y, Nearest nearest) {
+        // a node at the same distance may still contain a stripe with a smaller index
+        if (nearest.index == -1 || !(boundsDistance > nearest.distance)) {
+            search(node, x, y, nearest);
+        }
+    }
+
+    private static final class Nearest {
+
+        private double distance;
+        private int index = -1;
+    }
+}
@@ -1,6 +1,7 @@
 package gov.nasa.gsfc.seadas.dataio;
 
 import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s3tbx.dataio.merisl3.BinRowIndex;
 import org.esa.s3tbx.dataio.merisl3.ISINGrid;
 import org.esa.snap.core.dataio.ProductIOException;
 import org.esa.snap.core.datamodel.Band;
@@ -12,29 +13,36 @@ import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.TransformException;
 import ucar.ma2.Array;
+import ucar.ma2.ArrayStructure;
 import ucar.ma2.DataType;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Structure;
 import ucar.nc2.Variable;
 
-import java.awt.Point;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 
 public class L3BinFileReader extends SeadasFileReader {
 
+    // bounds of the row caches, a row of a global 4 km product has up to 8640 bins
+    private static final int MAX_CACHED_ROWS = 512;
+    private static final int MAX_CACHED_BINS = 8 * 1024 * 1024;
+
     private ISINGrid grid;
-    private RowInfo[] rowInfo;
-    private int[] bins;
+    private BinRowIndex binRowIndex;
+    private final RowDataCache rowDataCache;
     private int sceneWidth;
     private int sceneHeight;
 
     L3BinFileReader(SeadasProductReader productReader) {
         super(productReader);
+        rowDataCache = new RowDataCache(MAX_CACHED_BINS);
     }
 
     @Override
@@ -72,7 +80,7 @@ public class L3BinFileReader extends SeadasFileReader {
     }
 
     @Override
-    public synchronized void readBandData(Band destBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth,
+    public void readBandData(Band destBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth,
                              int sourceHeight, int sourceStepX, int sourceStepY, ProductData destBuffer,
                              ProgressMonitor pm) throws IOException, InvalidRangeException {
 
@@ -102,59 +110,26 @@ public class L3BinFileReader extends SeadasFileReader {
             buffer = ibuffer;
         }
 
-        if (rowInfo == null) {
-            rowInfo = createRowInfos();
-        }
-
+        final BinRowIndex binRowIndex = getBinRowIndex();
         final int height = sceneHeight;
-        final int width = sceneWidth;
-        final ISINGrid grid = this.grid;
 
 
         // loop over lines
         try {
-            int[] lineOffsets = new int[1];
-            int[] lineLengths = new int[1];
-            int[] stride = new int[1];
-            stride[0] = 1;
-
-
 //            for (int y = sourceOffsetY; y < sourceOffsetY + sourceHeight; y++) {
             for (int y = sourceOffsetY; y < sourceOffsetY + sourceHeight; y+=sourceStepY) {
                     if (pm.isCanceled()) {
                     break;
                 }
                 final int rowIndex = (height - 1) - y;
-                final RowInfo rowInfo = this.rowInfo[rowIndex];
-                if (rowInfo != null) {
-
-                    final int lineOffset = rowInfo.offset;
-                    final int lineLength = rowInfo.length;
-
-
-                    lineOffsets[0] = lineOffset;
-                    lineLengths[0] = lineLength;
-                    final Object bindata;
+                final int lineLength = binRowIndex.getLength(rowIndex);
+                if (lineLength > 0) {
 
-                    synchronized (ncFile) {
-                        bindata = variable.read().section(lineOffsets, lineLengths, stride).copyTo1DJavaArray();
-                    }
-                    int lineIndex0 = 0;
+                    final int lineOffset = binRowIndex.getOffset(rowIndex);
+                    final Object bindata = getRowData(variable, rowIndex, lineOffset, lineLength);
+                    final int[] lineIndices = binRowIndex.getLineIndices(rowIndex);
                     for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; x++) {
-                        final double lon = x * 360.0 / width;
-                        final int binIndex = grid.getBinIndex(rowIndex, lon);
-                        int lineIndex = -1;
-                        for (int i = lineIndex0; i < lineLength; i++) {
-                            int binidx = bins[lineOffset + i];
-                            if (binidx >= binIndex) {
-                                if (binidx == binIndex) {
-                                    lineIndex = i;
-                                }
-                                lineIndex0 = i;
-                                break;
-                            }
-                        }
-
+                        final int lineIndex = lineIndices[x];
                         if (lineIndex >= 0) {
                             final int rasterIndex = sourceWidth * (y - sourceOffsetY) + (x - sourceOffsetX);
 
@@ -170,16 +145,44 @@ public class L3BinFileReader extends SeadasFileReader {
         }
     }
 
+    // reads only the bins of the row, all threads share the cached rows
+    private Object getRowData(Variable variable, int rowIndex, int lineOffset, int lineLength)
+            throws IOException, InvalidRangeException {
+        final RowKey key = new RowKey(variable, rowIndex);
+        Object bindata = rowDataCache.get(key);
+        if (bindata == null) {
+            // the file itself does not support concurrent reads
+            synchronized (ncFile) {
+                bindata = readBins(variable, lineOffset, lineLength);
+            }
+            rowDataCache.put(key, bindata, lineLength);
+        }
+        return bindata;
+    }
+
+    /**
+     * Reads a range of bins of a band variable. The variables of the bin list and of the products are members of
+     * structures, which cannot be read in sections, so the section is read from the structure and the member
+     * values are taken from the records.
+     */
+    static Object readBins(Variable variable, int offset, int length) throws IOException, InvalidRangeException {
+        final int[] origin = {offset};
+        final int[] shape = {length};
+        final Structure structure = variable.getParentStructure();
+        if (structure == null) {
+            return variable.read(origin, shape).copyTo1DJavaArray();
+        }
+        final ArrayStructure records = (ArrayStructure) structure.read(origin, shape);
+        return records.extractMemberArray(records.findMember(variable.getShortName())).copyTo1DJavaArray();
+    }
+
     // Don't do this...it hurts.  Too much of a memory hog...
     private void addBandsBinMap (Product product)throws IOException, InvalidRangeException {
         String[] bandList = product.getBandNames();
-        if (rowInfo == null) {
-            rowInfo = createRowInfos();
-        }
+        final BinRowIndex binRowIndex = getBinRowIndex();
 
         final int height = sceneHeight;
         final int width = sceneWidth;
-        final ISINGrid grid = this.grid;
 
 
         // loop over lines
@@ -220,12 +223,11 @@ public class L3BinFileReader extends SeadasFileReader {
                 for (int y = 0; y < height; y++) {
 
                     final int rowIndex = (height - 1) - y;
-                    final RowInfo rowInfo = this.rowInfo[rowIndex];
-                    if (rowInfo != null) {
+                    if (binRowIndex.getLength(rowIndex) > 0) {
                         final Array bindata;
 
-                        final int lineOffset = rowInfo.offset;
-                        final int lineLength = rowInfo.length;
+                        final int lineOffset = binRowIndex.getOffset(rowIndex);
+                        final int lineLength = binRowIndex.getLength(rowIndex);
 
 
                         lineOffsets[0] = lineOffset;
@@ -234,21 +236,9 @@ public class L3BinFileReader extends SeadasFileReader {
                         synchronized (ncFile) {
                             bindata = variable.read().section(lineOffsets, lineLengths, stride);//.copyTo1DJavaArray();
                         }
-                        int lineIndex0 = 0;
+                        final int[] lineIndices = binRowIndex.getLineIndices(rowIndex);
                         for (int x = 0; x < width; x++) {
-                            final double lon = x * 360.0 / width;
-                            final int binIndex = grid.getBinIndex(rowIndex, lon);
-                            int lineIndex = -1;
-                            for (int i = lineIndex0; i < lineLength; i++) {
-                                int binidx = bins[lineOffset + i];
-                                if (binidx >= binIndex) {
-                                    if (binidx == binIndex) {
-                                        lineIndex = i;
-                                    }
-                                    lineIndex0 = i;
-                                    break;
-                                }
-                            }
+                            final int lineIndex = lineIndices[x];
 
                             if (lineIndex >= 0) {
                                 final int rasterIndex = width * y + x;
@@ -298,65 +288,79 @@ public class L3BinFileReader extends SeadasFileReader {
         }
     }
 
-    private RowInfo[] createRowInfos() throws IOException {
-        final ISINGrid grid = this.grid;
-        final RowInfo[] binLines = new RowInfo[sceneHeight];
-        final Variable idxVariable = ncFile.getRootGroup().findGroup("Level-3_Binned_Data").findVariable("BinList");
-        final Structure idxStructure = (Structure) idxVariable;
-        final Variable idx = idxStructure.findVariable("bin_num");
-        final int[] idxValues;
-        synchronized (ncFile) {
-            idxValues = (int[]) idx.read().getStorage();
-        }
-        if (bins == null) {
-            bins = idxValues;//(int[]) idxVariable.read().copyTo1DJavaArray();
-        }
-        final Point gridPoint = new Point();
-        int lastBinIndex = -1;
-        int lastRowIndex = -1;
-        int lineOffset = 0;
-        int lineLength = 0;
-        for (int i = 0; i < idxValues.length; i++) {
-
-            final int binIndex = idxValues[i];
-            if (binIndex < lastBinIndex) {
-                throw new IOException(
-                        "Unrecognized level-3 format. Bins numbers expected to appear in ascending order.");
+    private synchronized BinRowIndex getBinRowIndex() throws IOException {
+        if (binRowIndex == null) {
+            final Variable idxVariable = ncFile.getRootGroup().findGroup("Level-3_Binned_Data").findVariable("BinList");
+            final Structure idxStructure = (Structure) idxVariable;
+            final Variable idx = idxStructure.findVariable("bin_num");
+            final int[] idxValues;
+            synchronized (ncFile) {
+                idxValues = (int[]) idx.read().getStorage();
             }
-            lastBinIndex = binIndex;
+            binRowIndex = new BinRowIndex(grid, idxValues, sceneWidth, MAX_CACHED_ROWS);
+        }
+        return binRowIndex;
+    }
 
-            grid.getGridPoint(binIndex, gridPoint);
-            final int rowIndex = gridPoint.y;
+    private static final class RowKey {
 
-            if (rowIndex != lastRowIndex) {
-                if (lineLength > 0) {
-                    binLines[lastRowIndex] = new RowInfo(lineOffset, lineLength);
-                }
-                lineOffset = i;
-                lineLength = 0;
-            }
+        final Variable variable;
+        final int rowIndex;
 
-            lineLength++;
-            lastRowIndex = rowIndex;
+        RowKey(Variable variable, int rowIndex) {
+            this.variable = variable;
+            this.rowIndex = rowIndex;
         }
 
-        if (lineLength > 0) {
-            binLines[lastRowIndex] = new RowInfo(lineOffset, lineLength);
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            final RowKey other = (RowKey) o;
+            return rowIndex == other.rowIndex && variable == other.variable;
         }
 
-        return binLines;
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(variable) + rowIndex;
+        }
     }
 
-    private static final class RowInfo {
+    /**
+     * Least recently used row data, bounded by the total number of bins.
+     */
+    private static final class RowDataCache {
+
+        private final int maxBinCount;
+        private final LinkedHashMap<RowKey, Object> rows;
+        private int binCount;
+
+        RowDataCache(int maxBinCount) {
+            this.maxBinCount = maxBinCount;
+            rows = new LinkedHashMap<>(64, 0.75f, true);
+        }
 
-        // offset of row within file
-        final int offset;
-        // number of bins per row
-        final int length;
+        synchronized Object get(RowKey key) {
+            return rows.get(key);
+        }
 
-        public RowInfo(int offset, int length) {
-            this.offset = offset;
-            this.length = length;
+        synchronized void put(RowKey key, Object bindata, int length) {
+            if (rows.put(key, bindata) == null) {
+                binCount += length;
+            }
+            final Iterator<Map.Entry<RowKey, Object>> iterator = rows.entrySet().iterator();
+            while (binCount > maxBinCount && iterator.hasNext()) {
+                final Map.Entry<RowKey, Object> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    break;
+                }
+                binCount -= java.lang.reflect.Array.getLength(eldest.getValue());
+                iterator.remove();
+            }
         }
     }
 
@@ -0,0 +1,100 @@
+package gov.nasa.gsfc.seadas.dataio;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CenterLineIndexTest {
+
+    @Test
+    public void testFindNearestStripe() {
+        final List<AbstractBowtieGeoCoding.PolyLine> centerLines = createCenterLines(50);
+        final CenterLineIndex index = new CenterLineIndex(centerLines);
+
+        Assert.assertEquals(0, index.findNearestStripe(10.5, 40.0));
+        Assert.assertEquals(7, index.findNearestStripe(10.0, 40.0 + 7 * 0.1 + 0.04));
+        Assert.assertEquals(8, index.findNearestStripe(10.0, 40.0 + 7 * 0.1 + 0.06));
+        Assert.assertEquals(49, index.findNearestStripe(12.0, 60.0));
+        Assert.assertEquals(23, index.findNearestStripe(15.0, 40.0 + 23 * 0.1));
+    }
+
+    @Test
+    public void testFindNearestStripeSkipsStripesWithoutCenterLine() {
+        final List<AbstractBowtieGeoCoding.PolyLine> centerLines = createCenterLines(20);
+        centerLines.set(0, null);
+        centerLines.set(5, null);
+        centerLines.set(19, null);
+        final CenterLineIndex index = new CenterLineIndex(centerLines);
+
+        Assert.assertEquals(1, index.findNearestStripe(10.0, 30.0));
+        Assert.assertEquals(4, index.findNearestStripe(10.0, 40.0 + 5 * 0.1 - 0.01));
+        Assert.assertEquals(6, index.findNearestStripe(10.0, 40.0 + 5 * 0.1 + 0.01));
+        Assert.assertEquals(18, index.findNearestStripe(10.0, 50.0));
+    }
+
+    @Test
+    public void testFindNearestStripeWithoutCenterLines() {
+        final List<AbstractBowtieGeoCoding.PolyLine> centerLines = new ArrayList<>();
+        centerLines.add(null);
+        centerLines.add(null);
+        Assert.assertEquals(-1, new CenterLineIndex(centerLines).findNearestStripe(10.0, 40.0));
+    }
+
+    @Test
+    public void testFindNearestStripeEqualsExhaustiveSearch() {
+        final Random random = new Random(5);
+        final List<AbstractBowtieGeoCoding.PolyLine> centerLines = new ArrayList<>();
+        for (int i = 0; i < 203; i++) {
+            if (random.nextInt(10) == 0) {
+                centerLines.add(null);
+                continue;
+            }
+            final AbstractBowtieGeoCoding.PolyLine polyLine = new AbstractBowtieGeoCoding.PolyLine();
+            // curved, slightly overlapping stripes
+            for (int j = 0; j <= 20; j++) {
+                final double lon = -20.0 + 2.0 * j;
+                final double lat = -50.0 + 0.5 * i + 0.01 * (j - 10) * (j - 10) + 0.2 * random.nextDouble();
+                if (j == 0) {
+                    polyLine.moveTo(lon, lat);
+                } else {
+                    polyLine.lineTo(lon, lat);
+                }
+            }
+            centerLines.add(polyLine);
+        }
+        final CenterLineIndex index = new CenterLineIndex(centerLines);
+
+        for (int k = 0; k < 1000; k++) {
+            final double lon = -40.0 + 80.0 * random.nextDouble();
+            final double lat = -70.0 + 140.0 * random.nextDouble();
+            int expected = -1;
+            double smallestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < centerLines.size(); i++) {
+                if (centerLines.get(i) != null) {
+                    final double distance = centerLines.get(i).getDistance(lon, lat);
+                    if (expected == -1 || distance < smallestDistance) {
+                        smallestDistance = distance;
+                        expected = i;
+                    }
+                }
+            }
+            Assert.assertEquals(expected, index.findNearestStripe(lon, lat));
+        }
+    }
+
+    private static List<AbstractBowtieGeoCoding.PolyLine> createCenterLines(int stripeCount) {
+        final List<AbstractBowtieGeoCoding.PolyLine> centerLines = new ArrayList<>();
+        for (int i = 0; i < stripeCount; i++) {
+            final AbstractBowtieGeoCoding.PolyLine polyLine = new AbstractBowtieGeoCoding.PolyLine();
+            final double lat = 40.0 + i * 0.1;
+            polyLine.moveTo(5.0, lat);
+            polyLine.lineTo(10.0, lat);
+            polyLine.lineTo(15.0, lat);
+            centerLines.add(polyLine);
+        }
+        return centerLines;
+    }
+}
@@ -0,0 +1,108 @@
+package gov.nasa.gsfc.seadas.dataio;
+
+import org.esa.s3tbx.dataio.merisl3.BinRowIndex;
+import org.esa.s3tbx.dataio.merisl3.ISINGrid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Structure;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Reads rows of bins as {@link L3BinFileReader} does. The bin list of a NetCDF-3 file opened with a record
+ * structure is a structure like the bin list of a SeaDAS L3 bin file.
+ */
+public class L3BinFileReaderTest {
+
+    private static final int ROW_COUNT = 6;
+    // column of the bins in the rows 1, 2 and 4 of the grid
+    private static final int[][] BIN_COLUMNS = {{}, {3}, {0, 5, 6}, {}, {1, 2}, {}};
+    private static final float[] WEIGHTS = {1.0f, 1.5f, 2.0f, 2.5f, 3.0f, 3.5f};
+    private static final short[] NOBS = {1, 2, 3, 4, 5, 6};
+    private static final byte[] QUALITY = {0, 1, 2, 0, 1, 2};
+
+    private ISINGrid grid;
+    private int[] binNumbers;
+    private File file;
+    private NetcdfFile ncFile;
+
+    @Before
+    public void setUp() throws IOException, InvalidRangeException {
+        grid = new ISINGrid(ROW_COUNT);
+        binNumbers = new int[WEIGHTS.length];
+        for (int row = 0, i = 0; row < ROW_COUNT; row++) {
+            for (int column : BIN_COLUMNS[row]) {
+                binNumbers[i++] = grid.getBinOffset(row) + column;
+            }
+        }
+
+        file = Files.createTempFile("l3bin", ".nc").toFile();
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getPath());
+        writer.addUnlimitedDimension("binListDim");
+        writer.addDimension(null, "binDataDim", binNumbers.length);
+        final Variable binNum = writer.addVariable(null, "bin_num", DataType.INT, "binListDim");
+        final Variable weights = writer.addVariable(null, "weights", DataType.FLOAT, "binListDim");
+        final Variable nobs = writer.addVariable(null, "nobs", DataType.SHORT, "binListDim");
+        final Variable quality = writer.addVariable(null, "qual_l3", DataType.BYTE, "binDataDim");
+        writer.create();
+        final int[] shape = {binNumbers.length};
+        writer.write(binNum, Array.factory(DataType.INT, shape, binNumbers));
+        writer.write(weights, Array.factory(DataType.FLOAT, shape, WEIGHTS));
+        writer.write(nobs, Array.factory(DataType.SHORT, shape, NOBS));
+        writer.write(quality, Array.factory(DataType.BYTE, shape, QUALITY));
+        writer.close();
+
+        ncFile = NetcdfFile.open(file.getPath(), -1, null, NetcdfFile.IOSP_MESSAGE_ADD_RECORD_STRUCTURE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        ncFile.close();
+        Files.delete(file.toPath());
+    }
+
+    @Test
+    public void testReadBinsOfStructureMembers() throws IOException, InvalidRangeException {
+        final Structure binList = (Structure) ncFile.findVariable("record");
+        assertNotNull(binList);
+        // selected like the bands of the reader
+        final Variable weights = binList.select("weights").findVariable("weights");
+        final Variable nobs = binList.select("nobs").findVariable("nobs");
+        final BinRowIndex binRowIndex = new BinRowIndex(grid, binNumbers, 2 * ROW_COUNT, 4);
+
+        assertEquals(3, binRowIndex.getLength(2));
+        assertArrayEquals(new float[]{1.5f, 2.0f, 2.5f},
+                          (float[]) readRow(weights, binRowIndex, 2), 0.0f);
+        assertArrayEquals(new short[]{5, 6}, (short[]) readRow(nobs, binRowIndex, 4));
+        assertArrayEquals(new float[]{1.0f}, (float[]) readRow(weights, binRowIndex, 1), 0.0f);
+    }
+
+    @Test
+    public void testReadBinsOfVariable() throws IOException, InvalidRangeException {
+        final Variable quality = ncFile.findVariable("qual_l3");
+        assertNotNull(quality);
+        assertNull(quality.getParentStructure());
+        final BinRowIndex binRowIndex = new BinRowIndex(grid, binNumbers, 2 * ROW_COUNT, 4);
+
+        assertArrayEquals(new byte[]{1, 2, 0}, (byte[]) readRow(quality, binRowIndex, 2));
+    }
+
+    private static Object readRow(Variable variable, BinRowIndex binRowIndex, int rowIndex)
+            throws IOException, InvalidRangeException {
+        return L3BinFileReader.readBins(variable, binRowIndex.getOffset(rowIndex), binRowIndex.getLength(rowIndex));
+    }
+}